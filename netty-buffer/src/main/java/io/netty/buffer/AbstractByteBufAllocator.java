@@ -21,6 +21,8 @@ import io.netty.util.ResourceLeakTracker;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
+import java.util.List;
+
 /**
  * Skeletal {@link ByteBufAllocator} implementation to extend.
  */
@@ -31,6 +33,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
     static final int CALCULATE_THRESHOLD = 1048576 * 4; // 4 MiB page
     private final boolean directByDefault;
     private final ByteBuf emptyBuf;
+    private final AllocationProfiler profiler = new AllocationProfiler(AllocationProfiler.DEFAULT_SAMPLING_INTERVAL);
 
     /**
      * Instance use heap buffers by default
@@ -49,6 +52,30 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
         emptyBuf = new EmptyByteBuf(this);
     }
 
+    /**
+     * Enables the sampling allocation profiler, which records the call site of about every
+     * {@code samplingInterval}-th heap and direct buffer allocated by this allocator until it is released. The
+     * results are exposed via {@link ProfilingByteBufAllocatorMetric#allocationSites()} if the allocator provides
+     * such a metric. Sampling every allocation is expensive, {@code 1000} is cheap enough for production use.
+     *
+     * @param samplingInterval the sampling interval or {@code 0} to disable profiling, which is the default unless
+     *                         set via {@code -Dio.netty.allocator.profilingSamplingInterval}
+     */
+    public final void setAllocationSamplingInterval(int samplingInterval) {
+        profiler.samplingInterval(samplingInterval);
+    }
+
+    /**
+     * Returns the sampling interval of the allocation profiler or {@code 0} if profiling is disabled.
+     */
+    public final int allocationSamplingInterval() {
+        return profiler.samplingInterval();
+    }
+
+    final List<AllocationSiteMetric> allocationSites() {
+        return profiler.allocationSites();
+    }
+
     protected static ByteBuf toLeakAwareBuffer(ByteBuf buf) {
         ResourceLeakTracker<ByteBuf> leak;
         switch (ResourceLeakDetector.getLevel()) {
@@ -60,6 +87,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
                 break;
             case ADVANCED:
             case PARANOID:
+            case SAMPLED:
                 leak = AbstractByteBuf.leakDetector.track(buf);
                 if (leak != null) {
                     buf = new AdvancedLeakAwareByteBuf(buf, leak);
@@ -82,6 +110,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
                 break;
             case ADVANCED:
             case PARANOID:
+            case SAMPLED:
                 leak = AbstractByteBuf.leakDetector.track(buf);
                 if (leak != null) {
                     buf = new AdvancedLeakAwareCompositeByteBuf(buf, leak);
@@ -168,7 +197,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
             return emptyBuf;
         }
         validate(initialCapacity, maxCapacity);
-        return newHeapBuffer(initialCapacity, maxCapacity);
+        return profiler.track(newHeapBuffer(initialCapacity, maxCapacity));
     }
 
     @Override
@@ -187,7 +216,7 @@ public abstract class AbstractByteBufAllocator implements ByteBufAllocator {
             return emptyBuf;
         }
         validate(initialCapacity, maxCapacity);
-        return newDirectBuffer(initialCapacity, maxCapacity);
+        return profiler.track(newDirectBuffer(initialCapacity, maxCapacity));
     }
 
     @Override
@@ -17,6 +17,8 @@
 package io.netty.buffer;
 
 import io.netty.util.ByteProcessor;
+import io.netty.util.ResourceLeakDetector;
+import io.netty.util.ResourceLeakDetector.Level;
 import io.netty.util.ResourceLeakTracker;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
@@ -56,7 +58,8 @@ final class AdvancedLeakAwareByteBuf extends SimpleLeakAwareByteBuf {
     }
 
     static void recordLeakNonRefCountingOperation(ResourceLeakTracker<ByteBuf> leak) {
-        if (!ACQUIRE_AND_RELEASE_ONLY) {
+        // Level.SAMPLED only records the last retain(), release() or touch() to keep its overhead low.
+        if (!ACQUIRE_AND_RELEASE_ONLY && ResourceLeakDetector.getLevel() != Level.SAMPLED) {
             leak.record();
         }
     }
@@ -0,0 +1,262 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.ResourceLeakTracker;
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * Records the call site of a sample of the buffers allocated by an {@link AbstractByteBufAllocator} and tracks them
+ * until they are released.
+ * <p>
+ * A sampled buffer is wrapped like a buffer tracked by the {@link io.netty.util.ResourceLeakDetector}, but with a
+ * {@link ResourceLeakTracker} which only updates the counters of its call site when the buffer is released. So
+ * there is no {@link java.lang.ref.PhantomReference} and no stack trace per access, and the only cost of the
+ * allocations which are not sampled is a random number.
+ */
+final class AllocationProfiler {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(AllocationProfiler.class);
+
+    static final int DEFAULT_SAMPLING_INTERVAL;
+    // Limits the memory used for call sites if buffers are allocated from an unexpected number of places.
+    private static final int MAX_CALL_SITES = 1024;
+    private static final String OTHER_CALL_SITES = "<other>";
+    private static final String UNKNOWN_CALL_SITE = "<unknown>";
+    // Methods of Netty which only delegate to an allocator, like the ones of Unpooled or of wrapping allocators.
+    private static final Set<String> ALLOCATION_METHODS = new HashSet<String>(Arrays.asList(
+            "buffer", "heapBuffer", "directBuffer", "ioBuffer", "newHeapBuffer", "newDirectBuffer"));
+    private static final Comparator<AllocationSiteMetric> ACTIVE_BYTES_DESCENDING =
+            new Comparator<AllocationSiteMetric>() {
+        @Override
+        public int compare(AllocationSiteMetric o1, AllocationSiteMetric o2) {
+            long a = o1.numActiveBytes();
+            long b = o2.numActiveBytes();
+            return a > b ? -1 : a == b ? 0 : 1;
+        }
+    };
+
+    static {
+        DEFAULT_SAMPLING_INTERVAL = Math.max(0,
+                SystemPropertyUtil.getInt("io.netty.allocator.profilingSamplingInterval", 0));
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.allocator.profilingSamplingInterval: {}", DEFAULT_SAMPLING_INTERVAL);
+        }
+    }
+
+    private final ConcurrentMap<String, CallSite> callSites = PlatformDependent.newConcurrentHashMap();
+    private volatile int samplingInterval;
+
+    AllocationProfiler(int samplingInterval) {
+        samplingInterval(samplingInterval);
+    }
+
+    int samplingInterval() {
+        return samplingInterval;
+    }
+
+    void samplingInterval(int samplingInterval) {
+        this.samplingInterval = checkPositiveOrZero(samplingInterval, "samplingInterval");
+    }
+
+    /**
+     * Returns {@code buf} itself if it was not sampled, or a wrapper which updates the counters of the call site
+     * when it is released.
+     */
+    ByteBuf track(ByteBuf buf) {
+        final int interval = samplingInterval;
+        if (interval == 0 || interval > 1 && PlatformDependent.threadLocalRandom().nextInt(interval) != 0) {
+            return buf;
+        }
+        CallSite site = callSite(callSiteName(new Throwable().getStackTrace()));
+        return new SimpleLeakAwareByteBuf(buf, site.allocated(buf.capacity(), interval));
+    }
+
+    private CallSite callSite(String name) {
+        CallSite site = callSites.get(name);
+        if (site != null) {
+            return site;
+        }
+        if (callSites.size() >= MAX_CALL_SITES) {
+            name = OTHER_CALL_SITES;
+            site = callSites.get(name);
+            if (site != null) {
+                return site;
+            }
+        }
+        CallSite newSite = new CallSite(name);
+        site = callSites.putIfAbsent(name, newSite);
+        return site != null ? site : newSite;
+    }
+
+    static String callSiteName(StackTraceElement[] frames) {
+        for (StackTraceElement frame : frames) {
+            if (!isAllocatorFrame(frame)) {
+                return frame.toString();
+            }
+        }
+        return UNKNOWN_CALL_SITE;
+    }
+
+    private static boolean isAllocatorFrame(StackTraceElement frame) {
+        String className = frame.getClassName();
+        if (className.equals(AllocationProfiler.class.getName()) ||
+                className.equals(AbstractByteBufAllocator.class.getName())) {
+            return true;
+        }
+        return className.startsWith("io.netty.") && ALLOCATION_METHODS.contains(frame.getMethodName());
+    }
+
+    List<AllocationSiteMetric> allocationSites() {
+        List<AllocationSiteMetric> sites = new ArrayList<AllocationSiteMetric>(callSites.size());
+        for (CallSite site : callSites.values()) {
+            // Sort a snapshot as the counters may change concurrently.
+            sites.add(new Snapshot(site));
+        }
+        Collections.sort(sites, ACTIVE_BYTES_DESCENDING);
+        return Collections.unmodifiableList(sites);
+    }
+
+    private static final class CallSite {
+        final String name;
+        final LongCounter allocations = PlatformDependent.newLongCounter();
+        final LongCounter allocatedBytes = PlatformDependent.newLongCounter();
+        final LongCounter activeAllocations = PlatformDependent.newLongCounter();
+        final LongCounter activeBytes = PlatformDependent.newLongCounter();
+
+        CallSite(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Counts a sampled allocation as {@code weight} allocations of {@code capacity} bytes.
+         */
+        Tracker allocated(int capacity, int weight) {
+            long bytes = (long) capacity * weight;
+            allocations.add(weight);
+            allocatedBytes.add(bytes);
+            activeAllocations.add(weight);
+            activeBytes.add(bytes);
+            return new Tracker(this, weight, bytes);
+        }
+
+        void released(int weight, long bytes) {
+            activeAllocations.add(-weight);
+            activeBytes.add(-bytes);
+        }
+    }
+
+    private static final class Tracker implements ResourceLeakTracker<ByteBuf> {
+        private static final AtomicIntegerFieldUpdater<Tracker> closedUpdater =
+                AtomicIntegerFieldUpdater.newUpdater(Tracker.class, "closed");
+
+        private final CallSite site;
+        private final int weight;
+        private final long bytes;
+        @SuppressWarnings("unused")
+        private volatile int closed;
+
+        Tracker(CallSite site, int weight, long bytes) {
+            this.site = site;
+            this.weight = weight;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public void record() {
+            // NOOP
+        }
+
+        @Override
+        public void record(Object hint) {
+            // NOOP
+        }
+
+        @Override
+        public boolean close(ByteBuf trackedObject) {
+            if (closedUpdater.compareAndSet(this, 0, 1)) {
+                site.released(weight, bytes);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    private static final class Snapshot implements AllocationSiteMetric {
+        private final String callSite;
+        private final long numAllocations;
+        private final long numAllocatedBytes;
+        private final long numActiveAllocations;
+        private final long numActiveBytes;
+
+        Snapshot(CallSite site) {
+            callSite = site.name;
+            numAllocations = site.allocations.value();
+            numAllocatedBytes = site.allocatedBytes.value();
+            numActiveAllocations = site.activeAllocations.value();
+            numActiveBytes = site.activeBytes.value();
+        }
+
+        @Override
+        public String callSite() {
+            return callSite;
+        }
+
+        @Override
+        public long numAllocations() {
+            return numAllocations;
+        }
+
+        @Override
+        public long numAllocatedBytes() {
+            return numAllocatedBytes;
+        }
+
+        @Override
+        public long numActiveAllocations() {
+            return numActiveAllocations;
+        }
+
+        @Override
+        public long numActiveBytes() {
+            return numActiveBytes;
+        }
+
+        @Override
+        public String toString() {
+            return StringUtil.simpleClassName(AllocationSiteMetric.class) + '(' + callSite +
+                    ", allocations: " + numAllocations + ", allocatedBytes: " + numAllocatedBytes +
+                    ", activeAllocations: " + numActiveAllocations + ", activeBytes: " + numActiveBytes + ')';
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+/**
+ * Metrics for the buffers allocated from one call site, as recorded when allocation profiling is enabled via
+ * {@link AbstractByteBufAllocator#setAllocationSamplingInterval(int)}.
+ * <p>
+ * Only a sample of all allocations is recorded, so all values are estimates which are scaled by the sampling
+ * interval. The counters never decrease, so the allocation rate of a call site is the difference of two readings
+ * divided by the time between them.
+ */
+public interface AllocationSiteMetric {
+
+    /**
+     * Return the first stack frame outside of the allocator which allocated the buffers, for example
+     * {@code com.example.MyHandler.channelRead(MyHandler.java:42)}.
+     */
+    String callSite();
+
+    /**
+     * Return the estimated number of buffers allocated from this call site.
+     */
+    long numAllocations();
+
+    /**
+     * Return the estimated sum of the initial capacities of all buffers allocated from this call site.
+     */
+    long numAllocatedBytes();
+
+    /**
+     * Return the estimated number of buffers allocated from this call site which were not released yet.
+     */
+    long numActiveAllocations();
+
+    /**
+     * Return the estimated sum of the initial capacities of all buffers allocated from this call site which were not
+     * released yet.
+     */
+    long numActiveBytes();
+}
@@ -59,6 +59,8 @@ public final class ByteBufUtil {
         }
     };
     private static final byte WRITE_UTF_UNKNOWN = (byte) '?';
+    // Searches shorter than this are not worth to be done a word at a time.
+    private static final int SWAR_MIN_LENGTH = 16;
     private static final int MAX_CHAR_BUFFER_SIZE;
     private static final int THREAD_LOCAL_BUFFER_SIZE;
     private static final int MAX_BYTES_PER_CHAR_UTF8 =
@@ -172,14 +174,25 @@ public final class ByteBufUtil {
      * Returns the reader index of needle in haystack, or -1 if needle is not in haystack.
      */
     public static int indexOf(ByteBuf needle, ByteBuf haystack) {
-        // TODO: maybe use Boyer Moore for efficiency.
-        int attempts = haystack.readableBytes() - needle.readableBytes() + 1;
-        for (int i = 0; i < attempts; i++) {
-            if (equals(needle, needle.readerIndex(),
-                    haystack, haystack.readerIndex() + i,
-                    needle.readableBytes())) {
-                return haystack.readerIndex() + i;
+        final int needleLength = needle.readableBytes();
+        int haystackIndex = haystack.readerIndex();
+        if (needleLength == 0) {
+            return haystackIndex;
+        }
+        final int needleIndex = needle.readerIndex();
+        final byte first = needle.getByte(needleIndex);
+        // The last index at which the needle may start plus one.
+        final int end = haystack.writerIndex() - needleLength + 1;
+        while (haystackIndex < end) {
+            // Only compare the whole needle where its first byte matches, which is found 8 bytes at a time.
+            int i = firstIndexOf(haystack, haystackIndex, end, first);
+            if (i < 0) {
+                return -1;
+            }
+            if (equals(needle, needleIndex, haystack, i, needleLength)) {
+                return i;
             }
+            haystackIndex = i + 1;
         }
         return -1;
     }
@@ -253,11 +266,16 @@ public final class ByteBufUtil {
         final int aLen = bufferA.readableBytes();
         final int bLen = bufferB.readableBytes();
         final int minLength = Math.min(aLen, bLen);
-        final int uintCount = minLength >>> 2;
-        final int byteCount = minLength & 3;
         int aIndex = bufferA.readerIndex();
         int bIndex = bufferB.readerIndex();
 
+        // Skip the common prefix 8 bytes at a time, the first difference is then found by the loops below.
+        final int skipped = commonPrefixLongs(bufferA, aIndex, bufferB, bIndex, minLength >>> 3) << 3;
+        aIndex += skipped;
+        bIndex += skipped;
+        final int uintCount = (minLength - skipped) >>> 2;
+        final int byteCount = (minLength - skipped) & 3;
+
         if (uintCount > 0) {
             boolean bufferAIsBigEndian = bufferA.order() == ByteOrder.BIG_ENDIAN;
             final long res;
@@ -288,6 +306,20 @@ public final class ByteBufUtil {
         return aLen - bLen;
     }
 
+    /**
+     * Returns the number of equal longs at the start of the given regions, comparing at most {@code longCount}.
+     */
+    private static int commonPrefixLongs(ByteBuf bufferA, int aIndex, ByteBuf bufferB, int bIndex, int longCount) {
+        final boolean sameOrder = bufferA.order() == bufferB.order();
+        for (int i = 0; i < longCount; i++, aIndex += 8, bIndex += 8) {
+            long b = bufferB.getLong(bIndex);
+            if (bufferA.getLong(aIndex) != (sameOrder ? b : swapLong(b))) {
+                return i;
+            }
+        }
+        return longCount;
+    }
+
     private static long compareUintBigEndian(
             ByteBuf bufferA, ByteBuf bufferB, int aIndex, int bIndex, int uintCountIncrement) {
         for (int aEnd = aIndex + uintCountIncrement; aIndex < aEnd; aIndex += 4, bIndex += 4) {
@@ -398,6 +430,9 @@ public final class ByteBufUtil {
         if (fromIndex >= toIndex || buffer.capacity() == 0) {
             return -1;
         }
+        if (useSwar(buffer, toIndex - fromIndex, toIndex)) {
+            return firstIndexOfSwar(buffer, fromIndex, toIndex, value);
+        }
 
         return buffer.forEachByte(fromIndex, toIndex - fromIndex, new ByteProcessor.IndexOfProcessor(value));
     }
@@ -407,10 +442,79 @@ public final class ByteBufUtil {
         if (fromIndex < 0 || buffer.capacity() == 0) {
             return -1;
         }
+        if (toIndex >= 0 && useSwar(buffer, fromIndex - toIndex, fromIndex)) {
+            return lastIndexOfSwar(buffer, fromIndex, toIndex, value);
+        }
 
         return buffer.forEachByteDesc(toIndex, fromIndex - toIndex, new ByteProcessor.IndexOfProcessor(value));
     }
 
+    /**
+     * Returns {@code true} if searching {@code length} bytes ending at {@code endIndex} should be done a word at a
+     * time. This is only done for buffers with a single backing array or memory region as {@link ByteBuf#getLong(int)}
+     * is cheap for them, while {@link ByteBuf#forEachByte(ByteProcessor)} is better for composite buffers.
+     */
+    private static boolean useSwar(ByteBuf buffer, int length, int endIndex) {
+        // Out of bounds searches are left to forEachByte(...) which throws the expected exception.
+        return length >= SWAR_MIN_LENGTH && endIndex <= buffer.capacity() &&
+                (buffer.hasArray() || buffer.hasMemoryAddress());
+    }
+
+    /**
+     * Returns a word which has the highest bit of each byte set where the same byte of {@code word} is {@code 0}
+     * and all other bits cleared. In contrast to the well known {@code (word - 0x01..) & ~word & 0x80..} this
+     * never reports false positives, so the position of any set bit can be used.
+     */
+    private static long zeroBytes(long word) {
+        long tmp = (word & 0x7F7F7F7F7F7F7F7FL) + 0x7F7F7F7F7F7F7F7FL;
+        return ~(tmp | word | 0x7F7F7F7F7F7F7F7FL);
+    }
+
+    private static long swarPattern(byte value) {
+        return (value & 0xFFL) * 0x0101010101010101L;
+    }
+
+    private static int firstIndexOfSwar(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        final long pattern = swarPattern(value);
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        int i = fromIndex;
+        for (final int longEnd = toIndex - 7; i < longEnd; i += 8) {
+            long found = zeroBytes(buffer.getLong(i) ^ pattern);
+            if (found != 0) {
+                // The byte at the lowest index is the most significant one for big endian buffers.
+                int zeros = bigEndian ? Long.numberOfLeadingZeros(found) : Long.numberOfTrailingZeros(found);
+                return i + (zeros >>> 3);
+            }
+        }
+        for (; i < toIndex; i++) {
+            if (buffer.getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfSwar(ByteBuf buffer, int fromIndex, int toIndex, byte value) {
+        final long pattern = swarPattern(value);
+        final boolean bigEndian = buffer.order() == ByteOrder.BIG_ENDIAN;
+        // Search the bytes in [toIndex, fromIndex) starting from the end.
+        int i = fromIndex - 8;
+        for (; i >= toIndex; i -= 8) {
+            long found = zeroBytes(buffer.getLong(i) ^ pattern);
+            if (found != 0) {
+                // The byte at the highest index is the least significant one for big endian buffers.
+                int zeros = bigEndian ? Long.numberOfTrailingZeros(found) : Long.numberOfLeadingZeros(found);
+                return i + 7 - (zeros >>> 3);
+            }
+        }
+        for (i += 7; i >= toIndex; i--) {
+            if (buffer.getByte(i) == value) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
     /**
      * Encode a {@link CharSequence} in <a href="http://en.wikipedia.org/wiki/UTF-8">UTF-8</a> and write
      * it to a {@link ByteBuf} allocated with {@code alloc}.
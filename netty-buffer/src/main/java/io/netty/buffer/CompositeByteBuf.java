@@ -28,12 +28,12 @@ import java.nio.channels.FileChannel;
 import java.nio.channels.GatheringByteChannel;
 import java.nio.channels.ScatteringByteChannel;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.NoSuchElementException;
 
 /**
@@ -45,12 +45,18 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     private static final ByteBuffer EMPTY_NIO_BUFFER = Unpooled.EMPTY_BUFFER.nioBuffer();
     private static final Iterator<ByteBuf> EMPTY_ITERATOR = Collections.<ByteBuf>emptyList().iterator();
+    private static final Component[] EMPTY_COMPONENTS = new Component[0];
 
     private final ByteBufAllocator alloc;
     private final boolean direct;
-    private final List<Component> components;
     private final int maxNumComponents;
 
+    // The components are kept in a flat array ordered by their offset, which is cached in each component.
+    private Component[] components;
+    private int componentCount;
+    // Index of the component which was found last, so sequential access does not need to search.
+    private int lastAccessedIndex;
+
     private boolean freed;
 
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents) {
@@ -61,7 +67,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
-        components = newList(maxNumComponents);
+        components = newArray(maxNumComponents);
     }
 
     public CompositeByteBuf(ByteBufAllocator alloc, boolean direct, int maxNumComponents, ByteBuf... buffers) {
@@ -82,7 +88,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
-        components = newList(maxNumComponents);
+        components = newArray(maxNumComponents);
 
         addComponents0(false, 0, buffers, offset, len);
         consolidateIfNeeded();
@@ -103,7 +109,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         this.alloc = alloc;
         this.direct = direct;
         this.maxNumComponents = maxNumComponents;
-        components = newList(maxNumComponents);
+        components = newArray(maxNumComponents);
 
         addComponents0(false, 0, buffers);
         consolidateIfNeeded();
@@ -116,11 +122,61 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         this.alloc = alloc;
         direct = false;
         maxNumComponents = 0;
-        components = Collections.emptyList();
+        components = EMPTY_COMPONENTS;
+    }
+
+    private static Component[] newArray(int maxNumComponents) {
+        return new Component[Math.max(1, Math.min(AbstractByteBufAllocator.DEFAULT_MAX_COMPONENTS, maxNumComponents))];
+    }
+
+    /**
+     * Makes room for {@code count} components at {@code cIndex} by moving all following components. The new slots
+     * must be filled by the caller.
+     */
+    private void shiftComps(int cIndex, int count) {
+        final int size = componentCount;
+        final int newSize = size + count;
+        if (newSize > components.length) {
+            // Grow by 50% at least so adding many single components stays cheap.
+            int newArrayLength = Math.max(newSize, size + (size >> 1));
+            Component[] newArray = new Component[newArrayLength];
+            System.arraycopy(components, 0, newArray, 0, cIndex);
+            System.arraycopy(components, cIndex, newArray, cIndex + count, size - cIndex);
+            components = newArray;
+        } else if (cIndex < size) {
+            System.arraycopy(components, cIndex, components, cIndex + count, size - cIndex);
+        }
+        componentCount = newSize;
+    }
+
+    private void addComp(int cIndex, Component c) {
+        shiftComps(cIndex, 1);
+        components[cIndex] = c;
+    }
+
+    private void removeComp(int cIndex) {
+        removeCompRange(cIndex, cIndex + 1);
+    }
+
+    /**
+     * Removes the components in the range {@code [from, to)} without releasing them.
+     */
+    private void removeCompRange(int from, int to) {
+        if (from >= to) {
+            return;
+        }
+        final int size = componentCount;
+        if (to < size) {
+            System.arraycopy(components, to, components, from, size - to);
+        }
+        int newSize = size - to + from;
+        // Null out the unused slots so the removed components can be collected.
+        Arrays.fill(components, newSize, size, null);
+        componentCount = newSize;
     }
 
-    private static List<Component> newList(int maxNumComponents) {
-        return new ArrayList<Component>(Math.min(AbstractByteBufAllocator.DEFAULT_MAX_COMPONENTS, maxNumComponents));
+    private void clearComps() {
+        removeCompRange(0, componentCount);
     }
 
     /**
@@ -197,7 +253,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      */
     public CompositeByteBuf addComponent(boolean increaseWriterIndex, ByteBuf buffer) {
         checkNotNull(buffer, "buffer");
-        addComponent0(increaseWriterIndex, components.size(), buffer);
+        addComponent0(increaseWriterIndex, componentCount, buffer);
         consolidateIfNeeded();
         return this;
     }
@@ -213,7 +269,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      * ownership of all {@link ByteBuf} objects is transfered to this {@link CompositeByteBuf}.
      */
     public CompositeByteBuf addComponents(boolean increaseWriterIndex, ByteBuf... buffers) {
-        addComponents0(increaseWriterIndex, components.size(), buffers, 0, buffers.length);
+        addComponents0(increaseWriterIndex, componentCount, buffers, 0, buffers.length);
         consolidateIfNeeded();
         return this;
     }
@@ -229,7 +285,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      * ownership of all {@link ByteBuf} objects is transfered to this {@link CompositeByteBuf}.
      */
     public CompositeByteBuf addComponents(boolean increaseWriterIndex, Iterable<ByteBuf> buffers) {
-        addComponents0(increaseWriterIndex, components.size(), buffers);
+        addComponents0(increaseWriterIndex, componentCount, buffers);
         consolidateIfNeeded();
         return this;
     }
@@ -263,19 +319,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             int readableBytes = buffer.readableBytes();
 
             // No need to consolidate - just add a component to the list.
-            @SuppressWarnings("deprecation")
-            Component c = new Component(buffer.order(ByteOrder.BIG_ENDIAN).slice());
-            if (cIndex == components.size()) {
-                wasAdded = components.add(c);
+            Component c = newComponent(buffer);
+            if (cIndex == componentCount) {
+                addComp(cIndex, c);
+                wasAdded = true;
                 if (cIndex == 0) {
                     c.endOffset = readableBytes;
                 } else {
-                    Component prev = components.get(cIndex - 1);
+                    Component prev = components[cIndex - 1];
                     c.offset = prev.endOffset;
                     c.endOffset = c.offset + readableBytes;
                 }
             } else {
-                components.add(cIndex, c);
+                addComp(cIndex, c);
                 wasAdded = true;
                 if (readableBytes != 0) {
                     updateComponentOffsets(cIndex);
@@ -292,6 +348,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
     }
 
+    @SuppressWarnings("deprecation")
+    private static Component newComponent(ByteBuf buffer) {
+        return new Component(buffer.order(ByteOrder.BIG_ENDIAN).slice());
+    }
+
     /**
      * Add the given {@link ByteBuf}s on the specific index
      * <p>
@@ -319,18 +380,33 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         try {
             checkComponentIndex(cIndex);
 
-            // No need for consolidation
-            while (i < len) {
-                // Increment i now to prepare for the next iteration and prevent a duplicate release (addComponent0
-                // will release if an exception occurs, and we also release in the finally block here).
-                ByteBuf b = buffers[i++];
-                if (b == null) {
-                    break;
+            // All buffers up to the first null one are added.
+            int count = 0;
+            while (i + count < len && buffers[i + count] != null) {
+                count++;
+            }
+
+            // No need for consolidation. Make room for all components at once and only update the offsets of the
+            // components which follow them once.
+            shiftComps(cIndex, count);
+            final int endCIndex = cIndex + count;
+            int addedBytes = 0;
+            try {
+                for (; cIndex < endCIndex; cIndex++) {
+                    Component c = newComponent(buffers[i]);
+                    // Only increment i once the buffer was added so it is released below if newComponent(...) failed.
+                    i++;
+                    c.offset = cIndex == 0 ? 0 : components[cIndex - 1].endOffset;
+                    c.endOffset = c.offset + c.length;
+                    components[cIndex] = c;
+                    addedBytes += c.length;
                 }
-                cIndex = addComponent0(increaseWriterIndex, cIndex, b) + 1;
-                int size = components.size();
-                if (cIndex > size) {
-                    cIndex = size;
+            } finally {
+                // Remove the slots which were not filled because of an exception.
+                removeCompRange(cIndex, endCIndex);
+                updateComponentOffsets(cIndex);
+                if (increaseWriterIndex) {
+                    writerIndex(writerIndex() + addedBytes);
                 }
             }
             return cIndex;
@@ -408,52 +484,52 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     private void consolidateIfNeeded() {
         // Consolidate if the number of components will exceed the allowed maximum by the current
         // operation.
-        final int numComponents = components.size();
+        final int numComponents = componentCount;
         if (numComponents > maxNumComponents) {
-            final int capacity = components.get(numComponents - 1).endOffset;
+            final int capacity = components[numComponents - 1].endOffset;
 
             ByteBuf consolidated = allocBuffer(capacity);
 
             // We're not using foreach to avoid creating an iterator.
             for (int i = 0; i < numComponents; i++) {
-                Component c = components.get(i);
+                Component c = components[i];
                 ByteBuf b = c.buf;
                 consolidated.writeBytes(b);
                 c.freeIfNecessary();
             }
             Component c = new Component(consolidated);
             c.endOffset = c.length;
-            components.clear();
-            components.add(c);
+            clearComps();
+            addComp(0, c);
         }
     }
 
     private void checkComponentIndex(int cIndex) {
         ensureAccessible();
-        if (cIndex < 0 || cIndex > components.size()) {
+        if (cIndex < 0 || cIndex > componentCount) {
             throw new IndexOutOfBoundsException(String.format(
                     "cIndex: %d (expected: >= 0 && <= numComponents(%d))",
-                    cIndex, components.size()));
+                    cIndex, componentCount));
         }
     }
 
     private void checkComponentIndex(int cIndex, int numComponents) {
         ensureAccessible();
-        if (cIndex < 0 || cIndex + numComponents > components.size()) {
+        if (cIndex < 0 || cIndex + numComponents > componentCount) {
             throw new IndexOutOfBoundsException(String.format(
                     "cIndex: %d, numComponents: %d " +
                             "(expected: cIndex >= 0 && cIndex + numComponents <= totalNumComponents(%d))",
-                    cIndex, numComponents, components.size()));
+                    cIndex, numComponents, componentCount));
         }
     }
 
     private void updateComponentOffsets(int cIndex) {
-        int size = components.size();
+        int size = componentCount;
         if (size <= cIndex) {
             return;
         }
 
-        Component c = components.get(cIndex);
+        Component c = components[cIndex];
         if (cIndex == 0) {
             c.offset = 0;
             c.endOffset = c.length;
@@ -461,8 +537,8 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
 
         for (int i = cIndex; i < size; i++) {
-            Component prev = components.get(i - 1);
-            Component cur = components.get(i);
+            Component prev = components[i - 1];
+            Component cur = components[i];
             cur.offset = prev.endOffset;
             cur.endOffset = cur.offset + cur.length;
         }
@@ -475,7 +551,8 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      */
     public CompositeByteBuf removeComponent(int cIndex) {
         checkComponentIndex(cIndex);
-        Component comp = components.remove(cIndex);
+        Component comp = components[cIndex];
+        removeComp(cIndex);
         comp.freeIfNecessary();
         if (comp.length > 0) {
             // Only need to call updateComponentOffsets if the length was > 0
@@ -496,15 +573,16 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         if (numComponents == 0) {
             return this;
         }
-        List<Component> toRemove = components.subList(cIndex, cIndex + numComponents);
+        final int endCIndex = cIndex + numComponents;
         boolean needsUpdate = false;
-        for (Component c : toRemove) {
+        for (int i = cIndex; i < endCIndex; i++) {
+            Component c = components[i];
             if (c.length > 0) {
                 needsUpdate = true;
             }
             c.freeIfNecessary();
         }
-        toRemove.clear();
+        removeCompRange(cIndex, endCIndex);
 
         if (needsUpdate) {
             // Only need to call updateComponentOffsets if the length was > 0
@@ -516,7 +594,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     @Override
     public Iterator<ByteBuf> iterator() {
         ensureAccessible();
-        if (components.isEmpty()) {
+        if (componentCount == 0) {
             return EMPTY_ITERATOR;
         }
         return new CompositeByteBufIterator();
@@ -532,10 +610,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
 
         int componentId = toComponentIndex(offset);
-        List<ByteBuf> slice = new ArrayList<ByteBuf>(components.size());
+        List<ByteBuf> slice = new ArrayList<ByteBuf>(componentCount);
 
         // The first component
-        Component firstC = components.get(componentId);
+        Component firstC = components[componentId];
         ByteBuf first = firstC.buf.duplicate();
         first.readerIndex(offset - firstC.offset);
 
@@ -555,7 +633,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
                 componentId++;
 
                 // Fetch the next component.
-                buf = components.get(componentId).buf.duplicate();
+                buf = components[componentId].buf.duplicate();
             }
         } while (bytesToSlice > 0);
 
@@ -569,11 +647,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public int capacity() {
-        final int numComponents = components.size();
+        final int numComponents = componentCount;
         if (numComponents == 0) {
             return 0;
         }
-        return components.get(numComponents - 1).endOffset;
+        return components[numComponents - 1].endOffset;
     }
 
     @Override
@@ -584,26 +662,26 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         if (newCapacity > oldCapacity) {
             final int paddingLength = newCapacity - oldCapacity;
             ByteBuf padding;
-            int nComponents = components.size();
+            int nComponents = componentCount;
             if (nComponents < maxNumComponents) {
                 padding = allocBuffer(paddingLength);
                 padding.setIndex(0, paddingLength);
-                addComponent0(false, components.size(), padding);
+                addComponent0(false, componentCount, padding);
             } else {
                 padding = allocBuffer(paddingLength);
                 padding.setIndex(0, paddingLength);
                 // FIXME: No need to create a padding buffer and consolidate.
                 // Just create a big single buffer and put the current content there.
-                addComponent0(false, components.size(), padding);
+                addComponent0(false, componentCount, padding);
                 consolidateIfNeeded();
             }
         } else if (newCapacity < oldCapacity) {
             int bytesToTrim = oldCapacity - newCapacity;
-            for (ListIterator<Component> i = components.listIterator(components.size()); i.hasPrevious(); ) {
-                Component c = i.previous();
+            for (int i = componentCount - 1; i >= 0; i--) {
+                Component c = components[i];
                 if (bytesToTrim >= c.length) {
                     bytesToTrim -= c.length;
-                    i.remove();
+                    removeComp(i);
                     continue;
                 }
 
@@ -611,7 +689,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
                 Component newC = new Component(c.buf.slice(0, c.length - bytesToTrim));
                 newC.offset = c.offset;
                 newC.endOffset = newC.offset + newC.length;
-                i.set(newC);
+                components[i] = newC;
                 break;
             }
 
@@ -641,12 +719,12 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public boolean isDirect() {
-        int size = components.size();
+        int size = componentCount;
         if (size == 0) {
             return false;
         }
         for (int i = 0; i < size; i++) {
-            if (!components.get(i).buf.isDirect()) {
+            if (!components[i].buf.isDirect()) {
                 return false;
             }
         }
@@ -662,7 +740,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -684,7 +762,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -710,7 +788,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int i = toComponentIndex(index);
         try {
             while (length > 0) {
-                Component c = components.get(i);
+                Component c = components[i];
                 ByteBuf s = c.buf;
                 int adjustment = c.offset;
                 int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -735,7 +813,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -790,7 +868,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -812,7 +890,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -838,7 +916,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int i = toComponentIndex(index);
         try {
             while (length > 0) {
-                Component c = components.get(i);
+                Component c = components[i];
                 ByteBuf s = c.buf;
                 int adjustment = c.offset;
                 int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -865,7 +943,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int readBytes = 0;
 
         do {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -908,7 +986,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int i = toComponentIndex(index);
         int readBytes = 0;
         do {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -956,7 +1034,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int i = toComponentIndex(index);
         int readBytes = 0;
         do {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1006,16 +1084,16 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public int nioBufferCount() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return 1;
             case 1:
-                return components.get(0).buf.nioBufferCount();
+                return components[0].buf.nioBufferCount();
             default:
                 int count = 0;
-                int componentsCount = components.size();
+                int componentsCount = componentCount;
                 for (int i = 0; i < componentsCount; i++) {
-                    Component c = components.get(i);
+                    Component c = components[i];
                     count += c.buf.nioBufferCount();
                 }
                 return count;
@@ -1026,13 +1104,13 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     public ByteBuffer nioBuffer(int index, int length) {
         checkIndex(index, length);
 
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return EMPTY_NIO_BUFFER;
             case 1:
-                ByteBuf buf = components.get(0).buf;
+                ByteBuf buf = components[0].buf;
                 if (buf.nioBufferCount() == 1) {
-                    return components.get(0).buf.nioBuffer(index, length);
+                    return components[0].buf.nioBuffer(index, length);
                 }
         }
 
@@ -1049,11 +1127,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public ByteBuffer internalNioBuffer(int index, int length) {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return EMPTY_NIO_BUFFER;
             case 1:
-                return components.get(0).buf.internalNioBuffer(index, length);
+                return components[0].buf.internalNioBuffer(index, length);
             default:
                 throw new UnsupportedOperationException();
         }
@@ -1066,10 +1144,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             return new ByteBuffer[] {EMPTY_NIO_BUFFER};
         }
 
-        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(components.size());
+        List<ByteBuffer> buffers = new ArrayList<ByteBuffer>(componentCount);
         int i = toComponentIndex(index);
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1093,11 +1171,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public boolean hasArray() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return true;
             case 1:
-                return components.get(0).buf.hasArray();
+                return components[0].buf.hasArray();
             default:
                 return false;
         }
@@ -1105,11 +1183,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public byte[] array() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return EmptyArrays.EMPTY_BYTES;
             case 1:
-                return components.get(0).buf.array();
+                return components[0].buf.array();
             default:
                 throw new UnsupportedOperationException();
         }
@@ -1117,11 +1195,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public int arrayOffset() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return 0;
             case 1:
-                return components.get(0).buf.arrayOffset();
+                return components[0].buf.arrayOffset();
             default:
                 throw new UnsupportedOperationException();
         }
@@ -1129,11 +1207,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public boolean hasMemoryAddress() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return Unpooled.EMPTY_BUFFER.hasMemoryAddress();
             case 1:
-                return components.get(0).buf.hasMemoryAddress();
+                return components[0].buf.hasMemoryAddress();
             default:
                 return false;
         }
@@ -1141,11 +1219,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     @Override
     public long memoryAddress() {
-        switch (components.size()) {
+        switch (componentCount) {
             case 0:
                 return Unpooled.EMPTY_BUFFER.memoryAddress();
             case 1:
-                return components.get(0).buf.memoryAddress();
+                return components[0].buf.memoryAddress();
             default:
                 throw new UnsupportedOperationException();
         }
@@ -1155,7 +1233,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      * Return the current number of {@link ByteBuf}'s that are composed in this instance
      */
     public int numComponents() {
-        return components.size();
+        return componentCount;
     }
 
     /**
@@ -1170,15 +1248,37 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      */
     public int toComponentIndex(int offset) {
         checkIndex(offset);
+        return toComponentIndex0(offset);
+    }
 
-        for (int low = 0, high = components.size(); low <= high; ) {
+    private int toComponentIndex0(int offset) {
+        final Component[] components = this.components;
+        final int size = componentCount;
+
+        // Sequential access hits the last accessed component or the one which follows it most of the time.
+        int cIndex = lastAccessedIndex;
+        if (cIndex < size) {
+            Component c = components[cIndex];
+            if (offset >= c.offset) {
+                if (offset < c.endOffset) {
+                    return cIndex;
+                }
+                if (++cIndex < size && offset < components[cIndex].endOffset) {
+                    lastAccessedIndex = cIndex;
+                    return cIndex;
+                }
+            }
+        }
+
+        for (int low = 0, high = size - 1; low <= high; ) {
             int mid = low + high >>> 1;
-            Component c = components.get(mid);
+            Component c = components[mid];
             if (offset >= c.endOffset) {
                 low = mid + 1;
             } else if (offset < c.offset) {
                 high = mid - 1;
             } else {
+                lastAccessedIndex = mid;
                 return mid;
             }
         }
@@ -1188,7 +1288,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     public int toByteIndex(int cIndex) {
         checkComponentIndex(cIndex);
-        return components.get(cIndex).offset;
+        return components[cIndex].offset;
     }
 
     private void copyTo(int index, int length, int componentId, ByteBuf dst) {
@@ -1196,7 +1296,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         int i = componentId;
 
         while (length > 0) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf s = c.buf;
             int adjustment = c.offset;
             int localLength = Math.min(length, s.capacity() - (index - adjustment));
@@ -1238,7 +1338,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
      */
     public ByteBuf internalComponent(int cIndex) {
         checkComponentIndex(cIndex);
-        return components.get(cIndex).buf;
+        return components[cIndex].buf;
     }
 
     /**
@@ -1253,21 +1353,9 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
     private Component findComponent(int offset) {
         checkIndex(offset);
-
-        for (int low = 0, high = components.size(); low <= high; ) {
-            int mid = low + high >>> 1;
-            Component c = components.get(mid);
-            if (offset >= c.endOffset) {
-                low = mid + 1;
-            } else if (offset < c.offset) {
-                high = mid - 1;
-            } else {
-                assert c.length != 0;
-                return c;
-            }
-        }
-
-        throw new Error("should not reach here");
+        Component c = components[toComponentIndex0(offset)];
+        assert c.length != 0;
+        return c;
     }
 
     /**
@@ -1280,19 +1368,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
             return this;
         }
 
-        final Component last = components.get(numComponents - 1);
+        final Component last = components[numComponents - 1];
         final int capacity = last.endOffset;
         final ByteBuf consolidated = allocBuffer(capacity);
 
         for (int i = 0; i < numComponents; i++) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf b = c.buf;
             consolidated.writeBytes(b);
             c.freeIfNecessary();
         }
 
-        components.clear();
-        components.add(new Component(consolidated));
+        clearComps();
+        addComp(0, new Component(consolidated));
         updateComponentOffsets(0);
         return this;
     }
@@ -1310,19 +1398,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
 
         final int endCIndex = cIndex + numComponents;
-        final Component last = components.get(endCIndex - 1);
-        final int capacity = last.endOffset - components.get(cIndex).offset;
+        final Component last = components[endCIndex - 1];
+        final int capacity = last.endOffset - components[cIndex].offset;
         final ByteBuf consolidated = allocBuffer(capacity);
 
         for (int i = cIndex; i < endCIndex; i++) {
-            Component c = components.get(i);
+            Component c = components[i];
             ByteBuf b = c.buf;
             consolidated.writeBytes(b);
             c.freeIfNecessary();
         }
 
-        components.subList(cIndex + 1, endCIndex).clear();
-        components.set(cIndex, new Component(consolidated));
+        removeCompRange(cIndex + 1, endCIndex);
+        components[cIndex] = new Component(consolidated);
         updateComponentOffsets(cIndex);
         return this;
     }
@@ -1340,10 +1428,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         // Discard everything if (readerIndex = writerIndex = capacity).
         int writerIndex = writerIndex();
         if (readerIndex == writerIndex && writerIndex == capacity()) {
-            for (Component c : components) {
-                c.freeIfNecessary();
+            for (int i = 0, size = componentCount; i < size; i++) {
+                components[i].freeIfNecessary();
             }
-            components.clear();
+            clearComps();
             setIndex(0, 0);
             adjustMarkers(readerIndex);
             return this;
@@ -1352,12 +1440,12 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         // Remove read components.
         int firstComponentId = toComponentIndex(readerIndex);
         for (int i = 0; i < firstComponentId; i++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
-        components.subList(0, firstComponentId).clear();
+        removeCompRange(0, firstComponentId);
 
         // Update indexes and markers.
-        Component first = components.get(0);
+        Component first = components[0];
         int offset = first.offset;
         updateComponentOffsets(0);
         setIndex(readerIndex - offset, writerIndex - offset);
@@ -1420,10 +1508,10 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         // Discard everything if (readerIndex = writerIndex = capacity).
         int writerIndex = writerIndex();
         if (readerIndex == writerIndex && writerIndex == capacity()) {
-            for (Component c : components) {
-                c.freeIfNecessary();
+            for (int i = 0, size = componentCount; i < size; i++) {
+                components[i].freeIfNecessary();
             }
-            components.clear();
+            clearComps();
             setIndex(0, 0);
             adjustMarkers(readerIndex);
             return this;
@@ -1432,19 +1520,19 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         // Remove read components.
         int firstComponentId = toComponentIndex(readerIndex);
         for (int i = 0; i < firstComponentId; i++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
-        components.subList(0, firstComponentId).clear();
+        removeCompRange(0, firstComponentId);
 
         // Remove or replace the first readable component with a new slice.
-        Component c = components.get(0);
+        Component c = components[0];
         int adjustment = readerIndex - c.offset;
         if (adjustment == c.length) {
             // new slice would be empty, so remove instead
-            components.remove(0);
+            removeComp(0);
         } else {
             Component newC = new Component(c.buf.slice(adjustment, c.length - adjustment));
-            components.set(0, newC);
+            components[0] = newC;
         }
 
         // Update indexes and markers.
@@ -1680,7 +1768,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     public String toString() {
         String result = super.toString();
         result = result.substring(0, result.length() - 1);
-        return result + ", components=" + components.size() + ')';
+        return result + ", components=" + componentCount + ')';
     }
 
     @Override
@@ -1929,11 +2017,11 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
         }
 
         freed = true;
-        int size = components.size();
+        int size = componentCount;
         // We're not using foreach to avoid creating an iterator.
         // see https://github.com/netty/netty/issues/2642
         for (int i = 0; i < size; i++) {
-            components.get(i).freeIfNecessary();
+            components[i].freeIfNecessary();
         }
     }
 
@@ -1954,7 +2042,7 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
     }
 
     private final class CompositeByteBufIterator implements Iterator<ByteBuf> {
-        private final int size = components.size();
+        private final int size = componentCount;
         private int index;
 
         @Override
@@ -1964,17 +2052,13 @@ public class CompositeByteBuf extends AbstractReferenceCountedByteBuf implements
 
         @Override
         public ByteBuf next() {
-            if (size != components.size()) {
+            if (size != componentCount) {
                 throw new ConcurrentModificationException();
             }
             if (!hasNext()) {
                 throw new NoSuchElementException();
             }
-            try {
-                return components.get(index++).buf;
-            } catch (IndexOutOfBoundsException e) {
-                throw new ConcurrentModificationException();
-            }
+            return components[index++].buf;
         }
 
         @Override
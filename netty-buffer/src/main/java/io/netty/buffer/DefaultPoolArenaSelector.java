@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.List;
+
+/**
+ * Default {@link PoolArenaSelector} which selects the arena that is used by the fewest threads.
+ */
+public final class DefaultPoolArenaSelector implements PoolArenaSelector {
+
+    public static final DefaultPoolArenaSelector INSTANCE = new DefaultPoolArenaSelector();
+
+    private DefaultPoolArenaSelector() { }
+
+    @Override
+    public int select(Thread thread, List<PoolArenaMetric> arenas) {
+        return leastUsed(arenas, 0, 1);
+    }
+
+    /**
+     * Returns the index of the arena used by the fewest threads among the arenas at {@code first},
+     * {@code first + step}, {@code first + 2 * step}, ...
+     */
+    static int leastUsed(List<PoolArenaMetric> arenas, int first, int step) {
+        int minIndex = first;
+        int minThreadCaches = arenas.get(first).numThreadCaches();
+        for (int i = first + step; i < arenas.size(); i += step) {
+            int threadCaches = arenas.get(i).numThreadCaches();
+            if (threadCaches < minThreadCaches) {
+                minIndex = i;
+                minThreadCaches = threadCaches;
+            }
+        }
+        return minIndex;
+    }
+
+    @Override
+    public String toString() {
+        return "DefaultPoolArenaSelector";
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.StringUtil;
+
+import java.io.File;
+import java.io.IOException;
+
+import static io.netty.util.internal.ObjectUtil.checkNotNull;
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
+/**
+ * {@link ByteBufAllocator} which serves direct buffers whose initial capacity is above a threshold by a
+ * {@link MappedFileByteBuf}, and delegates all other allocations to another {@link ByteBufAllocator}.
+ * <p>
+ * Heap buffers are always allocated by the delegate as callers of {@link #heapBuffer()} may depend on
+ * {@link ByteBuf#hasArray()}.
+ */
+public final class FileBackedByteBufAllocator extends AbstractByteBufAllocator {
+
+    private final ByteBufAllocator delegate;
+    private final int threshold;
+    private final File directory;
+
+    /**
+     * Creates a new instance which creates its files in the default temporary directory.
+     *
+     * @param delegate the {@link ByteBufAllocator} to use for all buffers up to {@code threshold} bytes
+     * @param threshold the initial capacity above which a direct buffer is backed by a file
+     */
+    public FileBackedByteBufAllocator(ByteBufAllocator delegate, int threshold) {
+        this(delegate, threshold, null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param delegate the {@link ByteBufAllocator} to use for all buffers up to {@code threshold} bytes
+     * @param threshold the initial capacity above which a direct buffer is backed by a file
+     * @param directory the directory to create the files in or {@code null} to use the default temporary directory
+     */
+    public FileBackedByteBufAllocator(ByteBufAllocator delegate, int threshold, File directory) {
+        super(PlatformDependent.directBufferPreferred());
+        this.delegate = checkNotNull(delegate, "delegate");
+        this.threshold = checkPositiveOrZero(threshold, "threshold");
+        if (directory != null && !directory.isDirectory()) {
+            throw new IllegalArgumentException("directory: " + directory + " (expected: an existing directory)");
+        }
+        this.directory = directory;
+    }
+
+    /**
+     * Returns the initial capacity above which a direct buffer is backed by a file.
+     */
+    public int threshold() {
+        return threshold;
+    }
+
+    @Override
+    protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+        return delegate.heapBuffer(initialCapacity, maxCapacity);
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+        if (initialCapacity <= threshold) {
+            return delegate.directBuffer(initialCapacity, maxCapacity);
+        }
+        final ByteBuf buf;
+        try {
+            buf = new MappedFileByteBuf(this, directory, initialCapacity, maxCapacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to map a file of " + initialCapacity + " bytes", e);
+        }
+        return toLeakAwareBuffer(buf);
+    }
+
+    @Override
+    public boolean isDirectBufferPooled() {
+        return delegate.isDirectBufferPooled();
+    }
+
+    @Override
+    public String toString() {
+        return StringUtil.simpleClassName(this) + "(delegate: " + delegate + ", threshold: " + threshold + ')';
+    }
+}
@@ -0,0 +1,200 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A direct {@link ByteBuf} whose memory is a temporary file mapped into memory, which allows to hold large payloads
+ * without consuming heap or direct memory. The content is paged in and out by the operating system.
+ * <p>
+ * As for every other direct buffer {@link #nioBuffers()} and {@link #memoryAddress()} expose the mapped memory
+ * itself, so the buffer can be written to a channel with gathering writes and added to a {@link CompositeByteBuf}
+ * without copying it. Changing the capacity resizes and remaps the file instead of copying the content.
+ * <p>
+ * The temporary file is deleted as soon as possible, which is right after it was opened on most platforms and when
+ * the buffer is released otherwise.
+ */
+public final class MappedFileByteBuf extends UnpooledUnsafeDirectByteBuf {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(MappedFileByteBuf.class);
+
+    private final File file;
+    private final RandomAccessFile raf;
+    private MappedByteBuffer mapping;
+    private boolean fileDeleted;
+
+    /**
+     * Creates a new buffer backed by a new temporary file in {@code directory}.
+     *
+     * @param directory the directory to create the file in or {@code null} to use the default temporary directory
+     */
+    public MappedFileByteBuf(ByteBufAllocator alloc, File directory, int initialCapacity, int maxCapacity)
+            throws IOException {
+        this(createTempFile(alloc, directory, initialCapacity, maxCapacity), alloc, initialCapacity, maxCapacity);
+    }
+
+    private MappedFileByteBuf(File file, ByteBufAllocator alloc, int initialCapacity, int maxCapacity)
+            throws IOException {
+        this(alloc, file, open(file), initialCapacity, maxCapacity);
+    }
+
+    private MappedFileByteBuf(ByteBufAllocator alloc, File file, RandomAccessFile raf,
+                              int initialCapacity, int maxCapacity) throws IOException {
+        this(alloc, file, raf, map(raf, file, initialCapacity), maxCapacity);
+    }
+
+    private MappedFileByteBuf(ByteBufAllocator alloc, File file, RandomAccessFile raf,
+                              MappedByteBuffer mapping, int maxCapacity) {
+        // The mapping is released by this class so do not let the super class free it.
+        super(alloc, mapping, maxCapacity, false);
+        this.file = file;
+        this.raf = raf;
+        this.mapping = mapping;
+        // Unlinking the file keeps the mapping valid and ensures it never outlives the process.
+        fileDeleted = file.delete();
+        clear();
+    }
+
+    private static File createTempFile(ByteBufAllocator alloc, File directory, int initialCapacity, int maxCapacity)
+            throws IOException {
+        // Validate the arguments before creating the file so it can not leak.
+        if (alloc == null) {
+            throw new NullPointerException("alloc");
+        }
+        if (initialCapacity < 0) {
+            throw new IllegalArgumentException("initialCapacity: " + initialCapacity + " (expected: >= 0)");
+        }
+        if (initialCapacity > maxCapacity) {
+            throw new IllegalArgumentException(String.format(
+                    "initialCapacity(%d) > maxCapacity(%d)", initialCapacity, maxCapacity));
+        }
+        return File.createTempFile("netty-mapped-", ".tmp", directory);
+    }
+
+    private static RandomAccessFile open(File file) throws IOException {
+        try {
+            return new RandomAccessFile(file, "rw");
+        } catch (IOException e) {
+            deleteFile(file);
+            throw e;
+        }
+    }
+
+    private static MappedByteBuffer map(RandomAccessFile raf, File file, int capacity) throws IOException {
+        try {
+            raf.setLength(capacity);
+            return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            closeFile(raf, file);
+            deleteFile(file);
+            throw e;
+        }
+    }
+
+    @Override
+    public ByteBuf capacity(int newCapacity) {
+        checkNewCapacity(newCapacity);
+
+        int oldCapacity = capacity();
+        if (newCapacity == oldCapacity) {
+            return this;
+        }
+        if (newCapacity < oldCapacity) {
+            int readerIndex = readerIndex();
+            if (readerIndex < newCapacity) {
+                if (writerIndex() > newCapacity) {
+                    writerIndex(newCapacity);
+                }
+            } else {
+                setIndex(newCapacity, newCapacity);
+            }
+        }
+
+        MappedByteBuffer oldMapping = mapping;
+        MappedByteBuffer newMapping;
+        try {
+            if (newCapacity > oldCapacity) {
+                raf.setLength(newCapacity);
+            }
+            // The content is kept in the file so there is nothing to copy.
+            newMapping = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, newCapacity);
+        } catch (IOException e) {
+            throw new IllegalStateException("failed to resize " + file + " to " + newCapacity + " bytes", e);
+        }
+        mapping = newMapping;
+        setByteBuffer(newMapping, false);
+        PlatformDependent.freeDirectBuffer(oldMapping);
+
+        if (newCapacity < oldCapacity) {
+            try {
+                raf.setLength(newCapacity);
+            } catch (IOException e) {
+                // Only wastes disk space until the buffer is released.
+                logger.debug("Failed to truncate {} to {} bytes", file, newCapacity, e);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Forces any changes of the content to be written to the storage device containing the file.
+     */
+    public MappedFileByteBuf force() {
+        ensureAccessible();
+        mapping.force();
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        super.deallocate();
+
+        MappedByteBuffer mapping = this.mapping;
+        if (mapping == null) {
+            return;
+        }
+        this.mapping = null;
+
+        PlatformDependent.freeDirectBuffer(mapping);
+        closeFile(raf, file);
+        if (!fileDeleted) {
+            deleteFile(file);
+        }
+    }
+
+    private static void closeFile(RandomAccessFile raf, File file) {
+        try {
+            raf.close();
+        } catch (IOException e) {
+            logger.warn("Failed to close {}", file, e);
+        }
+    }
+
+    private static void deleteFile(File file) {
+        if (!file.delete()) {
+            logger.warn("Failed to delete {}", file);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.concurrent.FastThreadLocalThread;
+
+import java.util.List;
+
+/**
+ * {@link PoolArenaSelector} which keeps the arenas of each NUMA node apart, so the memory of an arena is only
+ * touched first by threads running on the same node and is therefore allocated on that node by the operating system.
+ * <p>
+ * The arenas are assigned to the nodes round-robin, so arena {@code i} belongs to node {@code i % numNodes}, and a
+ * thread uses the least used arena of its node. The node of a thread is taken from
+ * {@link FastThreadLocalThread#numaNode()} by default, which can be changed by overriding {@link #numaNode(Thread)}.
+ * Threads of an unknown node use the least used of all arenas like {@link DefaultPoolArenaSelector}, which should be
+ * avoided as their chunks may end up on any node.
+ * <p>
+ * The allocator should have at least one arena per node, preferably as many per node as threads run on a node.
+ */
+public class NumaPoolArenaSelector implements PoolArenaSelector {
+
+    private final int numNodes;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param numNodes the number of NUMA nodes of the system
+     */
+    public NumaPoolArenaSelector(int numNodes) {
+        if (numNodes <= 0) {
+            throw new IllegalArgumentException("numNodes: " + numNodes + " (expected: > 0)");
+        }
+        this.numNodes = numNodes;
+    }
+
+    /**
+     * Returns the number of NUMA nodes the arenas are assigned to.
+     */
+    public final int numNodes() {
+        return numNodes;
+    }
+
+    @Override
+    public final int select(Thread thread, List<PoolArenaMetric> arenas) {
+        int node = numaNode(thread);
+        if (node < 0 || arenas.size() < numNodes) {
+            // Either the node is unknown or there are not enough arenas to keep the nodes apart.
+            return DefaultPoolArenaSelector.leastUsed(arenas, 0, 1);
+        }
+        return DefaultPoolArenaSelector.leastUsed(arenas, node % numNodes, numNodes);
+    }
+
+    /**
+     * Returns the NUMA node {@code thread} runs on or {@code -1} if unknown.
+     */
+    protected int numaNode(Thread thread) {
+        return thread instanceof FastThreadLocalThread ? ((FastThreadLocalThread) thread).numaNode() : -1;
+    }
+
+    @Override
+    public String toString() {
+        return "NumaPoolArenaSelector(numNodes: " + numNodes + ')';
+    }
+}
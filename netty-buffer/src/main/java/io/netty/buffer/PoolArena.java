@@ -17,19 +17,24 @@
 package io.netty.buffer;
 
 import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.OutOfDirectMemoryError;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 import static java.lang.Math.max;
 
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
 
 abstract class PoolArena<T> implements PoolArenaMetric {
     static final boolean HAS_UNSAFE = PlatformDependent.hasUnsafe();
     static final int numTinySubpagePools = 512 >>> 4;
+    // Each power-of-two group of normal sizes is split into 2^LOG2_SIZE_CLASS_GROUP size classes.
+    static final int LOG2_SIZE_CLASS_GROUP = 2;
     final PooledByteBufAllocator parent;
     final int pageSize;
     final int pageShifts;
@@ -38,11 +43,18 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     final int numSmallSubpagePools;
     final int directMemoryCacheAlignment;
     final int directMemoryCacheAlignmentMask;
+    final boolean useSizeClasses;
     // Number of thread caches backed by this arena.
     final AtomicInteger numThreadCaches = new AtomicInteger();
+    // Incremented by trim(...) to ask the thread caches backed by this arena to trim themselves.
+    volatile int cacheTrimEpoch;
     private final int maxOrder;
     private final PoolSubpage<T>[] tinySubpagePools;
     private final PoolSubpage<T>[] smallSubpagePools;
+    // Only used when useSizeClasses is enabled and holds the runs of normal size classes that are not a multiple
+    // of pageSize.
+    private final PoolSubpage<T>[] normalSubpagePools;
+    private final int numNormalSizeClasses;
 
     private final PoolChunkList<T> q050;
     private final PoolChunkList<T> q025;
@@ -52,26 +64,42 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     private final PoolChunkList<T> q100;
 
     private final List<PoolChunkListMetric> chunkListMetrics;
-    // We need to use the LongCounter here as this is not guarded via synchronized block.
+    private final SizeClassMetric[] sizeClassMetrics;
+    private final List<PoolSizeClassMetric> sizeClassMetricList;
+    // We need to use the LongCounter here as this is not guarded by the lock.
     private final LongCounter allocationsTiny = PlatformDependent.newLongCounter();
     private final LongCounter allocationsSmall = PlatformDependent.newLongCounter();
+    private final LongCounter allocationsNormal = PlatformDependent.newLongCounter();
     private final LongCounter allocationsHuge = PlatformDependent.newLongCounter();
     private final LongCounter activeBytesHuge = PlatformDependent.newLongCounter();
-    // We need to use the LongCounter here as this is not guarded via synchronized block.
+    // We need to use the LongCounter here as this is not guarded by the lock.
     private final LongCounter deallocationsHuge = PlatformDependent.newLongCounter();
-    // Metrics for allocations and deallocations
-    private long allocationsNormal;
+
+    // Flushed by the thread caches when they are trimmed so the allocation fast-path does not need to update them.
+    final LongCounter threadCacheHits = PlatformDependent.newLongCounter();
+    final LongCounter threadCacheMisses = PlatformDependent.newLongCounter();
+    // Number of times a thread had to wait for the arena lock or the lock of a subpage pool.
+    private final LongCounter arenaLockContentions = PlatformDependent.newLongCounter();
+    private final LongCounter subpageLockContentions = PlatformDependent.newLongCounter();
+
+    // Guards the chunk lists, the chunks and the deallocation metrics.
+    private final ReentrantLock lock = new ReentrantLock();
+    // Held while creating a new chunk so only one thread per arena does so at a time.
+    private final ReentrantLock chunkCreationLock = new ReentrantLock();
+
+    // Metrics for deallocations
     private long deallocationsTiny;
     private long deallocationsSmall;
     private long deallocationsNormal;
 
     protected PoolArena(PooledByteBufAllocator parent, int pageSize,
-                        int maxOrder, int pageShifts, int chunkSize, int cacheAlignment) {
+                        int maxOrder, int pageShifts, int chunkSize, int cacheAlignment, boolean useSizeClasses) {
         this.parent = parent;
         this.pageSize = pageSize;
         this.maxOrder = maxOrder;
         this.pageShifts = pageShifts;
         this.chunkSize = chunkSize;
+        this.useSizeClasses = useSizeClasses;
         directMemoryCacheAlignment = cacheAlignment;
         directMemoryCacheAlignmentMask = cacheAlignment - 1;
         subpageOverflowMask = ~(pageSize - 1);
@@ -86,6 +114,32 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             smallSubpagePools[i] = newSubpagePoolHead(pageSize);
         }
 
+        if (useSizeClasses) {
+            numNormalSizeClasses = (maxOrder << LOG2_SIZE_CLASS_GROUP) + 1;
+            normalSubpagePools = newSubpagePoolArray(numNormalSizeClasses);
+            for (int i = 0; i < normalSubpagePools.length; i++) {
+                if (isNormalSubpage(normalSizeClass(i))) {
+                    normalSubpagePools[i] = newSubpagePoolHead(pageSize);
+                }
+            }
+        } else {
+            numNormalSizeClasses = maxOrder + 1;
+            normalSubpagePools = null;
+        }
+
+        sizeClassMetrics = new SizeClassMetric[numTinySubpagePools + numSmallSubpagePools + numNormalSizeClasses];
+        for (int i = 0; i < numTinySubpagePools; i++) {
+            sizeClassMetrics[i] = new SizeClassMetric(i << 4);
+        }
+        for (int i = 0; i < numSmallSubpagePools; i++) {
+            sizeClassMetrics[numTinySubpagePools + i] = new SizeClassMetric(512 << i);
+        }
+        for (int i = 0; i < numNormalSizeClasses; i++) {
+            sizeClassMetrics[numTinySubpagePools + numSmallSubpagePools + i] =
+                    new SizeClassMetric(normalSizeClass(i));
+        }
+        sizeClassMetricList = Collections.unmodifiableList(Arrays.<PoolSizeClassMetric>asList(sizeClassMetrics));
+
         q100 = new PoolChunkList<T>(this, null, 100, Integer.MAX_VALUE, chunkSize);
         q075 = new PoolChunkList<T>(this, q100, 75, 100, chunkSize);
         q050 = new PoolChunkList<T>(this, q075, 50, 100, chunkSize);
@@ -132,6 +186,55 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return (normCapacity & 0xFFFFFE00) == 0;
     }
 
+    private static int log2(int val) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(val);
+    }
+
+    /**
+     * Returns the index of the normal size class of {@code normCapacity} (pageSize <= normCapacity <= chunkSize).
+     * Without size classes every power of two has its own index, otherwise each power-of-two group is split into
+     * {@code 1 << LOG2_SIZE_CLASS_GROUP} evenly spaced classes.
+     */
+    int normalIdx(int normCapacity) {
+        if (!useSizeClasses) {
+            return log2(normCapacity >> pageShifts);
+        }
+        if (normCapacity <= pageSize) {
+            return 0;
+        }
+        int log2Group = log2(normCapacity - 1);
+        return (log2Group - pageShifts << LOG2_SIZE_CLASS_GROUP) +
+                (normCapacity >> log2Group - LOG2_SIZE_CLASS_GROUP) - (1 << LOG2_SIZE_CLASS_GROUP);
+    }
+
+    /**
+     * Returns the size of the normal size class with the given index. This is the inverse of
+     * {@link #normalIdx(int)}.
+     */
+    int normalSizeClass(int normalIdx) {
+        if (!useSizeClasses) {
+            return pageSize << normalIdx;
+        }
+        if (normalIdx == 0) {
+            return pageSize;
+        }
+        int log2Group = pageShifts + (normalIdx - 1 >> LOG2_SIZE_CLASS_GROUP);
+        int mod = (normalIdx - 1 & (1 << LOG2_SIZE_CLASS_GROUP) - 1) + (1 << LOG2_SIZE_CLASS_GROUP) + 1;
+        return mod << log2Group - LOG2_SIZE_CLASS_GROUP;
+    }
+
+    // normCapacity >= pageSize and not a multiple of pageSize, which is only possible when size classes are used.
+    boolean isNormalSubpage(int normCapacity) {
+        return (normCapacity & pageSize - 1) != 0;
+    }
+
+    private int sizeClassIdx(int normCapacity) {
+        if (isTinyOrSmall(normCapacity)) {
+            return isTiny(normCapacity) ? tinyIdx(normCapacity) : numTinySubpagePools + smallIdx(normCapacity);
+        }
+        return numTinySubpagePools + numSmallSubpagePools + normalIdx(normCapacity);
+    }
+
     private static List<PoolSubpageMetric> subPageMetricList(PoolSubpage<?>[] pages) {
         List<PoolSubpageMetric> metrics = new ArrayList<PoolSubpageMetric>();
         for (PoolSubpage<?> head : pages) {
@@ -223,6 +326,8 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                 tableIdx = smallIdx(normCapacity);
                 table = smallSubpagePools;
             }
+            // Only record allocations served by the arena, the thread cache is the hot path.
+            sizeClassMetrics[sizeClassIdx(normCapacity)].record(reqCapacity);
 
             final PoolSubpage<T> head = table[tableIdx];
 
@@ -230,7 +335,8 @@ abstract class PoolArena<T> implements PoolArenaMetric {
              * Synchronize on the head. This is needed as {@link PoolChunk#allocateSubpage(int)} and
              * {@link PoolChunk#free(long)} may modify the doubly linked list as well.
              */
-            synchronized (head) {
+            lockSubpagePool(head);
+            try {
                 final PoolSubpage<T> s = head.next;
                 if (s != head) {
                     assert s.doNotDestroy && s.elemSize == normCapacity;
@@ -240,10 +346,10 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                     incTinySmallAllocation(tiny);
                     return;
                 }
+            } finally {
+                head.lock.unlock();
             }
-            synchronized (this) {
-                allocateNormal(buf, reqCapacity, normCapacity);
-            }
+            allocateNormal(buf, reqCapacity, normCapacity);
 
             incTinySmallAllocation(tiny);
             return;
@@ -253,30 +359,103 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                 // was able to allocate out of the cache so move on
                 return;
             }
-            synchronized (this) {
+            sizeClassMetrics[sizeClassIdx(normCapacity)].record(reqCapacity);
+            if (!isNormalSubpage(normCapacity) || !allocateNormalSubpage(buf, reqCapacity, normCapacity)) {
                 allocateNormal(buf, reqCapacity, normCapacity);
-                ++allocationsNormal;
             }
+            allocationsNormal.increment();
         } else {
             // Huge allocations are never served via the cache so just call allocateHuge
             allocateHuge(buf, reqCapacity);
         }
     }
 
-    // Method must be called insided synchronized(this) { ... } block
     private void allocateNormal(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
-        if (q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
+        lock();
+        try {
+            if (allocateFromChunkLists(buf, reqCapacity, normCapacity)) {
+                return;
+            }
+        } finally {
+            unlock();
+        }
+
+        // Creating a chunk is expensive so do not block other threads using the existing chunks while doing so, but
+        // only let one thread create a chunk. The others wait for it and then retry the chunk lists.
+        chunkCreationLock.lock();
+        try {
+            lock();
+            try {
+                // Another thread may have added a chunk while we were waiting.
+                if (allocateFromChunkLists(buf, reqCapacity, normCapacity)) {
+                    return;
+                }
+            } finally {
+                unlock();
+            }
+
+            PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
+            lock();
+            try {
+                long handle = c.allocate(normCapacity);
+                assert handle > 0;
+                c.initBuf(buf, handle, reqCapacity);
+                qInit.add(c);
+            } finally {
+                unlock();
+            }
+        } finally {
+            chunkCreationLock.unlock();
+        }
+    }
+
+    // Method must be called while holding the lock.
+    private boolean allocateFromChunkLists(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        return q050.allocate(buf, reqCapacity, normCapacity) || q025.allocate(buf, reqCapacity, normCapacity) ||
                 q000.allocate(buf, reqCapacity, normCapacity) || qInit.allocate(buf, reqCapacity, normCapacity) ||
-                q075.allocate(buf, reqCapacity, normCapacity)) {
-            return;
+                q075.allocate(buf, reqCapacity, normCapacity);
+    }
+
+    private boolean allocateNormalSubpage(PooledByteBuf<T> buf, int reqCapacity, int normCapacity) {
+        final PoolSubpage<T> head = normalSubpagePools[normalIdx(normCapacity)];
+        lockSubpagePool(head);
+        try {
+            final PoolSubpage<T> s = head.next;
+            if (s == head) {
+                return false;
+            }
+            assert s.doNotDestroy && s.elemSize == normCapacity;
+            long handle = s.allocate();
+            assert handle >= 0;
+            s.chunk.initBufWithSubpage(buf, handle, reqCapacity);
+            return true;
+        } finally {
+            head.lock.unlock();
+        }
+    }
+
+    /**
+     * Acquires the lock which guards the chunks of this arena, counting if another thread is holding it.
+     */
+    void lock() {
+        if (!lock.tryLock()) {
+            arenaLockContentions.increment();
+            lock.lock();
         }
+    }
 
-        // Add a new chunk.
-        PoolChunk<T> c = newChunk(pageSize, maxOrder, pageShifts, chunkSize);
-        long handle = c.allocate(normCapacity);
-        assert handle > 0;
-        c.initBuf(buf, handle, reqCapacity);
-        qInit.add(c);
+    void unlock() {
+        lock.unlock();
+    }
+
+    /**
+     * Acquires the lock of the subpage pool with the given head, counting if another thread is holding it.
+     */
+    void lockSubpagePool(PoolSubpage<T> head) {
+        if (!head.lock.tryLock()) {
+            subpageLockContentions.increment();
+            head.lock.lock();
+        }
     }
 
     private void incTinySmallAllocation(boolean tiny) {
@@ -320,7 +499,8 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     void freeChunk(PoolChunk<T> chunk, long handle, SizeClass sizeClass) {
         final boolean destroyChunk;
-        synchronized (this) {
+        lock();
+        try {
             switch (sizeClass) {
                 case Normal:
                     ++deallocationsNormal;
@@ -335,9 +515,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                     throw new Error();
             }
             destroyChunk = !chunk.parent.free(chunk, handle);
+        } finally {
+            unlock();
         }
         if (destroyChunk) {
-            // destroyChunk not need to be called while holding the synchronized lock.
+            // destroyChunk not need to be called while holding the lock.
             destroyChunk(chunk);
         }
     }
@@ -345,7 +527,10 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     PoolSubpage<T> findSubpagePoolHead(int elemSize) {
         int tableIdx;
         PoolSubpage<T>[] table;
-        if (isTiny(elemSize)) { // < 512
+        if (!isTinyOrSmall(elemSize)) { // >= pageSize
+            tableIdx = normalIdx(elemSize);
+            table = normalSubpagePools;
+        } else if (isTiny(elemSize)) { // < 512
             tableIdx = elemSize >>> 4;
             table = tinySubpagePools;
         } else {
@@ -370,6 +555,16 @@ abstract class PoolArena<T> implements PoolArenaMetric {
             return directMemoryCacheAlignment == 0 ? reqCapacity : alignCapacity(reqCapacity);
         }
 
+        if (useSizeClasses && reqCapacity > pageSize) {
+            // Round up to the next size class, which are spaced by a quarter of the enclosing power of two.
+            int log2Delta = log2(reqCapacity - 1) - LOG2_SIZE_CLASS_GROUP;
+            int deltaMask = (1 << log2Delta) - 1;
+            int normalizedCapacity = reqCapacity + deltaMask & ~deltaMask;
+            assert directMemoryCacheAlignment == 0 || (normalizedCapacity & directMemoryCacheAlignmentMask) == 0;
+
+            return normalizedCapacity;
+        }
+
         if (!isTiny(reqCapacity)) { // >= 512
             // Doubled
 
@@ -485,13 +680,15 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         return chunkListMetrics;
     }
 
+    @Override
+    public List<PoolSizeClassMetric> sizeClasses() {
+        return sizeClassMetricList;
+    }
+
     @Override
     public long numAllocations() {
-        final long allocsNormal;
-        synchronized (this) {
-            allocsNormal = allocationsNormal;
-        }
-        return allocationsTiny.value() + allocationsSmall.value() + allocsNormal + allocationsHuge.value();
+        return allocationsTiny.value() + allocationsSmall.value() + allocationsNormal.value() +
+                allocationsHuge.value();
     }
 
     @Override
@@ -505,8 +702,8 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     }
 
     @Override
-    public synchronized long numNormalAllocations() {
-        return allocationsNormal;
+    public long numNormalAllocations() {
+        return allocationsNormal.value();
     }
 
     @Override
@@ -517,25 +714,43 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     @Override
     public long numDeallocations() {
         final long deallocs;
-        synchronized (this) {
+        lock();
+        try {
             deallocs = deallocationsTiny + deallocationsSmall + deallocationsNormal;
+        } finally {
+            unlock();
         }
         return deallocs + deallocationsHuge.value();
     }
 
     @Override
-    public synchronized long numTinyDeallocations() {
-        return deallocationsTiny;
+    public long numTinyDeallocations() {
+        lock();
+        try {
+            return deallocationsTiny;
+        } finally {
+            unlock();
+        }
     }
 
     @Override
-    public synchronized long numSmallDeallocations() {
-        return deallocationsSmall;
+    public long numSmallDeallocations() {
+        lock();
+        try {
+            return deallocationsSmall;
+        } finally {
+            unlock();
+        }
     }
 
     @Override
-    public synchronized long numNormalDeallocations() {
-        return deallocationsNormal;
+    public long numNormalDeallocations() {
+        lock();
+        try {
+            return deallocationsNormal;
+        } finally {
+            unlock();
+        }
     }
 
     @Override
@@ -545,10 +760,13 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     @Override
     public long numActiveAllocations() {
-        long val = allocationsTiny.value() + allocationsSmall.value() + allocationsHuge.value()
-                - deallocationsHuge.value();
-        synchronized (this) {
-            val += allocationsNormal - (deallocationsTiny + deallocationsSmall + deallocationsNormal);
+        long val = allocationsTiny.value() + allocationsSmall.value() + allocationsNormal.value() +
+                allocationsHuge.value() - deallocationsHuge.value();
+        lock();
+        try {
+            val -= deallocationsTiny + deallocationsSmall + deallocationsNormal;
+        } finally {
+            unlock();
         }
         return max(val, 0);
     }
@@ -566,8 +784,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     @Override
     public long numActiveNormalAllocations() {
         final long val;
-        synchronized (this) {
-            val = allocationsNormal - deallocationsNormal;
+        lock();
+        try {
+            val = allocationsNormal.value() - deallocationsNormal;
+        } finally {
+            unlock();
         }
         return max(val, 0);
     }
@@ -580,16 +801,82 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     @Override
     public long numActiveBytes() {
         long val = activeBytesHuge.value();
-        synchronized (this) {
+        lock();
+        try {
             for (int i = 0; i < chunkListMetrics.size(); i++) {
                 for (PoolChunkMetric m : chunkListMetrics.get(i)) {
                     val += m.chunkSize();
                 }
             }
+        } finally {
+            unlock();
         }
         return max(0, val);
     }
 
+    @Override
+    public long numArenaLockContentions() {
+        return arenaLockContentions.value();
+    }
+
+    @Override
+    public long numSubpageLockContentions() {
+        return subpageLockContentions.value();
+    }
+
+    @Override
+    public long numThreadCacheHits() {
+        return threadCacheHits.value();
+    }
+
+    @Override
+    public long numThreadCacheMisses() {
+        return threadCacheMisses.value();
+    }
+
+    /**
+     * Returns the number of bytes of this arena that are currently handed out, including the ones held by thread
+     * caches. In contrast to {@link #numActiveBytes()} this does not count the free space of pooled chunks.
+     */
+    long numUsedBytes() {
+        long val = activeBytesHuge.value();
+        lock();
+        try {
+            val += qInit.usedBytes() + q000.usedBytes() + q025.usedBytes() +
+                    q050.usedBytes() + q075.usedBytes() + q100.usedBytes();
+        } finally {
+            unlock();
+        }
+        return max(0, val);
+    }
+
+    /**
+     * Releases the empty chunks that were not used since the last call, and further empty chunks while this arena
+     * retains more than {@code highWatermark} bytes. Also asks all thread caches backed by this arena to drop the
+     * entries they did not use since their last trim.
+     *
+     * @return the number of released bytes.
+     */
+    long trim(long highWatermark) {
+        List<PoolChunk<T>> released = new ArrayList<PoolChunk<T>>();
+        long releasedBytes;
+        lock();
+        try {
+            long retainedBytes = qInit.retainedBytes() + q000.retainedBytes() + q025.retainedBytes() +
+                    q050.retainedBytes() + q075.retainedBytes() + q100.retainedBytes();
+            // Empty chunks can only be found in qInit as all other lists destroy them once their usage drops to 0.
+            releasedBytes = qInit.trim(retainedBytes - highWatermark, released);
+            cacheTrimEpoch++;
+        } finally {
+            unlock();
+        }
+        for (int i = 0; i < released.size(); i++) {
+            // destroyChunk not need to be called while holding the lock.
+            destroyChunk(released.get(i));
+        }
+        return releasedBytes;
+    }
+
     protected abstract PoolChunk<T> newChunk(int pageSize, int maxOrder, int pageShifts, int chunkSize);
 
     protected abstract PoolChunk<T> newUnpooledChunk(int capacity);
@@ -601,7 +888,16 @@ abstract class PoolArena<T> implements PoolArenaMetric {
     protected abstract void destroyChunk(PoolChunk<T> chunk);
 
     @Override
-    public synchronized String toString() {
+    public String toString() {
+        lock();
+        try {
+            return toString0();
+        } finally {
+            unlock();
+        }
+    }
+
+    private String toString0() {
         StringBuilder buf = new StringBuilder()
                 .append("Chunk(s) at 0~25%:")
                 .append(StringUtil.NEWLINE)
@@ -632,6 +928,11 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         buf.append(StringUtil.NEWLINE)
                 .append("small subpages:");
         appendPoolSubPages(buf, smallSubpagePools);
+        if (normalSubpagePools != null) {
+            buf.append(StringUtil.NEWLINE)
+                    .append("normal subpages:");
+            appendPoolSubPages(buf, normalSubpagePools);
+        }
         buf.append(StringUtil.NEWLINE);
 
         return buf.toString();
@@ -644,6 +945,9 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         } finally {
             destroyPoolSubPages(smallSubpagePools);
             destroyPoolSubPages(tinySubpagePools);
+            if (normalSubpagePools != null) {
+                destroyPoolSubPages(normalSubpagePools);
+            }
             destroyPoolChunkLists(qInit, q000, q025, q050, q075, q100);
         }
     }
@@ -660,12 +964,64 @@ abstract class PoolArena<T> implements PoolArenaMetric {
         Normal
     }
 
+    private static final class SizeClassMetric implements PoolSizeClassMetric {
+        private final int normalizedCapacity;
+        // We need to use the LongCounter here as this is not guarded by the lock.
+        private final LongCounter allocations = PlatformDependent.newLongCounter();
+        private final LongCounter requestedBytes = PlatformDependent.newLongCounter();
+
+        SizeClassMetric(int normalizedCapacity) {
+            this.normalizedCapacity = normalizedCapacity;
+        }
+
+        void record(int reqCapacity) {
+            allocations.increment();
+            requestedBytes.add(reqCapacity);
+        }
+
+        @Override
+        public int normalizedCapacity() {
+            return normalizedCapacity;
+        }
+
+        @Override
+        public long numAllocations() {
+            return allocations.value();
+        }
+
+        @Override
+        public long numRequestedBytes() {
+            return requestedBytes.value();
+        }
+
+        @Override
+        public long numAllocatedBytes() {
+            return numAllocations() * normalizedCapacity;
+        }
+
+        @Override
+        public int fragmentation() {
+            long requested = numRequestedBytes();
+            long allocated = numAllocatedBytes();
+            if (allocated <= requested) {
+                return 0;
+            }
+            return (int) ((allocated - requested) * 100 / allocated);
+        }
+
+        @Override
+        public String toString() {
+            return "SizeClass(" + normalizedCapacity + ": " + numAllocations() + " allocations, " +
+                    fragmentation() + "% fragmentation)";
+        }
+    }
+
     static final class HeapArena extends PoolArena<byte[]> {
 
         HeapArena(PooledByteBufAllocator parent, int pageSize, int maxOrder,
-                  int pageShifts, int chunkSize, int directMemoryCacheAlignment) {
+                  int pageShifts, int chunkSize, int directMemoryCacheAlignment, boolean useSizeClasses) {
             super(parent, pageSize, maxOrder, pageShifts, chunkSize,
-                    directMemoryCacheAlignment);
+                    directMemoryCacheAlignment, useSizeClasses);
         }
 
         @Override
@@ -706,16 +1062,35 @@ abstract class PoolArena<T> implements PoolArenaMetric {
 
     static final class DirectArena extends PoolArena<ByteBuffer> {
 
+        // If true the memory of the chunks is allocated and freed explicitly instead of relying on a Cleaner.
+        private final boolean noCleaner;
+
         DirectArena(PooledByteBufAllocator parent, int pageSize, int maxOrder,
-                    int pageShifts, int chunkSize, int directMemoryCacheAlignment) {
+                    int pageShifts, int chunkSize, int directMemoryCacheAlignment, boolean useSizeClasses,
+                    boolean noCleaner) {
             super(parent, pageSize, maxOrder, pageShifts, chunkSize,
-                    directMemoryCacheAlignment);
+                    directMemoryCacheAlignment, useSizeClasses);
+            assert !noCleaner || PlatformDependent.isDirectBufferNoCleanerSupported();
+            this.noCleaner = noCleaner;
         }
 
-        private static ByteBuffer allocateDirect(int capacity) {
-            return PlatformDependent.useDirectBufferNoCleaner() ?
-                    PlatformDependent.allocateDirectNoCleaner(capacity) : ByteBuffer.allocateDirect(capacity);
-        }        @Override
+        private ByteBuffer allocateDirect(int capacity) {
+            if (!noCleaner) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+            try {
+                return PlatformDependent.allocateDirectNoCleaner(capacity);
+            } catch (OutOfDirectMemoryError e) {
+                // Nothing is waiting for the GC to be freed, so only the empty chunks of the allocator can be released
+                // to make room. Fail if there are none or if it is still not enough.
+                if (parent.releaseEmptyDirectChunks() == 0) {
+                    throw e;
+                }
+                return PlatformDependent.allocateDirectNoCleaner(capacity);
+            }
+        }
+
+        @Override
         boolean isDirect() {
             return true;
         }
@@ -754,11 +1129,9 @@ abstract class PoolArena<T> implements PoolArenaMetric {
                     offsetCacheLine(memory));
         }
 
-
-
         @Override
         protected void destroyChunk(PoolChunk<ByteBuffer> chunk) {
-            if (PlatformDependent.useDirectBufferNoCleaner()) {
+            if (noCleaner) {
                 PlatformDependent.freeDirectNoCleaner(chunk.memory);
             } else {
                 PlatformDependent.freeDirectBuffer(chunk.memory);
@@ -58,6 +58,12 @@ public interface PoolArenaMetric {
      */
     List<PoolChunkListMetric> chunkLists();
 
+    /**
+     * Returns an unmodifiable {@link List} which holds {@link PoolSizeClassMetric}s for all tiny, small and normal
+     * size classes of the arena.
+     */
+    List<PoolSizeClassMetric> sizeClasses();
+
     /**
      * Return the number of allocations done via the arena. This includes all sizes.
      */
@@ -137,4 +143,26 @@ public interface PoolArenaMetric {
      * Return the number of active bytes that are currently allocated by the arena.
      */
     long numActiveBytes();
+
+    /**
+     * Return the number of times a thread had to wait for the lock which guards the chunks of the arena.
+     */
+    long numArenaLockContentions();
+
+    /**
+     * Return the number of times a thread had to wait for the lock of a tiny, small or normal subpage pool.
+     */
+    long numSubpageLockContentions();
+
+    /**
+     * Return the number of allocations that were served by the thread-local caches backed by the arena. This is
+     * updated by each thread cache when it is trimmed, so it may lag behind.
+     */
+    long numThreadCacheHits();
+
+    /**
+     * Return the number of allocations for which the thread-local caches backed by the arena had no cached buffer.
+     * This is updated by each thread cache when it is trimmed, so it may lag behind.
+     */
+    long numThreadCacheMisses();
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.List;
+
+/**
+ * Selects the arena a thread of a {@link PooledByteBufAllocator} allocates from.
+ * <p>
+ * The selection is done once for heap and once for direct memory when a thread allocates for the first time, and
+ * holds until the thread-local cache of the thread is freed. Calls are serialized by the allocator.
+ */
+public interface PoolArenaSelector {
+
+    /**
+     * Returns the index of the arena {@code thread} should use.
+     *
+     * @param thread the thread which allocates, which is always the current thread
+     * @param arenas the heap or direct arenas of the allocator, never empty
+     */
+    int select(Thread thread, List<PoolArenaMetric> arenas);
+}
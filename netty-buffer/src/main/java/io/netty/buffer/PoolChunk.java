@@ -91,6 +91,15 @@ package io.netty.buffer;
  * 2) use this handle to construct the PoolSubpage object or if it already exists just call init(normCapacity)
  * note that this PoolSubpage object is added to subpagesPool in the PoolArena when we init() it
  *
+ * Algorithm: [allocateRun(size)] when size classes are used
+ * ----------
+ * If the requested run covers a number of pages n that is not a power of 2:
+ * 1) use allocateNode(d) to find a free node covering the next power of 2 of n pages
+ * 2) split the node so only its first n pages stay allocated and the trailing pages become available again
+ * 3) encode n in the handle so free(handle) can release exactly those pages
+ * Normal size classes that are not a multiple of pageSize are served like subpages, using a run of
+ * size / gcd(size, pageSize) pages which holds a whole number of elements.
+ *
  * Note:
  * -----
  * In the implementation for improving cache coherence,
@@ -103,6 +112,8 @@ package io.netty.buffer;
 final class PoolChunk<T> implements PoolChunkMetric {
 
     private static final int INTEGER_SIZE_MINUS_ONE = Integer.SIZE - 1;
+    /** Set in the upper half of a handle if the handle belongs to a subpage allocation. */
+    private static final int SUBPAGE_FLAG = 0x40000000;
 
     final PoolArena<T> arena;
     final T memory;
@@ -125,6 +136,9 @@ final class PoolChunk<T> implements PoolChunkMetric {
     PoolChunkList<T> parent;
     PoolChunk<T> prev;
     PoolChunk<T> next;
+    // Set by PoolChunkList#trim(...) and cleared by every allocation, so a chunk that is still idle on the next trim
+    // was not used in between.
+    boolean idle;
     private int freeBytes;
 
     // TODO: Test if adding padding helps under contention
@@ -196,6 +210,10 @@ final class PoolChunk<T> implements PoolChunkMetric {
         return (int) (handle >>> Integer.SIZE);
     }
 
+    private static boolean isSubpage(int bitmapIdx) {
+        return (bitmapIdx & SUBPAGE_FLAG) != 0;
+    }
+
     @SuppressWarnings("unchecked")
     private PoolSubpage<T>[] newSubpageArray(int size) {
         return new PoolSubpage[size];
@@ -204,8 +222,11 @@ final class PoolChunk<T> implements PoolChunkMetric {
     @Override
     public int usage() {
         final int freeBytes;
-        synchronized (arena) {
+        arena.lock();
+        try {
             freeBytes = this.freeBytes;
+        } finally {
+            arena.unlock();
         }
         return usage(freeBytes);
     }
@@ -217,11 +238,21 @@ final class PoolChunk<T> implements PoolChunkMetric {
 
     @Override
     public int freeBytes() {
-        synchronized (arena) {
+        arena.lock();
+        try {
             return freeBytes;
+        } finally {
+            arena.unlock();
         }
     }
 
+    /**
+     * Returns the number of bytes handed out from this chunk. Must be called while holding the arena lock.
+     */
+    int usedBytes() {
+        return chunkSize - freeBytes;
+    }
+
     private int usage(int freeBytes) {
         if (freeBytes == 0) {
             return 100;
@@ -235,7 +266,9 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     long allocate(int normCapacity) {
-        if ((normCapacity & subpageOverflowMask) != 0) { // >= pageSize
+        idle = false;
+        if ((normCapacity & subpageOverflowMask) != 0 && (normCapacity & pageSize - 1) == 0) {
+            // >= pageSize and a multiple of pageSize
             return allocateRun(normCapacity);
         } else {
             return allocateSubpage(normCapacity);
@@ -324,6 +357,16 @@ final class PoolChunk<T> implements PoolChunkMetric {
      * @return index in memoryMap
      */
     private long allocateRun(int normCapacity) {
+        int pages = normCapacity >>> pageShifts;
+        if ((pages & pages - 1) != 0) {
+            // Only possible when size classes are used.
+            int id = allocateRunNode(pages);
+            if (id < 0) {
+                return id;
+            }
+            freeBytes -= normCapacity;
+            return (long) pages << Integer.SIZE | id;
+        }
         int d = maxOrder - (log2(normCapacity) - pageShifts);
         int id = allocateNode(d);
         if (id < 0) {
@@ -333,6 +376,75 @@ final class PoolChunk<T> implements PoolChunkMetric {
         return id;
     }
 
+    /**
+     * Allocate a run of {@code pages} pages which may not be a power of 2
+     *
+     * @param pages number of pages
+     * @return index in memoryMap of the node the run starts at
+     */
+    private int allocateRunNode(int pages) {
+        int d = maxOrder - log2((pages << 1) - 1);
+        int id = allocateNode(d);
+        if (id < 0 || (pages & pages - 1) == 0) {
+            return id;
+        }
+        splitRun(id, pages);
+        updateParentsAlloc(id);
+        return id;
+    }
+
+    /**
+     * Keep the first {@code pages} pages of the fully allocated node {@code id} allocated and make the rest
+     * available again. All children of {@code id} are expected to be free.
+     */
+    private void splitRun(int id, int pages) {
+        int nodePages = runPages(id);
+        if (pages == nodePages) {
+            return;
+        }
+        int half = nodePages >>> 1;
+        int left = id << 1;
+        int right = left ^ 1;
+        setValue(left, unusable);
+        if (pages <= half) {
+            splitRun(left, pages);
+        } else {
+            setValue(right, unusable);
+            splitRun(right, pages - half);
+        }
+        byte val1 = value(left);
+        byte val2 = value(right);
+        setValue(id, val1 < val2 ? val1 : val2);
+    }
+
+    /**
+     * Reverse operation of {@link #splitRun(int, int)}.
+     */
+    private void releaseRun(int id, int pages) {
+        int nodePages = runPages(id);
+        if (pages == nodePages) {
+            setValue(id, depth(id));
+            return;
+        }
+        int half = nodePages >>> 1;
+        int left = id << 1;
+        int right = left ^ 1;
+        if (pages <= half) {
+            releaseRun(left, pages);
+        } else {
+            setValue(left, depth(left));
+            releaseRun(right, pages - half);
+        }
+        byte val1 = value(left);
+        byte val2 = value(right);
+        byte childDepth = depth(left);
+        if (val1 == childDepth && val2 == childDepth) {
+            setValue(id, depth(id));
+        } else {
+            setValue(id, val1 < val2 ? val1 : val2);
+        }
+    }
+
     /**
      * Create/ initialize a new PoolSubpage of normCapacity
      * Any PoolSubpage created/ initialized here is added to subpage pool in the PoolArena that owns this PoolChunk
@@ -344,27 +456,34 @@ final class PoolChunk<T> implements PoolChunkMetric {
         // Obtain the head of the PoolSubPage pool that is owned by the PoolArena and synchronize on it.
         // This is need as we may add it back and so alter the linked-list structure.
         PoolSubpage<T> head = arena.findSubpagePoolHead(normCapacity);
-        synchronized (head) {
-            int d = maxOrder; // subpages are only be allocated from pages i.e., leaves
-            int id = allocateNode(d);
+        arena.lockSubpagePool(head);
+        try {
+            final int runSize = subpageRunSize(normCapacity);
+            final int id;
+            if (runSize == pageSize) {
+                id = allocateNode(maxOrder); // tiny and small subpages are only be allocated from pages i.e., leaves
+            } else {
+                id = allocateRunNode(runSize >>> pageShifts);
+            }
             if (id < 0) {
                 return id;
             }
 
             final PoolSubpage<T>[] subpages = this.subpages;
-            final int pageSize = this.pageSize;
 
-            freeBytes -= pageSize;
+            freeBytes -= runSize;
 
             int subpageIdx = subpageIdx(id);
             PoolSubpage<T> subpage = subpages[subpageIdx];
-            if (subpage == null) {
-                subpage = new PoolSubpage<T>(head, this, id, runOffset(id), pageSize, normCapacity);
+            if (subpage == null || subpage.pageSize() != runSize) {
+                subpage = new PoolSubpage<T>(head, this, id, runOffset(id), runSize, normCapacity);
                 subpages[subpageIdx] = subpage;
             } else {
                 subpage.init(head, normCapacity);
             }
             return subpage.allocate();
+        } finally {
+            head.lock.unlock();
         }
     }
 
@@ -379,33 +498,44 @@ final class PoolChunk<T> implements PoolChunkMetric {
     void free(long handle) {
         int memoryMapIdx = memoryMapIdx(handle);
         int bitmapIdx = bitmapIdx(handle);
+        int runSize;
 
-        if (bitmapIdx != 0) { // free a subpage
+        if (isSubpage(bitmapIdx)) { // free a subpage
             PoolSubpage<T> subpage = subpages[subpageIdx(memoryMapIdx)];
             assert subpage != null && subpage.doNotDestroy;
 
             // Obtain the head of the PoolSubPage pool that is owned by the PoolArena and synchronize on it.
             // This is need as we may add it back and so alter the linked-list structure.
             PoolSubpage<T> head = arena.findSubpagePoolHead(subpage.elemSize);
-            synchronized (head) {
+            arena.lockSubpagePool(head);
+            try {
                 if (subpage.free(head, bitmapIdx & 0x3FFFFFFF)) {
                     return;
                 }
+            } finally {
+                head.lock.unlock();
             }
+            runSize = subpage.pageSize();
+        } else {
+            runSize = runLength(memoryMapIdx, bitmapIdx);
+        }
+        freeBytes += runSize;
+        if (runSize == runLength(memoryMapIdx)) {
+            setValue(memoryMapIdx, depth(memoryMapIdx));
+        } else {
+            releaseRun(memoryMapIdx, runSize >>> pageShifts);
         }
-        freeBytes += runLength(memoryMapIdx);
-        setValue(memoryMapIdx, depth(memoryMapIdx));
         updateParentsFree(memoryMapIdx);
     }
 
     void initBuf(PooledByteBuf<T> buf, long handle, int reqCapacity) {
         int memoryMapIdx = memoryMapIdx(handle);
         int bitmapIdx = bitmapIdx(handle);
-        if (bitmapIdx == 0) {
+        if (!isSubpage(bitmapIdx)) {
             byte val = value(memoryMapIdx);
-            assert val == unusable : String.valueOf(val);
-            buf.init(this, handle, runOffset(memoryMapIdx) + offset, reqCapacity, runLength(memoryMapIdx),
-                    arena.parent.threadCache());
+            assert bitmapIdx != 0 || val == unusable : String.valueOf(val);
+            buf.init(this, handle, runOffset(memoryMapIdx) + offset, reqCapacity,
+                    runLength(memoryMapIdx, bitmapIdx), arena.parent.threadCache());
         } else {
             initBufWithSubpage(buf, handle, bitmapIdx, reqCapacity);
         }
@@ -416,7 +546,7 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private void initBufWithSubpage(PooledByteBuf<T> buf, long handle, int bitmapIdx, int reqCapacity) {
-        assert bitmapIdx != 0;
+        assert isSubpage(bitmapIdx);
 
         int memoryMapIdx = memoryMapIdx(handle);
 
@@ -447,6 +577,23 @@ final class PoolChunk<T> implements PoolChunkMetric {
         return 1 << log2ChunkSize - depth(id);
     }
 
+    private int runLength(int id, int runPages) {
+        // the upper half of a run handle holds the number of pages if they are not a power of 2
+        return runPages == 0 ? runLength(id) : runPages << pageShifts;
+    }
+
+    private int runPages(int id) {
+        return 1 << maxOrder - depth(id);
+    }
+
+    private int subpageRunSize(int normCapacity) {
+        if (normCapacity < pageSize) {
+            return pageSize;
+        }
+        // Use the smallest run that can be divided into elements of normCapacity without remainder.
+        return normCapacity / Integer.lowestOneBit(normCapacity) << pageShifts;
+    }
+
     private int runOffset(int id) {
         // represents the 0-based offset in #bytes from start of the byte-array chunk
         int shift = id ^ 1 << depth(id);
@@ -454,14 +601,18 @@ final class PoolChunk<T> implements PoolChunkMetric {
     }
 
     private int subpageIdx(int memoryMapIdx) {
-        return memoryMapIdx ^ maxSubpageAllocs; // remove highest set bit, to get offset
+        // use the first page of the run and remove highest set bit, to get offset
+        return memoryMapIdx << maxOrder - depth(memoryMapIdx) ^ maxSubpageAllocs;
     }
 
     @Override
     public String toString() {
         final int freeBytes;
-        synchronized (arena) {
+        arena.lock();
+        try {
             freeBytes = this.freeBytes;
+        } finally {
+            arena.unlock();
         }
 
         return new StringBuilder()
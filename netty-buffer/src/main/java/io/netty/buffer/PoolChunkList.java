@@ -113,6 +113,56 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
         return true;
     }
 
+    /**
+     * Removes the {@link PoolChunk}s without any allocations that stayed idle since the last call, and further empty
+     * ones until at least {@code excessBytes} were removed. The removed chunks are added to {@code released} and
+     * must be destroyed by the caller.
+     *
+     * @return the number of bytes of all removed chunks.
+     */
+    long trim(long excessBytes, List<PoolChunk<T>> released) {
+        long releasedBytes = 0;
+        PoolChunk<T> cur = head;
+        while (cur != null) {
+            PoolChunk<T> next = cur.next;
+            if (cur.usage() == 0) {
+                if (cur.idle || releasedBytes < excessBytes) {
+                    remove(cur);
+                    released.add(cur);
+                    releasedBytes += cur.chunkSize();
+                } else {
+                    cur.idle = true;
+                }
+            }
+            cur = next;
+        }
+        return releasedBytes;
+    }
+
+    /**
+     * Returns the number of bytes handed out from all {@link PoolChunk}s of this list. Must be called while holding
+     * the arena lock.
+     */
+    long usedBytes() {
+        long usedBytes = 0;
+        for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+            usedBytes += cur.usedBytes();
+        }
+        return usedBytes;
+    }
+
+    /**
+     * Returns the number of bytes of all {@link PoolChunk}s of this list. Must be called while holding the arena
+     * lock.
+     */
+    long retainedBytes() {
+        long retainedBytes = 0;
+        for (PoolChunk<T> cur = head; cur != null; cur = cur.next) {
+            retainedBytes += cur.chunkSize();
+        }
+        return retainedBytes;
+    }
+
     private boolean move(PoolChunk<T> chunk) {
         assert chunk.usage() < maxUsage;
 
@@ -192,7 +242,8 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
 
     @Override
     public Iterator<PoolChunkMetric> iterator() {
-        synchronized (arena) {
+        arena.lock();
+        try {
             if (head == null) {
                 return EMPTY_METRICS;
             }
@@ -205,13 +256,16 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
                 }
             }
             return metrics.iterator();
+        } finally {
+            arena.unlock();
         }
     }
 
     @Override
     public String toString() {
         StringBuilder buf = new StringBuilder();
-        synchronized (arena) {
+        arena.lock();
+        try {
             if (head == null) {
                 return "none";
             }
@@ -224,6 +278,8 @@ final class PoolChunkList<T> implements PoolChunkListMetric {
                 }
                 buf.append(StringUtil.NEWLINE);
             }
+        } finally {
+            arena.unlock();
         }
         return buf.toString();
     }
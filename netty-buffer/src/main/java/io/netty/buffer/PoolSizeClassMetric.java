@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+/**
+ * Metrics for a size class of an arena. All allocations whose normalized capacity equals
+ * {@link #normalizedCapacity()} are served by the same size class, so comparing the requested and the allocated
+ * bytes shows how much memory is lost to rounding. Allocations served by a thread cache are not counted.
+ */
+public interface PoolSizeClassMetric {
+
+    /**
+     * Return the normalized capacity of allocations served by this size class.
+     */
+    int normalizedCapacity();
+
+    /**
+     * Return the number of allocations done via this size class.
+     */
+    long numAllocations();
+
+    /**
+     * Return the sum of the capacities requested by all allocations done via this size class.
+     */
+    long numRequestedBytes();
+
+    /**
+     * Return the number of bytes handed out by all allocations done via this size class.
+     */
+    long numAllocatedBytes();
+
+    /**
+     * Return the percentage of allocated bytes that were not requested (0 - 100).
+     */
+    int fragmentation();
+}
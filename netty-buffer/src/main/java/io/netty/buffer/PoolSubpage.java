@@ -16,6 +16,8 @@
 
 package io.netty.buffer;
 
+import java.util.concurrent.locks.ReentrantLock;
+
 final class PoolSubpage<T> implements PoolSubpageMetric {
 
     final PoolChunk<T> chunk;
@@ -23,6 +25,8 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
     private final int runOffset;
     private final int pageSize;
     private final long[] bitmap;
+    // Only set for the head of a subpage pool and guards the linked list of the pool and all its subpages.
+    final ReentrantLock lock;
 
     PoolSubpage<T> prev;
     PoolSubpage<T> next;
@@ -45,6 +49,7 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
         elemSize = -1;
         this.pageSize = pageSize;
         bitmap = null;
+        lock = new ReentrantLock();
     }
 
     PoolSubpage(PoolSubpage<T> head, PoolChunk<T> chunk, int memoryMapIdx, int runOffset, int pageSize, int elemSize) {
@@ -53,6 +58,7 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
         this.runOffset = runOffset;
         this.pageSize = pageSize;
         bitmap = new long[pageSize >>> 10]; // pageSize / 16 / 64
+        lock = null;
         init(head, elemSize);
     }
 
@@ -204,7 +210,8 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
         final int maxNumElems;
         final int numAvail;
         final int elemSize;
-        synchronized (chunk.arena) {
+        chunk.arena.lock();
+        try {
             if (!this.doNotDestroy) {
                 doNotDestroy = false;
                 // Not used for creating the String.
@@ -215,6 +222,8 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
                 numAvail = this.numAvail;
                 elemSize = this.elemSize;
             }
+        } finally {
+            chunk.arena.unlock();
         }
 
         if (!doNotDestroy) {
@@ -227,22 +236,31 @@ final class PoolSubpage<T> implements PoolSubpageMetric {
 
     @Override
     public int maxNumElements() {
-        synchronized (chunk.arena) {
+        chunk.arena.lock();
+        try {
             return maxNumElems;
+        } finally {
+            chunk.arena.unlock();
         }
     }
 
     @Override
     public int numAvailable() {
-        synchronized (chunk.arena) {
+        chunk.arena.lock();
+        try {
             return numAvail;
+        } finally {
+            chunk.arena.unlock();
         }
     }
 
     @Override
     public int elementSize() {
-        synchronized (chunk.arena) {
+        chunk.arena.lock();
+        try {
             return elemSize;
+        } finally {
+            chunk.arena.unlock();
         }
     }
 
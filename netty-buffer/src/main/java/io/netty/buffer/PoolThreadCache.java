@@ -50,15 +50,14 @@ final class PoolThreadCache {
     private final MemoryRegionCache<byte[]>[] normalHeapCaches;
     private final MemoryRegionCache<ByteBuffer>[] normalDirectCaches;
 
-    // Used for bitshifting when calculate the index of normal caches later
-    private final int numShiftsNormalDirect;
-    private final int numShiftsNormalHeap;
     private final int freeSweepAllocationThreshold;
 
     private final Thread deathWatchThread;
     private final Runnable freeTask;
 
     private int allocations;
+    // The PoolArena#cacheTrimEpoch seen by the last trim.
+    private int trimEpoch;
 
     // TODO: Test if adding padding helps under contention
     //private long pad0, pad1, pad2, pad3, pad4, pad5, pad6, pad7;
@@ -66,26 +65,37 @@ final class PoolThreadCache {
     PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
                     int tinyCacheSize, int smallCacheSize, int normalCacheSize,
                     int maxCachedBufferCapacity, int freeSweepAllocationThreshold) {
+        this(heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
+                maxCachedBufferCapacity, freeSweepAllocationThreshold, 0);
+    }
+
+    /**
+     * @param adaptiveMaxFactor {@code 0} if each cache holds up to its configured size, otherwise the factor by which
+     *                          a cache may grow beyond its configured size. Adaptive caches grow while they miss and
+     *                          shrink while they are not used, see {@link MemoryRegionCache#trim()}.
+     */
+    PoolThreadCache(PoolArena<byte[]> heapArena, PoolArena<ByteBuffer> directArena,
+                    int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                    int maxCachedBufferCapacity, int freeSweepAllocationThreshold, int adaptiveMaxFactor) {
         if (maxCachedBufferCapacity < 0) {
             throw new IllegalArgumentException("maxCachedBufferCapacity: "
                     + maxCachedBufferCapacity + " (expected: >= 0)");
         }
-        if (freeSweepAllocationThreshold < 1) {
-            throw new IllegalArgumentException("freeSweepAllocationThreshold: "
-                    + freeSweepAllocationThreshold + " (expected: > 0)");
+        if (adaptiveMaxFactor < 0) {
+            throw new IllegalArgumentException("adaptiveMaxFactor: "
+                    + adaptiveMaxFactor + " (expected: >= 0)");
         }
         this.freeSweepAllocationThreshold = freeSweepAllocationThreshold;
         this.heapArena = heapArena;
         this.directArena = directArena;
         if (directArena != null) {
             tinySubPageDirectCaches = createSubPageCaches(
-                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+                    tinyCacheSize, adaptiveMaxFactor, PoolArena.numTinySubpagePools, directArena, SizeClass.Tiny);
             smallSubPageDirectCaches = createSubPageCaches(
-                    smallCacheSize, directArena.numSmallSubpagePools, SizeClass.Small);
+                    smallCacheSize, adaptiveMaxFactor, directArena.numSmallSubpagePools, directArena, SizeClass.Small);
 
-            numShiftsNormalDirect = log2(directArena.pageSize);
             normalDirectCaches = createNormalCaches(
-                    normalCacheSize, maxCachedBufferCapacity, directArena);
+                    normalCacheSize, adaptiveMaxFactor, maxCachedBufferCapacity, directArena);
 
             directArena.numThreadCaches.getAndIncrement();
         } else {
@@ -93,18 +103,16 @@ final class PoolThreadCache {
             tinySubPageDirectCaches = null;
             smallSubPageDirectCaches = null;
             normalDirectCaches = null;
-            numShiftsNormalDirect = -1;
         }
         if (heapArena != null) {
             // Create the caches for the heap allocations
             tinySubPageHeapCaches = createSubPageCaches(
-                    tinyCacheSize, PoolArena.numTinySubpagePools, SizeClass.Tiny);
+                    tinyCacheSize, adaptiveMaxFactor, PoolArena.numTinySubpagePools, heapArena, SizeClass.Tiny);
             smallSubPageHeapCaches = createSubPageCaches(
-                    smallCacheSize, heapArena.numSmallSubpagePools, SizeClass.Small);
+                    smallCacheSize, adaptiveMaxFactor, heapArena.numSmallSubpagePools, heapArena, SizeClass.Small);
 
-            numShiftsNormalHeap = log2(heapArena.pageSize);
             normalHeapCaches = createNormalCaches(
-                    normalCacheSize, maxCachedBufferCapacity, heapArena);
+                    normalCacheSize, adaptiveMaxFactor, maxCachedBufferCapacity, heapArena);
 
             heapArena.numThreadCaches.getAndIncrement();
         } else {
@@ -112,7 +120,6 @@ final class PoolThreadCache {
             tinySubPageHeapCaches = null;
             smallSubPageHeapCaches = null;
             normalHeapCaches = null;
-            numShiftsNormalHeap = -1;
         }
 
         // We only need to watch the thread when any cache is used.
@@ -125,6 +132,12 @@ final class PoolThreadCache {
                 }
             };
 
+            // Only check the threshold if there are caches in use.
+            if (freeSweepAllocationThreshold < 1) {
+                throw new IllegalArgumentException("freeSweepAllocationThreshold: "
+                        + freeSweepAllocationThreshold + " (expected: > 0)");
+            }
+
             deathWatchThread = Thread.currentThread();
 
             // The thread-local cache will keep a list of pooled buffers which must be returned to
@@ -137,13 +150,13 @@ final class PoolThreadCache {
     }
 
     private static <T> MemoryRegionCache<T>[] createSubPageCaches(
-            int cacheSize, int numCaches, SizeClass sizeClass) {
+            int cacheSize, int adaptiveMaxFactor, int numCaches, PoolArena<T> area, SizeClass sizeClass) {
         if (cacheSize > 0) {
             @SuppressWarnings("unchecked")
             MemoryRegionCache<T>[] cache = new MemoryRegionCache[numCaches];
             for (int i = 0; i < cache.length; i++) {
                 // TODO: maybe use cacheSize / cache.length
-                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize, sizeClass);
+                cache[i] = new SubPageMemoryRegionCache<T>(cacheSize, adaptiveMaxFactor, area, sizeClass);
             }
             return cache;
         } else {
@@ -152,15 +165,15 @@ final class PoolThreadCache {
     }
 
     private static <T> MemoryRegionCache<T>[] createNormalCaches(
-            int cacheSize, int maxCachedBufferCapacity, PoolArena<T> area) {
+            int cacheSize, int adaptiveMaxFactor, int maxCachedBufferCapacity, PoolArena<T> area) {
         if (cacheSize > 0) {
             int max = Math.min(area.chunkSize, maxCachedBufferCapacity);
-            int arraySize = Math.max(1, log2(max / area.pageSize) + 1);
+            int arraySize = max < area.pageSize ? 1 : area.normalIdx(max) + 1;
 
             @SuppressWarnings("unchecked")
             MemoryRegionCache<T>[] cache = new MemoryRegionCache[arraySize];
             for (int i = 0; i < cache.length; i++) {
-                cache[i] = new NormalMemoryRegionCache<T>(cacheSize);
+                cache[i] = new NormalMemoryRegionCache<T>(cacheSize, adaptiveMaxFactor, area);
             }
             return cache;
         } else {
@@ -168,15 +181,6 @@ final class PoolThreadCache {
         }
     }
 
-    private static int log2(int val) {
-        int res = 0;
-        while (val > 1) {
-            val >>= 1;
-            res++;
-        }
-        return res;
-    }
-
     private static int free(MemoryRegionCache<?>[] caches) {
         if (caches == null) {
             return 0;
@@ -223,31 +227,34 @@ final class PoolThreadCache {
      * Try to allocate a tiny buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateTiny(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForTiny(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForTiny(area, normCapacity), buf, reqCapacity);
     }
 
     /**
      * Try to allocate a small buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateSmall(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForSmall(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForSmall(area, normCapacity), buf, reqCapacity);
     }
 
     /**
      * Try to allocate a small buffer out of the cache. Returns {@code true} if successful {@code false} otherwise
      */
     boolean allocateNormal(PoolArena<?> area, PooledByteBuf<?> buf, int reqCapacity, int normCapacity) {
-        return allocate(cacheForNormal(area, normCapacity), buf, reqCapacity);
+        return allocate(area, cacheForNormal(area, normCapacity), buf, reqCapacity);
     }
 
     @SuppressWarnings({"unchecked", "rawtypes"})
-    private boolean allocate(MemoryRegionCache<?> cache, PooledByteBuf buf, int reqCapacity) {
+    private boolean allocate(PoolArena<?> area, MemoryRegionCache<?> cache, PooledByteBuf buf, int reqCapacity) {
         if (cache == null) {
             // no cache found so just return false here
             return false;
         }
         boolean allocated = cache.allocate(buf, reqCapacity);
-        if (++allocations >= freeSweepAllocationThreshold) {
+        int trimEpoch = area.cacheTrimEpoch;
+        if (++allocations >= freeSweepAllocationThreshold || trimEpoch != this.trimEpoch) {
+            // Either enough allocations happened or the arena asked for a trim.
+            this.trimEpoch = trimEpoch;
             allocations = 0;
             trim();
         }
@@ -338,11 +345,10 @@ final class PoolThreadCache {
     }
 
     private MemoryRegionCache<?> cacheForNormal(PoolArena<?> area, int normCapacity) {
+        int idx = area.normalIdx(normCapacity);
         if (area.isDirect()) {
-            int idx = log2(normCapacity >> numShiftsNormalDirect);
             return cache(normalDirectCaches, idx);
         }
-        int idx = log2(normCapacity >> numShiftsNormalHeap);
         return cache(normalHeapCaches, idx);
     }
 
@@ -350,8 +356,8 @@ final class PoolThreadCache {
      * Cache used for buffers which are backed by TINY or SMALL size.
      */
     private static final class SubPageMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        SubPageMemoryRegionCache(int size, SizeClass sizeClass) {
-            super(size, sizeClass);
+        SubPageMemoryRegionCache(int size, int adaptiveMaxFactor, PoolArena<T> area, SizeClass sizeClass) {
+            super(size, adaptiveMaxFactor, area, sizeClass);
         }
 
         @Override
@@ -365,8 +371,8 @@ final class PoolThreadCache {
      * Cache used for buffers which are backed by NORMAL size.
      */
     private static final class NormalMemoryRegionCache<T> extends MemoryRegionCache<T> {
-        NormalMemoryRegionCache(int size) {
-            super(size, SizeClass.Normal);
+        NormalMemoryRegionCache(int size, int adaptiveMaxFactor, PoolArena<T> area) {
+            super(size, adaptiveMaxFactor, area, SizeClass.Normal);
         }
 
         @Override
@@ -387,13 +393,32 @@ final class PoolThreadCache {
         };
         private final int size;
         private final Queue<Entry<T>> queue;
+        private final PoolArena<T> area;
         private final SizeClass sizeClass;
+        // Only used by adaptive caches, which hold at most limit entries with limit between 0 and maxSize.
+        private final boolean adaptive;
+        private final int maxSize;
+        private volatile int limit;
         private int allocations;
+        private int misses;
 
-        MemoryRegionCache(int size, SizeClass sizeClass) {
+        MemoryRegionCache(int size, int adaptiveMaxFactor, PoolArena<T> area, SizeClass sizeClass) {
             this.size = MathUtil.safeFindNextPositivePowerOfTwo(size);
-            queue = PlatformDependent.newFixedMpscQueue(this.size);
+            this.area = area;
             this.sizeClass = sizeClass;
+            if (adaptiveMaxFactor > 0) {
+                adaptive = true;
+                maxSize = MathUtil.safeFindNextPositivePowerOfTwo((int) Math.min(
+                        (long) this.size * adaptiveMaxFactor, Integer.MAX_VALUE));
+                limit = this.size;
+                // Only allocate room for the initial limit, the queue grows in chunks of that size if the limit grows.
+                queue = PlatformDependent.newMpscQueue(this.size, maxSize);
+            } else {
+                adaptive = false;
+                maxSize = this.size;
+                limit = this.size;
+                queue = PlatformDependent.newFixedMpscQueue(this.size);
+            }
         }
 
         @SuppressWarnings("rawtypes")
@@ -415,6 +440,9 @@ final class PoolThreadCache {
          */
         @SuppressWarnings("unchecked")
         public final boolean add(PoolChunk<T> chunk, long handle) {
+            if (adaptive && queue.size() >= limit) {
+                return false;
+            }
             Entry<T> entry = newEntry(chunk, handle);
             boolean queued = queue.offer(entry);
             if (!queued) {
@@ -431,6 +459,8 @@ final class PoolThreadCache {
         public final boolean allocate(PooledByteBuf<T> buf, int reqCapacity) {
             Entry<T> entry = queue.poll();
             if (entry == null) {
+                // misses is not thread-safe which is fine as this is only called from the same thread all time.
+                ++misses;
                 return false;
             }
             initBuf(entry.chunk, entry.handle, buf, reqCapacity);
@@ -445,6 +475,7 @@ final class PoolThreadCache {
          * Clear out this cache and free up all previous cached {@link PoolChunk}s and {@code handle}s.
          */
         public final int free() {
+            // Do not flush the stats, as this may be called by another thread once the owning thread died.
             return free(Integer.MAX_VALUE);
         }
 
@@ -463,11 +494,28 @@ final class PoolThreadCache {
         }
 
         /**
-         * Free up cached {@link PoolChunk}s if not allocated frequently enough.
+         * Free up cached {@link PoolChunk}s if not allocated frequently enough. Adaptive caches also double their
+         * limit if they missed and hit more often than the limit since the last trim, and halve it if they were hit
+         * less than half of the limit, keeping only the entries that were actually used.
          */
         public final void trim() {
-            int free = size - allocations;
-            allocations = 0;
+            int allocations = this.allocations;
+            int misses = this.misses;
+            flushStats();
+
+            int free;
+            if (adaptive) {
+                int limit = this.limit;
+                if (misses > 0 && allocations + misses > limit) {
+                    limit = Math.min(maxSize, Math.max(1, limit << 1));
+                } else if (allocations < limit >>> 1) {
+                    limit >>>= 1;
+                }
+                this.limit = limit;
+                free = queue.size() - Math.min(limit, allocations);
+            } else {
+                free = size - allocations;
+            }
 
             // We not even allocated all the number that are
             if (free > 0) {
@@ -475,6 +523,17 @@ final class PoolThreadCache {
             }
         }
 
+        private void flushStats() {
+            if (allocations > 0) {
+                area.threadCacheHits.add(allocations);
+                allocations = 0;
+            }
+            if (misses > 0) {
+                area.threadCacheMisses.add(misses);
+                misses = 0;
+            }
+        }
+
         @SuppressWarnings({"unchecked", "rawtypes"})
         private void freeEntry(Entry entry) {
             PoolChunk chunk = entry.chunk;
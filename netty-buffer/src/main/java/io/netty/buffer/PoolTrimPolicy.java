@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+
+package io.netty.buffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Controls when a {@link PooledByteBufAllocator} gives memory that is no longer used back to the system.
+ * <p>
+ * Every {@linkplain #idleTime(TimeUnit) idle time} a background task releases the chunks of each arena that had no
+ * allocations during the whole period. If an arena retains more than the {@linkplain #highWatermark() high watermark}
+ * bytes, empty chunks are released right away until it drops below it. The same task asks every thread-local cache
+ * to drop the entries that were not used since its last trim, which is done by the owning thread on its next
+ * allocation.
+ */
+public final class PoolTrimPolicy {
+
+    /**
+     * A policy that never releases memory in the background.
+     */
+    public static final PoolTrimPolicy DISABLED = new PoolTrimPolicy(0, Long.MAX_VALUE, false);
+
+    private final long idleTimeMillis;
+    private final long highWatermark;
+
+    /**
+     * Create a new instance.
+     *
+     * @param idleTimeMillis the time in milliseconds an empty chunk must be unused before it is released, which is
+     *                       also the interval of the background task.
+     * @param highWatermark  the number of bytes an arena may retain before empty chunks are released without
+     *                       waiting for the idle time.
+     */
+    public PoolTrimPolicy(long idleTimeMillis, long highWatermark) {
+        this(idleTimeMillis, highWatermark, true);
+    }
+
+    private PoolTrimPolicy(long idleTimeMillis, long highWatermark, boolean validate) {
+        if (validate) {
+            if (idleTimeMillis <= 0) {
+                throw new IllegalArgumentException("idleTimeMillis: " + idleTimeMillis + " (expected: > 0)");
+            }
+            if (highWatermark < 0) {
+                throw new IllegalArgumentException("highWatermark: " + highWatermark + " (expected: >= 0)");
+            }
+        }
+        this.idleTimeMillis = idleTimeMillis;
+        this.highWatermark = highWatermark;
+    }
+
+    /**
+     * Returns {@code true} if memory is released in the background.
+     */
+    public boolean isEnabled() {
+        return idleTimeMillis > 0;
+    }
+
+    /**
+     * Returns the time an empty chunk must be unused before it is released.
+     */
+    public long idleTime(TimeUnit unit) {
+        return unit.convert(idleTimeMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns the number of bytes an arena may retain before empty chunks are released right away.
+     */
+    public long highWatermark() {
+        return highWatermark;
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "PoolTrimPolicy(disabled)";
+        }
+        return "PoolTrimPolicy(idleTimeMillis: " + idleTimeMillis + ", highWatermark: " + highWatermark + ')';
+    }
+}
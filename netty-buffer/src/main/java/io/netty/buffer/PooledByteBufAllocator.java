@@ -16,6 +16,7 @@
 
 package io.netty.buffer;
 
+import io.netty.util.concurrent.DefaultThreadFactory;
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.concurrent.FastThreadLocalThread;
 import io.netty.util.internal.PlatformDependent;
@@ -24,15 +25,18 @@ import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
+import java.lang.ref.WeakReference;
 import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 public class PooledByteBufAllocator extends AbstractByteBufAllocator implements ByteBufAllocatorMetricProvider {
 
-    public static final PooledByteBufAllocator DEFAULT =
-            new PooledByteBufAllocator(PlatformDependent.directBufferPreferred());
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(PooledByteBufAllocator.class);
     private static final int DEFAULT_NUM_HEAP_ARENA;
     private static final int DEFAULT_NUM_DIRECT_ARENA;
@@ -45,8 +49,16 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     private static final int DEFAULT_CACHE_TRIM_INTERVAL;
     private static final boolean DEFAULT_USE_CACHE_FOR_ALL_THREADS;
     private static final int DEFAULT_DIRECT_MEMORY_CACHE_ALIGNMENT;
+    private static final boolean DEFAULT_USE_SIZE_CLASSES;
+    private static final PoolTrimPolicy DEFAULT_TRIM_POLICY;
+    private static final boolean DEFAULT_ADAPTIVE_THREAD_CACHE;
+    private static final int DEFAULT_ADAPTIVE_CACHE_MAX_FACTOR;
+    private static final boolean DEFAULT_DIRECT_CHUNK_NO_CLEANER;
+    private static final PoolArenaSelector DEFAULT_ARENA_SELECTOR;
     private static final int MIN_PAGE_SIZE = 4096;
     private static final int MAX_CHUNK_SIZE = (int) (((long) Integer.MAX_VALUE + 1) / 2);
+    // A chunk must be able to hold the largest run used by a normal size class, which is 7 pages.
+    private static final int MIN_SIZE_CLASSES_MAX_ORDER = 3;
 
     static {
         int defaultPageSize = SystemPropertyUtil.getInt("io.netty.allocator.pageSize", 8192);
@@ -112,6 +124,37 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         DEFAULT_DIRECT_MEMORY_CACHE_ALIGNMENT = SystemPropertyUtil.getInt(
                 "io.netty.allocator.directMemoryCacheAlignment", 0);
 
+        // Use finer grained size classes for normal allocations instead of rounding them up to the next power of 2.
+        DEFAULT_USE_SIZE_CLASSES = SystemPropertyUtil.getBoolean(
+                "io.netty.allocator.useSizeClasses", false) && DEFAULT_MAX_ORDER >= MIN_SIZE_CLASSES_MAX_ORDER;
+
+        // Release memory that is not used anymore in the background. Disabled by default.
+        long trimIdleTimeMillis = SystemPropertyUtil.getLong("io.netty.allocator.trimIdleTimeMillis", 0);
+        long trimHighWatermark = SystemPropertyUtil.getLong("io.netty.allocator.trimHighWatermark", Long.MAX_VALUE);
+        PoolTrimPolicy trimPolicy = PoolTrimPolicy.DISABLED;
+        if (trimIdleTimeMillis > 0) {
+            try {
+                trimPolicy = new PoolTrimPolicy(trimIdleTimeMillis, trimHighWatermark);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Invalid trim policy, releasing memory in the background is disabled", e);
+            }
+        }
+        DEFAULT_TRIM_POLICY = trimPolicy;
+
+        // Let each thread-local cache grow and shrink depending on how often it is used.
+        DEFAULT_ADAPTIVE_THREAD_CACHE = SystemPropertyUtil.getBoolean("io.netty.allocator.adaptiveThreadCache", false);
+        DEFAULT_ADAPTIVE_CACHE_MAX_FACTOR = Math.max(1, SystemPropertyUtil.getInt(
+                "io.netty.allocator.adaptiveCacheMaxFactor", 8));
+
+        // Allocate and free the memory of direct chunks explicitly so it never depends on the GC to be released.
+        DEFAULT_DIRECT_CHUNK_NO_CLEANER = SystemPropertyUtil.getBoolean("io.netty.allocator.directChunkNoCleaner",
+                PlatformDependent.useDirectBufferNoCleaner()) && PlatformDependent.isDirectBufferNoCleanerSupported();
+
+        // Keep the arenas of the NUMA nodes apart if the threads tell on which node they run.
+        int numaNodes = SystemPropertyUtil.getInt("io.netty.allocator.numaNodes", 1);
+        DEFAULT_ARENA_SELECTOR = numaNodes > 1 ?
+                new NumaPoolArenaSelector(numaNodes) : DefaultPoolArenaSelector.INSTANCE;
+
         if (logger.isDebugEnabled()) {
             logger.debug("-Dio.netty.allocator.numHeapArenas: {}", DEFAULT_NUM_HEAP_ARENA);
             logger.debug("-Dio.netty.allocator.numDirectArenas: {}", DEFAULT_NUM_DIRECT_ARENA);
@@ -132,9 +175,19 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             logger.debug("-Dio.netty.allocator.maxCachedBufferCapacity: {}", DEFAULT_MAX_CACHED_BUFFER_CAPACITY);
             logger.debug("-Dio.netty.allocator.cacheTrimInterval: {}", DEFAULT_CACHE_TRIM_INTERVAL);
             logger.debug("-Dio.netty.allocator.useCacheForAllThreads: {}", DEFAULT_USE_CACHE_FOR_ALL_THREADS);
+            logger.debug("-Dio.netty.allocator.useSizeClasses: {}", DEFAULT_USE_SIZE_CLASSES);
+            logger.debug("-Dio.netty.allocator.trimIdleTimeMillis: {}", trimIdleTimeMillis);
+            logger.debug("-Dio.netty.allocator.trimHighWatermark: {}", trimHighWatermark);
+            logger.debug("-Dio.netty.allocator.adaptiveThreadCache: {}", DEFAULT_ADAPTIVE_THREAD_CACHE);
+            logger.debug("-Dio.netty.allocator.adaptiveCacheMaxFactor: {}", DEFAULT_ADAPTIVE_CACHE_MAX_FACTOR);
+            logger.debug("-Dio.netty.allocator.directChunkNoCleaner: {}", DEFAULT_DIRECT_CHUNK_NO_CLEANER);
+            logger.debug("-Dio.netty.allocator.numaNodes: {}", numaNodes);
         }
     }
 
+    public static final PooledByteBufAllocator DEFAULT =
+            new PooledByteBufAllocator(PlatformDependent.directBufferPreferred());
+
     private final PoolArena<byte[]>[] heapArenas;
     private final PoolArena<ByteBuffer>[] directArenas;
     private final int tinyCacheSize;
@@ -144,6 +197,11 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     private final List<PoolArenaMetric> directArenaMetrics;
     private final PoolThreadLocalCache threadCache;
     private final int chunkSize;
+    private final boolean useSizeClasses;
+    private final PoolTrimPolicy trimPolicy;
+    private final boolean adaptiveThreadCache;
+    private final boolean directChunkNoCleaner;
+    private final PoolArenaSelector arenaSelector;
     private final PooledByteBufAllocatorMetric metric;
 
     public PooledByteBufAllocator() {
@@ -193,13 +251,111 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
     public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
                                   int tinyCacheSize, int smallCacheSize, int normalCacheSize,
                                   boolean useCacheForAllThreads, int directMemoryCacheAlignment) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize,
+                useCacheForAllThreads, directMemoryCacheAlignment, DEFAULT_USE_SIZE_CLASSES);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param useSizeClasses if {@code true} normal allocations (>= pageSize) are rounded up to the next of four
+     *                       evenly spaced size classes per power of 2 instead of the next power of 2, which
+     *                       reduces the memory wasted by sizes slightly above a power of 2.
+     *                       Requires {@code maxOrder >= 3}.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  boolean useSizeClasses) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize,
+                useCacheForAllThreads, directMemoryCacheAlignment, useSizeClasses, DEFAULT_TRIM_POLICY);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param trimPolicy the {@link PoolTrimPolicy} which controls when unused memory is released in the background.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  boolean useSizeClasses, PoolTrimPolicy trimPolicy) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize,
+                useCacheForAllThreads, directMemoryCacheAlignment, useSizeClasses, trimPolicy,
+                DEFAULT_ADAPTIVE_THREAD_CACHE);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param adaptiveThreadCache if {@code true} the tiny, small and normal cache sizes are only the initial sizes of
+     *                            the thread-local caches, which then grow (up to
+     *                            {@code io.netty.allocator.adaptiveCacheMaxFactor} times) while they miss and shrink
+     *                            down to nothing while they are not used.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  boolean useSizeClasses, PoolTrimPolicy trimPolicy, boolean adaptiveThreadCache) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize,
+                useCacheForAllThreads, directMemoryCacheAlignment, useSizeClasses, trimPolicy,
+                adaptiveThreadCache, DEFAULT_DIRECT_CHUNK_NO_CLEANER);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param directChunkNoCleaner if {@code true} the memory of direct chunks is allocated and freed explicitly
+     *                             without a {@code Cleaner}, and counted against {@code io.netty.maxDirectMemory}.
+     *                             See {@link PlatformDependent#isDirectBufferNoCleanerSupported()}.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  boolean useSizeClasses, PoolTrimPolicy trimPolicy, boolean adaptiveThreadCache,
+                                  boolean directChunkNoCleaner) {
+        this(preferDirect, nHeapArena, nDirectArena, pageSize, maxOrder,
+                tinyCacheSize, smallCacheSize, normalCacheSize,
+                useCacheForAllThreads, directMemoryCacheAlignment, useSizeClasses, trimPolicy,
+                adaptiveThreadCache, directChunkNoCleaner, DEFAULT_ARENA_SELECTOR);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param arenaSelector the {@link PoolArenaSelector} which selects the arenas of each thread, for example a
+     *                      {@link NumaPoolArenaSelector} on systems with more than one NUMA node.
+     */
+    public PooledByteBufAllocator(boolean preferDirect, int nHeapArena, int nDirectArena, int pageSize, int maxOrder,
+                                  int tinyCacheSize, int smallCacheSize, int normalCacheSize,
+                                  boolean useCacheForAllThreads, int directMemoryCacheAlignment,
+                                  boolean useSizeClasses, PoolTrimPolicy trimPolicy, boolean adaptiveThreadCache,
+                                  boolean directChunkNoCleaner, PoolArenaSelector arenaSelector) {
         super(preferDirect);
+        if (trimPolicy == null) {
+            throw new NullPointerException("trimPolicy");
+        }
+        if (arenaSelector == null) {
+            throw new NullPointerException("arenaSelector");
+        }
+        this.arenaSelector = arenaSelector;
         threadCache = new PoolThreadLocalCache(useCacheForAllThreads);
         this.tinyCacheSize = tinyCacheSize;
         this.smallCacheSize = smallCacheSize;
         this.normalCacheSize = normalCacheSize;
+        this.useSizeClasses = useSizeClasses;
+        this.adaptiveThreadCache = adaptiveThreadCache;
         chunkSize = validateAndCalculateChunkSize(pageSize, maxOrder);
 
+        if (useSizeClasses && maxOrder < MIN_SIZE_CLASSES_MAX_ORDER) {
+            throw new IllegalArgumentException("maxOrder: " + maxOrder + " (expected: " +
+                    MIN_SIZE_CLASSES_MAX_ORDER + "+ if size classes are used)");
+        }
+
         if (nHeapArena < 0) {
             throw new IllegalArgumentException("nHeapArena: " + nHeapArena + " (expected: >= 0)");
         }
@@ -219,6 +375,10 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             throw new IllegalArgumentException("directMemoryCacheAlignment: "
                     + directMemoryCacheAlignment + " (expected: power of two)");
         }
+        if (directChunkNoCleaner && !PlatformDependent.isDirectBufferNoCleanerSupported()) {
+            throw new IllegalArgumentException("directChunkNoCleaner is not supported");
+        }
+        this.directChunkNoCleaner = directChunkNoCleaner;
 
         int pageShifts = validateAndCalculatePageShifts(pageSize);
 
@@ -228,7 +388,7 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             for (int i = 0; i < heapArenas.length; i++) {
                 PoolArena.HeapArena arena = new PoolArena.HeapArena(this,
                         pageSize, maxOrder, pageShifts, chunkSize,
-                        directMemoryCacheAlignment);
+                        directMemoryCacheAlignment, useSizeClasses);
                 heapArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -242,8 +402,8 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             directArenas = newArenaArray(nDirectArena);
             List<PoolArenaMetric> metrics = new ArrayList<PoolArenaMetric>(directArenas.length);
             for (int i = 0; i < directArenas.length; i++) {
-                PoolArena.DirectArena arena = new PoolArena.DirectArena(
-                        this, pageSize, maxOrder, pageShifts, chunkSize, directMemoryCacheAlignment);
+                PoolArena.DirectArena arena = new PoolArena.DirectArena(this, pageSize, maxOrder, pageShifts,
+                        chunkSize, directMemoryCacheAlignment, useSizeClasses, directChunkNoCleaner);
                 directArenas[i] = arena;
                 metrics.add(arena);
             }
@@ -253,6 +413,11 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             directArenaMetrics = Collections.emptyList();
         }
         metric = new PooledByteBufAllocatorMetric(this);
+
+        this.trimPolicy = trimPolicy;
+        if (trimPolicy.isEnabled()) {
+            TrimTask.schedule(this, trimPolicy.idleTime(TimeUnit.MILLISECONDS));
+        }
     }
 
     @SuppressWarnings("unchecked")
@@ -339,6 +504,38 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return DEFAULT_NORMAL_CACHE_SIZE;
     }
 
+    /**
+     * Default use of size classes for normal allocations - System Property: io.netty.allocator.useSizeClasses
+     * - default false
+     */
+    public static boolean defaultUseSizeClasses() {
+        return DEFAULT_USE_SIZE_CLASSES;
+    }
+
+    /**
+     * Default use of adaptive thread-local caches - System Property: io.netty.allocator.adaptiveThreadCache
+     * - default false
+     */
+    public static boolean defaultAdaptiveThreadCache() {
+        return DEFAULT_ADAPTIVE_THREAD_CACHE;
+    }
+
+    /**
+     * Default use of direct chunks without a {@code Cleaner} - System Property:
+     * io.netty.allocator.directChunkNoCleaner - default {@link PlatformDependent#useDirectBufferNoCleaner()}
+     */
+    public static boolean defaultDirectChunkNoCleaner() {
+        return DEFAULT_DIRECT_CHUNK_NO_CLEANER;
+    }
+
+    /**
+     * Default {@link PoolArenaSelector} - System Property: io.netty.allocator.numaNodes - default 1, which selects
+     * the least used arena. A {@link NumaPoolArenaSelector} is used for more than one node.
+     */
+    public static PoolArenaSelector defaultArenaSelector() {
+        return DEFAULT_ARENA_SELECTOR;
+    }
+
     /**
      * Return {@code true} if direct memory cache aligment is supported, {@code false} otherwise.
      */
@@ -399,6 +596,49 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return directArenas != null;
     }
 
+    /**
+     * Releases memory that is not used anymore according to the {@link PoolTrimPolicy} of this allocator, which is
+     * also done periodically in the background if the policy is enabled.
+     *
+     * @return the number of bytes that were given back to the system.
+     */
+    public long trim() {
+        return trim(heapArenas, trimPolicy.highWatermark()) + trim(directArenas, trimPolicy.highWatermark());
+    }
+
+    /**
+     * Releases all empty direct chunks, which is done before failing an allocation because the limit of the direct
+     * memory was reached.
+     */
+    long releaseEmptyDirectChunks() {
+        return trim(directArenas, 0);
+    }
+
+    private static long trim(PoolArena<?>[] arenas, long highWatermark) {
+        if (arenas == null) {
+            return 0;
+        }
+        long released = 0;
+        for (PoolArena<?> arena : arenas) {
+            released += arena.trim(highWatermark);
+        }
+        return released;
+    }
+
+    /**
+     * Trim the thread-local cache of the calling {@link Thread}, releasing the cached buffers that were not used
+     * since the last trim.
+     *
+     * @return {@code true} if the calling {@link Thread} had a cache which was trimmed.
+     */
+    public boolean trimCurrentThreadCache() {
+        if (!threadCache.isSet()) {
+            return false;
+        }
+        threadCache.get().trim();
+        return true;
+    }
+
     /**
      * Returns {@code true} if the calling {@link Thread} has a {@link ThreadLocal} cache for the allocated
      * buffers.
@@ -521,6 +761,26 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return chunkSize;
     }
 
+    final boolean useSizeClasses() {
+        return useSizeClasses;
+    }
+
+    final boolean adaptiveThreadCache() {
+        return adaptiveThreadCache;
+    }
+
+    final boolean directChunkNoCleaner() {
+        return directChunkNoCleaner;
+    }
+
+    final PoolTrimPolicy trimPolicy() {
+        return trimPolicy;
+    }
+
+    final PoolArenaSelector arenaSelector() {
+        return arenaSelector;
+    }
+
     final long usedHeapMemory() {
         return usedMemory(heapArenas);
     }
@@ -529,6 +789,28 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return usedMemory(directArenas);
     }
 
+    final long activeHeapMemory() {
+        return activeMemory(heapArenas);
+    }
+
+    final long activeDirectMemory() {
+        return activeMemory(directArenas);
+    }
+
+    private static long activeMemory(PoolArena<?>... arenas) {
+        if (arenas == null) {
+            return -1;
+        }
+        long active = 0;
+        for (PoolArena<?> arena : arenas) {
+            active += arena.numUsedBytes();
+            if (active < 0) {
+                return Long.MAX_VALUE;
+            }
+        }
+        return active;
+    }
+
     final PoolThreadCache threadCache() {
         return threadCache.get();
     }
@@ -563,6 +845,44 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
         return buf.toString();
     }
 
+    /**
+     * Periodically trims an allocator without keeping it reachable.
+     */
+    private static final class TrimTask implements Runnable {
+        // The task runs forever, so use a daemon thread which does not prevent the JVM from exiting.
+        private static final ScheduledExecutorService EXECUTOR = Executors.newSingleThreadScheduledExecutor(
+                new DefaultThreadFactory("pooledByteBufAllocatorTrim", true, Thread.MIN_PRIORITY));
+
+        private final WeakReference<PooledByteBufAllocator> allocatorRef;
+        private volatile ScheduledFuture<?> future;
+
+        private TrimTask(PooledByteBufAllocator allocator) {
+            allocatorRef = new WeakReference<PooledByteBufAllocator>(allocator);
+        }
+
+        static void schedule(PooledByteBufAllocator allocator, long intervalMillis) {
+            TrimTask task = new TrimTask(allocator);
+            task.future = EXECUTOR.scheduleAtFixedRate(task, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void run() {
+            PooledByteBufAllocator allocator = allocatorRef.get();
+            if (allocator == null) {
+                // The allocator was garbage collected so there is nothing left to trim.
+                ScheduledFuture<?> future = this.future;
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+            long released = allocator.trim();
+            if (released > 0 && logger.isDebugEnabled()) {
+                logger.debug("Released {} bytes of unused pooled memory", released);
+            }
+        }
+    }
+
     final class PoolThreadLocalCache extends FastThreadLocal<PoolThreadCache> {
         private final boolean useCacheForAllThreads;
 
@@ -572,13 +892,14 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
 
         @Override
         protected synchronized PoolThreadCache initialValue() {
-            final PoolArena<byte[]> heapArena = leastUsedArena(heapArenas);
-            final PoolArena<ByteBuffer> directArena = leastUsedArena(directArenas);
+            final PoolArena<byte[]> heapArena = selectArena(heapArenas, heapArenaMetrics);
+            final PoolArena<ByteBuffer> directArena = selectArena(directArenas, directArenaMetrics);
 
             if (useCacheForAllThreads || Thread.currentThread() instanceof FastThreadLocalThread) {
                 return new PoolThreadCache(
                         heapArena, directArena, tinyCacheSize, smallCacheSize, normalCacheSize,
-                        DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL);
+                        DEFAULT_MAX_CACHED_BUFFER_CAPACITY, DEFAULT_CACHE_TRIM_INTERVAL,
+                        adaptiveThreadCache ? DEFAULT_ADAPTIVE_CACHE_MAX_FACTOR : 0);
             }
             // No caching for non FastThreadLocalThreads.
             return new PoolThreadCache(heapArena, directArena, 0, 0, 0, 0, 0);
@@ -589,20 +910,17 @@ public class PooledByteBufAllocator extends AbstractByteBufAllocator implements
             threadCache.free();
         }
 
-        private <T> PoolArena<T> leastUsedArena(PoolArena<T>[] arenas) {
+        private <T> PoolArena<T> selectArena(PoolArena<T>[] arenas, List<PoolArenaMetric> metrics) {
             if (arenas == null || arenas.length == 0) {
                 return null;
             }
 
-            PoolArena<T> minArena = arenas[0];
-            for (int i = 1; i < arenas.length; i++) {
-                PoolArena<T> arena = arenas[i];
-                if (arena.numThreadCaches.get() < minArena.numThreadCaches.get()) {
-                    minArena = arena;
-                }
+            int index = arenaSelector.select(Thread.currentThread(), metrics);
+            if (index < 0 || index >= arenas.length) {
+                throw new IllegalStateException(arenaSelector + " selected arena " + index +
+                        " (expected: 0-" + (arenas.length - 1) + ')');
             }
-
-            return minArena;
+            return arenas[index];
         }
     }
 }
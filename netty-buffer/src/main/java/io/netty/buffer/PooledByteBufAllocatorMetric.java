@@ -24,7 +24,7 @@ import java.util.List;
  * Exposed metric for {@link PooledByteBufAllocator}.
  */
 @SuppressWarnings("deprecation")
-public final class PooledByteBufAllocatorMetric implements ByteBufAllocatorMetric {
+public final class PooledByteBufAllocatorMetric implements ProfilingByteBufAllocatorMetric {
 
     private final PooledByteBufAllocator allocator;
 
@@ -95,29 +95,103 @@ public final class PooledByteBufAllocatorMetric implements ByteBufAllocatorMetri
         return allocator.chunkSize();
     }
 
+    /**
+     * Return {@code true} if normal allocations are served by fine grained size classes instead of powers of 2.
+     */
+    public boolean useSizeClasses() {
+        return allocator.useSizeClasses();
+    }
+
+    /**
+     * Return {@code true} if the thread-local caches grow and shrink depending on how often they are used.
+     */
+    public boolean adaptiveThreadCache() {
+        return allocator.adaptiveThreadCache();
+    }
+
+    /**
+     * Return {@code true} if the memory of direct chunks is allocated and freed without a {@code Cleaner}.
+     */
+    public boolean directChunkNoCleaner() {
+        return allocator.directChunkNoCleaner();
+    }
+
+    /**
+     * Return the {@link PoolTrimPolicy} which controls when unused memory is released.
+     */
+    public PoolTrimPolicy trimPolicy() {
+        return allocator.trimPolicy();
+    }
+
+    /**
+     * Return the {@link PoolArenaSelector} which selects the arenas of each thread.
+     */
+    public PoolArenaSelector arenaSelector() {
+        return allocator.arenaSelector();
+    }
+
+    /**
+     * Return the number of bytes of heap memory retained by the pool, which includes the free space of its chunks.
+     */
     @Override
     public long usedHeapMemory() {
         return allocator.usedHeapMemory();
     }
 
+    /**
+     * Return the number of bytes of direct memory retained by the pool, which includes the free space of its chunks.
+     */
     @Override
     public long usedDirectMemory() {
         return allocator.usedDirectMemory();
     }
 
+    /**
+     * Return the number of bytes of heap memory that are in use by buffers or held by thread-local caches or
+     * {@code -1} if the pool has no heap arenas.
+     */
+    public long activeHeapMemory() {
+        return allocator.activeHeapMemory();
+    }
+
+    /**
+     * Return the number of bytes of direct memory that are in use by buffers or held by thread-local caches or
+     * {@code -1} if the pool has no direct arenas.
+     */
+    public long activeDirectMemory() {
+        return allocator.activeDirectMemory();
+    }
+
+    @Override
+    public int allocationSamplingInterval() {
+        return allocator.allocationSamplingInterval();
+    }
+
+    @Override
+    public List<AllocationSiteMetric> allocationSites() {
+        return allocator.allocationSites();
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder(256);
         sb.append(StringUtil.simpleClassName(this))
                 .append("(usedHeapMemory: ").append(usedHeapMemory())
                 .append("; usedDirectMemory: ").append(usedDirectMemory())
+                .append("; activeHeapMemory: ").append(activeHeapMemory())
+                .append("; activeDirectMemory: ").append(activeDirectMemory())
                 .append("; numHeapArenas: ").append(numHeapArenas())
                 .append("; numDirectArenas: ").append(numDirectArenas())
                 .append("; tinyCacheSize: ").append(tinyCacheSize())
                 .append("; smallCacheSize: ").append(smallCacheSize())
                 .append("; normalCacheSize: ").append(normalCacheSize())
                 .append("; numThreadLocalCaches: ").append(numThreadLocalCaches())
-                .append("; chunkSize: ").append(chunkSize()).append(')');
+                .append("; chunkSize: ").append(chunkSize())
+                .append("; useSizeClasses: ").append(useSizeClasses())
+                .append("; adaptiveThreadCache: ").append(adaptiveThreadCache())
+                .append("; directChunkNoCleaner: ").append(directChunkNoCleaner())
+                .append("; trimPolicy: ").append(trimPolicy())
+                .append("; arenaSelector: ").append(arenaSelector()).append(')');
         return sb.toString();
     }
 }
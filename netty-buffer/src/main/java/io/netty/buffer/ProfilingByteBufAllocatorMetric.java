@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import java.util.List;
+
+/**
+ * A {@link ByteBufAllocatorMetric} which also exposes the allocations per call site recorded by the sampling
+ * allocation profiler of an {@link AbstractByteBufAllocator}.
+ */
+public interface ProfilingByteBufAllocatorMetric extends ByteBufAllocatorMetric {
+
+    /**
+     * Return the sampling interval of the allocation profiler, which records about every n-th allocation, or
+     * {@code 0} if profiling is disabled.
+     */
+    int allocationSamplingInterval();
+
+    /**
+     * Return a snapshot of the {@link AllocationSiteMetric}s of all call sites recorded so far, ordered by the
+     * number of active bytes starting with the largest.
+     */
+    List<AllocationSiteMetric> allocationSites();
+}
@@ -21,6 +21,7 @@ import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
 
 import java.nio.ByteBuffer;
+import java.util.List;
 
 /**
  * Simplistic {@link ByteBufAllocator} implementation that does not pool anything.
@@ -32,7 +33,7 @@ public final class UnpooledByteBufAllocator extends AbstractByteBufAllocator imp
      */
     public static final UnpooledByteBufAllocator DEFAULT =
             new UnpooledByteBufAllocator(PlatformDependent.directBufferPreferred());
-    private final UnpooledByteBufAllocatorMetric metric = new UnpooledByteBufAllocatorMetric();
+    private final UnpooledByteBufAllocatorMetric metric = new UnpooledByteBufAllocatorMetric(this);
     private final boolean disableLeakDetector;
 
     /**
@@ -229,9 +230,14 @@ public final class UnpooledByteBufAllocator extends AbstractByteBufAllocator imp
         }
     }
 
-    private static final class UnpooledByteBufAllocatorMetric implements ByteBufAllocatorMetric {
+    private static final class UnpooledByteBufAllocatorMetric implements ProfilingByteBufAllocatorMetric {
         final LongCounter directCounter = PlatformDependent.newLongCounter();
         final LongCounter heapCounter = PlatformDependent.newLongCounter();
+        private final UnpooledByteBufAllocator allocator;
+
+        UnpooledByteBufAllocatorMetric(UnpooledByteBufAllocator allocator) {
+            this.allocator = allocator;
+        }
 
         @Override
         public long usedHeapMemory() {
@@ -243,6 +249,16 @@ public final class UnpooledByteBufAllocator extends AbstractByteBufAllocator imp
             return directCounter.value();
         }
 
+        @Override
+        public int allocationSamplingInterval() {
+            return allocator.allocationSamplingInterval();
+        }
+
+        @Override
+        public List<AllocationSiteMetric> allocationSites() {
+            return allocator.allocationSites();
+        }
+
         @Override
         public String toString() {
             return StringUtil.simpleClassName(this) +
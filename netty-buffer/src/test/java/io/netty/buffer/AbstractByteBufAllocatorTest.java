@@ -17,7 +17,9 @@
 package io.netty.buffer;
 
 import io.netty.util.internal.PlatformDependent;
+import java.util.List;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
@@ -134,6 +136,79 @@ public abstract class AbstractByteBufAllocatorTest<T extends AbstractByteBufAllo
         assertEquals(expectedUsedMemoryAfterRelease(allocator, capacity), metric.usedHeapMemory());
     }
 
+    @Test
+    public void testAllocationProfiling() {
+        T allocator = newAllocator(true);
+        ProfilingByteBufAllocatorMetric metric =
+                (ProfilingByteBufAllocatorMetric) ((ByteBufAllocatorMetricProvider) allocator).metric();
+        assertEquals(0, metric.allocationSamplingInterval());
+        allocator.buffer(8).release();
+        assertTrue(metric.allocationSites().isEmpty());
+
+        allocator.setAllocationSamplingInterval(1);
+        assertEquals(1, metric.allocationSamplingInterval());
+        ByteBuf buffer = allocator.directBuffer(1024);
+        ByteBuf buffer2 = allocator.heapBuffer(512);
+        // Each allocation has its own call site, ordered by the number of active bytes.
+        List<AllocationSiteMetric> sites = metric.allocationSites();
+        assertEquals(2, sites.size());
+        assertAllocationSite(sites.get(0), "testAllocationProfiling", 1, 1, buffer.capacity());
+        assertAllocationSite(sites.get(1), "testAllocationProfiling", 1, 1, buffer2.capacity());
+        assertFalse(sites.get(0).callSite().equals(sites.get(1).callSite()));
+
+        // Derived buffers share the tracker of the buffer they were derived from.
+        buffer.retainedSlice().release();
+        buffer.release();
+        buffer2.release();
+        sites = metric.allocationSites();
+        assertEquals(2, sites.size());
+        for (AllocationSiteMetric site : sites) {
+            assertAllocationSite(site, "testAllocationProfiling", 1, 0, 0);
+        }
+
+        // Allocations from the same line share a call site.
+        ByteBuf buffer3 = allocateProfiledBuffer(allocator);
+        ByteBuf buffer4 = allocateProfiledBuffer(allocator);
+        sites = metric.allocationSites();
+        assertEquals(3, sites.size());
+        AllocationSiteMetric site = sites.get(0);
+        assertAllocationSite(site, "allocateProfiledBuffer", 2, 2, buffer3.capacity() + buffer4.capacity());
+        buffer3.release();
+        buffer4.release();
+        assertAllocationSite(findAllocationSite(metric, site.callSite()), "allocateProfiledBuffer", 2, 0, 0);
+
+        allocator.setAllocationSamplingInterval(0);
+        allocator.buffer(8).release();
+        assertEquals(3, metric.allocationSites().size());
+        assertEquals(2, findAllocationSite(metric, site.callSite()).numAllocations());
+    }
+
+    private static ByteBuf allocateProfiledBuffer(ByteBufAllocator allocator) {
+        return allocator.buffer(256);
+    }
+
+    private static AllocationSiteMetric findAllocationSite(ProfilingByteBufAllocatorMetric metric, String callSite) {
+        for (AllocationSiteMetric site : metric.allocationSites()) {
+            if (site.callSite().equals(callSite)) {
+                return site;
+            }
+        }
+        throw new AssertionError("no allocation site: " + callSite);
+    }
+
+    private static void assertAllocationSite(AllocationSiteMetric site, String method, long numAllocations,
+                                             long numActiveAllocations, long numActiveBytes) {
+        assertTrue(site.callSite(), site.callSite().contains(method));
+        assertEquals(numAllocations, site.numAllocations());
+        assertEquals(numActiveAllocations, site.numActiveAllocations());
+        assertEquals(numActiveBytes, site.numActiveBytes());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeAllocationSamplingInterval() {
+        newAllocator(true).setAllocationSamplingInterval(-1);
+    }
+
     protected long expectedUsedMemory(T allocator, int capacity) {
         return capacity;
     }
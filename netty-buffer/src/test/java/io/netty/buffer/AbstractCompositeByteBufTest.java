@@ -1017,6 +1017,51 @@ public abstract class AbstractCompositeByteBufTest extends AbstractByteBufTest {
         cbuf.release();
     }
 
+    @Test
+    public void testAddComponentsInMiddle() {
+        CompositeByteBuf cbuf = compositeBuffer(Integer.MAX_VALUE);
+        cbuf.addComponents(true, buffer().writeByte(1), buffer().writeByte(5));
+        ByteBuf buf3 = buffer().writeByte(3);
+        ByteBuf buf5 = buffer().writeByte(6);
+        // Everything after the first null entry is released and not added.
+        cbuf.addComponents(1, buffer().writeShort(0x0202), EMPTY_BUFFER, buffer().writeByte(4), null, buf5);
+        cbuf.addComponent(2, buf3);
+        cbuf.writerIndex(cbuf.capacity());
+
+        assertEquals(0, buf5.refCnt());
+        assertEquals(6, cbuf.numComponents());
+        assertEquals(6, cbuf.readableBytes());
+        for (int i = 0; i < cbuf.numComponents(); i++) {
+            ByteBuf c = cbuf.internalComponent(i);
+            if (c.isReadable()) {
+                assertEquals(c.getByte(0), cbuf.getByte(cbuf.toByteIndex(i)));
+                assertEquals(i, cbuf.toComponentIndex(cbuf.toByteIndex(i)));
+            }
+        }
+        assertSame(buf3, cbuf.internalComponentAtOffset(3).unwrap());
+        assertArrayEquals(new byte[] {1, 2, 2, 3, 4, 5}, ByteBufUtil.getBytes(cbuf));
+        cbuf.release();
+        assertEquals(0, buf3.refCnt());
+    }
+
+    @Test
+    public void testSequentialAndRandomAccessManyComponents() {
+        CompositeByteBuf cbuf = compositeBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < 1000; i++) {
+            cbuf.addComponent(true, buffer().writeByte(i).writeByte(i));
+        }
+        for (int i = 0; i < 2000; i++) {
+            assertEquals((byte) (i >>> 1), cbuf.readByte());
+        }
+        for (int i = 1999; i >= 0; i -= 7) {
+            assertEquals((byte) (i >>> 1), cbuf.getByte(i));
+            assertEquals(i >>> 1, cbuf.toComponentIndex(i));
+        }
+        cbuf.discardReadComponents();
+        assertEquals(0, cbuf.numComponents());
+        cbuf.release();
+    }
+
     @Test
     public void testIterator() {
         CompositeByteBuf cbuf = compositeBuffer();
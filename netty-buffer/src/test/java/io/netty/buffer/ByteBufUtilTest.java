@@ -25,6 +25,7 @@ import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import org.junit.Test;
 
+import java.nio.ByteOrder;
 import java.nio.charset.Charset;
 import java.util.Random;
 
@@ -442,4 +443,75 @@ public class ByteBufUtilTest {
             buffer.release();
         }
     }
+
+    @Test
+    public void testIndexOfByte() {
+        testIndexOfByte(Unpooled.buffer(64));
+        testIndexOfByte(Unpooled.directBuffer(64));
+        testIndexOfByte(Unpooled.buffer(64).order(ByteOrder.LITTLE_ENDIAN));
+        testIndexOfByte(Unpooled.directBuffer(64).order(ByteOrder.LITTLE_ENDIAN));
+    }
+
+    private static void testIndexOfByte(ByteBuf buffer) {
+        try {
+            buffer.writeZero(buffer.capacity());
+            for (int pos = 0; pos < buffer.capacity(); pos++) {
+                buffer.setByte(pos, 0x80);
+                for (int from = 0; from < buffer.capacity(); from++) {
+                    int expected = from <= pos ? pos : -1;
+                    assertEquals(expected, buffer.indexOf(from, buffer.capacity(), (byte) 0x80));
+                    expected = from > pos ? pos : -1;
+                    assertEquals(expected, buffer.indexOf(from, 0, (byte) 0x80));
+                }
+                buffer.setByte(pos, 0);
+            }
+            // Adjacent bytes which only differ in the highest bit must not match.
+            buffer.setByte(20, 0x7F);
+            buffer.setByte(21, 0xFF);
+            assertEquals(-1, buffer.indexOf(0, buffer.capacity(), (byte) 0x01));
+            assertEquals(21, buffer.indexOf(0, buffer.capacity(), (byte) 0xFF));
+            assertEquals(20, buffer.indexOf(buffer.capacity(), 0, (byte) 0x7F));
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testIndexOfPattern() {
+        ByteBuf haystack = Unpooled.copiedBuffer("abababababababababababababab\r\n", CharsetUtil.US_ASCII);
+        ByteBuf needle = Unpooled.copiedBuffer("\r\n", CharsetUtil.US_ASCII);
+        ByteBuf missing = Unpooled.copiedBuffer("aa", CharsetUtil.US_ASCII);
+        ByteBuf ab = Unpooled.copiedBuffer("ab", CharsetUtil.US_ASCII);
+        try {
+            assertEquals(28, ByteBufUtil.indexOf(needle, haystack));
+            assertEquals(-1, ByteBufUtil.indexOf(missing, haystack));
+            haystack.readerIndex(1);
+            assertEquals(2, ByteBufUtil.indexOf(ab, haystack));
+            haystack.writerIndex(29);
+            assertEquals(-1, ByteBufUtil.indexOf(needle, haystack));
+        } finally {
+            haystack.release();
+            needle.release();
+            missing.release();
+            ab.release();
+        }
+    }
+
+    @Test
+    public void testCompareLongBuffers() {
+        Random rand = new Random();
+        byte[] bytes = new byte[64];
+        rand.nextBytes(bytes);
+        for (int i = 0; i < bytes.length; i++) {
+            byte[] other = bytes.clone();
+            other[i]++;
+            ByteBuf a = Unpooled.wrappedBuffer(bytes);
+            ByteBuf b = Unpooled.wrappedBuffer(other);
+            int expected = (bytes[i] & 0xFF) - (other[i] & 0xFF);
+            assertEquals(Integer.signum(expected), Integer.signum(ByteBufUtil.compare(a, b)));
+            assertEquals(Integer.signum(expected), Integer.signum(ByteBufUtil.compare(a,
+                    Unpooled.wrappedBuffer(other).order(ByteOrder.LITTLE_ENDIAN))));
+            assertEquals(0, ByteBufUtil.compare(a, Unpooled.wrappedBuffer(bytes).order(ByteOrder.LITTLE_ENDIAN)));
+        }
+    }
 }
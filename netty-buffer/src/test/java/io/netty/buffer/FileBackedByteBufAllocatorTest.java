@@ -0,0 +1,87 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.CharsetUtil;
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class FileBackedByteBufAllocatorTest {
+
+    private final FileBackedByteBufAllocator allocator =
+            new FileBackedByteBufAllocator(UnpooledByteBufAllocator.DEFAULT, 1024);
+
+    @Before
+    public void init() {
+        Assume.assumeTrue("sun.misc.Unsafe not found, skip tests", PlatformDependent.hasUnsafe());
+    }
+
+    @Test
+    public void testThreshold() {
+        ByteBuf small = allocator.directBuffer(1024);
+        ByteBuf large = allocator.directBuffer(1025);
+        ByteBuf heap = allocator.heapBuffer(4096);
+        try {
+            assertFalse(unwrap(small) instanceof MappedFileByteBuf);
+            assertTrue(unwrap(large) instanceof MappedFileByteBuf);
+            assertSame(allocator, large.alloc());
+            assertTrue(heap.hasArray());
+        } finally {
+            small.release();
+            large.release();
+            heap.release();
+        }
+    }
+
+    @Test
+    public void testCompositeNioBuffers() {
+        byte[] header = "header".getBytes(CharsetUtil.US_ASCII);
+        byte[] payload = new byte[4096];
+        for (int i = 0; i < payload.length; i++) {
+            payload[i] = (byte) i;
+        }
+        ByteBuf mapped = allocator.directBuffer(payload.length).writeBytes(payload);
+        CompositeByteBuf composite = allocator.compositeDirectBuffer()
+                .addComponents(true, Unpooled.wrappedBuffer(header), mapped);
+        try {
+            ByteBuffer[] buffers = composite.nioBuffers();
+            assertEquals(2, buffers.length);
+            // The mapped memory itself is exposed so a gathering write does not need to copy it.
+            assertTrue(buffers[1].isDirect());
+            assertEquals(payload.length, buffers[1].remaining());
+            byte[] actual = new byte[payload.length];
+            buffers[1].get(actual);
+            assertArrayEquals(payload, actual);
+        } finally {
+            composite.release();
+        }
+    }
+
+    private static ByteBuf unwrap(ByteBuf buf) {
+        ByteBuf unwrapped = buf.unwrap();
+        return unwrapped == null ? buf : unwrapped;
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2013 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.buffer;
+
+import io.netty.util.internal.PlatformDependent;
+import org.junit.Assume;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class MappedFileByteBufTest extends BigEndianDirectByteBufTest {
+
+    @Before
+    @Override
+    public void init() {
+        Assume.assumeTrue("sun.misc.Unsafe not found, skip tests", PlatformDependent.hasUnsafe());
+        super.init();
+    }
+
+    @Override
+    protected ByteBuf newDirectBuffer(int length, int maxCapacity) {
+        try {
+            return new MappedFileByteBuf(UnpooledByteBufAllocator.DEFAULT, null, length, maxCapacity);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @Test
+    public void testCapacityChangeKeepsContent() throws IOException {
+        MappedFileByteBuf buf = new MappedFileByteBuf(UnpooledByteBufAllocator.DEFAULT, null, 8, 1024);
+        try {
+            buf.writeLong(0x0102030405060708L);
+            buf.capacity(512);
+            assertEquals(512, buf.capacity());
+            assertEquals(0x0102030405060708L, buf.getLong(0));
+            buf.writeInt(42);
+
+            buf.capacity(4);
+            assertEquals(4, buf.capacity());
+            assertEquals(4, buf.writerIndex());
+            assertEquals(0x01020304, buf.getInt(0));
+            assertTrue(buf.hasMemoryAddress());
+        } finally {
+            buf.release();
+        }
+    }
+}
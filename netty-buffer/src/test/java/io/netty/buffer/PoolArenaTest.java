@@ -25,7 +25,7 @@ public class PoolArenaTest {
 
     @Test
     public void testNormalizeCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 0);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 0, false, false);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 16, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i++) {
@@ -35,7 +35,7 @@ public class PoolArenaTest {
 
     @Test
     public void testNormalizeAlignedCapacity() throws Exception {
-        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 64);
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 0, 0, 9, 999999, 64, false, false);
         int[] reqCapacities = {0, 15, 510, 1024, 1023, 1025};
         int[] expectedResult = {0, 64, 512, 1024, 1024, 2048};
         for (int i = 0; i < reqCapacities.length; i++) {
@@ -43,6 +43,30 @@ public class PoolArenaTest {
         }
     }
 
+    @Test
+    public void testNormalizeCapacityWithSizeClasses() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, true, false);
+        int[] reqCapacities = {15, 1023, 4097, 8192, 8193, 9216, 10241, 16384, 16385, 40000, 65537};
+        int[] expectedResult = {16, 1024, 8192, 8192, 10240, 10240, 12288, 16384, 20480, 40960, 81920};
+        for (int i = 0; i < reqCapacities.length; i++) {
+            Assert.assertEquals(expectedResult[i], arena.normalizeCapacity(reqCapacities[i]));
+        }
+    }
+
+    @Test
+    public void testNormalIdxWithSizeClasses() throws Exception {
+        PoolArena<ByteBuffer> arena = new PoolArena.DirectArena(null, 8192, 11, 13, 8192 << 11, 0, true, false);
+        int lastSize = 0;
+        for (int i = 0; i <= 11 << PoolArena.LOG2_SIZE_CLASS_GROUP; i++) {
+            int size = arena.normalSizeClass(i);
+            Assert.assertTrue(size > lastSize);
+            Assert.assertEquals(size, arena.normalizeCapacity(size));
+            Assert.assertEquals(i, arena.normalIdx(size));
+            lastSize = size;
+        }
+        Assert.assertEquals(8192 << 11, lastSize);
+    }
+
     @Test
     public final void testAllocationCounter() {
         final PooledByteBufAllocator allocator = new PooledByteBufAllocator(
@@ -24,15 +24,19 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import org.junit.Assume;
 import org.junit.Test;
 
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Queue;
+import java.util.Random;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.LockSupport;
@@ -244,6 +248,87 @@ public class PooledByteBufAllocatorTest extends AbstractByteBufAllocatorTest<Poo
         testAllocNotNull(allocator, 1);
     }
 
+    @Test
+    public void testSizeClasses() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 1, 1, 8192, 11, 0, 0, 0, true, 0, true);
+        ByteBuf buffer = allocator.directBuffer(9 * 1024);
+        try {
+            assertEquals(10 * 1024, buffer.capacity(10 * 1024).capacity());
+            PoolArenaMetric metric = allocator.metric().directArenas().get(0);
+            assertEquals(1, metric.numNormalAllocations());
+            assertEquals(10 * 1024 * 4, metric.chunkLists().get(0).iterator().next().chunkSize() -
+                    metric.chunkLists().get(0).iterator().next().freeBytes());
+        } finally {
+            buffer.release();
+        }
+    }
+
+    @Test
+    public void testSizeClassesRandomAllocations() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, true, 0, true);
+        Random random = new Random(42);
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+        for (int i = 0; i < 10000; i++) {
+            if (!buffers.isEmpty() && random.nextBoolean()) {
+                releaseAndCheckContent(buffers.remove(random.nextInt(buffers.size())));
+            } else {
+                ByteBuf buffer = allocator.directBuffer(1 + random.nextInt(256 * 1024));
+                // Fill the whole capacity so overlapping allocations are detected when checking the content.
+                byte value = (byte) i;
+                while (buffer.isWritable()) {
+                    buffer.writeByte(value);
+                }
+                buffers.add(buffer);
+            }
+        }
+        for (ByteBuf buffer : buffers) {
+            releaseAndCheckContent(buffer);
+        }
+        assertEquals(0, allocator.metric().directArenas().get(0).numActiveAllocations());
+    }
+
+    private static void releaseAndCheckContent(ByteBuf buffer) {
+        byte value = buffer.getByte(0);
+        for (int i = 1; i < buffer.writerIndex(); i++) {
+            assertEquals(value, buffer.getByte(i));
+        }
+        assertTrue(buffer.release());
+    }
+
+    @Test
+    public void testSizeClassMetric() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, true, 0, true);
+        assertTrue(allocator.directBuffer(9 * 1024).release());
+        for (PoolSizeClassMetric metric : allocator.metric().directArenas().get(0).sizeClasses()) {
+            if (metric.normalizedCapacity() == 10 * 1024) {
+                assertEquals(1, metric.numAllocations());
+                assertEquals(9 * 1024, metric.numRequestedBytes());
+                assertEquals(10 * 1024, metric.numAllocatedBytes());
+                assertEquals(10, metric.fragmentation());
+            } else {
+                assertEquals(0, metric.numAllocations());
+            }
+        }
+    }
+
+    @Test
+    public void testSizeClassMetricIgnoresThreadCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 64, true, 0, true);
+        assertTrue(allocator.directBuffer(9 * 1024).release());
+        // Served by the thread cache.
+        assertTrue(allocator.directBuffer(9 * 1024).release());
+        for (PoolSizeClassMetric metric : allocator.metric().directArenas().get(0).sizeClasses()) {
+            if (metric.normalizedCapacity() == 10 * 1024) {
+                assertEquals(1, metric.numAllocations());
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testSizeClassesInvalidMaxOrder() {
+        new PooledByteBufAllocator(true, 0, 1, 8192, 2, 0, 0, 0, true, 0, true);
+    }
+
     @Test
     public void testFreePoolChunk() {
         int chunkSize = 16 * 1024 * 1024;
@@ -370,6 +455,265 @@ public class PooledByteBufAllocatorTest extends AbstractByteBufAllocatorTest<Poo
         assertEquals(0, allocator.metric().directArenas().get(1).numThreadCaches());
     }
 
+    @Test
+    public void testTrimReleasesIdleChunks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, false, 0,
+                false, new PoolTrimPolicy(TimeUnit.HOURS.toMillis(1), Long.MAX_VALUE));
+        PooledByteBufAllocatorMetric metric = allocator.metric();
+        ByteBuf buf = allocator.heapBuffer(8192);
+        assertEquals(metric.chunkSize(), metric.usedHeapMemory());
+        assertEquals(8192, metric.activeHeapMemory());
+        assertEquals(-1, metric.activeDirectMemory());
+
+        // Chunks that are still in use must never be released.
+        assertEquals(0, allocator.trim());
+        assertEquals(0, allocator.trim());
+        assertTrue(buf.release());
+        assertEquals(0, metric.activeHeapMemory());
+
+        // The first trim only marks the empty chunk as idle, the next one releases it.
+        assertEquals(0, allocator.trim());
+        assertEquals(metric.chunkSize(), metric.usedHeapMemory());
+        assertEquals(metric.chunkSize(), allocator.trim());
+        assertEquals(0, metric.usedHeapMemory());
+    }
+
+    @Test
+    public void testTrimReusedChunkIsNotIdle() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, false, 0,
+                false, new PoolTrimPolicy(TimeUnit.HOURS.toMillis(1), Long.MAX_VALUE));
+        allocator.heapBuffer(8192).release();
+        assertEquals(0, allocator.trim());
+
+        // Allocating from the chunk again resets its idle state.
+        allocator.heapBuffer(8192).release();
+        assertEquals(0, allocator.trim());
+        assertEquals(allocator.metric().chunkSize(), allocator.trim());
+    }
+
+    @Test
+    public void testTrimHighWatermark() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, false, 0,
+                false, new PoolTrimPolicy(TimeUnit.HOURS.toMillis(1), 0));
+        allocator.heapBuffer(8192).release();
+        assertEquals(allocator.metric().chunkSize(), allocator.trim());
+        assertEquals(0, allocator.metric().usedHeapMemory());
+    }
+
+    @Test
+    public void testTrimCurrentThreadCache() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 32, 32, 32, true, 0);
+        assertFalse(allocator.trimCurrentThreadCache());
+        allocator.heapBuffer(8192).release();
+        assertEquals(8192, allocator.metric().activeHeapMemory());
+
+        // The cached buffer was never allocated from the cache so it is freed.
+        assertTrue(allocator.trimCurrentThreadCache());
+        assertEquals(0, allocator.metric().activeHeapMemory());
+    }
+
+    @Test(timeout = 5000)
+    public void testTrimInBackground() throws Exception {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, false, 0,
+                false, new PoolTrimPolicy(10, Long.MAX_VALUE));
+        allocator.heapBuffer(8192).release();
+        while (allocator.metric().usedHeapMemory() > 0) {
+            Thread.sleep(10);
+        }
+
+        // The trim task runs forever, so it must not keep the JVM alive.
+        Thread trimThread = null;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("pooledByteBufAllocatorTrim")) {
+                trimThread = t;
+            }
+        }
+        assertNotNull(trimThread);
+        assertTrue(trimThread.isDaemon());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testTrimPolicyInvalidIdleTime() {
+        new PoolTrimPolicy(0, Long.MAX_VALUE);
+    }
+
+    @Test
+    public void testThreadCacheHitMetrics() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 32, 32, 32, true, 0);
+        PoolArenaMetric arena = allocator.metric().heapArenas().get(0);
+        allocator.heapBuffer(8192).release();
+        allocator.heapBuffer(8192).release();
+        allocator.heapBuffer(8192).release();
+
+        // The counters are only updated when the cache is trimmed.
+        assertEquals(0, arena.numThreadCacheHits());
+        assertTrue(allocator.trimCurrentThreadCache());
+        assertEquals(2, arena.numThreadCacheHits());
+        assertEquals(1, arena.numThreadCacheMisses());
+    }
+
+    @Test
+    public void testAdaptiveThreadCacheGrows() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 1, true, 0,
+                false, PoolTrimPolicy.DISABLED, true);
+        assertTrue(allocator.metric().adaptiveThreadCache());
+        allocateAndRelease(allocator, 4);
+        assertEquals(8192, allocator.metric().activeHeapMemory());
+
+        // The cache missed more often than it could hold so it doubles its size.
+        allocator.trimCurrentThreadCache();
+        allocateAndRelease(allocator, 4);
+        assertEquals(2 * 8192, allocator.metric().activeHeapMemory());
+    }
+
+    @Test
+    public void testAdaptiveThreadCacheShrinks() {
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 4, true, 0,
+                false, PoolTrimPolicy.DISABLED, true);
+        allocateAndRelease(allocator, 4);
+        assertEquals(4 * 8192, allocator.metric().activeHeapMemory());
+
+        // Nothing was allocated from the cache so it drops all entries and halves its size.
+        allocator.trimCurrentThreadCache();
+        assertEquals(0, allocator.metric().activeHeapMemory());
+        allocateAndRelease(allocator, 4);
+        assertEquals(2 * 8192, allocator.metric().activeHeapMemory());
+    }
+
+    @Test
+    public void testAdaptiveThreadCacheFootprint() {
+        Assume.assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, true, 0);
+        @SuppressWarnings("unchecked")
+        PoolArena<byte[]> arena = (PoolArena<byte[]>) allocator.metric().heapArenas().get(0);
+        long threadId = Thread.currentThread().getId();
+
+        // Create both kinds once first so class loading is not counted.
+        new PoolThreadCache(arena, null, 512, 256, 64, 32 * 1024, 8192, 0).free();
+        new PoolThreadCache(arena, null, 512, 256, 64, 32 * 1024, 8192, 8).free();
+
+        long start = threads.getThreadAllocatedBytes(threadId);
+        PoolThreadCache fixed = new PoolThreadCache(arena, null, 512, 256, 64, 32 * 1024, 8192, 0);
+        long fixedBytes = threads.getThreadAllocatedBytes(threadId) - start;
+        fixed.free();
+
+        start = threads.getThreadAllocatedBytes(threadId);
+        PoolThreadCache adaptive = new PoolThreadCache(arena, null, 512, 256, 64, 32 * 1024, 8192, 8);
+        long adaptiveBytes = threads.getThreadAllocatedBytes(threadId) - start;
+        adaptive.free();
+
+        // A cold adaptive cache must not hold more memory than a fixed one, even though it may grow much bigger.
+        assertTrue("adaptive: " + adaptiveBytes + ", fixed: " + fixedBytes, adaptiveBytes <= fixedBytes);
+    }
+
+    @Test
+    public void testDirectChunkNoCleaner() {
+        Assume.assumeTrue(PlatformDependent.isDirectBufferNoCleanerSupported());
+        Assume.assumeTrue(PlatformDependent.usedDirectMemory() >= 0);
+        PooledByteBufAllocator allocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, false, 0,
+                false, new PoolTrimPolicy(TimeUnit.HOURS.toMillis(1), 0), false, true);
+        assertTrue(allocator.metric().directChunkNoCleaner());
+        int chunkSize = allocator.metric().chunkSize();
+        long used = PlatformDependent.usedDirectMemory();
+
+        // Chunks are counted as soon as they are allocated and not once the GC collected them.
+        ByteBuf buf = allocator.directBuffer(8192);
+        assertEquals(used + chunkSize, PlatformDependent.usedDirectMemory());
+        assertTrue(buf.release());
+        assertEquals(chunkSize, allocator.trim());
+        assertEquals(used, PlatformDependent.usedDirectMemory());
+
+        // The same is true for huge allocations which are not pooled.
+        buf = allocator.directBuffer(chunkSize + 1);
+        assertEquals(used + chunkSize + 1, PlatformDependent.usedDirectMemory());
+        assertTrue(buf.release());
+        assertEquals(used, PlatformDependent.usedDirectMemory());
+    }
+
+    @Test(timeout = 3000)
+    public void testNumaPoolArenaSelector() throws Exception {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 4, 0, 8192, 11, 0, 0, 0, true, 0,
+                false, PoolTrimPolicy.DISABLED, false, false, new NumaPoolArenaSelector(2));
+        List<PoolArenaMetric> arenas = allocator.metric().heapArenas();
+        int[] nodes = { 1, 0, 1, 0, -1 };
+        int[] expectedArenas = { 1, 0, 3, 2, 0 };
+        // Keep the threads and so their caches alive until all arenas were selected.
+        final CountDownLatch done = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<Thread>();
+        try {
+            for (int i = 0; i < nodes.length; i++) {
+                final AtomicReference<PoolArena<?>> arena = new AtomicReference<PoolArena<?>>();
+                final CountDownLatch selected = new CountDownLatch(1);
+                FastThreadLocalThread t = new FastThreadLocalThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        arena.set(allocator.threadCache().heapArena);
+                        selected.countDown();
+                        try {
+                            done.await();
+                        } catch (InterruptedException ignore) {
+                            // Just exit.
+                        }
+                    }
+                });
+                t.setNumaNode(nodes[i]);
+                threads.add(t);
+                t.start();
+                selected.await();
+                assertSame(arenas.get(expectedArenas[i]), arena.get());
+            }
+        } finally {
+            done.countDown();
+            for (Thread t : threads) {
+                t.join();
+            }
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNumaPoolArenaSelectorInvalidNumNodes() {
+        new NumaPoolArenaSelector(0);
+    }
+
+    private static void allocateAndRelease(ByteBufAllocator allocator, int num) {
+        List<ByteBuf> buffers = new ArrayList<ByteBuf>(num);
+        for (int i = 0; i < num; i++) {
+            buffers.add(allocator.heapBuffer(8192));
+        }
+        for (ByteBuf buf : buffers) {
+            buf.release();
+        }
+    }
+
+    @Test(timeout = 3000)
+    public void testArenaLockContentions() throws InterruptedException {
+        final PooledByteBufAllocator allocator = new PooledByteBufAllocator(false, 1, 0, 8192, 11, 0, 0, 0, false, 0);
+        PoolArena<?> arena = (PoolArena<?>) allocator.metric().heapArenas().get(0);
+        allocator.heapBuffer(8192).release();
+        assertEquals(0, arena.numArenaLockContentions());
+
+        Thread t = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                allocator.heapBuffer(8192).release();
+            }
+        });
+        arena.lock();
+        try {
+            t.start();
+            // Wait until the other thread blocks on the lock.
+            while (arena.numArenaLockContentions() == 0) {
+                Thread.sleep(1);
+            }
+        } finally {
+            arena.unlock();
+        }
+        t.join();
+        assertEquals(1, arena.numArenaLockContentions());
+    }
+
     @Test
     public void testConcurrentUsage() throws Throwable {
         long runningTime = MILLISECONDS.toNanos(SystemPropertyUtil.getLong(
@@ -797,7 +797,16 @@ public abstract class HttpObjectDecoder extends ByteToMessageDecoder {
         public AppendableCharSequence parse(ByteBuf buffer) {
             final int oldSize = size;
             seq.reset();
-            int i = buffer.forEachByte(this);
+            final int readerIndex = buffer.readerIndex();
+            final int readableBytes = buffer.readableBytes();
+            // Look for the end of the line a word at a time first, so an incomplete line is not copied
+            // byte by byte on every read until it is complete.
+            final int lf = buffer.indexOf(readerIndex, readerIndex + readableBytes, HttpConstants.LF);
+            if (lf == -1 && oldSize + readableBytes <= maxLength) {
+                // The line can not be too long yet.
+                return null;
+            }
+            int i = lf == -1 ? buffer.forEachByte(this) : buffer.forEachByte(readerIndex, lf - readerIndex + 1, this);
             if (i == -1) {
                 size = oldSize;
                 return null;
@@ -18,7 +18,6 @@ package io.netty.handler.codec;
 
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandlerContext;
-import io.netty.util.ByteProcessor;
 
 import java.util.List;
 
@@ -78,7 +77,7 @@ public class LineBasedFrameDecoder extends ByteToMessageDecoder {
      * Returns -1 if no end of line was found in the buffer.
      */
     private static int findEndOfLine(final ByteBuf buffer) {
-        int i = buffer.forEachByte(ByteProcessor.FIND_LF);
+        int i = buffer.indexOf(buffer.readerIndex(), buffer.writerIndex(), (byte) '\n');
         if (i > 0 && buffer.getByte(i - 1) == '\r') {
             i--;
         }
@@ -17,29 +17,27 @@
 package io.netty.util;
 
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
+import static io.netty.util.internal.MathUtil.findNextPositivePowerOfTwo;
+
 /**
- * Default {@link AttributeMap} implementation which use simple synchronization per bucket to keep the memory overhead
- * as low as possible.
+ * Default {@link AttributeMap} implementation which keeps the attributes in an open-addressing table indexed by
+ * {@link AttributeKey#id()}. Lookups never lock and take constant time, as the ids of the keys are dense. The table
+ * is copied on each addition or removal of an attribute, which is rare compared to lookups.
  */
 public class DefaultAttributeMap implements AttributeMap {
 
     @SuppressWarnings("rawtypes")
-    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, AtomicReferenceArray> updater =
-            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, AtomicReferenceArray.class, "attributes");
+    private static final AtomicReferenceFieldUpdater<DefaultAttributeMap, DefaultAttribute[]> updater =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultAttributeMap.class, DefaultAttribute[].class, "attributes");
 
-    private static final int BUCKET_SIZE = 4;
-    private static final int MASK = BUCKET_SIZE - 1;
+    private static final int MIN_TABLE_SIZE = 4;
 
-    // Initialize lazily to reduce memory consumption; updated by AtomicReferenceFieldUpdater above.
+    // Initialize lazily to reduce memory consumption; updated by AtomicReferenceFieldUpdater above. The length is
+    // a power of two and at most half of the slots are used so a lookup always ends at an empty slot.
     @SuppressWarnings("UnusedDeclaration")
-    private volatile AtomicReferenceArray<DefaultAttribute<?>> attributes;
-
-    private static int index(AttributeKey<?> key) {
-        return key.id() & MASK;
-    }
+    private volatile DefaultAttribute<?>[] attributes;
 
     @SuppressWarnings("unchecked")
     @Override
@@ -47,48 +45,21 @@ public class DefaultAttributeMap implements AttributeMap {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        AtomicReferenceArray<DefaultAttribute<?>> attributes = this.attributes;
-        if (attributes == null) {
-            // Not using ConcurrentHashMap due to high memory consumption.
-            attributes = new AtomicReferenceArray<DefaultAttribute<?>>(BUCKET_SIZE);
-
-            if (!updater.compareAndSet(this, null, attributes)) {
-                attributes = this.attributes;
-            }
+        DefaultAttribute<T> attr = (DefaultAttribute<T>) find(attributes, key);
+        if (attr != null) {
+            return attr;
         }
 
-        int i = index(key);
-        DefaultAttribute<?> head = attributes.get(i);
-        if (head == null) {
-            // No head exists yet which means we may be able to add the attribute without synchronization and just
-            // use compare and set. At worst we need to fallback to synchronization and waste two allocations.
-            head = new DefaultAttribute();
-            DefaultAttribute<T> attr = new DefaultAttribute<T>(head, key);
-            head.next = attr;
-            attr.prev = head;
-            if (attributes.compareAndSet(i, null, head)) {
-                // we were able to add it so return the attr right away
+        DefaultAttribute<T> newAttr = new DefaultAttribute<T>(this, key);
+        for (;;) {
+            DefaultAttribute<?>[] attributes = this.attributes;
+            // Another thread may have added the attribute in the meantime.
+            attr = (DefaultAttribute<T>) find(attributes, key);
+            if (attr != null) {
                 return attr;
-            } else {
-                head = attributes.get(i);
             }
-        }
-
-        synchronized (head) {
-            DefaultAttribute<?> curr = head;
-            for (; ; ) {
-                DefaultAttribute<?> next = curr.next;
-                if (next == null) {
-                    DefaultAttribute<T> attr = new DefaultAttribute<T>(head, key);
-                    curr.next = attr;
-                    attr.prev = curr;
-                    return attr;
-                }
-
-                if (next.key == key && !next.removed) {
-                    return (Attribute<T>) next;
-                }
-                curr = next;
+            if (updater.compareAndSet(this, attributes, copy(attributes, newAttr))) {
+                return newAttr;
             }
         }
     }
@@ -98,31 +69,94 @@ public class DefaultAttributeMap implements AttributeMap {
         if (key == null) {
             throw new NullPointerException("key");
         }
-        AtomicReferenceArray<DefaultAttribute<?>> attributes = this.attributes;
+        return find(attributes, key) != null;
+    }
+
+    private static DefaultAttribute<?> find(DefaultAttribute<?>[] attributes, AttributeKey<?> key) {
         if (attributes == null) {
             // no attribute exists
-            return false;
+            return null;
         }
+        int mask = attributes.length - 1;
+        for (int i = key.id() & mask;; i = i + 1 & mask) {
+            DefaultAttribute<?> attr = attributes[i];
+            if (attr == null) {
+                return null;
+            }
+            if (attr.key == key && !attr.removed) {
+                return attr;
+            }
+        }
+    }
 
-        int i = index(key);
-        DefaultAttribute<?> head = attributes.get(i);
-        if (head == null) {
-            // No attribute exists which point to the bucket in which the head should be located
-            return false;
+    /**
+     * Returns a new table with the attributes of {@code attributes} which were not removed and {@code newAttr} if
+     * not {@code null}, or {@code null} if the table would be empty.
+     */
+    private static DefaultAttribute<?>[] copy(DefaultAttribute<?>[] attributes, DefaultAttribute<?> newAttr) {
+        int size = newAttr == null ? 0 : 1;
+        if (attributes != null) {
+            for (DefaultAttribute<?> attr : attributes) {
+                if (attr != null && !attr.removed) {
+                    size++;
+                }
+            }
+        }
+        if (size == 0) {
+            return null;
         }
 
-        // We need to synchronize on the head.
-        synchronized (head) {
-            // Start with head.next as the head itself does not store an attribute.
-            DefaultAttribute<?> curr = head.next;
-            while (curr != null) {
-                if (curr.key == key && !curr.removed) {
-                    return true;
+        DefaultAttribute<?>[] newAttributes =
+                new DefaultAttribute[Math.max(MIN_TABLE_SIZE, findNextPositivePowerOfTwo(size << 1))];
+        if (attributes != null) {
+            for (DefaultAttribute<?> attr : attributes) {
+                if (attr != null && !attr.removed) {
+                    insert(newAttributes, attr);
                 }
-                curr = curr.next;
             }
+        }
+        if (newAttr != null) {
+            insert(newAttributes, newAttr);
+        }
+        return newAttributes;
+    }
+
+    private static void insert(DefaultAttribute<?>[] attributes, DefaultAttribute<?> attr) {
+        int mask = attributes.length - 1;
+        int i = attr.key.id() & mask;
+        while (attributes[i] != null) {
+            i = i + 1 & mask;
+        }
+        attributes[i] = attr;
+    }
+
+    private void remove(DefaultAttribute<?> attr) {
+        for (;;) {
+            DefaultAttribute<?>[] attributes = this.attributes;
+            if (!contains(attributes, attr)) {
+                // Removed before or already replaced by a new attribute for the same key.
+                return;
+            }
+            if (updater.compareAndSet(this, attributes, copy(attributes, null))) {
+                return;
+            }
+        }
+    }
+
+    private static boolean contains(DefaultAttribute<?>[] attributes, DefaultAttribute<?> attr) {
+        if (attributes == null) {
             return false;
         }
+        int mask = attributes.length - 1;
+        for (int i = attr.key.id() & mask;; i = i + 1 & mask) {
+            DefaultAttribute<?> a = attributes[i];
+            if (a == null) {
+                return false;
+            }
+            if (a == attr) {
+                return true;
+            }
+        }
     }
 
     @SuppressWarnings("serial")
@@ -130,28 +164,18 @@ public class DefaultAttributeMap implements AttributeMap {
 
         private static final long serialVersionUID = -2661411462200283011L;
 
-        // The head of the linked-list this attribute belongs to
-        private final DefaultAttribute<?> head;
+        // The map this attribute belongs to
+        private final DefaultAttributeMap map;
         private final AttributeKey<T> key;
 
-        // Double-linked list to prev and next node to allow fast removal
-        private DefaultAttribute<?> prev;
-        private DefaultAttribute<?> next;
-
         // Will be set to true one the attribute is removed via getAndRemove() or remove()
         private volatile boolean removed;
 
-        DefaultAttribute(DefaultAttribute<?> head, AttributeKey<T> key) {
-            this.head = head;
+        DefaultAttribute(DefaultAttributeMap map, AttributeKey<T> key) {
+            this.map = map;
             this.key = key;
         }
 
-        // Special constructor for the head of the linked-list.
-        DefaultAttribute() {
-            head = this;
-            key = null;
-        }
-
         @Override
         public AttributeKey<T> key() {
             return key;
@@ -172,7 +196,7 @@ public class DefaultAttributeMap implements AttributeMap {
         public T getAndRemove() {
             removed = true;
             T oldValue = getAndSet(null);
-            remove0();
+            map.remove(this);
             return oldValue;
         }
 
@@ -180,27 +204,7 @@ public class DefaultAttributeMap implements AttributeMap {
         public void remove() {
             removed = true;
             set(null);
-            remove0();
-        }
-
-        private void remove0() {
-            synchronized (head) {
-                if (prev == null) {
-                    // Removed before.
-                    return;
-                }
-
-                prev.next = next;
-
-                if (next != null) {
-                    next.prev = prev;
-                }
-
-                // Null out prev and next - this will guard against multiple remove0() calls which may corrupt
-                // the linked list for the bucket.
-                prev = null;
-                next = null;
-            }
+            map.remove(this);
         }
     }
 }
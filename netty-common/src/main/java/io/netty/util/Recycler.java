@@ -17,7 +17,9 @@
 package io.netty.util;
 
 import io.netty.util.concurrent.FastThreadLocal;
+import io.netty.util.internal.LongCounter;
 import static io.netty.util.internal.MathUtil.safeFindNextPositivePowerOfTwo;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
@@ -27,11 +29,19 @@ import static java.lang.Math.min;
 import java.lang.ref.WeakReference;
 import java.util.Arrays;
 import java.util.Map;
+import java.util.Queue;
 import java.util.WeakHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 /**
  * Light-weight object pool based on a thread-local stack.
+ * <p>
+ * Objects recycled by another thread than the one which got them are handed back through a chain of
+ * {@code WeakOrderQueue}s by default. With {@code -Dio.netty.recycler.mode=mpsc} they are handed back through a
+ * bounded MPSC queue per thread-local stack instead, which does not allocate when recycling, and all recyclers in
+ * this mode share a budget of {@code -Dio.netty.recycler.maxTotalCapacity} pooled objects. {@link #hits()},
+ * {@link #misses()} and {@link #drops()} are only counted in this mode.
  *
  * @param <T> the type of the pooled object
  */
@@ -48,6 +58,7 @@ public abstract class Recycler<T> {
     };
     private static final AtomicInteger ID_GENERATOR = new AtomicInteger(Integer.MIN_VALUE);
     private static final int OWN_THREAD_ID = ID_GENERATOR.getAndIncrement();
+    private static final int RETURN_QUEUE_ID = ID_GENERATOR.getAndIncrement();
     private static final int DEFAULT_INITIAL_MAX_CAPACITY_PER_THREAD = 32768; // Use 32k instances as default.
     private static final int DEFAULT_MAX_CAPACITY_PER_THREAD;
     private static final int INITIAL_CAPACITY;
@@ -55,6 +66,13 @@ public abstract class Recycler<T> {
     private static final int MAX_DELAYED_QUEUES_PER_THREAD;
     private static final int LINK_CAPACITY;
     private static final int RATIO;
+    private static final boolean USE_MPSC_QUEUE;
+    private static final int RETURN_QUEUE_CAPACITY;
+    private static final int MAX_TOTAL_CAPACITY;
+    // The number of pooled objects a stack reserves from the total capacity at once.
+    private static final int TOTAL_CAPACITY_CHUNK = 64;
+    // The number of objects which may still be pooled by all recyclers using the MPSC queue.
+    private static final AtomicInteger availableTotalCapacity;
     private static final FastThreadLocal<Map<Stack<?>, WeakOrderQueue>> DELAYED_RECYCLED =
             new FastThreadLocal<Map<Stack<?>, WeakOrderQueue>>() {
                 @Override
@@ -92,6 +110,13 @@ public abstract class Recycler<T> {
         // bursts.
         RATIO = safeFindNextPositivePowerOfTwo(SystemPropertyUtil.getInt("io.netty.recycler.ratio", 8));
 
+        USE_MPSC_QUEUE = "mpsc".equalsIgnoreCase(SystemPropertyUtil.get("io.netty.recycler.mode", "weakOrderQueue"));
+        RETURN_QUEUE_CAPACITY = safeFindNextPositivePowerOfTwo(
+                max(SystemPropertyUtil.getInt("io.netty.recycler.returnQueueCapacity", 256), 16));
+        MAX_TOTAL_CAPACITY = max(SystemPropertyUtil.getInt("io.netty.recycler.maxTotalCapacity", 262144),
+                TOTAL_CAPACITY_CHUNK);
+        availableTotalCapacity = new AtomicInteger(MAX_TOTAL_CAPACITY);
+
         if (logger.isDebugEnabled()) {
             if (DEFAULT_MAX_CAPACITY_PER_THREAD == 0) {
                 logger.debug("-Dio.netty.recycler.maxCapacityPerThread: disabled");
@@ -103,6 +128,11 @@ public abstract class Recycler<T> {
                 logger.debug("-Dio.netty.recycler.maxSharedCapacityFactor: {}", MAX_SHARED_CAPACITY_FACTOR);
                 logger.debug("-Dio.netty.recycler.linkCapacity: {}", LINK_CAPACITY);
                 logger.debug("-Dio.netty.recycler.ratio: {}", RATIO);
+                logger.debug("-Dio.netty.recycler.mode: {}", USE_MPSC_QUEUE ? "mpsc" : "weakOrderQueue");
+                if (USE_MPSC_QUEUE) {
+                    logger.debug("-Dio.netty.recycler.returnQueueCapacity: {}", RETURN_QUEUE_CAPACITY);
+                    logger.debug("-Dio.netty.recycler.maxTotalCapacity: {}", MAX_TOTAL_CAPACITY);
+                }
             }
         }
 
@@ -113,6 +143,11 @@ public abstract class Recycler<T> {
     private final int maxSharedCapacityFactor;
     private final int ratioMask;
     private final int maxDelayedQueuesPerThread;
+    private final boolean useMpscQueue;
+    // Only counted with the MPSC queue.
+    private final LongCounter hits;
+    private final LongCounter misses;
+    private final LongCounter drops;
     private final FastThreadLocal<Stack<T>> threadLocal = new FastThreadLocal<Stack<T>>() {
         @Override
         protected Stack<T> initialValue() {
@@ -135,6 +170,24 @@ public abstract class Recycler<T> {
 
     protected Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor,
                        int ratio, int maxDelayedQueuesPerThread) {
+        this(maxCapacityPerThread, maxSharedCapacityFactor, ratio, maxDelayedQueuesPerThread, USE_MPSC_QUEUE);
+    }
+
+    /**
+     * @param useMpscQueue {@code true} to hand back the objects recycled by other threads through a bounded MPSC
+     * queue and to pool them within the total capacity shared by all such recyclers, in which case
+     * {@code maxSharedCapacityFactor} and {@code maxDelayedQueuesPerThread} are not used
+     */
+    protected Recycler(int maxCapacityPerThread, int maxSharedCapacityFactor,
+                       int ratio, int maxDelayedQueuesPerThread, boolean useMpscQueue) {
+        this.useMpscQueue = useMpscQueue;
+        if (useMpscQueue) {
+            hits = PlatformDependent.newLongCounter();
+            misses = PlatformDependent.newLongCounter();
+            drops = PlatformDependent.newLongCounter();
+        } else {
+            hits = misses = drops = null;
+        }
         ratioMask = safeFindNextPositivePowerOfTwo(ratio) - 1;
         if (maxCapacityPerThread <= 0) {
             this.maxCapacityPerThread = 0;
@@ -155,12 +208,51 @@ public abstract class Recycler<T> {
         Stack<T> stack = threadLocal.get();
         DefaultHandle<T> handle = stack.pop();
         if (handle == null) {
+            if (misses != null) {
+                misses.increment();
+            }
             handle = stack.newHandle();
             handle.value = newObject(handle);
+        } else if (hits != null) {
+            hits.increment();
         }
         return (T) handle.value;
     }
 
+    /**
+     * Returns the number of {@link #get()} calls which returned a pooled object. Only counted if the MPSC queue is
+     * used, {@code 0} otherwise.
+     */
+    public final long hits() {
+        return hits == null ? 0 : hits.value();
+    }
+
+    /**
+     * Returns the number of {@link #get()} calls which created a new object. Only counted if the MPSC queue is
+     * used, {@code 0} otherwise.
+     */
+    public final long misses() {
+        return misses == null ? 0 : misses.value();
+    }
+
+    /**
+     * Returns the number of recycled objects which were not pooled, because a capacity was reached or only some of
+     * the objects which were never pooled before are. Only counted if the MPSC queue is used, {@code 0} otherwise.
+     */
+    public final long drops() {
+        return drops == null ? 0 : drops.value();
+    }
+
+    private void dropped() {
+        if (drops != null) {
+            drops.increment();
+        }
+    }
+
+    static int availableTotalCapacity() {
+        return availableTotalCapacity.get();
+    }
+
     /**
      * @deprecated use {@link Handle#recycle(Object)}.
      */
@@ -402,7 +494,46 @@ public abstract class Recycler<T> {
         }
     }
 
+    /**
+     * The part of the total capacity reserved by a {@link Stack} which uses the MPSC queue. It is returned when the
+     * {@link Stack} is garbage collected, so kept apart from it to not make every {@link Stack} finalizable.
+     */
+    private static final class TotalCapacityReservation {
+        // Only changed by the owner of the stack but read by the finalizer.
+        private volatile int reserved;
+
+        boolean reserve() {
+            for (; ; ) {
+                int available = availableTotalCapacity.get();
+                if (available < TOTAL_CAPACITY_CHUNK) {
+                    return false;
+                }
+                if (availableTotalCapacity.compareAndSet(available, available - TOTAL_CAPACITY_CHUNK)) {
+                    reserved += TOTAL_CAPACITY_CHUNK;
+                    return true;
+                }
+            }
+        }
+
+        void release() {
+            reserved -= TOTAL_CAPACITY_CHUNK;
+            availableTotalCapacity.addAndGet(TOTAL_CAPACITY_CHUNK);
+        }
+
+        @Override
+        protected void finalize() throws Throwable {
+            try {
+                super.finalize();
+            } finally {
+                availableTotalCapacity.addAndGet(reserved);
+            }
+        }
+    }
+
     static final class Stack<T> {
+        @SuppressWarnings("rawtypes")
+        private static final AtomicReferenceFieldUpdater<Stack, Queue> RETURN_QUEUE_UPDATER =
+                AtomicReferenceFieldUpdater.newUpdater(Stack.class, Queue.class, "returnQueue");
 
         // we keep a queue of per-thread queues, which is appended to once only, each time a new thread other
         // than the stack owner recycles: when we run out of items in our stack we iterate this collection
@@ -421,6 +552,12 @@ public abstract class Recycler<T> {
         private WeakOrderQueue cursor, prev;
         private volatile WeakOrderQueue head;
 
+        // Only used with the MPSC queue. The queue is created by the first other thread which recycles an object.
+        private final TotalCapacityReservation reservation;
+        private volatile Queue<DefaultHandle<?>> returnQueue;
+        // The part of the reserved total capacity which is not used by pooled objects yet.
+        private int credits;
+
         Stack(Recycler<T> parent, Thread thread, int maxCapacity, int maxSharedCapacityFactor,
               int ratioMask, int maxDelayedQueues) {
             this.parent = parent;
@@ -430,6 +567,7 @@ public abstract class Recycler<T> {
             elements = new DefaultHandle[min(INITIAL_CAPACITY, maxCapacity)];
             this.ratioMask = ratioMask;
             this.maxDelayedQueues = maxDelayedQueues;
+            reservation = parent.useMpscQueue ? new TotalCapacityReservation() : null;
         }
 
         // Marked as synchronized to ensure this is serialized.
@@ -457,7 +595,7 @@ public abstract class Recycler<T> {
         DefaultHandle<T> pop() {
             int size = this.size;
             if (size == 0) {
-                if (!scavenge()) {
+                if (reservation != null ? !drainReturnQueue() : !scavenge()) {
                     return null;
                 }
                 size = this.size;
@@ -471,9 +609,59 @@ public abstract class Recycler<T> {
             ret.recycleId = 0;
             ret.lastRecycledId = 0;
             this.size = size;
+            if (reservation != null) {
+                releaseTotalCapacity();
+            }
             return ret;
         }
 
+        private boolean drainReturnQueue() {
+            Queue<DefaultHandle<?>> returnQueue = this.returnQueue;
+            if (returnQueue == null) {
+                return false;
+            }
+
+            int size = this.size;
+            for (; ; ) {
+                if (size == elements.length && (size == maxCapacity || increaseCapacity(size + 1) == size)) {
+                    break;
+                }
+                DefaultHandle<?> handle = returnQueue.poll();
+                if (handle == null) {
+                    break;
+                }
+                if (dropHandle(handle) || !reserveTotalCapacity()) {
+                    parent.dropped();
+                    continue;
+                }
+                elements[size++] = handle;
+            }
+            if (size == this.size) {
+                return false;
+            }
+            this.size = size;
+            return true;
+        }
+
+        private boolean reserveTotalCapacity() {
+            if (credits == 0) {
+                if (!reservation.reserve()) {
+                    return false;
+                }
+                credits = TOTAL_CAPACITY_CHUNK;
+            }
+            credits--;
+            return true;
+        }
+
+        private void releaseTotalCapacity() {
+            // Keep one chunk to not reserve and release the same chunk over and over again.
+            if (++credits == TOTAL_CAPACITY_CHUNK << 1) {
+                credits -= TOTAL_CAPACITY_CHUNK;
+                reservation.release();
+            }
+        }
+
         boolean scavenge() {
             // continue an existing scavenge, if any
             if (scavengeSome()) {
@@ -541,6 +729,8 @@ public abstract class Recycler<T> {
             if (thread == currentThread) {
                 // The current Thread is the thread that belongs to the Stack, we can try to push the object now.
                 pushNow(item);
+            } else if (reservation != null) {
+                pushToReturnQueue(item);
             } else {
                 // The current Thread is not the one that belongs to the Stack, we need to signal that the push
                 // happens later.
@@ -555,8 +745,9 @@ public abstract class Recycler<T> {
             item.recycleId = item.lastRecycledId = OWN_THREAD_ID;
 
             int size = this.size;
-            if (size >= maxCapacity || dropHandle(item)) {
+            if (size >= maxCapacity || dropHandle(item) || reservation != null && !reserveTotalCapacity()) {
                 // Hit the maximum capacity or should drop - drop the possibly youngest object.
+                parent.dropped();
                 return;
             }
             if (size == elements.length) {
@@ -593,6 +784,24 @@ public abstract class Recycler<T> {
             queue.add(item);
         }
 
+        @SuppressWarnings("unchecked")
+        private void pushToReturnQueue(DefaultHandle<?> item) {
+            if ((item.recycleId | item.lastRecycledId) != 0) {
+                throw new IllegalStateException("recycled already");
+            }
+            item.recycleId = item.lastRecycledId = RETURN_QUEUE_ID;
+
+            Queue<DefaultHandle<?>> returnQueue = this.returnQueue;
+            if (returnQueue == null) {
+                Queue<DefaultHandle<?>> newQueue = PlatformDependent.newFixedMpscQueue(RETURN_QUEUE_CAPACITY);
+                returnQueue = RETURN_QUEUE_UPDATER.compareAndSet(this, null, newQueue) ? newQueue : this.returnQueue;
+            }
+            if (!returnQueue.offer(item)) {
+                // The queue is full, drop the object.
+                parent.dropped();
+            }
+        }
+
         boolean dropHandle(DefaultHandle<?> handle) {
             if (!handle.hasBeenRecycled) {
                 if ((++handleRecycleCount & ratioMask) != 0) {
@@ -21,14 +21,19 @@ import static io.netty.util.internal.StringUtil.EMPTY_STRING;
 import static io.netty.util.internal.StringUtil.NEWLINE;
 import static io.netty.util.internal.StringUtil.simpleClassName;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.lang.ref.PhantomReference;
 import java.lang.ref.ReferenceQueue;
 import java.util.ArrayDeque;
+import java.util.Arrays;
 import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 public class ResourceLeakDetector<T> {
 
@@ -40,6 +45,15 @@ public class ResourceLeakDetector<T> {
     private static final String PROP_MAX_RECORDS = "io.netty.leakDetection.maxRecords";
     private static final int DEFAULT_MAX_RECORDS = 4;
     private static final int MAX_RECORDS;
+    private static final String PROP_MAX_SAMPLES_PER_SECOND = "io.netty.leakDetection.maxSamplesPerSecond";
+    private static final int DEFAULT_MAX_SAMPLES_PER_SECOND = 100;
+    private static final int MAX_SAMPLES_PER_SECOND;
+    private static final long SAMPLING_PERIOD_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final int MAX_SAMPLING_INTERVAL = 1 << 30;
+    // Limits the memory used for allocation sites if leaks are found at an unexpected number of places.
+    private static final int MAX_LEAK_SITES = 1024;
+    private static final String OTHER_LEAK_SITES = "<other>";
+    private static final String UNKNOWN_LEAK_SITE = "<unknown>";
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(ResourceLeakDetector.class);
     private static final String[] STACK_TRACE_ELEMENT_EXCLUSIONS = {
             "io.netty.util.ReferenceCountUtil.touch(",
@@ -47,7 +61,18 @@ public class ResourceLeakDetector<T> {
             "io.netty.buffer.AbstractByteBufAllocator.toLeakAwareBuffer(",
             "io.netty.buffer.AdvancedLeakAwareByteBuf.recordLeakNonRefCountingOperation("
     };
+    // Classes and methods which are skipped to find the allocation or access site with Level.SAMPLED.
+    private static final String[] SITE_CLASS_EXCLUSIONS = {
+            ResourceLeakDetector.class.getName() + '$',
+            "io.netty.util.ReferenceCountUtil",
+            "io.netty.buffer.SimpleLeakAware",
+            "io.netty.buffer.AdvancedLeakAware"
+    };
+    private static final Set<String> SITE_METHOD_EXCLUSIONS = new HashSet<String>(Arrays.asList(
+            "buffer", "heapBuffer", "directBuffer", "ioBuffer", "compositeBuffer", "compositeHeapBuffer",
+            "compositeDirectBuffer", "newHeapBuffer", "newDirectBuffer", "toLeakAwareBuffer"));
     private static Level level;
+    private static volatile ResourceLeakListener leakListener;
 
     static {
         final boolean disabled;
@@ -71,11 +96,14 @@ public class ResourceLeakDetector<T> {
         Level level = Level.parseLevel(levelStr);
 
         MAX_RECORDS = SystemPropertyUtil.getInt(PROP_MAX_RECORDS, DEFAULT_MAX_RECORDS);
+        MAX_SAMPLES_PER_SECOND = Math.max(1,
+                SystemPropertyUtil.getInt(PROP_MAX_SAMPLES_PER_SECOND, DEFAULT_MAX_SAMPLES_PER_SECOND));
 
         ResourceLeakDetector.level = level;
         if (logger.isDebugEnabled()) {
             logger.debug("-D{}: {}", PROP_LEVEL, level.name().toLowerCase());
             logger.debug("-D{}: {}", PROP_MAX_RECORDS, MAX_RECORDS);
+            logger.debug("-D{}: {}", PROP_MAX_SAMPLES_PER_SECOND, MAX_SAMPLES_PER_SECOND);
         }
     }
 
@@ -86,6 +114,14 @@ public class ResourceLeakDetector<T> {
     private final String resourceType;
     private final int samplingInterval;
 
+    /** the leaks found with {@link Level#SAMPLED} by allocation site */
+    private final ConcurrentMap<String, ResourceLeakSite> leakSites = PlatformDependent.newConcurrentHashMap();
+    // The sampling interval of Level.SAMPLED, which is adapted to sample at most MAX_SAMPLES_PER_SECOND allocations.
+    private volatile int adaptiveSamplingInterval;
+    // Guarded by synchronized(leakSites).
+    private long samplingPeriodStartNanos = System.nanoTime();
+    private int samplingPeriodSamples;
+
     /**
      * @deprecated use {@link ResourceLeakDetectorFactory#newResourceLeakDetector(Class, int, long)}.
      */
@@ -136,6 +172,7 @@ public class ResourceLeakDetector<T> {
 
         this.resourceType = resourceType;
         this.samplingInterval = samplingInterval;
+        adaptiveSamplingInterval = samplingInterval;
     }
 
     /**
@@ -170,6 +207,24 @@ public class ResourceLeakDetector<T> {
         ResourceLeakDetector.level = level;
     }
 
+    /**
+     * Sets the {@link ResourceLeakListener} which receives the leaks found with {@link Level#SAMPLED}, or
+     * {@code null} to log the first leak found at each allocation site.
+     */
+    @UnstableApi
+    public static void setLeakListener(ResourceLeakListener listener) {
+        leakListener = listener;
+    }
+
+    /**
+     * Returns the {@link ResourceLeakListener} which receives the leaks found with {@link Level#SAMPLED}, or
+     * {@code null} if none was set.
+     */
+    @UnstableApi
+    public static ResourceLeakListener getLeakListener() {
+        return leakListener;
+    }
+
     static String newRecord(Object hint, int recordsToSkip) {
         StringBuilder buf = new StringBuilder(4096);
 
@@ -241,17 +296,119 @@ public class ResourceLeakDetector<T> {
             return null;
         }
 
-        if (level.ordinal() < Level.PARANOID.ordinal()) {
+        if (level == Level.SAMPLED) {
+            int interval = adaptiveSamplingInterval;
+            if ((PlatformDependent.threadLocalRandom().nextInt(interval)) == 0) {
+                reportSampledLeaks();
+                adaptSamplingInterval();
+                return new DefaultResourceLeak(obj, interval);
+            } else {
+                return null;
+            }
+        }
+
+        if (level != Level.PARANOID) {
             if ((PlatformDependent.threadLocalRandom().nextInt(samplingInterval)) == 0) {
                 reportLeak(level);
-                return new DefaultResourceLeak(obj);
+                return new DefaultResourceLeak(obj, samplingInterval);
             } else {
                 return null;
             }
         } else {
             reportLeak(level);
-            return new DefaultResourceLeak(obj);
+            return new DefaultResourceLeak(obj, 1);
+        }
+    }
+
+    /**
+     * Doubles the sampling interval of {@link Level#SAMPLED} if more than {@link #MAX_SAMPLES_PER_SECOND}
+     * allocations were sampled within a second, and halves it again when less than a quarter of them were sampled.
+     */
+    private void adaptSamplingInterval() {
+        long now = System.nanoTime();
+        synchronized (leakSites) {
+            int samples = ++samplingPeriodSamples;
+            int interval = adaptiveSamplingInterval;
+            if (now - samplingPeriodStartNanos < SAMPLING_PERIOD_NANOS) {
+                if (samples <= MAX_SAMPLES_PER_SECOND || interval > MAX_SAMPLING_INTERVAL >>> 1) {
+                    return;
+                }
+                interval <<= 1;
+            } else if (samples < MAX_SAMPLES_PER_SECOND >>> 2 && interval > samplingInterval) {
+                interval = Math.max(samplingInterval, interval >>> 1);
+            }
+            adaptiveSamplingInterval = interval;
+            samplingPeriodStartNanos = now;
+            samplingPeriodSamples = 0;
+        }
+    }
+
+    /**
+     * Returns the sampling interval currently used with {@link Level#SAMPLED}.
+     */
+    final int adaptiveSamplingInterval() {
+        return adaptiveSamplingInterval;
+    }
+
+    private void reportSampledLeaks() {
+        for (; ; ) {
+            @SuppressWarnings("unchecked")
+            DefaultResourceLeak ref = (DefaultResourceLeak) refQueue.poll();
+            if (ref == null) {
+                break;
+            }
+
+            ref.clear();
+
+            if (!ref.close() || ref.creationTrace == null) {
+                continue;
+            }
+
+            String allocationSite = site(ref.creationTrace);
+            Throwable lastAccessTrace = ref.lastAccessTrace;
+            ResourceLeakSite site = leakSite(allocationSite);
+            site.leaked(lastAccessTrace == null ? null : site(lastAccessTrace), ref.sampleWeight);
+            reportSampledLeak(resourceType, site);
+        }
+    }
+
+    private ResourceLeakSite leakSite(String allocationSite) {
+        ResourceLeakSite site = leakSites.get(allocationSite);
+        if (site != null) {
+            return site;
+        }
+        if (leakSites.size() >= MAX_LEAK_SITES) {
+            allocationSite = OTHER_LEAK_SITES;
+            site = leakSites.get(allocationSite);
+            if (site != null) {
+                return site;
+            }
+        }
+        ResourceLeakSite newSite = new ResourceLeakSite(allocationSite);
+        site = leakSites.putIfAbsent(allocationSite, newSite);
+        return site != null ? site : newSite;
+    }
+
+    private static String site(Throwable trace) {
+        for (StackTraceElement frame : trace.getStackTrace()) {
+            if (!isExcludedFromSite(frame)) {
+                return frame.toString();
+            }
+        }
+        return UNKNOWN_LEAK_SITE;
+    }
+
+    private static boolean isExcludedFromSite(StackTraceElement frame) {
+        String className = frame.getClassName();
+        if (className.equals(ResourceLeakDetector.class.getName())) {
+            return true;
+        }
+        for (String exclusion : SITE_CLASS_EXCLUSIONS) {
+            if (className.startsWith(exclusion)) {
+                return true;
+            }
         }
+        return className.startsWith("io.netty.") && SITE_METHOD_EXCLUSIONS.contains(frame.getMethodName());
     }
 
     private void reportLeak(Level level) {
@@ -316,6 +473,26 @@ public class ResourceLeakDetector<T> {
                 resourceType, PROP_LEVEL, Level.ADVANCED.name().toLowerCase(), simpleClassName(this));
     }
 
+    /**
+     * This method is called when a leak is detected with {@link Level#SAMPLED}. It notifies the
+     * {@link ResourceLeakListener} if one was set, or logs the first leak found at the allocation site otherwise.
+     */
+    protected void reportSampledLeak(String resourceType, ResourceLeakSite site) {
+        ResourceLeakListener listener = leakListener;
+        if (listener != null) {
+            try {
+                listener.onLeak(resourceType, site);
+            } catch (Throwable t) {
+                logger.warn("An exception was thrown by {}.onLeak()", listener.getClass().getName(), t);
+            }
+        } else if (site.leaks() == 1 && logger.isErrorEnabled()) {
+            logger.error("LEAK: {}.release() was not called before it's garbage-collected. Allocated at: {}, " +
+                    "last accessed at: {}. Further leaks of resources allocated there are not logged. " +
+                    "See http://netty.io/wiki/reference-counted-objects.html for more information.",
+                    resourceType, site.allocationSite(), site.lastAccessSite());
+        }
+    }
+
     /**
      * @deprecated This method will no longer be invoked by {@link ResourceLeakDetector}.
      */
@@ -345,12 +522,19 @@ public class ResourceLeakDetector<T> {
          * Enables paranoid resource leak detection which reports where the leaked object was accessed recently,
          * at the cost of the highest possible overhead (for testing purposes only).
          */
-        PARANOID;
+        PARANOID,
+        /**
+         * Enables low overhead sampling resource leak detection for production use, which samples fewer allocations
+         * when more are made and reports the leaks aggregated by allocation site to the {@link ResourceLeakListener}
+         * set by {@link #setLeakListener(ResourceLeakListener)}. Only the creation and the last access of a sampled
+         * resource are recorded.
+         */
+        SAMPLED;
 
         /**
          * Returns level based on string value. Accepts also string that represents ordinal number of enum.
          *
-         * @param levelStr - level string : DISABLED, SIMPLE, ADVANCED, PARANOID. Ignores case.
+         * @param levelStr - level string : DISABLED, SIMPLE, ADVANCED, PARANOID, SAMPLED. Ignores case.
          * @return corresponding level or SIMPLE level in case of no match.
          */
         static Level parseLevel(String levelStr) {
@@ -388,10 +572,15 @@ public class ResourceLeakDetector<T> {
         private final String creationRecord;
         private final Deque<String> lastRecords = new ArrayDeque<String>();
         private final int trackedHash;
+        // The compact records of Level.SAMPLED whose stack traces are only resolved if a leak is found.
+        final Throwable creationTrace;
+        volatile Throwable lastAccessTrace;
+        // The number of allocations this leak stands for
+        final int sampleWeight;
 
         private int removedRecords;
 
-        DefaultResourceLeak(Object referent) {
+        DefaultResourceLeak(Object referent, int sampleWeight) {
             super(referent, refQueue);
 
             assert referent != null;
@@ -400,12 +589,18 @@ public class ResourceLeakDetector<T> {
             // It's important that we not store a reference to the referent as this would disallow it from
             // be collected via the PhantomReference.
             trackedHash = System.identityHashCode(referent);
+            this.sampleWeight = sampleWeight;
 
             Level level = getLevel();
-            if (level.ordinal() >= Level.ADVANCED.ordinal()) {
+            if (level == Level.ADVANCED || level == Level.PARANOID) {
                 creationRecord = newRecord(null, 3);
+                creationTrace = null;
+            } else if (level == Level.SAMPLED) {
+                creationRecord = null;
+                creationTrace = new Throwable();
             } else {
                 creationRecord = null;
+                creationTrace = null;
             }
             allLeaks.put(this, LeakEntry.INSTANCE);
         }
@@ -433,7 +628,9 @@ public class ResourceLeakDetector<T> {
         }
 
         private void record0(Object hint, int recordsToSkip) {
-            if (creationRecord != null) {
+            if (creationTrace != null) {
+                lastAccessTrace = new Throwable();
+            } else if (creationRecord != null) {
                 String value = newRecord(hint, recordsToSkip);
 
                 synchronized (lastRecords) {
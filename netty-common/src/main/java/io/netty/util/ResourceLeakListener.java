@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Receives the leaks found with {@link ResourceLeakDetector.Level#SAMPLED}, aggregated by the site which allocated
+ * the leaked resources.
+ *
+ * @see ResourceLeakDetector#setLeakListener(ResourceLeakListener)
+ */
+@UnstableApi
+public interface ResourceLeakListener {
+
+    /**
+     * Called each time a leaked resource is found. This method is called by the thread which tracks a new resource,
+     * so it should return quickly.
+     *
+     * @param resourceType the type of the leaked resource
+     * @param site the allocation site of the leaked resource, with the leaks found there so far
+     */
+    void onLeak(String resourceType, ResourceLeakSite site);
+}
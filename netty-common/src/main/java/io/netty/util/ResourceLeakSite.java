@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util;
+
+import io.netty.util.internal.LongCounter;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * The leaks of a resource type found with {@link ResourceLeakDetector.Level#SAMPLED} at one allocation site.
+ */
+@UnstableApi
+public final class ResourceLeakSite {
+
+    private final String allocationSite;
+    private final LongCounter leaks = PlatformDependent.newLongCounter();
+    private final LongCounter estimatedLeaks = PlatformDependent.newLongCounter();
+    private volatile String lastAccessSite;
+
+    ResourceLeakSite(String allocationSite) {
+        this.allocationSite = allocationSite;
+    }
+
+    void leaked(String accessSite, int samplingInterval) {
+        lastAccessSite = accessSite;
+        leaks.increment();
+        estimatedLeaks.add(samplingInterval);
+    }
+
+    /**
+     * Returns the first stack frame outside of Netty's allocation and leak detection code when the leaked resources
+     * were allocated.
+     */
+    public String allocationSite() {
+        return allocationSite;
+    }
+
+    /**
+     * Returns the site which accessed the most recently found leaked resource last, or {@code null} if it was never
+     * accessed after its allocation.
+     */
+    public String lastAccessSite() {
+        return lastAccessSite;
+    }
+
+    /**
+     * Returns the number of leaked resources found at this site.
+     */
+    public long leaks() {
+        return leaks.value();
+    }
+
+    /**
+     * Returns the estimated number of leaked resources at this site, which takes the allocations which were not
+     * sampled into account.
+     */
+    public long estimatedLeaks() {
+        return estimatedLeaks.value();
+    }
+
+    @Override
+    public String toString() {
+        return "ResourceLeakSite(allocationSite: " + allocationSite + ", lastAccessSite: " + lastAccessSite +
+                ", leaks: " + leaks() + ", estimatedLeaks: " + estimatedLeaks() + ')';
+    }
+}
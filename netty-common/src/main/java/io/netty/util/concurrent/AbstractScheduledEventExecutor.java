@@ -18,8 +18,6 @@ package io.netty.util.concurrent;
 
 import io.netty.util.internal.ObjectUtil;
 
-import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -29,26 +27,42 @@ import java.util.concurrent.TimeUnit;
  */
 public abstract class AbstractScheduledEventExecutor extends AbstractEventExecutor {
 
-    Queue<ScheduledFutureTask<?>> scheduledTaskQueue;
+    private final ScheduledTaskQueueFactory scheduledTaskQueueFactory;
+    ScheduledTaskQueue scheduledTaskQueue;
 
     protected AbstractScheduledEventExecutor() {
+        scheduledTaskQueueFactory = ScheduledTaskQueueFactory.defaultFactory();
     }
 
     protected AbstractScheduledEventExecutor(EventExecutorGroup parent) {
+        this(parent, ScheduledTaskQueueFactory.defaultFactory());
+    }
+
+    /**
+     * Create a new instance.
+     *
+     * @param parent                    the {@link EventExecutorGroup} which is the parent of this instance
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how the scheduled tasks
+     *                                  are kept
+     */
+    protected AbstractScheduledEventExecutor(EventExecutorGroup parent,
+                                             ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
         super(parent);
+        this.scheduledTaskQueueFactory = ObjectUtil.checkNotNull(scheduledTaskQueueFactory,
+                "scheduledTaskQueueFactory");
     }
 
     protected static long nanoTime() {
         return ScheduledFutureTask.nanoTime();
     }
 
-    private static boolean isNullOrEmpty(Queue<ScheduledFutureTask<?>> queue) {
+    private static boolean isNullOrEmpty(ScheduledTaskQueue queue) {
         return queue == null || queue.isEmpty();
     }
 
-    Queue<ScheduledFutureTask<?>> scheduledTaskQueue() {
+    ScheduledTaskQueue scheduledTaskQueue() {
         if (scheduledTaskQueue == null) {
-            scheduledTaskQueue = new PriorityQueue<ScheduledFutureTask<?>>();
+            scheduledTaskQueue = scheduledTaskQueueFactory.newQueue();
         }
         return scheduledTaskQueue;
     }
@@ -60,13 +74,12 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
      */
     protected void cancelScheduledTasks() {
         assert inEventLoop();
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
+        ScheduledTaskQueue scheduledTaskQueue = this.scheduledTaskQueue;
         if (isNullOrEmpty(scheduledTaskQueue)) {
             return;
         }
 
-        final ScheduledFutureTask<?>[] scheduledTasks =
-                scheduledTaskQueue.toArray(new ScheduledFutureTask<?>[scheduledTaskQueue.size()]);
+        final ScheduledFutureTask<?>[] scheduledTasks = scheduledTaskQueue.toArray();
 
         for (ScheduledFutureTask<?> task : scheduledTasks) {
             task.cancelWithoutRemove(false);
@@ -89,46 +102,47 @@ public abstract class AbstractScheduledEventExecutor extends AbstractEventExecut
     protected final Runnable pollScheduledTask(long nanoTime) {
         assert inEventLoop();
 
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
-        ScheduledFutureTask<?> scheduledTask = scheduledTaskQueue == null ? null : scheduledTaskQueue.peek();
-        if (scheduledTask == null) {
-            return null;
-        }
-
-        if (scheduledTask.deadlineNanos() <= nanoTime) {
-            scheduledTaskQueue.remove();
-            return scheduledTask;
-        }
-        return null;
+        ScheduledTaskQueue scheduledTaskQueue = this.scheduledTaskQueue;
+        return scheduledTaskQueue == null ? null : scheduledTaskQueue.poll(nanoTime);
     }
 
     /**
      * Return the nanoseconds when the next scheduled task is ready to be run or {@code -1} if no task is scheduled.
      */
     protected final long nextScheduledTaskNano() {
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
-        ScheduledFutureTask<?> scheduledTask = scheduledTaskQueue == null ? null : scheduledTaskQueue.peek();
-        if (scheduledTask == null) {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos == -1) {
             return -1;
         }
-        return Math.max(0, scheduledTask.deadlineNanos() - nanoTime());
+        return ScheduledFutureTask.deadlineToDelayNanos(deadlineNanos);
     }
 
-    final ScheduledFutureTask<?> peekScheduledTask() {
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
-        if (scheduledTaskQueue == null) {
-            return null;
+    /**
+     * Return the deadline at which the next scheduled task is ready to be run or {@code -1} if no task is scheduled.
+     */
+    final long nextScheduledTaskDeadlineNanos() {
+        ScheduledTaskQueue scheduledTaskQueue = this.scheduledTaskQueue;
+        if (isNullOrEmpty(scheduledTaskQueue)) {
+            return -1;
         }
-        return scheduledTaskQueue.peek();
+        return Math.max(0, scheduledTaskQueue.nextDeadlineNanos());
+    }
+
+    /**
+     * Returns the number of scheduled tasks which were not run yet. The value may be stale if this method is not
+     * called from the event loop.
+     */
+    public int pendingScheduledTasks() {
+        ScheduledTaskQueue scheduledTaskQueue = this.scheduledTaskQueue;
+        return scheduledTaskQueue == null ? 0 : scheduledTaskQueue.size();
     }
 
     /**
      * Returns {@code true} if a scheduled task is ready for processing.
      */
     protected final boolean hasScheduledTasks() {
-        Queue<ScheduledFutureTask<?>> scheduledTaskQueue = this.scheduledTaskQueue;
-        ScheduledFutureTask<?> scheduledTask = scheduledTaskQueue == null ? null : scheduledTaskQueue.peek();
-        return scheduledTask != null && scheduledTask.deadlineNanos() <= nanoTime();
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        return deadlineNanos != -1 && deadlineNanos <= nanoTime();
     }
 
     @Override
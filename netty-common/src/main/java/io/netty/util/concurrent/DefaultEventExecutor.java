@@ -59,6 +59,12 @@ public final class DefaultEventExecutor extends SingleThreadEventExecutor {
         super(parent, executor, true, maxPendingTasks, rejectedExecutionHandler);
     }
 
+    public DefaultEventExecutor(EventExecutorGroup parent, Executor executor, int maxPendingTasks,
+                                RejectedExecutionHandler rejectedExecutionHandler,
+                                ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, executor, true, maxPendingTasks, rejectedExecutionHandler, scheduledTaskQueueFactory);
+    }
+
     @Override
     protected void run() {
         for (; ; ) {
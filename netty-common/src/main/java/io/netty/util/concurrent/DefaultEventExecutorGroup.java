@@ -55,8 +55,27 @@ public class DefaultEventExecutorGroup extends MultithreadEventExecutorGroup {
         super(nThreads, threadFactory, maxPendingTasks, rejectedHandler);
     }
 
+    /**
+     * Create a new instance.
+     *
+     * @param nThreads the number of threads that will be used by this instance.
+     * @param threadFactory the ThreadFactory to use, or {@code null} if the default should be used.
+     * @param maxPendingTasks the maximum number of pending tasks before new tasks will be rejected.
+     * @param rejectedHandler the {@link RejectedExecutionHandler} to use.
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how scheduled tasks are
+     *                                  kept.
+     */
+    public DefaultEventExecutorGroup(int nThreads, ThreadFactory threadFactory, int maxPendingTasks,
+                                     RejectedExecutionHandler rejectedHandler,
+                                     ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(nThreads, threadFactory, maxPendingTasks, rejectedHandler, scheduledTaskQueueFactory);
+    }
+
     @Override
     protected EventExecutor newChild(Executor executor, Object... args) throws Exception {
-        return new DefaultEventExecutor(this, executor, (Integer) args[0], (RejectedExecutionHandler) args[1]);
+        ScheduledTaskQueueFactory scheduledTaskQueueFactory = args.length == 3 ?
+                (ScheduledTaskQueueFactory) args[2] : ScheduledTaskQueueFactory.defaultFactory();
+        return new DefaultEventExecutor(this, executor, (Integer) args[0], (RejectedExecutionHandler) args[1],
+                scheduledTaskQueueFactory);
     }
 }
@@ -29,6 +29,7 @@ import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 import java.util.concurrent.CancellationException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
@@ -40,6 +41,12 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     @SuppressWarnings("rawtypes")
     private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> RESULT_UPDATER =
             AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "result");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<DefaultPromise, Object> LISTENERS_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(DefaultPromise.class, Object.class, "listeners");
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<DefaultPromise> NOTIFYING_LISTENERS_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(DefaultPromise.class, "notifyingListeners");
     private static final Signal SUCCESS = Signal.valueOf(DefaultPromise.class, "SUCCESS");
     private static final Signal UNCANCELLABLE = Signal.valueOf(DefaultPromise.class, "UNCANCELLABLE");
     private static final CauseHolder CANCELLATION_CAUSE_HOLDER = new CauseHolder(ThrowableUtil.unknownStackTrace(
@@ -47,22 +54,23 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     private final EventExecutor executor;
     private volatile Object result;
     /**
-     * One or more listeners. Can be a {@link GenericFutureListener} or a {@link DefaultFutureListeners}.
+     * One or more listeners. Can be a {@link GenericFutureListener} or the most recently added {@link ListenerNode}.
      * If {@code null}, it means either 1) no listeners were added yet or 2) all listeners were notified.
      *
-     * Threading - synchronized(this). We must support adding listeners when there is no EventExecutor.
+     * Threading - CAS via {@link #LISTENERS_UPDATER}. We must support adding listeners when there is no EventExecutor.
      */
-    private Object listeners;
+    private volatile Object listeners;
     /**
-     * Threading - synchronized(this). We are required to hold the monitor to use Java's underlying wait()/notifyAll().
+     * Threading - only modified with synchronized(this) as we are required to hold the monitor to use Java's
+     * underlying wait()/notifyAll(). Volatile so that a completing thread only takes the monitor if someone waits.
      */
-    private short waiters;
+    private volatile short waiters;
 
     /**
-     * Threading - synchronized(this). We must prevent concurrent notification and FIFO listener notification if the
-     * executor changes.
+     * Threading - CAS via {@link #NOTIFYING_LISTENERS_UPDATER}. We must prevent concurrent notification and FIFO
+     * listener notification if the executor changes.
      */
-    private boolean notifyingListeners;
+    private volatile int notifyingListeners;
 
     /**
      * Creates a new instance.
@@ -107,7 +115,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     /**
      * The logic in this method should be identical to {@link #notifyListeners()} but
      * cannot share code because the listener(s) cannot be cached for an instance of {@link DefaultPromise} since the
-     * listener(s) may be changed and is protected by a synchronized operation.
+     * listener(s) may be changed concurrently.
      */
     private static void notifyListenerWithStackOverFlowProtection(final EventExecutor executor,
                                                                   final Future<?> future,
@@ -245,9 +253,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> addListener(GenericFutureListener<? extends Future<? super V>> listener) {
         checkNotNull(listener, "listener");
 
-        synchronized (this) {
-            addListener0(listener);
-        }
+        addListener0(listener);
 
         if (isDone()) {
             notifyListeners();
@@ -260,13 +266,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> addListeners(GenericFutureListener<? extends Future<? super V>>... listeners) {
         checkNotNull(listeners, "listeners");
 
-        synchronized (this) {
-            for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
-                if (listener == null) {
-                    break;
-                }
-                addListener0(listener);
+        for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
+            if (listener == null) {
+                break;
             }
+            addListener0(listener);
         }
 
         if (isDone()) {
@@ -280,9 +284,7 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> removeListener(final GenericFutureListener<? extends Future<? super V>> listener) {
         checkNotNull(listener, "listener");
 
-        synchronized (this) {
-            removeListener0(listener);
-        }
+        removeListener0(listener);
 
         return this;
     }
@@ -291,13 +293,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     public Promise<V> removeListeners(final GenericFutureListener<? extends Future<? super V>>... listeners) {
         checkNotNull(listeners, "listeners");
 
-        synchronized (this) {
-            for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
-                if (listener == null) {
-                    break;
-                }
-                removeListener0(listener);
+        for (GenericFutureListener<? extends Future<? super V>> listener : listeners) {
+            if (listener == null) {
+                break;
             }
+            removeListener0(listener);
         }
 
         return this;
@@ -330,13 +330,15 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         checkDeadLock();
 
         synchronized (this) {
-            while (!isDone()) {
-                incWaiters();
-                try {
+            // Increment the waiters before checking the result so that a completing thread either sees them and
+            // notifies us or we see its result.
+            incWaiters();
+            try {
+                while (!isDone()) {
                     wait();
-                } finally {
-                    decWaiters();
                 }
+            } finally {
+                decWaiters();
             }
         }
         return this;
@@ -352,16 +354,18 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
 
         boolean interrupted = false;
         synchronized (this) {
-            while (!isDone()) {
-                incWaiters();
-                try {
-                    wait();
-                } catch (InterruptedException e) {
-                    // Interrupted while waiting.
-                    interrupted = true;
-                } finally {
-                    decWaiters();
+            incWaiters();
+            try {
+                while (!isDone()) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        // Interrupted while waiting.
+                        interrupted = true;
+                    }
                 }
+            } finally {
+                decWaiters();
             }
         }
 
@@ -508,61 +512,116 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
     }
 
     private void notifyListenersNow() {
-        Object listeners;
-        synchronized (this) {
-            // Only proceed if there are listeners to notify and we are not already notifying listeners.
-            if (notifyingListeners || this.listeners == null) {
-                return;
-            }
-            notifyingListeners = true;
-            listeners = this.listeners;
-            this.listeners = null;
-        }
-        for (; ; ) {
-            if (listeners instanceof DefaultFutureListeners) {
-                notifyListeners0((DefaultFutureListeners) listeners);
-            } else {
-                notifyListener0(this, (GenericFutureListener<?>) listeners);
-            }
-            synchronized (this) {
-                if (this.listeners == null) {
-                    // Nothing can throw from within this method, so setting notifyingListeners back to false does not
-                    // need to be in a finally block.
-                    notifyingListeners = false;
-                    return;
+        // Only proceed if there are listeners to notify and we are not already notifying listeners.
+        while (listeners != null && NOTIFYING_LISTENERS_UPDATER.compareAndSet(this, 0, 1)) {
+            Object listeners;
+            while ((listeners = LISTENERS_UPDATER.getAndSet(this, null)) != null) {
+                if (listeners instanceof ListenerNode) {
+                    notifyListeners0((ListenerNode) listeners);
+                } else {
+                    notifyListener0(this, (GenericFutureListener<?>) listeners);
                 }
-                listeners = this.listeners;
-                this.listeners = null;
             }
+            // Nothing can throw from within this method, so setting notifyingListeners back to false does not need to
+            // be in a finally block. A listener added before this point was left to us by its thread, so check again.
+            notifyingListeners = 0;
         }
     }
 
-    private void notifyListeners0(DefaultFutureListeners listeners) {
-        GenericFutureListener<?>[] a = listeners.listeners();
-        int size = listeners.size();
-        for (int i = 0; i < size; i++) {
-            notifyListener0(this, a[i]);
+    private void notifyListeners0(ListenerNode head) {
+        if (head.next == null) {
+            notifyListener0(this, head.listener);
+            return;
+        }
+
+        // The nodes are linked from the most recently added one, so reverse them to notify in FIFO order.
+        int size = 0;
+        for (ListenerNode node = head; node != null; node = node.next) {
+            size++;
+        }
+        ListenerNode[] nodes = new ListenerNode[size];
+        for (ListenerNode node = head; node != null; node = node.next) {
+            nodes[--size] = node;
+        }
+        for (ListenerNode node : nodes) {
+            notifyListener0(this, node.listener);
         }
     }
 
     private void addListener0(GenericFutureListener<? extends Future<? super V>> listener) {
-        if (listeners == null) {
-            listeners = listener;
-        } else if (listeners instanceof DefaultFutureListeners) {
-            ((DefaultFutureListeners) listeners).add(listener);
-        } else {
-            listeners = new DefaultFutureListeners((GenericFutureListener<?>) listeners, listener);
+        ListenerNode node = null;
+        for (;;) {
+            Object listeners = this.listeners;
+            Object newListeners;
+            if (listeners == null) {
+                // Fast path for the common case of a single listener which does not allocate.
+                newListeners = listener;
+            } else {
+                ListenerNode next = listeners instanceof ListenerNode ? (ListenerNode) listeners :
+                        new ListenerNode((GenericFutureListener<?>) listeners, null);
+                if (node == null || node.next != next) {
+                    node = new ListenerNode(listener, next);
+                }
+                newListeners = node;
+            }
+            if (LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
+                return;
+            }
         }
     }
 
     private void removeListener0(GenericFutureListener<? extends Future<? super V>> listener) {
-        if (listeners instanceof DefaultFutureListeners) {
-            ((DefaultFutureListeners) listeners).remove(listener);
-        } else if (listeners == listener) {
-            listeners = null;
+        for (;;) {
+            Object listeners = this.listeners;
+            Object newListeners;
+            if (listeners instanceof ListenerNode) {
+                // Remove the first added occurrence, which is the last one in the list.
+                ListenerNode head = (ListenerNode) listeners;
+                ListenerNode oldest = null;
+                for (ListenerNode node = head; node != null; node = node.next) {
+                    if (node.listener == listener) {
+                        oldest = node;
+                    }
+                }
+                if (oldest == null) {
+                    return;
+                }
+                newListeners = unlink(head, oldest);
+            } else if (listeners == listener) {
+                newListeners = null;
+            } else {
+                return;
+            }
+            if (LISTENERS_UPDATER.compareAndSet(this, listeners, newListeners)) {
+                return;
+            }
         }
     }
 
+    /**
+     * Returns a list without {@code removed}. The nodes are immutable, so the ones which were added before
+     * {@code removed} are shared and only the more recently added ones are copied.
+     */
+    private static ListenerNode unlink(ListenerNode head, ListenerNode removed) {
+        int size = 0;
+        for (ListenerNode node = head; node != removed; node = node.next) {
+            size++;
+        }
+        if (size == 0) {
+            return removed.next;
+        }
+        ListenerNode[] nodes = new ListenerNode[size];
+        int i = 0;
+        for (ListenerNode node = head; node != removed; node = node.next) {
+            nodes[i++] = node;
+        }
+        ListenerNode newHead = removed.next;
+        while (i > 0) {
+            newHead = new ListenerNode(nodes[--i].listener, newHead);
+        }
+        return newHead;
+    }
+
     private boolean setSuccess0(V result) {
         return setValue0(result == null ? SUCCESS : result);
     }
@@ -580,9 +639,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         return false;
     }
 
-    private synchronized void checkNotifyWaiters() {
+    private void checkNotifyWaiters() {
         if (waiters > 0) {
-            notifyAll();
+            synchronized (this) {
+                notifyAll();
+            }
         }
     }
 
@@ -590,11 +651,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         if (waiters == Short.MAX_VALUE) {
             throw new IllegalStateException("too many waiters: " + this);
         }
-        ++waiters;
+        waiters++;
     }
 
     private void decWaiters() {
-        --waiters;
+        waiters--;
     }
 
     private void rethrowIfFailed() {
@@ -627,11 +688,11 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         try {
             for (; ; ) {
                 synchronized (this) {
-                    if (isDone()) {
-                        return true;
-                    }
                     incWaiters();
                     try {
+                        if (isDone()) {
+                            return true;
+                        }
                         wait(waitTime / 1000000, (int) (waitTime % 1000000));
                     } catch (InterruptedException e) {
                         if (interruptable) {
@@ -715,39 +776,38 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
      * Returns a {@link GenericProgressiveFutureListener}, an array of {@link GenericProgressiveFutureListener}, or
      * {@code null}.
      */
-    private synchronized Object progressiveListeners() {
+    private Object progressiveListeners() {
         Object listeners = this.listeners;
         if (listeners == null) {
             // No listeners added
             return null;
         }
 
-        if (listeners instanceof DefaultFutureListeners) {
-            // Copy DefaultFutureListeners into an array of listeners.
-            DefaultFutureListeners dfl = (DefaultFutureListeners) listeners;
-            int progressiveSize = dfl.progressiveSize();
-            switch (progressiveSize) {
-                case 0:
-                    return null;
-                case 1:
-                    for (GenericFutureListener<?> l : dfl.listeners()) {
-                        if (l instanceof GenericProgressiveFutureListener) {
-                            return l;
-                        }
-                    }
-                    return null;
+        if (listeners instanceof ListenerNode) {
+            ListenerNode head = (ListenerNode) listeners;
+            int progressiveSize = 0;
+            GenericProgressiveFutureListener<?> progressive = null;
+            for (ListenerNode node = head; node != null; node = node.next) {
+                GenericFutureListener<?> l = node.listener;
+                if (l instanceof GenericProgressiveFutureListener) {
+                    progressive = (GenericProgressiveFutureListener<?>) l;
+                    progressiveSize++;
+                }
+            }
+            if (progressiveSize <= 1) {
+                return progressive;
             }
 
-            GenericFutureListener<?>[] array = dfl.listeners();
-            GenericProgressiveFutureListener<?>[] copy = new GenericProgressiveFutureListener[progressiveSize];
-            for (int i = 0, j = 0; j < progressiveSize; i++) {
-                GenericFutureListener<?> l = array[i];
+            // Copy the progressive listeners into an array in the order they were added.
+            GenericProgressiveFutureListener<?>[] array = new GenericProgressiveFutureListener[progressiveSize];
+            int i = progressiveSize;
+            for (ListenerNode node = head; node != null; node = node.next) {
+                GenericFutureListener<?> l = node.listener;
                 if (l instanceof GenericProgressiveFutureListener) {
-                    copy[j++] = (GenericProgressiveFutureListener<?>) l;
+                    array[--i] = (GenericProgressiveFutureListener<?>) l;
                 }
             }
-
-            return copy;
+            return array;
         } else if (listeners instanceof GenericProgressiveFutureListener) {
             return listeners;
         } else {
@@ -756,6 +816,19 @@ public class DefaultPromise<V> extends AbstractFuture<V> implements Promise<V> {
         }
     }
 
+    /**
+     * An immutable link of the listener list. Removing a listener replaces the list with one that does not contain it.
+     */
+    private static final class ListenerNode {
+        final GenericFutureListener<?> listener;
+        final ListenerNode next;
+
+        ListenerNode(GenericFutureListener<?> listener, ListenerNode next) {
+            this.listener = listener;
+            this.next = next;
+        }
+    }
+
     private static final class CauseHolder {
         final Throwable cause;
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * {@link EventExecutorMetricsListener} which sums up the timings of a {@link SingleThreadEventExecutor} and counts
+ * the execution times of its tasks in a histogram.
+ * <p>
+ * The values are only updated by the thread of the executor, but can be read from any thread.
+ */
+@UnstableApi
+public final class EventExecutorMetrics implements EventExecutorMetricsListener {
+
+    /**
+     * The number of buckets of the {@linkplain #taskTimeHistogram() task time histogram}.
+     */
+    public static final int HISTOGRAM_BUCKETS = 22;
+
+    private static final int MIN_BUCKET_SHIFT = 10;
+
+    private static final int TASKS = 0;
+    private static final int TASK_TIME = 1;
+    private static final int TASKS_PROCESSED_TIME = 2;
+    private static final int IO_WAIT_TIME = 3;
+    private static final int IO_PROCESSED_TIME = 4;
+    private static final int HISTOGRAM = 5;
+
+    private final SingleThreadEventExecutor executor;
+    // Only written by the thread of the executor, so lazySet is enough to publish the values.
+    private final AtomicLongArray values = new AtomicLongArray(HISTOGRAM + HISTOGRAM_BUCKETS);
+
+    /**
+     * Creates a new instance for the given executor, which must be passed to
+     * {@link SingleThreadEventExecutor#setMetricsListener(EventExecutorMetricsListener)} to receive any timings.
+     */
+    public EventExecutorMetrics(SingleThreadEventExecutor executor) {
+        this.executor = ObjectUtil.checkNotNull(executor, "executor");
+    }
+
+    @Override
+    public void taskExecuted(long nanos) {
+        add(TASKS, 1);
+        add(TASK_TIME, nanos);
+        add(HISTOGRAM + bucket(nanos), 1);
+    }
+
+    @Override
+    public void tasksProcessed(long nanos) {
+        add(TASKS_PROCESSED_TIME, nanos);
+    }
+
+    @Override
+    public void ioWaited(long nanos) {
+        add(IO_WAIT_TIME, nanos);
+    }
+
+    @Override
+    public void ioProcessed(long nanos) {
+        add(IO_PROCESSED_TIME, nanos);
+    }
+
+    private void add(int index, long delta) {
+        values.lazySet(index, values.get(index) + delta);
+    }
+
+    private static int bucket(long nanos) {
+        int bucket = 64 - Long.numberOfLeadingZeros(nanos >>> MIN_BUCKET_SHIFT);
+        return Math.min(bucket, HISTOGRAM_BUCKETS - 1);
+    }
+
+    /**
+     * Returns the executor whose timings are recorded.
+     */
+    public SingleThreadEventExecutor executor() {
+        return executor;
+    }
+
+    /**
+     * Returns the number of tasks which are waiting to be run.
+     */
+    public int pendingTasks() {
+        return executor.pendingTasks();
+    }
+
+    /**
+     * Returns the number of scheduled tasks which were not run yet.
+     */
+    public int pendingScheduledTasks() {
+        return executor.pendingScheduledTasks();
+    }
+
+    /**
+     * Returns the number of tasks which were run.
+     */
+    public long tasksExecuted() {
+        return values.get(TASKS);
+    }
+
+    /**
+     * Returns the total execution time of all tasks in nanoseconds.
+     */
+    public long taskTimeNanos() {
+        return values.get(TASK_TIME);
+    }
+
+    /**
+     * Returns the number of tasks per execution time. Bucket {@code 0} counts the tasks which took less than
+     * {@code 1024} nanoseconds and each following bucket covers twice the time of the previous one, so bucket
+     * {@code i} counts the tasks which took at least {@code 2^(9 + i)} but less than {@code 2^(10 + i)} nanoseconds.
+     * The last bucket counts all tasks which took longer.
+     */
+    public long[] taskTimeHistogram() {
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (int i = 0; i < histogram.length; i++) {
+            histogram[i] = values.get(HISTOGRAM + i);
+        }
+        return histogram;
+    }
+
+    /**
+     * Returns the time in nanoseconds the event loop spent in running all pending tasks, including the time needed
+     * to fetch them.
+     */
+    public long tasksProcessedTimeNanos() {
+        return values.get(TASKS_PROCESSED_TIME);
+    }
+
+    /**
+     * Returns the time in nanoseconds the event loop waited for I/O events.
+     */
+    public long ioWaitTimeNanos() {
+        return values.get(IO_WAIT_TIME);
+    }
+
+    /**
+     * Returns the time in nanoseconds the event loop spent in processing I/O events.
+     */
+    public long ioProcessedTimeNanos() {
+        return values.get(IO_PROCESSED_TIME);
+    }
+
+    /**
+     * Returns the percentage of the time spent in processing I/O events from the time spent in processing I/O events
+     * and tasks, which can be compared with the configured I/O ratio of the event loop. Returns {@code -1} if
+     * nothing was processed yet.
+     */
+    public int ioRatio() {
+        long io = ioProcessedTimeNanos();
+        long total = io + tasksProcessedTimeNanos();
+        return total == 0 ? -1 : (int) (io * 100 / total);
+    }
+
+    @Override
+    public String toString() {
+        return new StringBuilder(256)
+                .append(StringUtil.simpleClassName(this))
+                .append("(pendingTasks: ").append(pendingTasks())
+                .append("; pendingScheduledTasks: ").append(pendingScheduledTasks())
+                .append("; tasksExecuted: ").append(tasksExecuted())
+                .append("; taskTimeNanos: ").append(taskTimeNanos())
+                .append("; ioWaitTimeNanos: ").append(ioWaitTimeNanos())
+                .append("; ioProcessedTimeNanos: ").append(ioProcessedTimeNanos())
+                .append("; tasksProcessedTimeNanos: ").append(tasksProcessedTimeNanos())
+                .append(')').toString();
+    }
+}
@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.UnstableApi;
+
+/**
+ * Receives timings from a {@link SingleThreadEventExecutor} once it was set via
+ * {@link SingleThreadEventExecutor#setMetricsListener(EventExecutorMetricsListener)}.
+ * <p>
+ * All methods are called by the thread of the executor, so implementations must be cheap and should not allocate.
+ * {@link EventExecutorMetrics} is the default implementation.
+ */
+@UnstableApi
+public interface EventExecutorMetricsListener {
+
+    /**
+     * Called after a task was run, which took {@code nanos} nanoseconds.
+     */
+    void taskExecuted(long nanos);
+
+    /**
+     * Called after all pending tasks were run, which took {@code nanos} nanoseconds.
+     */
+    void tasksProcessed(long nanos);
+
+    /**
+     * Called after the event loop waited {@code nanos} nanoseconds for I/O events, for example in
+     * {@code Selector.select()} or {@code epoll_wait}.
+     */
+    void ioWaited(long nanos);
+
+    /**
+     * Called after the event loop processed the ready I/O events, which took {@code nanos} nanoseconds.
+     */
+    void ioProcessed(long nanos);
+}
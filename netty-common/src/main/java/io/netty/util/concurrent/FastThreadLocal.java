@@ -22,6 +22,7 @@ import io.netty.util.internal.PlatformDependent;
 import java.util.Collections;
 import java.util.IdentityHashMap;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
  * A special variant of {@link ThreadLocal} that yields higher access performance when accessed from a
@@ -37,6 +38,9 @@ import java.util.Set;
  * Note that the fast path is only possible on threads that extend {@link FastThreadLocalThread}, because it requires
  * a special field to store the necessary state.  An access by any other kind of thread falls back to a regular
  * {@link ThreadLocal}.
+ * </p><p>
+ * If {@link FastThreadLocal}s are created over and over again, e.g. one per instance of a class, {@link #release()}
+ * them once they are not used anymore so their indexes are reused and the tables of all threads stay small.
  * </p>
  *
  * @param <V> the type of the thread-local variable
@@ -45,10 +49,25 @@ import java.util.Set;
 public class FastThreadLocal<V> {
 
     private static final int variablesToRemoveIndex = InternalThreadLocalMap.nextVariableIndex();
+    @SuppressWarnings("rawtypes")
+    private static final AtomicIntegerFieldUpdater<FastThreadLocal> RELEASED_UPDATER =
+            AtomicIntegerFieldUpdater.newUpdater(FastThreadLocal.class, "released");
+
     private final int index;
+    // true if the index was released by another FastThreadLocal whose values may still be held by any thread.
+    // The values of this FastThreadLocal are then wrapped in a ReusedIndexValue to tell them apart.
+    private final boolean reusedIndex;
+    private volatile int released;
 
     public FastThreadLocal() {
-        index = InternalThreadLocalMap.nextVariableIndex();
+        int index = InternalThreadLocalMap.nextReleasedVariableIndex();
+        if (index < 0) {
+            this.index = InternalThreadLocalMap.nextVariableIndex();
+            reusedIndex = false;
+        } else {
+            this.index = index;
+            reusedIndex = true;
+        }
     }
 
     /**
@@ -142,6 +161,9 @@ public class FastThreadLocal<V> {
     @SuppressWarnings("unchecked")
     public final V get(InternalThreadLocalMap threadLocalMap) {
         Object v = threadLocalMap.indexedVariable(index);
+        if (reusedIndex) {
+            v = ownValue(v);
+        }
         if (v != InternalThreadLocalMap.UNSET) {
             return (V) v;
         }
@@ -149,6 +171,35 @@ public class FastThreadLocal<V> {
         return initialize(threadLocalMap);
     }
 
+    private Object ownValue(Object v) {
+        if (v instanceof ReusedIndexValue) {
+            ReusedIndexValue value = (ReusedIndexValue) v;
+            if (value.owner == this) {
+                return value.value;
+            }
+        }
+        // Not set or set by the FastThreadLocal which released the index.
+        return InternalThreadLocalMap.UNSET;
+    }
+
+    /**
+     * @return {@code true} if and only if a new thread-local variable has been created
+     */
+    private boolean setIndexedVariable(InternalThreadLocalMap threadLocalMap, Object value) {
+        if (!reusedIndex) {
+            return threadLocalMap.setIndexedVariable(index, value);
+        }
+
+        Object v = threadLocalMap.indexedVariable(index);
+        if (v instanceof ReusedIndexValue && ((ReusedIndexValue) v).owner == this) {
+            ((ReusedIndexValue) v).value = value;
+            return false;
+        }
+        // Also replaces the value of the FastThreadLocal which released the index, if any.
+        threadLocalMap.setIndexedVariable(index, new ReusedIndexValue(this, value));
+        return true;
+    }
+
     private V initialize(InternalThreadLocalMap threadLocalMap) {
         V v = null;
         try {
@@ -157,7 +208,7 @@ public class FastThreadLocal<V> {
             PlatformDependent.throwException(e);
         }
 
-        threadLocalMap.setIndexedVariable(index, v);
+        setIndexedVariable(threadLocalMap, v);
         addToVariablesToRemove(threadLocalMap, this);
         return v;
     }
@@ -178,7 +229,7 @@ public class FastThreadLocal<V> {
      */
     public final void set(InternalThreadLocalMap threadLocalMap, V value) {
         if (value != InternalThreadLocalMap.UNSET) {
-            if (threadLocalMap.setIndexedVariable(index, value)) {
+            if (setIndexedVariable(threadLocalMap, value)) {
                 addToVariablesToRemove(threadLocalMap, this);
             }
         } else {
@@ -198,7 +249,13 @@ public class FastThreadLocal<V> {
      * The specified thread local map must be for the current thread.
      */
     public final boolean isSet(InternalThreadLocalMap threadLocalMap) {
-        return threadLocalMap != null && threadLocalMap.isIndexedVariableSet(index);
+        if (threadLocalMap == null) {
+            return false;
+        }
+        if (reusedIndex) {
+            return ownValue(threadLocalMap.indexedVariable(index)) != InternalThreadLocalMap.UNSET;
+        }
+        return threadLocalMap.isIndexedVariableSet(index);
     }
 
     /**
@@ -218,8 +275,16 @@ public class FastThreadLocal<V> {
         if (threadLocalMap == null) {
             return;
         }
+        if (released != 0) {
+            // The index may be used by another FastThreadLocal already, so leave the value to it.
+            removeFromVariablesToRemove(threadLocalMap, this);
+            return;
+        }
 
         Object v = threadLocalMap.removeIndexedVariable(index);
+        if (reusedIndex) {
+            v = ownValue(v);
+        }
         removeFromVariablesToRemove(threadLocalMap, this);
 
         if (v != InternalThreadLocalMap.UNSET) {
@@ -231,6 +296,23 @@ public class FastThreadLocal<V> {
         }
     }
 
+    /**
+     * Removes the value of the current thread like {@link #remove()} and releases the index of this
+     * {@link FastThreadLocal}, so it is reused by a {@link FastThreadLocal} created later.  This
+     * {@link FastThreadLocal} must not be used by any thread afterwards.  The values of other threads are not removed
+     * and {@link #onRemoval(Object)} is not invoked for them; they are dropped when the next {@link FastThreadLocal}
+     * with the same index is accessed by these threads or when {@link #removeAll()} is invoked.
+     */
+    public final void release() {
+        if (released != 0) {
+            return;
+        }
+        remove();
+        if (RELEASED_UPDATER.compareAndSet(this, 0, 1)) {
+            InternalThreadLocalMap.releaseVariableIndex(index);
+        }
+    }
+
     /**
      * Returns the initial value for this thread-local variable.
      */
@@ -243,4 +325,14 @@ public class FastThreadLocal<V> {
      */
     protected void onRemoval(@SuppressWarnings("UnusedParameters") V value) throws Exception {
     }
+
+    private static final class ReusedIndexValue {
+        final FastThreadLocal<?> owner;
+        Object value;
+
+        ReusedIndexValue(FastThreadLocal<?> owner, Object value) {
+            this.owner = owner;
+            this.value = value;
+        }
+    }
 }
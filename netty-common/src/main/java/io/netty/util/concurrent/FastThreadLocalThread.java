@@ -24,6 +24,7 @@ import io.netty.util.internal.InternalThreadLocalMap;
 public class FastThreadLocalThread extends Thread {
 
     private InternalThreadLocalMap threadLocalMap;
+    private int numaNode = -1;
 
     public FastThreadLocalThread() {
     }
@@ -71,4 +72,25 @@ public class FastThreadLocalThread extends Thread {
     public final void setThreadLocalMap(InternalThreadLocalMap threadLocalMap) {
         this.threadLocalMap = threadLocalMap;
     }
+
+    /**
+     * Returns the NUMA node this thread runs on as set by {@link #setNumaNode(int)}, or {@code -1} if unknown.
+     */
+    public final int numaNode() {
+        return numaNode;
+    }
+
+    /**
+     * Sets the NUMA node this thread runs on. This is only a hint for components which keep memory per node, like
+     * the arenas of a pooled allocator, and does not bind the thread to the node, which needs to be done by other
+     * means, e.g. {@code numactl} or {@code taskset}. The hint should be set before the thread first allocates.
+     *
+     * @param numaNode the node or {@code -1} if unknown
+     */
+    public final void setNumaNode(int numaNode) {
+        if (numaNode < -1) {
+            throw new IllegalArgumentException("numaNode: " + numaNode + " (expected: >= -1)");
+        }
+        this.numaNode = numaNode;
+    }
 }
@@ -19,7 +19,6 @@ package io.netty.util.concurrent;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
-import java.util.Queue;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -35,9 +34,10 @@ import java.util.concurrent.atomic.AtomicBoolean;
  */
 public final class GlobalEventExecutor extends AbstractScheduledEventExecutor {
 
-    public static final GlobalEventExecutor INSTANCE = new GlobalEventExecutor();
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(GlobalEventExecutor.class);
     private static final long SCHEDULE_QUIET_PERIOD_INTERVAL = TimeUnit.SECONDS.toNanos(1);
+
+    public static final GlobalEventExecutor INSTANCE = new GlobalEventExecutor();
     final BlockingQueue<Runnable> taskQueue = new LinkedBlockingQueue<Runnable>();
     final ScheduledFutureTask<Void> quietPeriodTask = new ScheduledFutureTask<Void>(
             this, Executors.<Void>callable(new Runnable() {
@@ -70,8 +70,8 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor {
     Runnable takeTask() {
         BlockingQueue<Runnable> taskQueue = this.taskQueue;
         for (; ; ) {
-            ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-            if (scheduledTask == null) {
+            long deadlineNanos = nextScheduledTaskDeadlineNanos();
+            if (deadlineNanos == -1) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -80,7 +80,7 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor {
                 }
                 return task;
             } else {
-                long delayNanos = scheduledTask.delayNanos();
+                long delayNanos = ScheduledFutureTask.deadlineToDelayNanos(deadlineNanos);
                 Runnable task;
                 if (delayNanos > 0) {
                     try {
@@ -237,7 +237,7 @@ public final class GlobalEventExecutor extends AbstractScheduledEventExecutor {
                     }
                 }
 
-                Queue<ScheduledFutureTask<?>> scheduledTaskQueue = GlobalEventExecutor.this.scheduledTaskQueue;
+                ScheduledTaskQueue scheduledTaskQueue = GlobalEventExecutor.this.scheduledTaskQueue;
                 // Terminate if there is no task in the queue (except the noop task).
                 if (taskQueue.isEmpty() && (scheduledTaskQueue == null || scheduledTaskQueue.size() == 1)) {
                     // Mark the current thread as stopped.
@@ -16,9 +16,13 @@
 
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.UnstableApi;
+
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
@@ -141,6 +145,31 @@ public abstract class MultithreadEventExecutorGroup extends AbstractEventExecuto
         return children.length;
     }
 
+    /**
+     * Collects {@link EventExecutorMetrics} for each {@link SingleThreadEventExecutor} of this group which does not
+     * have another {@link EventExecutorMetricsListener} and returns them in the order of the executors. Calling this
+     * method again returns the same {@link EventExecutorMetrics}.
+     */
+    @UnstableApi
+    public final synchronized List<EventExecutorMetrics> enableMetrics() {
+        List<EventExecutorMetrics> metrics = new ArrayList<EventExecutorMetrics>(children.length);
+        for (EventExecutor child : children) {
+            if (!(child instanceof SingleThreadEventExecutor)) {
+                continue;
+            }
+            SingleThreadEventExecutor executor = (SingleThreadEventExecutor) child;
+            EventExecutorMetricsListener listener = executor.metricsListener();
+            if (listener == null) {
+                listener = new EventExecutorMetrics(executor);
+                executor.setMetricsListener(listener);
+            }
+            if (listener instanceof EventExecutorMetrics) {
+                metrics.add((EventExecutorMetrics) listener);
+            }
+        }
+        return Collections.unmodifiableList(metrics);
+    }
+
     /**
      * Create a new EventExecutor which will later then accessible via the {@link #next()}  method. This method will be
      * called for each thread that will serve this {@link MultithreadEventExecutorGroup}.
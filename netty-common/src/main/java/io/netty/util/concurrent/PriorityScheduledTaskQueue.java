@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.PriorityQueue;
+
+/**
+ * {@link ScheduledTaskQueue} backed by a binary heap, which runs the tasks exactly in the order of their deadlines.
+ */
+final class PriorityScheduledTaskQueue implements ScheduledTaskQueue {
+
+    private final PriorityQueue<ScheduledFutureTask<?>> queue = new PriorityQueue<ScheduledFutureTask<?>>();
+
+    @Override
+    public void add(ScheduledFutureTask<?> task) {
+        queue.add(task);
+    }
+
+    @Override
+    public boolean remove(ScheduledFutureTask<?> task) {
+        return queue.remove(task);
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll(long nanoTime) {
+        ScheduledFutureTask<?> task = queue.peek();
+        if (task != null && task.deadlineNanos() <= nanoTime) {
+            return queue.remove();
+        }
+        return null;
+    }
+
+    @Override
+    public long nextDeadlineNanos() {
+        return queue.element().deadlineNanos();
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    @Override
+    public ScheduledFutureTask<?>[] toArray() {
+        return queue.toArray(new ScheduledFutureTask<?>[queue.size()]);
+    }
+
+    @Override
+    public void clear() {
+        queue.clear();
+    }
+}
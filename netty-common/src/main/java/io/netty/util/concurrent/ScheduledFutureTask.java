@@ -16,7 +16,6 @@
 
 package io.netty.util.concurrent;
 
-import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Delayed;
 import java.util.concurrent.TimeUnit;
@@ -30,6 +29,12 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
     private final long periodNanos;
     private long deadlineNanos;
+
+    // Position in a TimingWheelScheduledTaskQueue, which links the tasks of a slot without extra nodes.
+    int wheelSlot = TimingWheelScheduledTaskQueue.NOT_QUEUED;
+    ScheduledFutureTask<?> prevInSlot;
+    ScheduledFutureTask<?> nextInSlot;
+
     ScheduledFutureTask(
             AbstractScheduledEventExecutor executor,
             Runnable runnable, V result, long nanoTime) {
@@ -62,7 +67,17 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
     }
 
     static long deadlineNanos(long delay) {
-        return nanoTime() + delay;
+        long deadlineNanos = nanoTime() + delay;
+        // Guard against overflow
+        return deadlineNanos < 0 ? Long.MAX_VALUE : deadlineNanos;
+    }
+
+    static long deadlineToDelayNanos(long deadlineNanos) {
+        return Math.max(0, deadlineNanos - nanoTime());
+    }
+
+    static long deadlineToDelayNanos(long currentTimeNanos, long deadlineNanos) {
+        return Math.max(0, deadlineNanos - (currentTimeNanos - START_TIME));
     }
 
     public long deadlineNanos() {
@@ -125,7 +140,7 @@ final class ScheduledFutureTask<V> extends PromiseTask<V> implements ScheduledFu
                         }
                         if (!isCancelled()) {
                             // scheduledTaskQueue can never be null as we lazy init it before submit the task!
-                            Queue<ScheduledFutureTask<?>> scheduledTaskQueue =
+                            ScheduledTaskQueue scheduledTaskQueue =
                                     ((AbstractScheduledEventExecutor) executor()).scheduledTaskQueue;
                             assert scheduledTaskQueue != null;
                             scheduledTaskQueue.add(this);
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+/**
+ * Holds the {@link ScheduledFutureTask}s of an {@link AbstractScheduledEventExecutor}. Only accessed by the thread of
+ * the executor, so implementations do not need to be thread-safe.
+ */
+interface ScheduledTaskQueue {
+
+    void add(ScheduledFutureTask<?> task);
+
+    boolean remove(ScheduledFutureTask<?> task);
+
+    /**
+     * Removes and returns a task whose deadline is not after {@code nanoTime}, or returns {@code null} if there is
+     * none.
+     */
+    ScheduledFutureTask<?> poll(long nanoTime);
+
+    /**
+     * Returns the time from which on the next task can be {@linkplain #poll(long) polled}, which may be in the past.
+     * Must not be called if the queue is empty.
+     */
+    long nextDeadlineNanos();
+
+    int size();
+
+    boolean isEmpty();
+
+    ScheduledFutureTask<?>[] toArray();
+
+    void clear();
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selects the data structure an {@link AbstractScheduledEventExecutor} keeps its scheduled tasks in.
+ * <p>
+ * By default the tasks are kept in a binary heap, which runs them exactly in the order of their deadlines but costs
+ * {@code O(log n)} per scheduled task and {@code O(n)} per cancelled task. A {@linkplain #timingWheel(long, TimeUnit)
+ * timing wheel} schedules and cancels in constant time, at the cost of running each task up to one tick late, which
+ * suits the many timeouts of an event loop with a lot of connections that are usually cancelled before they expire.
+ */
+public final class ScheduledTaskQueueFactory {
+
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(ScheduledTaskQueueFactory.class);
+
+    private static final int DEFAULT_TICKS_PER_WHEEL = 256;
+
+    /**
+     * Keeps the scheduled tasks in a binary heap.
+     */
+    public static final ScheduledTaskQueueFactory PRIORITY_QUEUE = new ScheduledTaskQueueFactory(0, 0);
+
+    private static final ScheduledTaskQueueFactory DEFAULT;
+
+    static {
+        long tickMicros = SystemPropertyUtil.getLong("io.netty.eventexecutor.timingWheelTickMicros", 0);
+        ScheduledTaskQueueFactory factory = PRIORITY_QUEUE;
+        if (tickMicros > 0) {
+            factory = timingWheel(tickMicros, TimeUnit.MICROSECONDS);
+        }
+        DEFAULT = factory;
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.eventexecutor.timingWheelTickMicros: {}", tickMicros);
+        }
+    }
+
+    /**
+     * Returns the factory used by executors which were not given one - System Property:
+     * io.netty.eventexecutor.timingWheelTickMicros - default 0, which selects {@link #PRIORITY_QUEUE}. A value
+     * greater than 0 selects a timing wheel with that tick duration.
+     */
+    public static ScheduledTaskQueueFactory defaultFactory() {
+        return DEFAULT;
+    }
+
+    /**
+     * Keeps the scheduled tasks in a hierarchical timing wheel with {@code 256} ticks per wheel.
+     *
+     * @param tickDuration the duration of a tick, which is the precision of the deadlines
+     * @param unit         the unit of {@code tickDuration}
+     */
+    public static ScheduledTaskQueueFactory timingWheel(long tickDuration, TimeUnit unit) {
+        return timingWheel(tickDuration, unit, DEFAULT_TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Keeps the scheduled tasks in a hierarchical timing wheel.
+     *
+     * @param tickDuration  the duration of a tick, which is the precision of the deadlines
+     * @param unit          the unit of {@code tickDuration}
+     * @param ticksPerWheel the number of slots of each level of the wheel, a power of 2 between 2 and 65536
+     */
+    public static ScheduledTaskQueueFactory timingWheel(long tickDuration, TimeUnit unit, int ticksPerWheel) {
+        if (unit == null) {
+            throw new NullPointerException("unit");
+        }
+        if (tickDuration <= 0) {
+            throw new IllegalArgumentException("tickDuration: " + tickDuration + " (expected: > 0)");
+        }
+        ScheduledTaskQueueFactory factory = new ScheduledTaskQueueFactory(unit.toNanos(tickDuration), ticksPerWheel);
+        // Validate the arguments now instead of when the first task is scheduled.
+        factory.newQueue();
+        return factory;
+    }
+
+    private final long tickNanos;
+    private final int ticksPerWheel;
+
+    private ScheduledTaskQueueFactory(long tickNanos, int ticksPerWheel) {
+        this.tickNanos = tickNanos;
+        this.ticksPerWheel = ticksPerWheel;
+    }
+
+    ScheduledTaskQueue newQueue() {
+        if (tickNanos == 0) {
+            return new PriorityScheduledTaskQueue();
+        }
+        return new TimingWheelScheduledTaskQueue(tickNanos, ticksPerWheel);
+    }
+
+    @Override
+    public String toString() {
+        if (tickNanos == 0) {
+            return "ScheduledTaskQueueFactory(priorityQueue)";
+        }
+        return "ScheduledTaskQueueFactory(timingWheel, tickNanos: " + tickNanos +
+                ", ticksPerWheel: " + ticksPerWheel + ')';
+    }
+}
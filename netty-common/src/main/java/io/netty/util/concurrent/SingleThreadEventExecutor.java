@@ -16,7 +16,9 @@
 
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.LongCounter;
 import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
@@ -86,6 +88,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     private final int maxPendingTasks;
     private final RejectedExecutionHandler rejectedExecutionHandler;
     private final Promise<?> terminationFuture = new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+    private final LongCounter wakeupsAvoided = PlatformDependent.newLongCounter();
+    private volatile EventExecutorMetricsListener metricsListener;
     private volatile Thread thread;
     @SuppressWarnings("unused")
     private volatile ThreadProperties threadProperties;
@@ -151,7 +155,27 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
     protected SingleThreadEventExecutor(EventExecutorGroup parent, Executor executor,
                                         boolean addTaskWakesUp, int maxPendingTasks,
                                         RejectedExecutionHandler rejectedHandler) {
-        super(parent);
+        this(parent, executor, addTaskWakesUp, maxPendingTasks, rejectedHandler,
+                ScheduledTaskQueueFactory.defaultFactory());
+    }
+
+    /**
+     * Create a new instance
+     *
+     * @param parent the {@link EventExecutorGroup} which is the parent of this instance and belongs to it
+     * @param executor the {@link Executor} which will be used for executing
+     * @param addTaskWakesUp {@code true} if and only if invocation of {@link #addTask(Runnable)} will wake up the
+     * executor thread
+     * @param maxPendingTasks the maximum number of pending tasks before new tasks will be rejected.
+     * @param rejectedHandler the {@link RejectedExecutionHandler} to use.
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how scheduled tasks are
+     * kept.
+     */
+    protected SingleThreadEventExecutor(EventExecutorGroup parent, Executor executor,
+                                        boolean addTaskWakesUp, int maxPendingTasks,
+                                        RejectedExecutionHandler rejectedHandler,
+                                        ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, scheduledTaskQueueFactory);
         this.addTaskWakesUp = addTaskWakesUp;
         this.maxPendingTasks = Math.max(16, maxPendingTasks);
         this.executor = ObjectUtil.checkNotNull(executor, "executor");
@@ -228,8 +252,8 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
 
         BlockingQueue<Runnable> taskQueue = (BlockingQueue<Runnable>) this.taskQueue;
         for (; ; ) {
-            ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-            if (scheduledTask == null) {
+            long deadlineNanos = nextScheduledTaskDeadlineNanos();
+            if (deadlineNanos == -1) {
                 Runnable task = null;
                 try {
                     task = taskQueue.take();
@@ -241,7 +265,7 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 }
                 return task;
             } else {
-                long delayNanos = scheduledTask.delayNanos();
+                long delayNanos = ScheduledFutureTask.deadlineToDelayNanos(deadlineNanos);
                 Runnable task = null;
                 if (delayNanos > 0) {
                     try {
@@ -372,8 +396,9 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (task == null) {
             return false;
         }
+        final EventExecutorMetricsListener metricsListener = this.metricsListener;
         for (; ; ) {
-            safeExecute(task);
+            safeExecute(task, metricsListener);
             task = pollTaskFrom(taskQueue);
             if (task == null) {
                 return true;
@@ -394,10 +419,11 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         }
 
         final long deadline = ScheduledFutureTask.nanoTime() + timeoutNanos;
+        final EventExecutorMetricsListener metricsListener = this.metricsListener;
         long runTasks = 0;
         long lastExecutionTime;
         for (; ; ) {
-            safeExecute(task);
+            safeExecute(task, metricsListener);
 
             runTasks++;
 
@@ -422,6 +448,34 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         return true;
     }
 
+    private static void safeExecute(Runnable task, EventExecutorMetricsListener metricsListener) {
+        if (metricsListener == null) {
+            safeExecute(task);
+        } else {
+            long start = System.nanoTime();
+            safeExecute(task);
+            metricsListener.taskExecuted(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * Returns the {@link EventExecutorMetricsListener} which receives the timings of this executor or {@code null}
+     * if none was set.
+     */
+    @UnstableApi
+    public final EventExecutorMetricsListener metricsListener() {
+        return metricsListener;
+    }
+
+    /**
+     * Sets the {@link EventExecutorMetricsListener} which receives the timings of this executor, or {@code null} to
+     * stop collecting them. Without a listener no time is measured.
+     */
+    @UnstableApi
+    public final void setMetricsListener(EventExecutorMetricsListener metricsListener) {
+        this.metricsListener = metricsListener;
+    }
+
     /**
      * Invoked before returning from {@link #runAllTasks()} and {@link #runAllTasks(long)}.
      */
@@ -433,12 +487,12 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
      * Returns the amount of time left until the scheduled task with the closest dead line is executed.
      */
     protected long delayNanos(long currentTimeNanos) {
-        ScheduledFutureTask<?> scheduledTask = peekScheduledTask();
-        if (scheduledTask == null) {
+        long deadlineNanos = nextScheduledTaskDeadlineNanos();
+        if (deadlineNanos == -1) {
             return SCHEDULE_PURGE_INTERVAL;
         }
 
-        return scheduledTask.delayNanos(currentTimeNanos);
+        return ScheduledFutureTask.deadlineToDelayNanos(currentTimeNanos, deadlineNanos);
     }
 
     /**
@@ -736,8 +790,72 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
         if (task == null) {
             throw new NullPointerException("task");
         }
+        execute(task, wakesUpForTask(task));
+    }
 
+    /**
+     * Adds the given task to the task queue without waking up the event loop, so it is run once the event loop
+     * wakes up for another reason, like I/O, another task or a scheduled task. This saves the cost of a wake-up for
+     * tasks which may be delayed, but there is no upper bound for the delay if nothing else happens.
+     * <p>
+     * Sub-classes whose {@link #addTask(Runnable)} always wakes up the event loop run the task as soon as possible.
+     */
+    @UnstableApi
+    public void lazyExecute(Runnable task) {
+        if (task == null) {
+            throw new NullPointerException("task");
+        }
+        execute(task, false);
+    }
+
+    /**
+     * Adds all the given tasks to the task queue and wakes up the event loop at most once, which is cheaper than
+     * calling {@link #execute(Runnable)} for each of them when called from outside the event loop.
+     * <p>
+     * If this executor is shut down while the tasks are added, the remaining tasks are rejected.
+     */
+    @UnstableApi
+    public void executeBatch(Collection<? extends Runnable> tasks) {
+        ObjectUtil.checkNotNull(tasks, "tasks");
         boolean inEventLoop = inEventLoop();
+        boolean wakeup = false;
+        int added = 0;
+        try {
+            for (Runnable task : tasks) {
+                if (task == null) {
+                    throw new NullPointerException("task");
+                }
+                addTask(task, inEventLoop);
+                wakeup |= wakesUpForTask(task);
+                added++;
+            }
+        } finally {
+            // Wake up even if a task was rejected, as the tasks added before must not be left behind.
+            if (added > 0 && !addTaskWakesUp) {
+                if (wakeup) {
+                    wakeup(inEventLoop);
+                }
+                if (!inEventLoop) {
+                    wakeupsAvoided.add(wakeup ? added - 1 : added);
+                }
+            }
+        }
+    }
+
+    private void execute(Runnable task, boolean wakeup) {
+        boolean inEventLoop = inEventLoop();
+        addTask(task, inEventLoop);
+
+        if (!addTaskWakesUp) {
+            if (wakeup) {
+                wakeup(inEventLoop);
+            } else if (!inEventLoop) {
+                wakeupsAvoided.increment();
+            }
+        }
+    }
+
+    private void addTask(Runnable task, boolean inEventLoop) {
         if (inEventLoop) {
             addTask(task);
         } else {
@@ -747,10 +865,15 @@ public abstract class SingleThreadEventExecutor extends AbstractScheduledEventEx
                 reject();
             }
         }
+    }
 
-        if (!addTaskWakesUp && wakesUpForTask(task)) {
-            wakeup(inEventLoop);
-        }
+    /**
+     * Returns the number of tasks which were added from outside the event loop without a wake-up of their own, for
+     * example via {@link #lazyExecute(Runnable)} or as part of {@link #executeBatch(Collection)}.
+     */
+    @UnstableApi
+    public long wakeupsAvoided() {
+        return wakeupsAvoided.value();
     }
 
     @Override
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import java.util.NoSuchElementException;
+
+/**
+ * {@link ScheduledTaskQueue} backed by a hierarchical timing wheel, which adds and removes a task in constant time
+ * regardless of the number of tasks. The price is precision: a task is run up to one tick after its deadline, and
+ * tasks whose deadlines fall into the same tick are run in the order they were scheduled.
+ * <p>
+ * The wheel of level {@code n} has {@code ticksPerWheel} slots which each span {@code ticksPerWheel^n} ticks. A task
+ * is kept in the lowest level at which its tick differs from the current tick, so that slot only needs to be looked
+ * at again once the current tick enters it. Then its tasks are moved down to the lower levels, which happens at most
+ * once per level and task. Tasks whose tick has passed are moved to a ready list from which they are polled.
+ */
+final class TimingWheelScheduledTaskQueue implements ScheduledTaskQueue {
+
+    static final int NOT_QUEUED = -1;
+
+    private final long tickNanos;
+    private final int wheelShift;
+    private final int wheelMask;
+    private final int levels;
+    private final int readySlot;
+    // Each slot is a doubly linked list through the prevInSlot / nextInSlot fields of the tasks.
+    private final ScheduledFutureTask<?>[] heads;
+    private final ScheduledFutureTask<?>[] tails;
+    // One bit per non-empty slot, so the next due slot is found without looking at every slot.
+    private final long[] occupied;
+    // The earliest deadline of each slot. Not updated when a task is removed, so it may be too early.
+    private final long[] minDeadlines;
+    private long currentTick;
+    private int size;
+
+    TimingWheelScheduledTaskQueue(long tickNanos, int ticksPerWheel) {
+        if (tickNanos <= 0) {
+            throw new IllegalArgumentException("tickNanos: " + tickNanos + " (expected: > 0)");
+        }
+        if (ticksPerWheel < 2 || ticksPerWheel > 1 << 16 || (ticksPerWheel & ticksPerWheel - 1) != 0) {
+            throw new IllegalArgumentException(
+                    "ticksPerWheel: " + ticksPerWheel + " (expected: power of 2 between 2 and 65536)");
+        }
+        this.tickNanos = tickNanos;
+        wheelShift = Integer.numberOfTrailingZeros(ticksPerWheel);
+        wheelMask = ticksPerWheel - 1;
+        // Enough levels to hold the tick of every deadline.
+        int tickBits = Long.SIZE - Long.numberOfLeadingZeros(Long.MAX_VALUE / tickNanos);
+        levels = Math.max(1, (tickBits + wheelShift - 1) / wheelShift);
+        readySlot = levels << wheelShift;
+        heads = new ScheduledFutureTask<?>[readySlot + 1];
+        tails = new ScheduledFutureTask<?>[readySlot + 1];
+        occupied = new long[(readySlot >>> 6) + 1];
+        minDeadlines = new long[readySlot];
+    }
+
+    @Override
+    public void add(ScheduledFutureTask<?> task) {
+        assert task.wheelSlot == NOT_QUEUED;
+        place(task, tick(task.deadlineNanos()));
+        size++;
+    }
+
+    @Override
+    public boolean remove(ScheduledFutureTask<?> task) {
+        int slot = task.wheelSlot;
+        if (slot == NOT_QUEUED || slot >= heads.length || task.prevInSlot == null && heads[slot] != task) {
+            return false;
+        }
+        unlink(task);
+        size--;
+        return true;
+    }
+
+    @Override
+    public ScheduledFutureTask<?> poll(long nanoTime) {
+        long tick = tick(nanoTime);
+        if (tick > currentTick) {
+            advance(tick);
+        }
+        ScheduledFutureTask<?> task = heads[readySlot];
+        if (task == null) {
+            return null;
+        }
+        unlink(task);
+        size--;
+        return task;
+    }
+
+    @Override
+    public long nextDeadlineNanos() {
+        if (heads[readySlot] != null) {
+            // Ready tasks are already due.
+            return 0;
+        }
+        for (int level = 0; level < levels; level++) {
+            // The current slot of a level above 0 is always empty as its tasks belong to the lower levels.
+            int from = digit(currentTick, level) + (level == 0 ? 0 : 1);
+            if (from > wheelMask) {
+                continue;
+            }
+            int slot = nextOccupied(level << wheelShift | from, level << wheelShift | wheelMask);
+            if (slot >= 0) {
+                // The slots of the lower levels are earlier than the ones of the higher levels, and a task
+                // becomes ready once its tick ended.
+                return toNanos(tick(minDeadlines[slot]) + 1);
+            }
+        }
+        throw new NoSuchElementException();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public ScheduledFutureTask<?>[] toArray() {
+        ScheduledFutureTask<?>[] tasks = new ScheduledFutureTask<?>[size];
+        int i = 0;
+        for (ScheduledFutureTask<?> head : heads) {
+            for (ScheduledFutureTask<?> task = head; task != null; task = task.nextInSlot) {
+                tasks[i++] = task;
+            }
+        }
+        return tasks;
+    }
+
+    @Override
+    public void clear() {
+        for (int slot = 0; slot < heads.length; slot++) {
+            ScheduledFutureTask<?> task = detach(slot);
+            while (task != null) {
+                ScheduledFutureTask<?> next = task.nextInSlot;
+                reset(task);
+                task = next;
+            }
+        }
+        size = 0;
+    }
+
+    /**
+     * Moves the current tick forward to {@code newTick}, which makes the tasks of the passed ticks ready and moves
+     * the tasks of the slots that were entered down to the lower levels.
+     */
+    private void advance(long newTick) {
+        long oldTick = currentTick;
+        currentTick = newTick;
+        for (int level = 0; level < levels; level++) {
+            int from = digit(oldTick, level) + (level == 0 ? 0 : 1);
+            boolean lastLevel = (oldTick & ~lowBits(level + 1)) == (newTick & ~lowBits(level + 1));
+            int to;
+            if (lastLevel) {
+                // Only the slots up to the new tick were passed, the levels above did not change.
+                to = digit(newTick, level) - (level == 0 ? 1 : 0);
+            } else {
+                // The whole wheel of this level was passed.
+                to = wheelMask;
+            }
+            int slot = from <= to ? nextOccupied(level << wheelShift | from, level << wheelShift | to) : -1;
+            while (slot >= 0) {
+                ScheduledFutureTask<?> task = detach(slot);
+                while (task != null) {
+                    ScheduledFutureTask<?> next = task.nextInSlot;
+                    reset(task);
+                    place(task, tick(task.deadlineNanos()));
+                    task = next;
+                }
+                slot = slot < (level << wheelShift | to) ? nextOccupied(slot + 1, level << wheelShift | to) : -1;
+            }
+            if (lastLevel) {
+                break;
+            }
+        }
+    }
+
+    private void place(ScheduledFutureTask<?> task, long tick) {
+        final int slot;
+        if (tick < currentTick) {
+            slot = readySlot;
+        } else {
+            long diff = tick ^ currentTick;
+            int level = diff == 0 ? 0 : (Long.SIZE - 1 - Long.numberOfLeadingZeros(diff)) / wheelShift;
+            slot = level << wheelShift | digit(tick, level);
+        }
+        task.wheelSlot = slot;
+        ScheduledFutureTask<?> tail = tails[slot];
+        if (tail == null) {
+            heads[slot] = task;
+            occupied[slot >>> 6] |= 1L << slot;
+            if (slot != readySlot) {
+                minDeadlines[slot] = task.deadlineNanos();
+            }
+        } else {
+            tail.nextInSlot = task;
+            task.prevInSlot = tail;
+            if (slot != readySlot) {
+                minDeadlines[slot] = Math.min(minDeadlines[slot], task.deadlineNanos());
+            }
+        }
+        tails[slot] = task;
+    }
+
+    private void unlink(ScheduledFutureTask<?> task) {
+        int slot = task.wheelSlot;
+        ScheduledFutureTask<?> prev = task.prevInSlot;
+        ScheduledFutureTask<?> next = task.nextInSlot;
+        if (prev == null) {
+            heads[slot] = next;
+        } else {
+            prev.nextInSlot = next;
+        }
+        if (next == null) {
+            tails[slot] = prev;
+        } else {
+            next.prevInSlot = prev;
+        }
+        if (heads[slot] == null) {
+            occupied[slot >>> 6] &= ~(1L << slot);
+        }
+        reset(task);
+    }
+
+    /**
+     * Empties {@code slot} and returns the first of its tasks, whose links are still intact.
+     */
+    private ScheduledFutureTask<?> detach(int slot) {
+        ScheduledFutureTask<?> head = heads[slot];
+        if (head != null) {
+            heads[slot] = null;
+            tails[slot] = null;
+            occupied[slot >>> 6] &= ~(1L << slot);
+        }
+        return head;
+    }
+
+    private static void reset(ScheduledFutureTask<?> task) {
+        task.wheelSlot = NOT_QUEUED;
+        task.prevInSlot = null;
+        task.nextInSlot = null;
+    }
+
+    /**
+     * Returns the first non-empty slot between {@code from} and {@code to} (inclusive) or {@code -1}.
+     */
+    private int nextOccupied(int from, int to) {
+        int word = from >>> 6;
+        long bits = occupied[word] & -1L << from;
+        for (;;) {
+            if (bits != 0) {
+                int slot = word << 6 | Long.numberOfTrailingZeros(bits);
+                return slot <= to ? slot : -1;
+            }
+            if (++word > to >>> 6) {
+                return -1;
+            }
+            bits = occupied[word];
+        }
+    }
+
+    private int digit(long tick, int level) {
+        return (int) (tick >>> level * wheelShift) & wheelMask;
+    }
+
+    /**
+     * Returns a mask of the bits of a tick that select the slots of all levels below {@code level}.
+     */
+    private long lowBits(int level) {
+        int bits = level * wheelShift;
+        return bits >= Long.SIZE - 1 ? Long.MAX_VALUE : (1L << bits) - 1;
+    }
+
+    private long tick(long nanos) {
+        return nanos <= 0 ? 0 : nanos / tickNanos;
+    }
+
+    private long toNanos(long tick) {
+        return tick > Long.MAX_VALUE / tickNanos ? Long.MAX_VALUE : tick * tickNanos;
+    }
+}
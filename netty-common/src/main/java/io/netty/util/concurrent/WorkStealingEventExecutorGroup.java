@@ -0,0 +1,564 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.util.internal.ObjectUtil;
+import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.UnstableApi;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * {@link EventExecutorGroup} which runs its tasks on a fixed number of threads that steal work from each other.
+ * <p>
+ * Each call of {@link #next()} returns a new {@link OrderedEventExecutor} which runs its tasks one after the other
+ * in the order they were submitted, but on whatever thread of this group is free. When a handler is added with
+ * {@code ChannelPipeline.addLast(group, ...)} all events of a channel are handled in order, while a channel which is
+ * slow to handle its events only delays its own events and not the ones of other channels, as it would with a
+ * {@link DefaultEventExecutorGroup}.
+ * <p>
+ * Every thread has its own queue, so threads of this group submit to their own queue without contention. Other
+ * threads submit to the queues in a round-robin fashion. Idle threads take work from the queues of the other threads.
+ * <p>
+ * Scheduled tasks are timed by the {@link GlobalEventExecutor} and then run in order with the other tasks of their
+ * {@link EventExecutor}. A graceful shutdown runs all pending tasks but does not wait for a quiet period, and
+ * scheduled tasks which are not due yet fail once the group is shut down.
+ */
+@UnstableApi
+public final class WorkStealingEventExecutorGroup extends AbstractEventExecutorGroup {
+
+    private static final int DEFAULT_THREADS = Runtime.getRuntime().availableProcessors() * 2;
+    private static final FastThreadLocal<Worker> CURRENT_WORKER = new FastThreadLocal<Worker>();
+
+    private final Worker[] workers;
+    private final Queue<Worker> idleWorkers = new ConcurrentLinkedQueue<Worker>();
+    private final AtomicInteger nextWorker = new AtomicInteger();
+    private final AtomicInteger activeWorkers;
+    private final int maxTaskExecutePerRun;
+    private final Promise<?> terminationFuture = new DefaultPromise<Void>(GlobalEventExecutor.INSTANCE);
+    private volatile boolean shuttingDown;
+
+    /**
+     * Creates a new instance with twice as many threads as there are processors.
+     */
+    public WorkStealingEventExecutorGroup() {
+        this(0);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nThreads the number of threads, or {@code 0} to use twice as many threads as there are processors
+     */
+    public WorkStealingEventExecutorGroup(int nThreads) {
+        this(nThreads, (ThreadFactory) null);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nThreads the number of threads, or {@code 0} to use twice as many threads as there are processors
+     * @param threadFactory the {@link ThreadFactory} to use, or {@code null} to use the default
+     */
+    public WorkStealingEventExecutorGroup(int nThreads, ThreadFactory threadFactory) {
+        this(nThreads, threadFactory == null ? null : new ThreadPerTaskExecutor(threadFactory), 1024);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param nThreads the number of threads, or {@code 0} to use twice as many threads as there are processors
+     * @param executor the {@link Executor} which starts the threads, or {@code null} to use the default
+     * @param maxTaskExecutePerRun the number of tasks an {@link EventExecutor} of this group runs before it gives
+     *                             other {@link EventExecutor}s a chance to run theirs
+     */
+    public WorkStealingEventExecutorGroup(int nThreads, Executor executor, int maxTaskExecutePerRun) {
+        ObjectUtil.checkPositiveOrZero(nThreads, "nThreads");
+        this.maxTaskExecutePerRun = ObjectUtil.checkPositive(maxTaskExecutePerRun, "maxTaskExecutePerRun");
+        if (nThreads == 0) {
+            nThreads = DEFAULT_THREADS;
+        }
+        if (executor == null) {
+            executor = new ThreadPerTaskExecutor(new DefaultThreadFactory(getClass()));
+        }
+        workers = new Worker[nThreads];
+        for (int i = 0; i < workers.length; i++) {
+            workers[i] = new Worker();
+        }
+        activeWorkers = new AtomicInteger(nThreads);
+        for (Worker worker : workers) {
+            executor.execute(worker);
+        }
+    }
+
+    /**
+     * Returns a new {@link OrderedEventExecutor} which runs its tasks on the threads of this group.
+     */
+    @Override
+    public EventExecutor next() {
+        return new WorkStealingOrderedEventExecutor();
+    }
+
+    /**
+     * Returns an empty {@link Iterator}, as the {@link EventExecutor}s of this group are created on demand.
+     */
+    @Override
+    public Iterator<EventExecutor> iterator() {
+        return Collections.<EventExecutor>emptyList().iterator();
+    }
+
+    /**
+     * Runs the given task on any thread of this group, without any ordering guarantees.
+     */
+    @Override
+    public void execute(Runnable task) {
+        dispatch(ObjectUtil.checkNotNull(task, "task"));
+    }
+
+    private void dispatch(Runnable task) {
+        Worker worker = currentWorker();
+        if (worker != null) {
+            // Tasks submitted by the threads of this group are always accepted so the pending tasks can be
+            // finished during shutdown.
+            worker.tasks.offerLast(task);
+        } else {
+            rejectIfShutdown();
+            worker = workers[Math.abs(nextWorker.getAndIncrement() % workers.length)];
+            worker.tasks.offerLast(task);
+            if (worker.terminated && worker.tasks.remove(task)) {
+                reject();
+            }
+        }
+        wakeUpIdleWorker();
+    }
+
+    private Worker currentWorker() {
+        Worker worker = CURRENT_WORKER.get();
+        // The current thread may belong to another group.
+        return worker != null && worker.group() == this ? worker : null;
+    }
+
+    private void rejectIfShutdown() {
+        if (shuttingDown) {
+            reject();
+        }
+    }
+
+    private static void reject() {
+        throw new RejectedExecutionException("event executor group shut down");
+    }
+
+    private void wakeUpIdleWorker() {
+        for (;;) {
+            Worker worker = idleWorkers.poll();
+            if (worker == null) {
+                return;
+            }
+            if (worker.idle.compareAndSet(true, false)) {
+                LockSupport.unpark(worker.thread);
+                return;
+            }
+        }
+    }
+
+    @Override
+    public boolean isShuttingDown() {
+        return shuttingDown;
+    }
+
+    @Override
+    public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+        shuttingDown = true;
+        for (Worker worker : workers) {
+            LockSupport.unpark(worker.thread);
+        }
+        return terminationFuture;
+    }
+
+    @Override
+    public Future<?> terminationFuture() {
+        return terminationFuture;
+    }
+
+    @Override
+    @Deprecated
+    public void shutdown() {
+        shutdownGracefully();
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shuttingDown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return terminationFuture.isDone();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        return terminationFuture.await(timeout, unit);
+    }
+
+    private final class Worker implements Runnable {
+        final BlockingDeque<Runnable> tasks = new LinkedBlockingDeque<Runnable>();
+        final AtomicBoolean idle = new AtomicBoolean();
+        volatile Thread thread;
+        volatile boolean terminated;
+
+        @Override
+        public void run() {
+            thread = Thread.currentThread();
+            CURRENT_WORKER.set(this);
+            try {
+                for (;;) {
+                    Runnable task = findTask();
+                    if (task != null) {
+                        if (idle.get() && idle.compareAndSet(true, false)) {
+                            idleWorkers.remove(this);
+                        }
+                        AbstractEventExecutor.safeExecute(task);
+                    } else if (!idle.get()) {
+                        idle.set(true);
+                        idleWorkers.offer(this);
+                        // Look for tasks once more, as a task submitted before this worker became idle did not wake
+                        // it up.
+                    } else if (shuttingDown) {
+                        break;
+                    } else {
+                        LockSupport.park(this);
+                    }
+                }
+            } finally {
+                terminated = true;
+                // Run the tasks which were submitted while this worker was terminating.
+                for (;;) {
+                    Runnable task = tasks.pollFirst();
+                    if (task == null) {
+                        break;
+                    }
+                    AbstractEventExecutor.safeExecute(task);
+                }
+                CURRENT_WORKER.remove();
+                if (activeWorkers.decrementAndGet() == 0) {
+                    terminationFuture.setSuccess(null);
+                }
+            }
+        }
+
+        WorkStealingEventExecutorGroup group() {
+            return WorkStealingEventExecutorGroup.this;
+        }
+
+        private Runnable findTask() {
+            Runnable task = tasks.pollFirst();
+            if (task != null) {
+                return task;
+            }
+            // Steal the oldest task of another worker, starting at a random one so not all idle workers compete
+            // for the same queue.
+            int start = PlatformDependent.threadLocalRandom().nextInt(workers.length);
+            for (int i = 0; i < workers.length; i++) {
+                Worker victim = workers[(start + i) % workers.length];
+                if (victim != this) {
+                    task = victim.tasks.pollFirst();
+                    if (task != null) {
+                        return task;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+
+    private final class WorkStealingOrderedEventExecutor extends AbstractEventExecutor
+            implements Runnable, OrderedEventExecutor {
+        private static final int NONE = 0;
+        private static final int SUBMITTED = 1;
+        private static final int RUNNING = 2;
+
+        private final Queue<Runnable> tasks = PlatformDependent.newMpscQueue();
+        private final AtomicInteger state = new AtomicInteger();
+        private volatile Thread thread;
+
+        WorkStealingOrderedEventExecutor() {
+            super(WorkStealingEventExecutorGroup.this);
+        }
+
+        @Override
+        public void run() {
+            if (!state.compareAndSet(SUBMITTED, RUNNING)) {
+                return;
+            }
+            thread = Thread.currentThread();
+            for (; ; ) {
+                int i = 0;
+                try {
+                    for (; i < maxTaskExecutePerRun; i++) {
+                        Runnable task = tasks.poll();
+                        if (task == null) {
+                            break;
+                        }
+                        safeExecute(task);
+                    }
+                } finally {
+                    if (i == maxTaskExecutePerRun) {
+                        thread = null;
+                        state.set(SUBMITTED);
+                        // Let the tasks of the other executors run before continuing, the dispatch to the queue of
+                        // the current worker never fails.
+                        dispatch(this);
+                        return; // done
+                    } else {
+                        thread = null;
+                        state.set(NONE);
+                        // A task may have been added after the last poll but before the state was reset.
+                        if (tasks.isEmpty() || !state.compareAndSet(NONE, RUNNING)) {
+                            return; // done
+                        }
+                        thread = Thread.currentThread();
+                    }
+                }
+            }
+        }
+
+        @Override
+        public boolean inEventLoop(Thread thread) {
+            return thread == this.thread;
+        }
+
+        @Override
+        public boolean isShuttingDown() {
+            return WorkStealingEventExecutorGroup.this.isShuttingDown();
+        }
+
+        @Override
+        public Future<?> shutdownGracefully(long quietPeriod, long timeout, TimeUnit unit) {
+            return WorkStealingEventExecutorGroup.this.shutdownGracefully(quietPeriod, timeout, unit);
+        }
+
+        @Override
+        public Future<?> terminationFuture() {
+            return WorkStealingEventExecutorGroup.this.terminationFuture();
+        }
+
+        @Override
+        @Deprecated
+        public void shutdown() {
+            WorkStealingEventExecutorGroup.this.shutdown();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return WorkStealingEventExecutorGroup.this.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return WorkStealingEventExecutorGroup.this.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return WorkStealingEventExecutorGroup.this.awaitTermination(timeout, unit);
+        }
+
+        @Override
+        public void execute(Runnable task) {
+            if (task == null) {
+                throw new NullPointerException("task");
+            }
+            if (currentWorker() == null) {
+                rejectIfShutdown();
+            }
+            if (!tasks.offer(task)) {
+                throw new RejectedExecutionException();
+            }
+            if (state.compareAndSet(NONE, SUBMITTED)) {
+                // Only fails if the group was shut down in the meantime, in which case the task is never run.
+                dispatch(this);
+            }
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ObjectUtil.checkNotNull(unit, "unit");
+            if (delay < 0) {
+                throw new IllegalArgumentException(
+                        String.format("delay: %d (expected: >= 0)", delay));
+            }
+            return schedule(new ScheduledTask<Void>(
+                    this, Executors.<Void>callable(command, null), unit.toNanos(delay), 0));
+        }
+
+        @Override
+        public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+            ObjectUtil.checkNotNull(callable, "callable");
+            ObjectUtil.checkNotNull(unit, "unit");
+            if (delay < 0) {
+                throw new IllegalArgumentException(
+                        String.format("delay: %d (expected: >= 0)", delay));
+            }
+            return schedule(new ScheduledTask<V>(this, callable, unit.toNanos(delay), 0));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period,
+                                                      TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ObjectUtil.checkNotNull(unit, "unit");
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException(
+                        String.format("initialDelay: %d (expected: >= 0)", initialDelay));
+            }
+            if (period <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("period: %d (expected: > 0)", period));
+            }
+            return schedule(new ScheduledTask<Void>(
+                    this, Executors.<Void>callable(command, null), unit.toNanos(initialDelay), unit.toNanos(period)));
+        }
+
+        @Override
+        public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                         TimeUnit unit) {
+            ObjectUtil.checkNotNull(command, "command");
+            ObjectUtil.checkNotNull(unit, "unit");
+            if (initialDelay < 0) {
+                throw new IllegalArgumentException(
+                        String.format("initialDelay: %d (expected: >= 0)", initialDelay));
+            }
+            if (delay <= 0) {
+                throw new IllegalArgumentException(
+                        String.format("delay: %d (expected: > 0)", delay));
+            }
+            return schedule(new ScheduledTask<Void>(
+                    this, Executors.<Void>callable(command, null), unit.toNanos(initialDelay), -unit.toNanos(delay)));
+        }
+
+        private <V> ScheduledFuture<V> schedule(ScheduledTask<V> task) {
+            if (currentWorker() == null) {
+                rejectIfShutdown();
+            }
+            task.arm();
+            return task;
+        }
+    }
+
+    /**
+     * A task which waits for its deadline on the {@link GlobalEventExecutor} and then runs on its
+     * {@link OrderedEventExecutor}, so it never runs concurrently with the other tasks of that executor.
+     */
+    private static final class ScheduledTask<V> extends PromiseTask<V> implements ScheduledFuture<V> {
+        /* 0 - no repeat, >0 - repeat at fixed rate, <0 - repeat with fixed delay */
+        private final long periodNanos;
+        private volatile long deadlineNanos;
+        private volatile ScheduledFuture<?> timer;
+
+        ScheduledTask(EventExecutor executor, Callable<V> callable, long delayNanos, long periodNanos) {
+            super(executor, callable);
+            this.periodNanos = periodNanos;
+            deadlineNanos = System.nanoTime() + delayNanos;
+        }
+
+        void arm() {
+            timer = GlobalEventExecutor.INSTANCE.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        executor().execute(ScheduledTask.this);
+                    } catch (Throwable cause) {
+                        // The group was shut down before the task was due.
+                        tryFailureInternal(cause);
+                    }
+                }
+            }, Math.max(0, deadlineNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+            if (isCancelled()) {
+                // Cancelled while the timer was being created.
+                timer.cancel(false);
+            }
+        }
+
+        @Override
+        public void run() {
+            if (periodNanos == 0) {
+                super.run();
+                return;
+            }
+            try {
+                if (isCancelled()) {
+                    return;
+                }
+                task.call();
+                if (!executor().isShutdown()) {
+                    if (periodNanos > 0) {
+                        deadlineNanos += periodNanos;
+                    } else {
+                        deadlineNanos = System.nanoTime() - periodNanos;
+                    }
+                    if (!isCancelled()) {
+                        arm();
+                    }
+                }
+            } catch (Throwable cause) {
+                setFailureInternal(cause);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean canceled = super.cancel(mayInterruptIfRunning);
+            if (canceled) {
+                ScheduledFuture<?> timer = this.timer;
+                if (timer != null) {
+                    timer.cancel(false);
+                }
+            }
+            return canceled;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadlineNanos - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed o) {
+            if (this == o) {
+                return 0;
+            }
+            long d = getDelay(TimeUnit.NANOSECONDS) - o.getDelay(TimeUnit.NANOSECONDS);
+            return d < 0 ? -1 : d > 0 ? 1 : 0;
+        }
+    }
+}
@@ -18,12 +18,15 @@ package io.netty.util.internal;
 
 import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.nio.charset.Charset;
 import java.nio.charset.CharsetDecoder;
 import java.nio.charset.CharsetEncoder;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.WeakHashMap;
@@ -32,17 +35,33 @@ import java.util.WeakHashMap;
  * The internal data structure that stores the thread-local variables for Netty and all {@link FastThreadLocal}s.
  * Note that this class is for internal use only and is subject to change at any time.  Use {@link FastThreadLocal}
  * unless you know what you are doing.
+ * <p>
+ * With {@code -Dio.netty.threadLocalMap.compact=true} the maps of threads which are not
+ * {@link FastThreadLocalThread}s keep the variables with an index beyond the initial table in a hash table, so their
+ * size depends on the number of variables set by the thread rather than the highest index.
  */
 public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap {
 
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(InternalThreadLocalMap.class);
+
     public static final Object UNSET = new Object();
     private static final int DEFAULT_ARRAY_LIST_INITIAL_CAPACITY = 8;
+    private static final int INDEXED_VARIABLE_TABLE_INITIAL_SIZE = 32;
+    private static final int SPARSE_TABLE_INITIAL_SIZE = 16;
+    private static final boolean COMPACT_SLOW_PATH =
+            SystemPropertyUtil.getBoolean("io.netty.threadLocalMap.compact", false);
+    // The indexes released by FastThreadLocal.release() which are not reused yet, guarded by itself.
+    private static final BitSet releasedIndexes = new BitSet();
+
+    static {
+        logger.debug("-Dio.netty.threadLocalMap.compact: {}", COMPACT_SLOW_PATH);
+    }
     // Cache line padding (must be public)
     // With CompressedOops enabled, an instance of this class should occupy at least 128 bytes.
     public long rp1, rp2, rp3, rp4, rp5, rp6, rp7, rp8, rp9;
 
-    private InternalThreadLocalMap() {
-        super(newIndexedVariableTable());
+    InternalThreadLocalMap(boolean compact) {
+        super(newIndexedVariableTable(), compact);
     }
 
     public static InternalThreadLocalMap getIfSet() {
@@ -65,7 +84,7 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
     private static InternalThreadLocalMap fastGet(FastThreadLocalThread thread) {
         InternalThreadLocalMap threadLocalMap = thread.threadLocalMap();
         if (threadLocalMap == null) {
-            thread.setThreadLocalMap(threadLocalMap = new InternalThreadLocalMap());
+            thread.setThreadLocalMap(threadLocalMap = new InternalThreadLocalMap(false));
         }
         return threadLocalMap;
     }
@@ -74,7 +93,7 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
         ThreadLocal<InternalThreadLocalMap> slowThreadLocalMap = UnpaddedInternalThreadLocalMap.slowThreadLocalMap;
         InternalThreadLocalMap ret = slowThreadLocalMap.get();
         if (ret == null) {
-            ret = new InternalThreadLocalMap();
+            ret = new InternalThreadLocalMap(COMPACT_SLOW_PATH);
             slowThreadLocalMap.set(ret);
         }
         return ret;
@@ -106,8 +125,43 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
         return nextIndex.get() - 1;
     }
 
+    /**
+     * Returns the lowest index released by {@link #releaseVariableIndex(int)} and takes it, or {@code -1} if there is
+     * none. Any thread may still hold a value of the variable which used the index before.
+     */
+    public static int nextReleasedVariableIndex() {
+        synchronized (releasedIndexes) {
+            int index = releasedIndexes.nextSetBit(0);
+            if (index >= 0) {
+                releasedIndexes.clear(index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Makes the index of a variable which is not used anymore available to {@link #nextReleasedVariableIndex()}.
+     */
+    public static void releaseVariableIndex(int index) {
+        if (index < 0 || index > lastVariableIndex()) {
+            throw new IllegalArgumentException("index: " + index + " (expected: 0-" + lastVariableIndex() + ')');
+        }
+        synchronized (releasedIndexes) {
+            releasedIndexes.set(index);
+        }
+    }
+
+    /**
+     * Returns the number of indexes which were released and are not reused yet.
+     */
+    public static int releasedVariableIndexCount() {
+        synchronized (releasedIndexes) {
+            return releasedIndexes.cardinality();
+        }
+    }
+
     private static Object[] newIndexedVariableTable() {
-        Object[] array = new Object[32];
+        Object[] array = new Object[INDEXED_VARIABLE_TABLE_INITIAL_SIZE];
         Arrays.fill(array, UNSET);
         return array;
     }
@@ -154,6 +208,13 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
                 count++;
             }
         }
+        if (sparseIndexes != null) {
+            for (int i = 0; i < sparseIndexes.length; i++) {
+                if (sparseIndexes[i] != 0 && sparseVariables[i] != UNSET) {
+                    count++;
+                }
+            }
+        }
 
         // We should subtract 1 from the count because the first element in 'indexedVariables' is reserved
         // by 'FastThreadLocal' to keep the list of 'FastThreadLocal's to remove on 'FastThreadLocal.removeAll()'.
@@ -259,9 +320,17 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
         this.localChannelReaderStackDepth = localChannelReaderStackDepth;
     }
 
+    /**
+     * Returns the number of slots allocated for the variables of {@link FastThreadLocal}s in this map.
+     */
+    public int indexedVariablesCapacity() {
+        int[] sparseIndexes = this.sparseIndexes;
+        return indexedVariables.length + (sparseIndexes == null ? 0 : sparseIndexes.length);
+    }
+
     public Object indexedVariable(int index) {
         Object[] lookup = indexedVariables;
-        return index < lookup.length ? lookup[index] : UNSET;
+        return index < lookup.length ? lookup[index] : sparseIndexedVariable(index);
     }
 
     /**
@@ -273,6 +342,8 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
             Object oldValue = lookup[index];
             lookup[index] = value;
             return oldValue == UNSET;
+        } else if (compact) {
+            return setSparseIndexedVariable(index, value);
         } else {
             expandIndexedVariableTableAndSet(index, value);
             return true;
@@ -303,12 +374,100 @@ public final class InternalThreadLocalMap extends UnpaddedInternalThreadLocalMap
             lookup[index] = UNSET;
             return v;
         } else {
-            return UNSET;
+            return removeSparseIndexedVariable(index);
         }
     }
 
     public boolean isIndexedVariableSet(int index) {
         Object[] lookup = indexedVariables;
-        return index < lookup.length && lookup[index] != UNSET;
+        return index < lookup.length ? lookup[index] != UNSET : sparseIndexedVariable(index) != UNSET;
+    }
+
+    // The sparse table of a compact map uses open addressing with linear probing. An index is never removed from it
+    // once added, its variable is just set to UNSET, so no tombstones are needed. The indexes of unset variables are
+    // dropped when the table is rehashed. Index 0 marks an empty slot as it is always in 'indexedVariables'.
+
+    private int sparseSlot(int index) {
+        int[] keys = sparseIndexes;
+        if (keys != null) {
+            int mask = keys.length - 1;
+            for (int i = index & mask; keys[i] != 0; i = i + 1 & mask) {
+                if (keys[i] == index) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private Object sparseIndexedVariable(int index) {
+        int slot = sparseSlot(index);
+        return slot < 0 ? UNSET : sparseVariables[slot];
+    }
+
+    private boolean setSparseIndexedVariable(int index, Object value) {
+        int slot = sparseSlot(index);
+        if (slot >= 0) {
+            Object oldValue = sparseVariables[slot];
+            sparseVariables[slot] = value;
+            return oldValue == UNSET;
+        }
+
+        if (sparseIndexes == null) {
+            sparseIndexes = new int[SPARSE_TABLE_INITIAL_SIZE];
+            sparseVariables = new Object[SPARSE_TABLE_INITIAL_SIZE];
+        } else if (sparseSize + 1 > sparseIndexes.length >>> 1) {
+            rehashSparseTable();
+        }
+        insertSparse(sparseIndexes, sparseVariables, index, value);
+        sparseSize++;
+        return true;
+    }
+
+    private Object removeSparseIndexedVariable(int index) {
+        int slot = sparseSlot(index);
+        if (slot < 0) {
+            return UNSET;
+        }
+        Object v = sparseVariables[slot];
+        sparseVariables[slot] = UNSET;
+        return v;
+    }
+
+    private void rehashSparseTable() {
+        int[] oldIndexes = sparseIndexes;
+        Object[] oldVariables = sparseVariables;
+        int size = 0;
+        for (int i = 0; i < oldIndexes.length; i++) {
+            if (oldIndexes[i] != 0 && oldVariables[i] != UNSET) {
+                size++;
+            }
+        }
+
+        // Keep the table at most half full after the variable which is about to be added.
+        int newCapacity = SPARSE_TABLE_INITIAL_SIZE;
+        while (newCapacity >>> 1 < size + 1) {
+            newCapacity <<= 1;
+        }
+        int[] newIndexes = new int[newCapacity];
+        Object[] newVariables = new Object[newCapacity];
+        for (int i = 0; i < oldIndexes.length; i++) {
+            if (oldIndexes[i] != 0 && oldVariables[i] != UNSET) {
+                insertSparse(newIndexes, newVariables, oldIndexes[i], oldVariables[i]);
+            }
+        }
+        sparseIndexes = newIndexes;
+        sparseVariables = newVariables;
+        sparseSize = size;
+    }
+
+    private static void insertSparse(int[] indexes, Object[] variables, int index, Object value) {
+        int mask = indexes.length - 1;
+        int i = index & mask;
+        while (indexes[i] != 0) {
+            i = i + 1 & mask;
+        }
+        indexes[i] = index;
+        variables[i] = value;
     }
 }
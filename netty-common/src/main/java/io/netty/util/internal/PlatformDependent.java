@@ -125,14 +125,22 @@ public final class PlatformDependent {
         // * >  0  - Don't use cleaner. This will limit Netty's total direct memory
         //           (note: that JDK's direct memory limit is independent of this).
         long maxDirectMemory = SystemPropertyUtil.getLong("io.netty.maxDirectMemory", -1);
+        long directMemoryLimit = maxDirectMemory;
 
-        if (maxDirectMemory == 0 || !hasUnsafe() || !PlatformDependent0.hasDirectBufferNoCleanerConstructor()) {
+        if (!hasUnsafe() || !PlatformDependent0.hasDirectBufferNoCleanerConstructor()) {
             USE_DIRECT_BUFFER_NO_CLEANER = false;
             DIRECT_MEMORY_COUNTER = null;
+        } else if (maxDirectMemory == 0) {
+            USE_DIRECT_BUFFER_NO_CLEANER = false;
+            // Buffers which are still explicitly allocated without a cleaner (e.g. the chunks of a
+            // PooledByteBufAllocator) bypass the accounting of the JDK, so limit them by its max direct memory.
+            directMemoryLimit = maxDirectMemory0();
+            DIRECT_MEMORY_COUNTER = directMemoryLimit <= 0 ? null : new AtomicLong();
         } else {
             USE_DIRECT_BUFFER_NO_CLEANER = true;
             if (maxDirectMemory < 0) {
                 maxDirectMemory = maxDirectMemory0();
+                directMemoryLimit = maxDirectMemory;
                 if (maxDirectMemory <= 0) {
                     DIRECT_MEMORY_COUNTER = null;
                 } else {
@@ -142,7 +150,7 @@ public final class PlatformDependent {
                 DIRECT_MEMORY_COUNTER = new AtomicLong();
             }
         }
-        DIRECT_MEMORY_LIMIT = maxDirectMemory;
+        DIRECT_MEMORY_LIMIT = directMemoryLimit;
         logger.debug("io.netty.maxDirectMemory: {} bytes", maxDirectMemory);
 
         MAYBE_SUPER_USER = maybeSuperUser0();
@@ -526,7 +534,7 @@ public final class PlatformDependent {
      * this method <strong>MUST</strong> be deallocated via {@link #freeDirectNoCleaner(ByteBuffer)}.
      */
     public static ByteBuffer allocateDirectNoCleaner(int capacity) {
-        assert USE_DIRECT_BUFFER_NO_CLEANER;
+        assert isDirectBufferNoCleanerSupported();
 
         incrementMemoryCounter(capacity);
         try {
@@ -543,7 +551,7 @@ public final class PlatformDependent {
      * this method <strong>MUST</strong> be deallocated via {@link #freeDirectNoCleaner(ByteBuffer)}.
      */
     public static ByteBuffer reallocateDirectNoCleaner(ByteBuffer buffer, int capacity) {
-        assert USE_DIRECT_BUFFER_NO_CLEANER;
+        assert isDirectBufferNoCleanerSupported();
 
         int len = capacity - buffer.capacity();
         incrementMemoryCounter(len);
@@ -561,7 +569,7 @@ public final class PlatformDependent {
      * {@link #allocateDirectNoCleaner(int)}.
      */
     public static void freeDirectNoCleaner(ByteBuffer buffer) {
-        assert USE_DIRECT_BUFFER_NO_CLEANER;
+        assert isDirectBufferNoCleanerSupported();
 
         int capacity = buffer.capacity();
         PlatformDependent0.freeMemory(PlatformDependent0.directBufferAddress(buffer));
@@ -595,6 +603,22 @@ public final class PlatformDependent {
         return USE_DIRECT_BUFFER_NO_CLEANER;
     }
 
+    /**
+     * Returns {@code true} if {@link #allocateDirectNoCleaner(int)} can be used, even if
+     * {@link #useDirectBufferNoCleaner()} returns {@code false} because of {@code -Dio.netty.maxDirectMemory=0}.
+     */
+    public static boolean isDirectBufferNoCleanerSupported() {
+        return hasUnsafe() && PlatformDependent0.hasDirectBufferNoCleanerConstructor();
+    }
+
+    /**
+     * Returns the number of bytes allocated via {@link #allocateDirectNoCleaner(int)} which were not freed yet, or
+     * {@code -1} if they are not counted because there is no limit.
+     */
+    public static long usedDirectMemory() {
+        return DIRECT_MEMORY_COUNTER != null ? DIRECT_MEMORY_COUNTER.get() : -1;
+    }
+
     /**
      * Compare two {@code byte} arrays for equality. For performance reasons no bounds checking on the
      * parameters is performed.
@@ -763,6 +787,15 @@ public final class PlatformDependent {
         return Mpsc.newMpscQueue(maxCapacity);
     }
 
+    /**
+     * Create a new {@link Queue} which is safe to use for multiple producers (different threads) and a single
+     * consumer (one thread!). The storage is allocated in chunks of {@code chunkSize} elements while the queue
+     * grows, so only the first chunk is allocated up front.
+     */
+    public static <T> Queue<T> newMpscQueue(final int chunkSize, final int maxCapacity) {
+        return Mpsc.newChunkedMpscQueue(chunkSize, maxCapacity);
+    }
+
     /**
      * Create a new {@link Queue} which is safe to use for single producer (one thread!) and a single
      * consumer (one thread!).
@@ -1237,6 +1270,17 @@ public final class PlatformDependent {
                 return new MpscLinkedAtomicQueue<T>();
             }
         }
+        static <T> Queue<T> newChunkedMpscQueue(final int chunkSize, final int maxCapacity) {
+            if (USE_MPSC_CHUNKED_ARRAY_QUEUE) {
+                // MpscChunkedArrayQueue needs at least two elements per chunk and a max capacity bigger than a chunk.
+                final int chunk = Math.max(Math.min(chunkSize, MAX_ALLOWED_MPSC_CAPACITY >>> 1), 2);
+                final int capacity = Math.max(Math.min(maxCapacity, MAX_ALLOWED_MPSC_CAPACITY),
+                        Pow2.roundToPowerOfTwo(chunk) << 1);
+                return new MpscChunkedArrayQueue<T>(chunk, capacity);
+            } else {
+                return new MpscLinkedAtomicQueue<T>();
+            }
+        }
     }
 
     private static final class AtomicLongCounter extends AtomicLong implements LongCounter {
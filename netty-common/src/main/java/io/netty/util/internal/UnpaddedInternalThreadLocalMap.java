@@ -37,6 +37,11 @@ class UnpaddedInternalThreadLocalMap {
 
     /** Used by {@link FastThreadLocal} */
     Object[] indexedVariables;
+    // Used by compact maps for the indexes beyond 'indexedVariables' instead of growing it.
+    final boolean compact;
+    int[] sparseIndexes;
+    Object[] sparseVariables;
+    int sparseSize;
 
     // Core thread-locals
     int futureListenerStackDepth;
@@ -55,7 +60,8 @@ class UnpaddedInternalThreadLocalMap {
     // ArrayList-related thread-locals
     ArrayList<Object> arrayList;
 
-    UnpaddedInternalThreadLocalMap(Object[] indexedVariables) {
+    UnpaddedInternalThreadLocalMap(Object[] indexedVariables, boolean compact) {
         this.indexedVariables = indexedVariables;
+        this.compact = compact;
     }
 }
@@ -17,10 +17,12 @@
 package io.netty.util;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -100,4 +102,64 @@ public class DefaultAttributeMapTest {
         assertSame(2, attr2.get());
         assertSame(attr, attr2);
     }
+
+    @Test
+    public void testManyAttributes() {
+        AttributeKey<Integer>[] keys = newKeys("testManyAttributes", 64);
+        for (int i = 0; i < keys.length; i++) {
+            assertFalse(map.hasAttr(keys[i]));
+            map.attr(keys[i]).set(i);
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(map.hasAttr(keys[i]));
+            assertEquals(Integer.valueOf(i), map.attr(keys[i]).get());
+        }
+
+        // Remove every second attribute and check that the others are still found.
+        for (int i = 0; i < keys.length; i += 2) {
+            assertEquals(Integer.valueOf(i), map.attr(keys[i]).getAndRemove());
+        }
+        for (int i = 0; i < keys.length; i++) {
+            assertEquals(i % 2 != 0, map.hasAttr(keys[i]));
+        }
+        for (int i = 1; i < keys.length; i += 2) {
+            assertEquals(Integer.valueOf(i), map.attr(keys[i]).get());
+        }
+    }
+
+    @Test
+    public void testConcurrentAttr() throws Exception {
+        final AttributeKey<Integer>[] keys = newKeys("testConcurrentAttr", 32);
+        final Attribute<?>[][] attrs = new Attribute[4][keys.length];
+        Thread[] threads = new Thread[attrs.length];
+        for (int i = 0; i < threads.length; i++) {
+            final Attribute<?>[] threadAttrs = attrs[i];
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < keys.length; j++) {
+                        threadAttrs[j] = map.attr(keys[j]);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (int i = 0; i < keys.length; i++) {
+            for (Attribute<?>[] threadAttrs : attrs) {
+                assertSame(attrs[0][i], threadAttrs[i]);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static AttributeKey<Integer>[] newKeys(String prefix, int count) {
+        AttributeKey<Integer>[] keys = new AttributeKey[count];
+        for (int i = 0; i < count; i++) {
+            keys[i] = AttributeKey.valueOf(prefix + i);
+        }
+        return keys;
+    }
 }
@@ -24,6 +24,7 @@ import org.junit.Test;
 
 import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class RecyclerTest {
 
@@ -120,6 +121,107 @@ public class RecyclerTest {
         assertNotSame(recycler.get(), o2);
     }
 
+    private static Recycler<HandledObject> newMpscRecycler(int max, int ratio) {
+        return new Recycler<HandledObject>(max, 2, ratio, 8, true) {
+            @Override
+            protected HandledObject newObject(Recycler.Handle<HandledObject> handle) {
+                return new HandledObject(handle);
+            }
+        };
+    }
+
+    @Test
+    public void testRecycleAtDifferentThreadWithMpscQueue() throws Exception {
+        final Recycler<HandledObject> recycler = newMpscRecycler(256, 2);
+
+        final HandledObject o = recycler.get();
+        final HandledObject o2 = recycler.get();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                o.recycle();
+                o2.recycle();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        assertSame(recycler.get(), o);
+        assertNotSame(recycler.get(), o2);
+        assertEquals(1, recycler.hits());
+        assertEquals(3, recycler.misses());
+        assertEquals(1, recycler.drops());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testMultipleRecycleAtDifferentThreadWithMpscQueue() throws Throwable {
+        Recycler<HandledObject> recycler = newMpscRecycler(256, 1);
+        final HandledObject object = recycler.get();
+        final AtomicReference<Throwable> exceptionStore = new AtomicReference<Throwable>();
+        final Thread thread = new Thread() {
+            @Override
+            public void run() {
+                object.recycle();
+                try {
+                    object.recycle();
+                } catch (Throwable cause) {
+                    exceptionStore.set(cause);
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        Throwable cause = exceptionStore.get();
+        if (cause != null) {
+            throw cause;
+        }
+    }
+
+    @Test
+    public void testMetricsWithMpscQueue() {
+        Recycler<HandledObject> recycler = newMpscRecycler(2, 1);
+        HandledObject[] objects = new HandledObject[3];
+        for (int i = 0; i < objects.length; i++) {
+            objects[i] = recycler.get();
+        }
+        for (HandledObject object : objects) {
+            object.recycle();
+        }
+        for (int i = 0; i < objects.length; i++) {
+            recycler.get();
+        }
+        assertEquals(2, recycler.hits());
+        assertEquals(4, recycler.misses());
+        assertEquals(1, recycler.drops());
+    }
+
+    @Test
+    public void testMetricsNotCountedWithoutMpscQueue() {
+        Recycler<HandledObject> recycler = new Recycler<HandledObject>(256, 2, 1, 8, false) {
+            @Override
+            protected HandledObject newObject(Recycler.Handle<HandledObject> handle) {
+                return new HandledObject(handle);
+            }
+        };
+        recycler.get().recycle();
+        recycler.get();
+        assertEquals(0, recycler.hits());
+        assertEquals(0, recycler.misses());
+        assertEquals(0, recycler.drops());
+    }
+
+    @Test
+    public void testTotalCapacityWithMpscQueue() {
+        Recycler<HandledObject> recycler = newMpscRecycler(256, 1);
+        int available = Recycler.availableTotalCapacity();
+        HandledObject object = recycler.get();
+        object.recycle();
+        // A whole chunk is reserved for the first pooled object and kept when it is taken out of the pool again.
+        assertEquals(available - 64, Recycler.availableTotalCapacity());
+        assertSame(object, recycler.get());
+        assertEquals(available - 64, Recycler.availableTotalCapacity());
+    }
+
     @Test
     public void testMaxCapacityWithRecycleAtDifferentThread() throws Exception {
         final int maxCapacity = 4; // Choose the number smaller than WeakOrderQueue.LINK_CAPACITY
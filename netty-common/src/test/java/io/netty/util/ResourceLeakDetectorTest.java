@@ -16,14 +16,20 @@
 
 package io.netty.util;
 
+import io.netty.util.ResourceLeakDetector.Level;
 import org.junit.Test;
 
 import java.util.ArrayDeque;
+import java.util.List;
 import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
 public class ResourceLeakDetectorTest {
 
     private static void assertNoErrors(AtomicReference<Throwable> ref) throws Throwable {
@@ -103,6 +109,68 @@ public class ResourceLeakDetectorTest {
         assertNoErrors(error);
     }
 
+    @Test(timeout = 60000)
+    public void testSampledLeaksAreAggregatedBySite() throws Exception {
+        Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(Level.SAMPLED);
+        try {
+            SampledResourceLeakDetector detector = new SampledResourceLeakDetector(1);
+            for (int i = 0; i < 10; i++) {
+                leakResource(detector);
+            }
+
+            // Leaks are reported when the next resources are tracked.
+            while (leaks(detector.sites) < 10) {
+                System.gc();
+                Thread.sleep(10);
+                DefaultResource resource = new DefaultResource();
+                ResourceLeakTracker<Resource> leak = detector.track(resource);
+                if (leak != null) {
+                    assertTrue(leak.close(resource));
+                }
+            }
+
+            ResourceLeakSite site = detector.sites.get(0);
+            assertTrue(site.allocationSite(), site.allocationSite().contains("leakResource("));
+            assertTrue(site.lastAccessSite(), site.lastAccessSite().contains("leakResource("));
+            assertEquals(10, site.leaks());
+            assertEquals(10, site.estimatedLeaks());
+            for (ResourceLeakSite s : detector.sites) {
+                assertTrue(site == s);
+            }
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+
+    @Test
+    public void testSamplingIntervalAdapts() {
+        Level level = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(Level.SAMPLED);
+        try {
+            SampledResourceLeakDetector detector = new SampledResourceLeakDetector(1);
+            for (int i = 0; i < 10000; i++) {
+                DefaultResource resource = new DefaultResource();
+                ResourceLeakTracker<Resource> leak = detector.track(resource);
+                if (leak != null) {
+                    leak.close(resource);
+                }
+            }
+            assertTrue(detector.adaptiveSamplingInterval() > 1);
+        } finally {
+            ResourceLeakDetector.setLevel(level);
+        }
+    }
+
+    private static void leakResource(ResourceLeakDetector<Resource> detector) {
+        ResourceLeakTracker<Resource> leak = detector.track(new DefaultResource());
+        leak.record();
+    }
+
+    private static long leaks(List<ResourceLeakSite> sites) {
+        return sites.isEmpty() ? 0 : sites.get(sites.size() - 1).leaks();
+    }
+
     private interface Resource {
         boolean close();
     }
@@ -170,4 +238,18 @@ public class ResourceLeakDetectorTest {
             ResourceLeakDetectorTest.assertNoErrors(error);
         }
     }
+
+    private static final class SampledResourceLeakDetector extends ResourceLeakDetector<Resource> {
+
+        final List<ResourceLeakSite> sites = new CopyOnWriteArrayList<ResourceLeakSite>();
+
+        SampledResourceLeakDetector(int samplingInterval) {
+            super(Resource.class, samplingInterval);
+        }
+
+        @Override
+        protected void reportSampledLeak(String resourceType, ResourceLeakSite site) {
+            sites.add(site);
+        }
+    }
 }
@@ -376,6 +376,90 @@ public class DefaultPromiseTest {
         }
     }
 
+    @Test(timeout = 10000)
+    public void testConcurrentAddListener() throws Exception {
+        final int numThreads = 8;
+        final int numListeners = 1000;
+        ExecutorService executorService = Executors.newFixedThreadPool(numThreads);
+        try {
+            for (int attempt = 0; attempt < 10; attempt++) {
+                final DefaultPromise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+                final AtomicInteger notified = new AtomicInteger();
+                final FutureListener<Void> listener = new FutureListener<Void>() {
+                    @Override
+                    public void operationComplete(Future<Void> future) throws Exception {
+                        notified.incrementAndGet();
+                    }
+                };
+                final CountDownLatch latch = new CountDownLatch(numThreads);
+                for (int i = 0; i < numThreads; i++) {
+                    executorService.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            for (int j = 0; j < numListeners; j++) {
+                                promise.addListener(listener);
+                            }
+                            latch.countDown();
+                        }
+                    });
+                }
+                // Complete the promise while listeners are still added.
+                promise.setSuccess(null);
+                latch.await();
+                assertEquals(numThreads * numListeners, notified.get());
+            }
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    @Test
+    public void testRemoveListener() {
+        final StringBuilder notified = new StringBuilder();
+        FutureListener<Void> a = newAppendingListener(notified, 'a');
+        FutureListener<Void> b = newAppendingListener(notified, 'b');
+        FutureListener<Void> c = newAppendingListener(notified, 'c');
+
+        DefaultPromise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        promise.addListener(a);
+        promise.removeListener(a);
+        promise.addListeners(a, b, a, c);
+        promise.removeListener(a);
+        promise.removeListener(c);
+        promise.addListener(c);
+        promise.setSuccess(null);
+        assertEquals("bac", notified.toString());
+    }
+
+    @Test
+    public void testRemoveListenersInAddOrder() {
+        final StringBuilder notified = new StringBuilder();
+        FutureListener<Void> a = newAppendingListener(notified, 'a');
+        FutureListener<Void> b = newAppendingListener(notified, 'b');
+        FutureListener<Void> c = newAppendingListener(notified, 'c');
+        FutureListener<Void> d = newAppendingListener(notified, 'd');
+
+        DefaultPromise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        promise.addListeners(a, b, c);
+        for (int i = 0; i < 1000; i++) {
+            promise.removeListener(a);
+            promise.addListener(a);
+        }
+        promise.removeListener(b);
+        promise.addListener(d);
+        promise.setSuccess(null);
+        assertEquals("cad", notified.toString());
+    }
+
+    private static FutureListener<Void> newAppendingListener(final StringBuilder notified, final char name) {
+        return new FutureListener<Void>() {
+            @Override
+            public void operationComplete(Future<Void> future) throws Exception {
+                notified.append(name);
+            }
+        };
+    }
+
     private void testStackOverFlowChainedFuturesA(int promiseChainLength, final EventExecutor executor,
                                                   boolean runTestInExecutorThread)
             throws InterruptedException {
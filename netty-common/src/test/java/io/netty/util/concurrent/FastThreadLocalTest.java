@@ -16,6 +16,8 @@
 
 package io.netty.util.concurrent;
 
+import io.netty.util.internal.InternalThreadLocalMap;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.junit.Assert.assertThat;
@@ -74,4 +76,90 @@ public class FastThreadLocalTest {
             throw t;
         }
     }
+
+    @Test(timeout = 10000)
+    public void testReleaseReusesIndex() throws Exception {
+        final AtomicBoolean removed = new AtomicBoolean();
+        final FastThreadLocal<String> var = new FastThreadLocal<String>() {
+            @Override
+            protected void onRemoval(String value) {
+                removed.set(true);
+            }
+        };
+        var.set("foo");
+
+        // Set a value in another thread which is left behind by release().
+        Thread thread = new FastThreadLocalThread() {
+            @Override
+            public void run() {
+                var.set("bar");
+            }
+        };
+        thread.start();
+        thread.join();
+
+        var.release();
+        assertThat(removed.get(), is(true));
+        assertThat(FastThreadLocal.size(), is(0));
+
+        int lastIndex = InternalThreadLocalMap.lastVariableIndex();
+        FastThreadLocal<String> var2 = new FastThreadLocal<String>() {
+            @Override
+            protected String initialValue() {
+                return "baz";
+            }
+        };
+        assertThat(InternalThreadLocalMap.lastVariableIndex(), is(lastIndex));
+        assertThat(var2.isSet(), is(false));
+        assertThat(var2.get(), is("baz"));
+        var2.set("qux");
+        assertThat(var2.get(), is("qux"));
+
+        // Removing all variables must not remove the value of the FastThreadLocal which reuses the index.
+        var.remove();
+        assertThat(var2.get(), is("qux"));
+        var2.release();
+    }
+
+    @Test(timeout = 10000)
+    public void testReusedIndexIgnoresValuesOfReleasedVariable() throws Throwable {
+        final FastThreadLocal<String> var = new FastThreadLocal<String>();
+        final AtomicReference<Throwable> throwable = new AtomicReference<Throwable>();
+        final AtomicReference<FastThreadLocal<String>> var2 = new AtomicReference<FastThreadLocal<String>>();
+        final Object lock = new Object();
+
+        Thread thread = new FastThreadLocalThread() {
+            @Override
+            public void run() {
+                try {
+                    var.set("foo");
+                    synchronized (lock) {
+                        lock.notifyAll();
+                        while (var2.get() == null) {
+                            lock.wait();
+                        }
+                    }
+                    assertThat(var2.get().isSet(), is(false));
+                    assertThat(var2.get().get(), is(nullValue()));
+                    FastThreadLocal.removeAll();
+                } catch (Throwable t) {
+                    throwable.set(t);
+                }
+            }
+        };
+        synchronized (lock) {
+            thread.start();
+            lock.wait();
+            var.release();
+            var2.set(new FastThreadLocal<String>());
+            lock.notifyAll();
+        }
+        thread.join();
+        var2.get().release();
+
+        Throwable t = throwable.get();
+        if (t != null) {
+            throw t;
+        }
+    }
 }
@@ -19,12 +19,16 @@ package io.netty.util.concurrent;
 import org.junit.Assert;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class SingleThreadEventExecutorTest {
@@ -127,4 +131,79 @@ public class SingleThreadEventExecutorTest {
     public void testInvokeAllInEventLoopWithTimeout() {
         testInvokeInEventLoop(false, true);
     }
+
+    @Test(timeout = 3000)
+    public void testExecuteBatchWakesUpOnce() throws Exception {
+        final AtomicInteger wakeups = new AtomicInteger();
+        SingleThreadEventExecutor executor = newWakeupCountingExecutor(wakeups);
+        try {
+            final CountDownLatch latch = new CountDownLatch(10);
+            List<Runnable> tasks = new ArrayList<Runnable>();
+            for (int i = 0; i < 10; i++) {
+                tasks.add(new Runnable() {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                });
+            }
+            executor.executeBatch(tasks);
+            latch.await();
+            Assert.assertEquals(1, wakeups.get());
+            Assert.assertEquals(9, executor.wakeupsAvoided());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @Test(timeout = 3000)
+    public void testLazyExecuteDoesNotWakeUp() throws Exception {
+        final AtomicInteger wakeups = new AtomicInteger();
+        SingleThreadEventExecutor executor = newWakeupCountingExecutor(wakeups);
+        try {
+            final CountDownLatch latch = new CountDownLatch(1);
+            executor.lazyExecute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            Assert.assertEquals(0, wakeups.get());
+            Assert.assertEquals(1, executor.wakeupsAvoided());
+
+            // Run the lazy task by waking up the executor with another task.
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+            latch.await();
+            Assert.assertEquals(1, wakeups.get());
+        } finally {
+            executor.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private static SingleThreadEventExecutor newWakeupCountingExecutor(final AtomicInteger wakeups) {
+        return new SingleThreadEventExecutor(null, Executors.defaultThreadFactory(), false) {
+            @Override
+            protected void run() {
+                while (!confirmShutdown()) {
+                    Runnable task = takeTask();
+                    if (task != null) {
+                        task.run();
+                    }
+                }
+            }
+
+            @Override
+            protected void wakeup(boolean inEventLoop) {
+                if (!inEventLoop) {
+                    wakeups.incrementAndGet();
+                }
+                super.wakeup(inEventLoop);
+            }
+        };
+    }
 }
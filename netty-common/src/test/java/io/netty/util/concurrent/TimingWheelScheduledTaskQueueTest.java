@@ -0,0 +1,193 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TimingWheelScheduledTaskQueueTest {
+
+    private static final long TICK = 1000;
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    private final DefaultEventExecutor executor = new DefaultEventExecutor();
+
+    @After
+    public void tearDown() {
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private ScheduledFutureTask<Void> newTask(long deadlineNanos) {
+        return new ScheduledFutureTask<Void>(executor, NOOP, null, deadlineNanos);
+    }
+
+    @Test
+    public void testPollOnceTickEnded() {
+        TimingWheelScheduledTaskQueue queue = new TimingWheelScheduledTaskQueue(TICK, 4);
+        ScheduledFutureTask<Void> task = newTask(2500);
+        queue.add(task);
+        assertEquals(1, queue.size());
+        assertEquals(3000, queue.nextDeadlineNanos());
+        assertNull(queue.poll(2999));
+        assertSame(task, queue.poll(3000));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testDistantTaskMovesDownTheLevels() {
+        TimingWheelScheduledTaskQueue queue = new TimingWheelScheduledTaskQueue(TICK, 4);
+        // Tick 37 is in slot 2 of level 2, which starts at tick 32.
+        ScheduledFutureTask<Void> task = newTask(37 * TICK + 1);
+        queue.add(task);
+        assertEquals(38 * TICK, queue.nextDeadlineNanos());
+        assertNull(queue.poll(32 * TICK));
+        assertEquals(38 * TICK, queue.nextDeadlineNanos());
+        assertNull(queue.poll(36 * TICK));
+        assertEquals(38 * TICK, queue.nextDeadlineNanos());
+        assertNull(queue.poll(38 * TICK - 1));
+        assertSame(task, queue.poll(38 * TICK));
+    }
+
+    @Test
+    public void testRemove() {
+        TimingWheelScheduledTaskQueue queue = new TimingWheelScheduledTaskQueue(TICK, 4);
+        ScheduledFutureTask<Void> task1 = newTask(5 * TICK);
+        ScheduledFutureTask<Void> task2 = newTask(5 * TICK);
+        ScheduledFutureTask<Void> task3 = newTask(100 * TICK);
+        queue.add(task1);
+        queue.add(task2);
+        queue.add(task3);
+        assertTrue(queue.remove(task1));
+        assertFalse(queue.remove(task1));
+        assertTrue(queue.remove(task3));
+        assertEquals(1, queue.size());
+        assertSame(task2, queue.poll(Long.MAX_VALUE));
+        assertFalse(queue.remove(task2));
+        assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void testClear() {
+        TimingWheelScheduledTaskQueue queue = new TimingWheelScheduledTaskQueue(TICK, 4);
+        queue.add(newTask(0));
+        queue.add(newTask(TICK * 1000));
+        assertEquals(2, queue.toArray().length);
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(0, queue.toArray().length);
+        assertNull(queue.poll(Long.MAX_VALUE));
+    }
+
+    @Test
+    public void testRandomTasks() {
+        Random random = new Random(42);
+        TimingWheelScheduledTaskQueue queue = new TimingWheelScheduledTaskQueue(TICK, 8);
+        Set<ScheduledFutureTask<?>> pending = new HashSet<ScheduledFutureTask<?>>();
+        List<ScheduledFutureTask<?>> removable = new ArrayList<ScheduledFutureTask<?>>();
+        long now = 0;
+        for (int round = 0; round < 2000; round++) {
+            for (int i = random.nextInt(10); i > 0; i--) {
+                // Spread the deadlines over several levels and include some that already passed.
+                long delay = (long) (random.nextDouble() * Math.pow(10, random.nextInt(8))) - TICK;
+                ScheduledFutureTask<Void> task = newTask(Math.max(0, now + delay));
+                queue.add(task);
+                pending.add(task);
+                removable.add(task);
+            }
+            if (!removable.isEmpty() && random.nextBoolean()) {
+                ScheduledFutureTask<?> task = removable.remove(random.nextInt(removable.size()));
+                assertEquals(pending.remove(task), queue.remove(task));
+            }
+            if (!queue.isEmpty()) {
+                long next = queue.nextDeadlineNanos();
+                for (ScheduledFutureTask<?> task : pending) {
+                    // Never wake up later than a tick after a deadline.
+                    assertTrue(next <= (task.deadlineNanos() / TICK + 1) * TICK);
+                }
+            }
+
+            now += random.nextInt(100000);
+            ScheduledFutureTask<?> task;
+            while ((task = queue.poll(now)) != null) {
+                assertTrue(task.deadlineNanos() <= now);
+                assertTrue(pending.remove(task));
+            }
+            for (ScheduledFutureTask<?> t : pending) {
+                // Everything whose tick ended must have been polled.
+                assertTrue(t.deadlineNanos() / TICK >= now / TICK);
+            }
+            assertEquals(pending.size(), queue.size());
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testEventExecutorGroup() throws Exception {
+        EventExecutorGroup group = new DefaultEventExecutorGroup(1, null, Integer.MAX_VALUE,
+                RejectedExecutionHandlers.reject(), ScheduledTaskQueueFactory.timingWheel(1, TimeUnit.MILLISECONDS));
+        try {
+            final CountDownLatch latch = new CountDownLatch(2);
+            Runnable countDown = new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            };
+            Runnable fail = new Runnable() {
+                @Override
+                public void run() {
+                    throw new AssertionError();
+                }
+            };
+            ScheduledFuture<?> cancelled = group.schedule(fail, 20, TimeUnit.MILLISECONDS);
+            group.schedule(countDown, 10, TimeUnit.MILLISECONDS);
+            group.schedule(countDown, 30, TimeUnit.MILLISECONDS);
+            assertTrue(cancelled.cancel(false));
+            latch.await();
+            assertTrue(cancelled.isCancelled());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTicksPerWheel() {
+        ScheduledTaskQueueFactory.timingWheel(1, TimeUnit.MILLISECONDS, 3);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testInvalidTickDuration() {
+        ScheduledTaskQueueFactory.timingWheel(0, TimeUnit.MILLISECONDS);
+    }
+}
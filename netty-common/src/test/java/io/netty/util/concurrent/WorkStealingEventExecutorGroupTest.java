@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class WorkStealingEventExecutorGroupTest {
+
+    @Test(timeout = 10000)
+    public void testOrdering() throws Throwable {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(4, null, 64);
+        try {
+            final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 8; i++) {
+                final EventExecutor executor = group.next();
+                assertTrue(executor instanceof OrderedEventExecutor);
+                Thread thread = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            execute(executor, cause);
+                        } catch (Throwable t) {
+                            cause.compareAndSet(null, t);
+                        }
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            Throwable error = cause.get();
+            if (error != null) {
+                throw error;
+            }
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    private static void execute(EventExecutor executor, final AtomicReference<Throwable> cause) throws Exception {
+        final AtomicInteger last = new AtomicInteger();
+        int tasks = 10000;
+        final CountDownLatch latch = new CountDownLatch(tasks);
+        for (int i = 1; i <= tasks; i++) {
+            final int id = i;
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        int lastId = last.get();
+                        if (lastId >= id) {
+                            cause.compareAndSet(null, new AssertionError(
+                                    "Out of order execution id(" + id + ") >= lastId(" + lastId + ')'));
+                        }
+                        if (!last.compareAndSet(lastId, id)) {
+                            cause.compareAndSet(null, new AssertionError("Concurrent execution of tasks"));
+                        }
+                    } finally {
+                        latch.countDown();
+                    }
+                }
+            });
+        }
+        latch.await();
+    }
+
+    @Test(timeout = 10000)
+    public void testSlowExecutorDoesNotBlockOthers() throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(2);
+        final CountDownLatch blocked = new CountDownLatch(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        try {
+            group.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    blocked.countDown();
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+            blocked.await();
+
+            final CountDownLatch latch = new CountDownLatch(100);
+            for (int i = 0; i < 100; i++) {
+                group.next().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        latch.countDown();
+                    }
+                });
+            }
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testInEventLoop() throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(2);
+        try {
+            final EventExecutor executor = group.next();
+            assertFalse(executor.inEventLoop());
+            assertTrue(executor.submit(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return executor.inEventLoop();
+                }
+            }).get());
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSchedule() throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(2);
+        try {
+            final EventExecutor executor = group.next();
+            long start = System.nanoTime();
+            assertTrue(executor.schedule(new Callable<Boolean>() {
+                @Override
+                public Boolean call() {
+                    return executor.inEventLoop();
+                }
+            }, 100, TimeUnit.MILLISECONDS).get());
+            assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(100));
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleCancelled() throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(2);
+        try {
+            EventExecutor executor = group.next();
+            final AtomicInteger counter = new AtomicInteger();
+            ScheduledFuture<?> future = executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            }, 100, TimeUnit.MILLISECONDS);
+            assertTrue(future.cancel(false));
+            Thread.sleep(200);
+            assertTrue(future.isCancelled());
+            assertEquals(0, counter.get());
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleAtFixedRate() throws Exception {
+        testSchedulePeriodic(true);
+    }
+
+    @Test(timeout = 10000)
+    public void testScheduleWithFixedDelay() throws Exception {
+        testSchedulePeriodic(false);
+    }
+
+    private static void testSchedulePeriodic(boolean fixedRate) throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(2);
+        try {
+            final EventExecutor executor = group.next();
+            final CountDownLatch latch = new CountDownLatch(3);
+            final AtomicInteger counter = new AtomicInteger();
+            final AtomicReference<Throwable> cause = new AtomicReference<Throwable>();
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    if (!executor.inEventLoop()) {
+                        cause.set(new AssertionError("not in event loop"));
+                    }
+                    counter.incrementAndGet();
+                    latch.countDown();
+                }
+            };
+            ScheduledFuture<?> future = fixedRate ?
+                    executor.scheduleAtFixedRate(task, 0, 10, TimeUnit.MILLISECONDS) :
+                    executor.scheduleWithFixedDelay(task, 0, 10, TimeUnit.MILLISECONDS);
+            latch.await();
+            assertTrue(future.cancel(false));
+            // Let a run which was already submitted finish.
+            Thread.sleep(50);
+            int count = counter.get();
+            Thread.sleep(100);
+            assertEquals(count, counter.get());
+            assertNull(cause.get());
+        } finally {
+            group.shutdownGracefully().syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownRunsPendingTasks() throws Exception {
+        WorkStealingEventExecutorGroup group = new WorkStealingEventExecutorGroup(1);
+        final CountDownLatch release = new CountDownLatch(1);
+        final AtomicInteger counter = new AtomicInteger();
+        EventExecutor executor = group.next();
+        executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        for (int i = 0; i < 10; i++) {
+            executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    counter.incrementAndGet();
+                }
+            });
+        }
+        Future<?> terminationFuture = group.shutdownGracefully();
+        assertTrue(group.isShuttingDown());
+        try {
+            group.next().execute(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            });
+            fail();
+        } catch (RejectedExecutionException expected) {
+            // expected
+        }
+        release.countDown();
+        assertNull(terminationFuture.syncUninterruptibly().getNow());
+        assertTrue(group.isTerminated());
+        assertEquals(10, counter.get());
+    }
+}
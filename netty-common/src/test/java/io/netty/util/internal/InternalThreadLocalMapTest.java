@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.internal;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class InternalThreadLocalMapTest {
+
+    @Test
+    public void testCompactMap() {
+        InternalThreadLocalMap map = new InternalThreadLocalMap(true);
+        int capacity = map.indexedVariablesCapacity();
+        for (int i = 1; i <= 100; i++) {
+            assertTrue(map.setIndexedVariable(i * 1000, i));
+        }
+        assertFalse(map.setIndexedVariable(1000, 1));
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, map.indexedVariable(i * 1000));
+            assertTrue(map.isIndexedVariableSet(i * 1000));
+        }
+        assertSame(InternalThreadLocalMap.UNSET, map.indexedVariable(1001));
+        assertFalse(map.isIndexedVariableSet(1001));
+        // 100 variables fit in a table of 256 slots.
+        assertEquals(capacity + 256, map.indexedVariablesCapacity());
+        // The first slot is reserved by FastThreadLocal.
+        assertEquals(99, map.size());
+
+        for (int i = 1; i <= 100; i++) {
+            assertEquals(i, map.removeIndexedVariable(i * 1000));
+        }
+        assertSame(InternalThreadLocalMap.UNSET, map.removeIndexedVariable(1000));
+        assertEquals(-1, map.size());
+
+        // The removed variables are dropped when the table needs to grow.
+        for (int i = 1; i <= 200; i++) {
+            assertTrue(map.setIndexedVariable(i * 1000 + 1, i));
+        }
+        assertEquals(capacity + 512, map.indexedVariablesCapacity());
+        assertEquals(199, map.size());
+    }
+
+    @Test
+    public void testNonCompactMap() {
+        InternalThreadLocalMap map = new InternalThreadLocalMap(false);
+        assertTrue(map.setIndexedVariable(1000, 1));
+        assertEquals(1, map.indexedVariable(1000));
+        assertEquals(1024, map.indexedVariablesCapacity());
+    }
+}
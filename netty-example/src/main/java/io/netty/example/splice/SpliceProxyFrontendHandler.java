@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.example.splice;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.epoll.EpollSpliceRelay;
+
+@Sharable
+public class SpliceProxyFrontendHandler extends ChannelInboundHandlerAdapter {
+
+    private final String remoteHost;
+    private final int remotePort;
+
+    public SpliceProxyFrontendHandler(String remoteHost, int remotePort) {
+        this.remoteHost = remoteHost;
+        this.remotePort = remotePort;
+    }
+
+    @Override
+    public void channelActive(ChannelHandlerContext ctx) {
+        final EpollSocketChannel inboundChannel = (EpollSocketChannel) ctx.channel();
+
+        // Start the connection attempt. Both channels must use the same EventLoop to be able to relay the data.
+        Bootstrap b = new Bootstrap();
+        b.group(inboundChannel.eventLoop())
+                .channel(EpollSocketChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .option(ChannelOption.AUTO_READ, false)
+                .option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        b.connect(remoteHost, remotePort).addListener(new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                if (!future.isSuccess()) {
+                    // Close the connection if the connection attempt has failed.
+                    inboundChannel.close();
+                    return;
+                }
+                EpollSocketChannel outboundChannel = (EpollSocketChannel) future.channel();
+
+                // From now on all data is relayed in kernel space, so just start to read on both sides. The relay
+                // stops reading from one side while the other one can not keep up and closes both once done.
+                final EpollSpliceRelay relay = inboundChannel.relay(outboundChannel);
+                inboundChannel.config().setAutoRead(true);
+                outboundChannel.config().setAutoRead(true);
+
+                relay.future().addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) {
+                        System.err.println(relay.first() + ": relayed " + relay.firstToSecondBytes() +
+                                " bytes to and " + relay.secondToFirstBytes() + " bytes from the remote peer.");
+                    }
+                });
+            }
+        });
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        cause.printStackTrace();
+        ctx.close();
+    }
+}
@@ -37,6 +37,8 @@ public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
     private static final ByteBufAllocator unpooledAllocator = new UnpooledByteBufAllocator(true);
     private static final ByteBufAllocator pooledAllocator =
             new PooledByteBufAllocator(true, 4, 4, 8192, 11, 0, 0, 0, true, 0); // Disable thread-local cache
+    private static final ByteBufAllocator sizeClassesPooledAllocator =
+            new PooledByteBufAllocator(true, 4, 4, 8192, 11, 0, 0, 0, true, 0, true); // Disable thread-local cache
 
     private static final int MAX_LIVE_BUFFERS = 8192;
     private static final Random rand = new Random();
@@ -44,10 +46,12 @@ public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
     private static final ByteBuf[] unpooledDirectBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
     private static final ByteBuf[] pooledHeapBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
     private static final ByteBuf[] pooledDirectBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
+    private static final ByteBuf[] sizeClassesPooledHeapBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
+    private static final ByteBuf[] sizeClassesPooledDirectBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
     private static final ByteBuf[] defaultPooledHeapBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
     private static final ByteBuf[] defaultPooledDirectBuffers = new ByteBuf[MAX_LIVE_BUFFERS];
 
-    @Param({"00000", "00256", "01024", "04096", "16384", "65536"})
+    @Param({"00000", "00256", "01024", "04096", "09216", "16384", "65536"})
     public int size;
 
     @Benchmark
@@ -90,6 +94,26 @@ public class ByteBufAllocatorBenchmark extends AbstractMicrobenchmark {
         pooledDirectBuffers[idx] = pooledAllocator.directBuffer(size);
     }
 
+    @Benchmark
+    public void sizeClassesPooledHeapAllocAndFree() {
+        int idx = rand.nextInt(sizeClassesPooledHeapBuffers.length);
+        ByteBuf oldBuf = sizeClassesPooledHeapBuffers[idx];
+        if (oldBuf != null) {
+            oldBuf.release();
+        }
+        sizeClassesPooledHeapBuffers[idx] = sizeClassesPooledAllocator.heapBuffer(size);
+    }
+
+    @Benchmark
+    public void sizeClassesPooledDirectAllocAndFree() {
+        int idx = rand.nextInt(sizeClassesPooledDirectBuffers.length);
+        ByteBuf oldBuf = sizeClassesPooledDirectBuffers[idx];
+        if (oldBuf != null) {
+            oldBuf.release();
+        }
+        sizeClassesPooledDirectBuffers[idx] = sizeClassesPooledAllocator.directBuffer(size);
+    }
+
     @Benchmark
     public void defaultPooledHeapAllocAndFree() {
         int idx = rand.nextInt(defaultPooledHeapBuffers.length);
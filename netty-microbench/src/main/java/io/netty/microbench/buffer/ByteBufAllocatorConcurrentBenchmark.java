@@ -17,16 +17,29 @@
 package io.netty.microbench.buffer;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PoolArenaMetric;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.UnpooledByteBufAllocator;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.AuxCounters;
 import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
 import org.openjdk.jmh.annotations.Measurement;
 import org.openjdk.jmh.annotations.Param;
 import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
 import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
 import org.openjdk.jmh.annotations.Threads;
 import org.openjdk.jmh.annotations.Warmup;
 
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Benchmarks concurrent allocations. The pooled benchmarks use a single arena without thread-local caches so all
+ * threads contend on the same arena, and report the lock contentions of the arena in each iteration as secondary
+ * results.
+ */
 @State(Scope.Benchmark)
 @Warmup(iterations = 5)
 @Measurement(iterations = 10)
@@ -35,11 +48,73 @@ public class ByteBufAllocatorConcurrentBenchmark extends AbstractMicrobenchmark
 
     private static final ByteBufAllocator unpooledAllocator = new UnpooledByteBufAllocator(true, true);
 
-    @Param({"00064", "00256", "01024", "04096"})
+    private PooledByteBufAllocator pooledAllocator;
+
+    @Param({"00064", "00256", "01024", "04096", "16384"})
     public int size;
 
+    // The contentions of the arena which were not yet reported by any of the benchmark threads.
+    private final AtomicLong reportedArenaLockContentions = new AtomicLong();
+    private final AtomicLong reportedSubpageLockContentions = new AtomicLong();
+    private PoolArenaMetric arena;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        pooledAllocator = new PooledByteBufAllocator(true, 0, 1, 8192, 11, 0, 0, 0, true, 0);
+        arena = pooledAllocator.metric().directArenas().get(0);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetContentions() {
+        reportedArenaLockContentions.set(arena.numArenaLockContentions());
+        reportedSubpageLockContentions.set(arena.numSubpageLockContentions());
+    }
+
+    /**
+     * The lock contentions of the arena. Each thread reports the contentions which happened since another thread
+     * last did so, which adds up to the contentions of the whole iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Contentions {
+        public long arenaLockContentions;
+        public long subpageLockContentions;
+
+        @TearDown(Level.Iteration)
+        public void report(ByteBufAllocatorConcurrentBenchmark benchmark) {
+            long arenaLock = benchmark.arena.numArenaLockContentions();
+            arenaLockContentions = arenaLock - benchmark.reportedArenaLockContentions.getAndSet(arenaLock);
+            long subpageLock = benchmark.arena.numSubpageLockContentions();
+            subpageLockContentions = subpageLock - benchmark.reportedSubpageLockContentions.getAndSet(subpageLock);
+        }
+    }
+
     @Benchmark
     public boolean allocateRelease() {
         return unpooledAllocator.directBuffer(size).release();
     }
+
+    @Benchmark
+    @Threads(1)
+    public boolean pooledAllocateRelease01Thread(Contentions contentions) {
+        return pooledAllocator.directBuffer(size).release();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean pooledAllocateRelease04Threads(Contentions contentions) {
+        return pooledAllocator.directBuffer(size).release();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean pooledAllocateRelease16Threads(Contentions contentions) {
+        return pooledAllocator.directBuffer(size).release();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public boolean pooledAllocateRelease64Threads(Contentions contentions) {
+        return pooledAllocator.directBuffer(size).release();
+    }
 }
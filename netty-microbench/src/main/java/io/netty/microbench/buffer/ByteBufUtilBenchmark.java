@@ -20,6 +20,7 @@ import io.netty.buffer.ByteBuf;
 import io.netty.buffer.ByteBufUtil;
 import io.netty.buffer.Unpooled;
 import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ByteProcessor;
 import io.netty.util.CharsetUtil;
 import org.openjdk.jmh.annotations.Benchmark;
 import org.openjdk.jmh.annotations.Measurement;
@@ -38,6 +39,8 @@ ByteBufUtilBenchmark extends AbstractMicrobenchmark {
     private ByteBuf wrapped;
     private ByteBuf asciiBuffer;
     private ByteBuf utf8Buffer;
+    private ByteBuf lineBuffer;
+    private ByteBuf delimiter;
 
     private StringBuilder asciiSequence;
     private String ascii;
@@ -67,6 +70,11 @@ ByteBufUtilBenchmark extends AbstractMicrobenchmark {
 
         asciiBuffer = Unpooled.copiedBuffer(ascii, CharsetUtil.US_ASCII);
         utf8Buffer = Unpooled.copiedBuffer(utf8, CharsetUtil.UTF_8);
+
+        // A line of 128 bytes whose only line feed is at its end, as seen by line based decoders
+        lineBuffer = Unpooled.directBuffer(129).writeBytes(asciiBuffer, 0, asciiBuffer.readableBytes());
+        lineBuffer.writeByte('\n');
+        delimiter = Unpooled.copiedBuffer("a\n", CharsetUtil.US_ASCII);
     }
 
     @TearDown
@@ -75,6 +83,8 @@ ByteBufUtilBenchmark extends AbstractMicrobenchmark {
         wrapped.release();
         asciiBuffer.release();
         utf8Buffer.release();
+        lineBuffer.release();
+        delimiter.release();
     }
 
     @Benchmark
@@ -182,4 +192,24 @@ ByteBufUtilBenchmark extends AbstractMicrobenchmark {
     public String decodeStringUtf8() {
         return utf8Buffer.toString(CharsetUtil.UTF_8);
     }
+
+    @Benchmark
+    public int indexOfByte() {
+        return lineBuffer.indexOf(lineBuffer.readerIndex(), lineBuffer.writerIndex(), (byte) '\n');
+    }
+
+    @Benchmark
+    public int indexOfByteViaProcessor() {
+        return lineBuffer.forEachByte(ByteProcessor.FIND_LF);
+    }
+
+    @Benchmark
+    public int indexOfPattern() {
+        return ByteBufUtil.indexOf(delimiter, lineBuffer);
+    }
+
+    @Benchmark
+    public int compare() {
+        return ByteBufUtil.compare(asciiBuffer, lineBuffer);
+    }
 }
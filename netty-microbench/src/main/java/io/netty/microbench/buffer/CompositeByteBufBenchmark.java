@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures adding components to a {@link CompositeByteBuf} the way {@code ByteToMessageDecoder.COMPOSITE_CUMULATOR}
+ * does as well as sequential and random access to a {@link CompositeByteBuf} with many components.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 10)
+@Measurement(iterations = 10)
+public class CompositeByteBufBenchmark extends AbstractMicrobenchmark {
+
+    private static final int COMPONENT_SIZE = 16;
+
+    @Param({ "10", "100", "10000" })
+    public int components;
+
+    private ByteBuf component;
+    private ByteBuf[] componentArray;
+    private CompositeByteBuf composite;
+    private int[] offsets;
+
+    @Setup
+    public void setup() {
+        component = Unpooled.unreleasableBuffer(Unpooled.wrappedBuffer(new byte[COMPONENT_SIZE]));
+        componentArray = new ByteBuf[components];
+        composite = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < components; i++) {
+            componentArray[i] = component;
+            composite.addComponent(true, component.duplicate());
+        }
+        offsets = new int[1024];
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = (int) ((long) i * composite.capacity() / offsets.length);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        composite.release();
+    }
+
+    @Benchmark
+    public ByteBuf addComponent() {
+        CompositeByteBuf buf = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        for (int i = 0; i < components; i++) {
+            buf.addComponent(true, component);
+        }
+        buf.release();
+        return buf;
+    }
+
+    @Benchmark
+    public ByteBuf addComponentsBulk() {
+        CompositeByteBuf buf = Unpooled.compositeBuffer(Integer.MAX_VALUE);
+        // Insert in front of an existing component so the offsets of the following components have to be updated.
+        buf.addComponent(true, component);
+        buf.addComponents(0, componentArray);
+        buf.release();
+        return buf;
+    }
+
+    @Benchmark
+    public long sequentialRead() {
+        composite.readerIndex(0);
+        long sum = 0;
+        while (composite.isReadable(8)) {
+            sum += composite.readLong();
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int randomAccess() {
+        int sum = 0;
+        for (int offset : offsets) {
+            sum += composite.getByte(offset);
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ResourceLeakDetector;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the overhead of the {@link ResourceLeakDetector} levels on the life cycle of a pooled buffer which is
+ * allocated, written, sliced, retained and released.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class LeakDetectionLevelBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "DISABLED", "SIMPLE", "SAMPLED", "ADVANCED" })
+    public ResourceLeakDetector.Level leakDetectionLevel;
+
+    private final ByteBufAllocator allocator = new PooledByteBufAllocator(true);
+    private ResourceLeakDetector.Level oldLevel;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        oldLevel = ResourceLeakDetector.getLevel();
+        ResourceLeakDetector.setLevel(leakDetectionLevel);
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        ResourceLeakDetector.setLevel(oldLevel);
+    }
+
+    @Benchmark
+    public long bufferLifeCycle() {
+        ByteBuf buf = allocator.directBuffer(256);
+        buf.writeLong(1).writeLong(2);
+        ByteBuf slice = buf.readSlice(8).retain();
+        long value = slice.readLong() + buf.readLong();
+        slice.release();
+        buf.release();
+        return value;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.buffer;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.DefaultPoolArenaSelector;
+import io.netty.buffer.NumaPoolArenaSelector;
+import io.netty.buffer.PoolArenaSelector;
+import io.netty.buffer.PoolTrimPolicy;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.concurrent.FastThreadLocalThread;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Control;
+
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmarks buffers which are allocated by one thread and released by another, as done when a buffer is read by an
+ * event loop and processed and released by a thread of another pool.
+ * <p>
+ * Each thread is given a NUMA node round-robin, so with the {@code numa} selector the allocating and the releasing
+ * thread of a group use arenas of different nodes. The threads are not bound to the nodes, this needs to be done by
+ * running the benchmark with {@code numactl} and a matching thread affinity to see the effect of the memory locality.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class PooledByteBufAllocatorCrossThreadBenchmark extends AbstractMicrobenchmark {
+
+    private static final int NUMA_NODES = 2;
+
+    @Param({ "default", "numa" })
+    public String arenaSelector;
+
+    @Param({ "00256", "08192" })
+    public int size;
+
+    private PooledByteBufAllocator allocator;
+    private final AtomicInteger nextNode = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PoolArenaSelector selector = "numa".equals(arenaSelector) ?
+                new NumaPoolArenaSelector(NUMA_NODES) : DefaultPoolArenaSelector.INSTANCE;
+        allocator = new PooledByteBufAllocator(true, 0, 2 * NUMA_NODES, 8192, 11,
+                PooledByteBufAllocator.defaultTinyCacheSize(), PooledByteBufAllocator.defaultSmallCacheSize(),
+                PooledByteBufAllocator.defaultNormalCacheSize(), true, 0, false, PoolTrimPolicy.DISABLED,
+                false, false, selector);
+    }
+
+    @State(Scope.Group)
+    public static class Handoff {
+        // Bounded so the allocating thread can not run away from the releasing one.
+        final Queue<ByteBuf> queue = PlatformDependent.newFixedMpscQueue(1024);
+
+        @TearDown(Level.Iteration)
+        public void drain() {
+            for (;;) {
+                ByteBuf buf = queue.poll();
+                if (buf == null) {
+                    break;
+                }
+                buf.release();
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class NumaNode {
+        @Setup(Level.Trial)
+        public void setup(PooledByteBufAllocatorCrossThreadBenchmark benchmark) {
+            // The harness threads are FastThreadLocalThreads unless the benchmark runs without the custom executor.
+            Thread thread = Thread.currentThread();
+            if (thread instanceof FastThreadLocalThread) {
+                ((FastThreadLocalThread) thread).setNumaNode(benchmark.nextNode.getAndIncrement() % NUMA_NODES);
+            }
+        }
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(1)
+    public boolean allocate(Handoff handoff, NumaNode node, Control control) {
+        ByteBuf buf = allocator.directBuffer(size);
+        while (!handoff.queue.offer(buf)) {
+            if (control.stopMeasurement) {
+                return buf.release();
+            }
+        }
+        return true;
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads(1)
+    public boolean release(Handoff handoff, NumaNode node, Control control) {
+        ByteBuf buf;
+        while ((buf = handoff.queue.poll()) == null) {
+            if (control.stopMeasurement) {
+                return false;
+            }
+        }
+        return buf.release();
+    }
+
+    @Benchmark
+    public boolean sameThread(NumaNode node) {
+        return allocator.directBuffer(size).release();
+    }
+}
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.DefaultSelectStrategyFactory;
+import io.netty.channel.SelectStrategy;
+import io.netty.channel.SelectStrategyFactory;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.IntSupplier;
+import io.netty.util.ReferenceCountUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the round trip latency of small messages sent to an echo server over loopback, with event loops which
+ * block in {@code epoll_wait(...)} right away, spin for {@code spinMicros} before they block or never block at all.
+ * Spinning only pays off if each event loop and the benchmark thread have a core of their own.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class EpollEchoLatencyBenchmark extends AbstractMicrobenchmark {
+
+    public enum WaitMode {
+        BLOCK, SPIN, BUSY_WAIT
+    }
+
+    private static final SelectStrategyFactory BUSY_WAIT_STRATEGY_FACTORY = new SelectStrategyFactory() {
+        @Override
+        public SelectStrategy newSelectStrategy() {
+            return new SelectStrategy() {
+                @Override
+                public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+                    return hasTasks ? selectSupplier.get() : SelectStrategy.BUSY_WAIT;
+                }
+            };
+        }
+    };
+
+    @Param
+    public WaitMode waitMode;
+
+    @Param({ "50" })
+    public int spinMicros;
+
+    @Param({ "64" })
+    public int size;
+
+    private EpollEventLoopGroup group;
+    private Channel serverChannel;
+    private Channel clientChannel;
+    private ClientHandler clientHandler;
+    private ByteBuf payload;
+
+    @Setup
+    public void setup() throws Exception {
+        group = new EpollEventLoopGroup(2, waitMode == WaitMode.BUSY_WAIT ?
+                BUSY_WAIT_STRATEGY_FACTORY : DefaultSelectStrategyFactory.INSTANCE);
+        if (waitMode == WaitMode.SPIN) {
+            group.setSpinTime(spinMicros, TimeUnit.MICROSECONDS);
+        }
+        InetAddress address = InetAddress.getLoopbackAddress();
+
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new EchoHandler())
+                .bind(new InetSocketAddress(address, 0)).sync().channel();
+
+        clientHandler = new ClientHandler();
+        clientChannel = new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .handler(clientHandler)
+                .connect(serverChannel.localAddress()).sync().channel();
+
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        clientChannel.close().sync();
+        serverChannel.close().sync();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).sync();
+        payload.release();
+    }
+
+    @Benchmark
+    public void roundTrip() {
+        clientHandler.expect(size);
+        clientChannel.writeAndFlush(payload.retainedDuplicate());
+        // Do not block the benchmark thread so only the wake-ups of the event loops are measured.
+        while (!clientHandler.isDone()) {
+            Thread.yield();
+        }
+    }
+
+    @Sharable
+    private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class ClientHandler extends ChannelInboundHandlerAdapter {
+        private int remaining;
+        private volatile boolean done;
+
+        void expect(int bytes) {
+            // Visible to the EventLoop as the following write is handed over to it.
+            remaining = bytes;
+            done = false;
+        }
+
+        boolean isDone() {
+            return done;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            remaining -= ((ByteBuf) msg).readableBytes();
+            ReferenceCountUtil.release(msg);
+            if (remaining == 0) {
+                done = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,227 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.EpollChannelOption;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollMode;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.Promise;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Compares a TCP proxy which relays the data with
+ * {@link io.netty.channel.epoll.AbstractEpollStreamChannel#relay(io.netty.channel.epoll.AbstractEpollStreamChannel)}
+ * with one that copies it through {@link ByteBuf}s like {@code HexDumpProxy} of the examples. Each operation sends
+ * {@code size} bytes through the proxy to an echo server and waits until they came back.
+ */
+@State(Scope.Benchmark)
+public class EpollSpliceProxyBenchmark extends AbstractMicrobenchmark {
+
+    public enum Mode {
+        SPLICE, COPY
+    }
+
+    @Param
+    public Mode mode;
+
+    @Param({ "65536", "1048576" })
+    public int size;
+
+    private EventLoopGroup proxyGroup;
+    private EventLoopGroup group;
+    private Channel serverChannel;
+    private Channel proxyChannel;
+    private Channel clientChannel;
+    private ClientHandler clientHandler;
+    private ByteBuf payload;
+
+    @Setup
+    public void setup() throws Exception {
+        proxyGroup = new EpollEventLoopGroup(1);
+        group = new EpollEventLoopGroup(1);
+        InetAddress address = InetAddress.getLoopbackAddress();
+
+        serverChannel = new ServerBootstrap()
+                .group(group)
+                .channel(EpollServerSocketChannel.class)
+                .childHandler(new EchoHandler())
+                .bind(new InetSocketAddress(address, 0)).sync().channel();
+
+        proxyChannel = new ServerBootstrap()
+                .group(proxyGroup)
+                .channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, false)
+                .childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED)
+                .childHandler(new FrontendHandler(mode, serverChannel.localAddress()))
+                .bind(new InetSocketAddress(address, 0)).sync().channel();
+
+        clientHandler = new ClientHandler();
+        clientChannel = new Bootstrap()
+                .group(group)
+                .channel(EpollSocketChannel.class)
+                .handler(clientHandler)
+                .connect(proxyChannel.localAddress()).sync().channel();
+
+        payload = PooledByteBufAllocator.DEFAULT.directBuffer(size).writeZero(size);
+    }
+
+    @TearDown
+    public void teardown() throws Exception {
+        clientChannel.close().sync();
+        proxyChannel.close().sync();
+        serverChannel.close().sync();
+        proxyGroup.shutdownGracefully().sync();
+        group.shutdownGracefully().sync();
+        payload.release();
+    }
+
+    @Benchmark
+    public Object roundTrip() throws Exception {
+        Promise<Void> promise = clientChannel.eventLoop().newPromise();
+        clientHandler.expect(promise, size);
+        clientChannel.writeAndFlush(payload.retainedDuplicate());
+        return promise.sync();
+    }
+
+    @Sharable
+    private static final class FrontendHandler extends ChannelInboundHandlerAdapter {
+        private final Mode mode;
+        private final InetSocketAddress remoteAddress;
+
+        FrontendHandler(Mode mode, Object remoteAddress) {
+            this.mode = mode;
+            this.remoteAddress = (InetSocketAddress) remoteAddress;
+        }
+
+        @Override
+        public void channelActive(ChannelHandlerContext ctx) {
+            final EpollSocketChannel inboundChannel = (EpollSocketChannel) ctx.channel();
+            Bootstrap b = new Bootstrap()
+                    .group(inboundChannel.eventLoop())
+                    .channel(EpollSocketChannel.class)
+                    .option(ChannelOption.AUTO_READ, false)
+                    .option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED)
+                    .handler(mode == Mode.COPY ? new CopyHandler(inboundChannel) : new ChannelInboundHandlerAdapter());
+            b.connect(remoteAddress).addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (!future.isSuccess()) {
+                        inboundChannel.close();
+                        return;
+                    }
+                    EpollSocketChannel outboundChannel = (EpollSocketChannel) future.channel();
+                    if (mode == Mode.SPLICE) {
+                        inboundChannel.relay(outboundChannel);
+                        inboundChannel.config().setAutoRead(true);
+                        outboundChannel.config().setAutoRead(true);
+                    } else {
+                        inboundChannel.pipeline().addLast(new CopyHandler(outboundChannel));
+                        inboundChannel.read();
+                        outboundChannel.read();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Writes everything that is read to another channel and reads the next chunk once it was written, like the
+     * handlers of {@code HexDumpProxy}.
+     */
+    private static final class CopyHandler extends ChannelInboundHandlerAdapter {
+        private final Channel target;
+
+        CopyHandler(Channel target) {
+            this.target = target;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, Object msg) {
+            target.writeAndFlush(msg).addListener(new ChannelFutureListener() {
+                @Override
+                public void operationComplete(ChannelFuture future) {
+                    if (future.isSuccess()) {
+                        ctx.channel().read();
+                    } else {
+                        future.channel().close();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) {
+            target.close();
+        }
+    }
+
+    @Sharable
+    private static final class EchoHandler extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    private static final class ClientHandler extends ChannelInboundHandlerAdapter {
+        private Promise<Void> promise;
+        private int remaining;
+
+        void expect(Promise<Void> promise, int bytes) {
+            // Visible to the EventLoop as the following write is handed over to it.
+            this.promise = promise;
+            remaining = bytes;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            remaining -= ((ByteBuf) msg).readableBytes();
+            ReferenceCountUtil.release(msg);
+            if (remaining == 0) {
+                promise.setSuccess(null);
+            }
+        }
+    }
+}
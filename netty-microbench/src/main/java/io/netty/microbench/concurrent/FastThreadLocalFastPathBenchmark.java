@@ -37,6 +37,9 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
     private static final ThreadLocal<Integer>[] jdkThreadLocals = new ThreadLocal[128];
     @SuppressWarnings("unchecked")
     private static final FastThreadLocal<Integer>[] fastThreadLocals = new FastThreadLocal[jdkThreadLocals.length];
+    @SuppressWarnings("unchecked")
+    private static final FastThreadLocal<Integer>[] reusedIndexFastThreadLocals =
+            new FastThreadLocal[jdkThreadLocals.length];
 
     static {
         for (int i = 0; i < jdkThreadLocals.length; i++) {
@@ -54,6 +57,24 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
                 }
             };
         }
+
+        // Create all FastThreadLocals before releasing their indexes, as otherwise every new instance would just
+        // reuse the index its predecessor released and only a single index would be free to reuse below.
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i++) {
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>();
+        }
+        for (FastThreadLocal<Integer> released : reusedIndexFastThreadLocals) {
+            released.release();
+        }
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i++) {
+            final int num = rand.nextInt();
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>() {
+                @Override
+                protected Integer initialValue() {
+                    return num;
+                }
+            };
+        }
     }
 
     @Benchmark
@@ -73,4 +94,13 @@ public class FastThreadLocalFastPathBenchmark extends AbstractMicrobenchmark {
         }
         return result;
     }
+
+    @Benchmark
+    public int fastThreadLocalReusedIndex() {
+        int result = 0;
+        for (FastThreadLocal<Integer> i : reusedIndexFastThreadLocals) {
+            result += i.get();
+        }
+        return result;
+    }
 }
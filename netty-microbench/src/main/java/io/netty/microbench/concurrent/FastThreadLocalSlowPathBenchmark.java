@@ -26,6 +26,7 @@ import java.util.Random;
 
 /**
  * This class benchmarks the slow path of FastThreadLocal and the JDK ThreadLocal.
+ * Run with {@code -Dio.netty.threadLocalMap.compact=true} to benchmark the compact maps of such threads.
  */
 @Threads(4)
 @Measurement(iterations = 10, batchSize = 100)
@@ -37,6 +38,9 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
     private static final ThreadLocal<Integer>[] jdkThreadLocals = new ThreadLocal[128];
     @SuppressWarnings("unchecked")
     private static final FastThreadLocal<Integer>[] fastThreadLocals = new FastThreadLocal[jdkThreadLocals.length];
+    @SuppressWarnings("unchecked")
+    private static final FastThreadLocal<Integer>[] reusedIndexFastThreadLocals =
+            new FastThreadLocal[jdkThreadLocals.length];
 
     static {
         for (int i = 0; i < jdkThreadLocals.length; i++) {
@@ -54,6 +58,24 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
                 }
             };
         }
+
+        // Create all FastThreadLocals before releasing their indexes, as otherwise every new instance would just
+        // reuse the index its predecessor released and only a single index would be free to reuse below.
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i++) {
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>();
+        }
+        for (FastThreadLocal<Integer> released : reusedIndexFastThreadLocals) {
+            released.release();
+        }
+        for (int i = 0; i < reusedIndexFastThreadLocals.length; i++) {
+            final int num = rand.nextInt();
+            reusedIndexFastThreadLocals[i] = new FastThreadLocal<Integer>() {
+                @Override
+                protected Integer initialValue() {
+                    return num;
+                }
+            };
+        }
     }
 
     public FastThreadLocalSlowPathBenchmark() {
@@ -77,4 +99,13 @@ public class FastThreadLocalSlowPathBenchmark extends AbstractMicrobenchmark {
         }
         return result;
     }
+
+    @Benchmark
+    public int fastThreadLocalReusedIndex() {
+        int result = 0;
+        for (FastThreadLocal<Integer> i : reusedIndexFastThreadLocals) {
+            result += i.get();
+        }
+        return result;
+    }
 }
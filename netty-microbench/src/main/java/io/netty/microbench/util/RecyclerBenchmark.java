@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbench.util;
+
+import io.netty.util.Recycler;
+import io.netty.util.internal.PlatformDependent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Queue;
+
+/**
+ * Compares the {@link Recycler} modes when objects are recycled by the thread which got them and by another thread.
+ */
+@State(Scope.Group)
+public class RecyclerBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "false", "true" })
+    public boolean useMpscQueue;
+
+    private Recycler<DummyObject> recycler;
+    private Queue<DummyObject> handOff;
+
+    @Setup
+    public void setup() {
+        recycler = new Recycler<DummyObject>(32768, 2, 8, 2 * Runtime.getRuntime().availableProcessors(),
+                useMpscQueue) {
+            @Override
+            protected DummyObject newObject(Handle<DummyObject> handle) {
+                return new DummyObject(handle);
+            }
+        };
+        handOff = PlatformDependent.newFixedMpscQueue(1024);
+    }
+
+    @Benchmark
+    @Group("sameThread")
+    public DummyObject recycleSameThread() {
+        DummyObject object = recycler.get();
+        object.recycle();
+        return object;
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads
+    public DummyObject get() {
+        DummyObject object = recycler.get();
+        // If the recycling thread falls behind the object is just not recycled.
+        handOff.offer(object);
+        return object;
+    }
+
+    @Benchmark
+    @Group("crossThread")
+    @GroupThreads
+    public DummyObject recycleOtherThread() {
+        DummyObject object = handOff.poll();
+        if (object != null) {
+            object.recycle();
+        }
+        return object;
+    }
+
+    static final class DummyObject {
+        private final Recycler.Handle<DummyObject> handle;
+
+        DummyObject(Recycler.Handle<DummyObject> handle) {
+            this.handle = handle;
+        }
+
+        void recycle() {
+            handle.recycle(this);
+        }
+    }
+}
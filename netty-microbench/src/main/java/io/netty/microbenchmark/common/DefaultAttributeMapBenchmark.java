@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.microbenchmark.common;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import io.netty.util.AttributeKey;
+import io.netty.util.DefaultAttributeMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures looking up and setting attributes of a {@link DefaultAttributeMap} which holds {@link #attributes}
+ * attributes, like a channel carrying tracing, authentication and routing state.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DefaultAttributeMapBenchmark extends AbstractMicrobenchmark {
+
+    @Param({ "1", "4", "16", "64" })
+    public int attributes;
+
+    private DefaultAttributeMap map;
+    private AttributeKey<Integer>[] keys;
+    private int keyIndex;
+
+    @SuppressWarnings("unchecked")
+    @Setup(Level.Trial)
+    public void setup() {
+        map = new DefaultAttributeMap();
+        keys = new AttributeKey[attributes];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = AttributeKey.valueOf(DefaultAttributeMapBenchmark.class, "key" + i);
+            map.attr(keys[i]).set(i);
+        }
+    }
+
+    private AttributeKey<Integer> nextKey() {
+        int i = keyIndex + 1;
+        if (i == keys.length) {
+            i = 0;
+        }
+        keyIndex = i;
+        return keys[i];
+    }
+
+    @Benchmark
+    public Integer get() {
+        return map.attr(nextKey()).get();
+    }
+
+    @Benchmark
+    public void set() {
+        map.attr(nextKey()).set(keyIndex);
+    }
+
+    @Benchmark
+    public boolean hasAttr() {
+        return map.hasAttr(nextKey());
+    }
+}
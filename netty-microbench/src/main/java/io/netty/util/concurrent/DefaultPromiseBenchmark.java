@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures adding listeners to a {@link DefaultPromise}, by a single thread and by many threads which share the
+ * promise and complete it from time to time.
+ */
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class DefaultPromiseBenchmark extends AbstractMicrobenchmark {
+
+    private static final int LISTENERS_PER_THREAD = 16;
+    private static final FutureListener<Void> LISTENER = new FutureListener<Void>() {
+        @Override
+        public void operationComplete(Future<Void> future) {
+            // NOOP
+        }
+    };
+
+    @State(Scope.Benchmark)
+    public static class SharedPromise {
+        final AtomicReference<DefaultPromise<Void>> promise =
+                new AtomicReference<DefaultPromise<Void>>(new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE));
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int added;
+    }
+
+    /**
+     * Adds a single listener to a new promise and completes it, like most writes do.
+     */
+    @Benchmark
+    public DefaultPromise<Void> singleListener() {
+        DefaultPromise<Void> promise = new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE);
+        promise.addListener(LISTENER);
+        promise.setSuccess(null);
+        return promise;
+    }
+
+    /**
+     * Adds a listener to the promise shared by all threads, and replaces and completes it after every
+     * {@value #LISTENERS_PER_THREAD} listeners added by this thread while the other threads keep adding.
+     */
+    @Benchmark
+    @Threads(4)
+    public Promise<Void> concurrentAddListener(SharedPromise shared, ThreadState state) {
+        DefaultPromise<Void> promise = shared.promise.get();
+        promise.addListener(LISTENER);
+        if (++state.added == LISTENERS_PER_THREAD) {
+            state.added = 0;
+            shared.promise.compareAndSet(promise, new DefaultPromise<Void>(ImmediateEventExecutor.INSTANCE));
+            promise.trySuccess(null);
+        }
+        return promise;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the binary heap and the timing wheel which can keep the scheduled tasks of an event loop, with many
+ * pending timeouts like an event loop with a read timeout per connection.
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class ScheduledTaskQueueBenchmark extends AbstractMicrobenchmark {
+
+    private static final long MAX_DELAY_NANOS = TimeUnit.SECONDS.toNanos(30);
+    private static final int NUM_TASKS = 1024;
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Param({ "heap", "wheel" })
+    public String queueType;
+
+    @Param({ "10000", "100000", "1000000" })
+    public int pending;
+
+    private DefaultEventExecutor executor;
+    private ScheduledTaskQueue queue;
+    private ScheduledFutureTask<?>[] tasks;
+    private int taskIndex;
+    private long now;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new DefaultEventExecutor();
+        random = new Random(42);
+        ScheduledTaskQueueFactory factory = "wheel".equals(queueType) ?
+                ScheduledTaskQueueFactory.timingWheel(1, TimeUnit.MILLISECONDS) :
+                ScheduledTaskQueueFactory.PRIORITY_QUEUE;
+        queue = factory.newQueue();
+        for (int i = 0; i < pending; i++) {
+            queue.add(newTask());
+        }
+        tasks = new ScheduledFutureTask<?>[NUM_TASKS];
+        for (int i = 0; i < tasks.length; i++) {
+            tasks[i] = newTask();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() {
+        queue.clear();
+        executor.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    private ScheduledFutureTask<Void> newTask() {
+        long deadlineNanos = now + (long) (random.nextDouble() * MAX_DELAY_NANOS);
+        return new ScheduledFutureTask<Void>(executor, NOOP, null, deadlineNanos);
+    }
+
+    /**
+     * Schedules a timeout and cancels it again, which is what happens to most timeouts.
+     */
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        ScheduledFutureTask<?> task = tasks[taskIndex++ & NUM_TASKS - 1];
+        queue.add(task);
+        return queue.remove(task);
+    }
+
+    /**
+     * Moves the time forward by a microsecond, runs the expired timeouts and replaces them by new ones.
+     */
+    @Benchmark
+    public int expire() {
+        now += 1000;
+        int expired = 0;
+        while (queue.poll(now) != null) {
+            queue.add(newTask());
+            expired++;
+        }
+        return expired;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.util.concurrent;
+
+import io.netty.microbench.util.AbstractMicrobenchmark;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the latency of the tasks of idle channels while one hot channel keeps its executor busy, for a sticky
+ * {@link DefaultEventExecutorGroup}, a {@link NonStickyEventExecutorGroup} and a
+ * {@link WorkStealingEventExecutorGroup}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+public class SkewedLoadEventExecutorGroupBenchmark extends AbstractMicrobenchmark {
+
+    private static final int THREADS = 4;
+    private static final int COLD_CHANNELS = 16;
+    private static final int MAX_PENDING_HOT_TASKS = 256;
+    private static final long HOT_TASK_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+    private static final Runnable NOOP = new Runnable() {
+        @Override
+        public void run() {
+            // NOOP
+        }
+    };
+
+    @Param({ "sticky", "nonSticky", "workStealing" })
+    public String groupType;
+
+    private EventExecutorGroup group;
+    private EventExecutor[] coldExecutors;
+    private Thread flooder;
+    private volatile boolean running;
+    private int coldIndex;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("sticky".equals(groupType)) {
+            group = new DefaultEventExecutorGroup(THREADS);
+        } else if ("nonSticky".equals(groupType)) {
+            group = new NonStickyEventExecutorGroup(new UnorderedThreadPoolEventExecutor(THREADS));
+        } else {
+            group = new WorkStealingEventExecutorGroup(THREADS);
+        }
+
+        final EventExecutor hotExecutor = group.next();
+        coldExecutors = new EventExecutor[COLD_CHANNELS];
+        for (int i = 0; i < coldExecutors.length; i++) {
+            coldExecutors[i] = group.next();
+        }
+
+        running = true;
+        flooder = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                final Semaphore pending = new Semaphore(MAX_PENDING_HOT_TASKS);
+                Runnable hotTask = new Runnable() {
+                    @Override
+                    public void run() {
+                        long deadline = System.nanoTime() + HOT_TASK_NANOS;
+                        while (System.nanoTime() < deadline) {
+                            // Simulate the work of a busy channel.
+                        }
+                        pending.release();
+                    }
+                };
+                while (running) {
+                    pending.acquireUninterruptibly();
+                    hotExecutor.execute(hotTask);
+                }
+            }
+        });
+        flooder.start();
+    }
+
+    @TearDown(Level.Trial)
+    public void teardown() throws Exception {
+        running = false;
+        flooder.join();
+        group.shutdownGracefully(0, 0, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * Runs a task for one of the idle channels and waits for its completion.
+     */
+    @Benchmark
+    public Object coldChannelTask() {
+        EventExecutor executor = coldExecutors[coldIndex++ & COLD_CHANNELS - 1];
+        return executor.submit(NOOP).syncUninterruptibly();
+    }
+}
@@ -27,6 +27,7 @@ import io.netty.util.concurrent.FastThreadLocal;
 import io.netty.util.internal.InternalThreadLocalMap;
 import io.netty.util.internal.PromiseNotificationUtil;
 import io.netty.util.internal.SystemPropertyUtil;
+import io.netty.util.internal.UnstableApi;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
@@ -305,6 +306,38 @@ public final class ChannelOutboundBuffer {
         return true;
     }
 
+    /**
+     * Will remove the current message like {@link #remove()} but neither release it nor notify its
+     * {@link ChannelPromise}, which is returned instead. The caller takes over the ownership of the message and is
+     * responsible to release it and to notify the returned {@link ChannelPromise} once the message was written.
+     * This is useful for transports which hand the memory of a message to the OS and need to keep it until the
+     * OS tells them it is not used anymore.
+     *
+     * Returns {@code null} if no flushed message exists or if it was cancelled and so released already.
+     */
+    @UnstableApi
+    public ChannelPromise removeDeferred() {
+        Entry e = flushedEntry;
+        if (e == null) {
+            clearNioBuffers();
+            return null;
+        }
+        ChannelPromise promise = e.promise;
+        int size = e.pendingSize;
+        boolean cancelled = e.cancelled;
+
+        removeEntry(e);
+
+        if (!cancelled) {
+            decrementPendingOutboundBytes(size, false, true);
+        }
+
+        // recycle the entry
+        e.recycle();
+
+        return cancelled ? null : promise;
+    }
+
     /**
      * Will remove the current message, mark its {@link ChannelPromise} as failure using the given {@link Throwable}
      * and return {@code true}. If no   flushed message exists at the time this method is called it will return
@@ -17,6 +17,8 @@
 package io.netty.channel;
 
 import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
@@ -47,6 +49,12 @@ public class DefaultEventLoop extends SingleThreadEventLoop {
         super(parent, executor, true);
     }
 
+    public DefaultEventLoop(EventLoopGroup parent, Executor executor,
+                            ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, executor, true, DEFAULT_MAX_PENDING_TASKS, RejectedExecutionHandlers.reject(),
+                scheduledTaskQueueFactory);
+    }
+
     @Override
     protected void run() {
         for (; ; ) {
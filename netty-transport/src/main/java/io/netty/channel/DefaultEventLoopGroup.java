@@ -16,6 +16,8 @@
 
 package io.netty.channel;
 
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
+
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 
@@ -60,8 +62,24 @@ public class DefaultEventLoopGroup extends MultithreadEventLoopGroup {
         super(nThreads, executor);
     }
 
+    /**
+     * Create a new instance
+     *
+     * @param nThreads the number of threads to use
+     * @param executor the Executor to use, or {@code null} if the default should be used.
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how scheduled tasks are
+     *                                  kept.
+     */
+    public DefaultEventLoopGroup(int nThreads, Executor executor,
+                                 ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(nThreads, executor, scheduledTaskQueueFactory);
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
+        if (args.length == 1) {
+            return new DefaultEventLoop(this, executor, (ScheduledTaskQueueFactory) args[0]);
+        }
         return new DefaultEventLoop(this, executor);
     }
 }
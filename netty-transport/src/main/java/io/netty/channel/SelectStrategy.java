@@ -34,6 +34,11 @@ public interface SelectStrategy {
      * Indicates the IO loop should be retried, no blocking select to follow directly.
      */
     int CONTINUE = -2;
+    /**
+     * Indicates the IO loop should poll for new events without blocking until there is something to process. Event
+     * loops which do not support this treat it like {@link #SELECT}.
+     */
+    int BUSY_WAIT = -3;
 
     /**
      * The {@link SelectStrategy} can be used to steer the outcome of a potential select
@@ -43,7 +48,8 @@ public interface SelectStrategy {
      * @param hasTasks true if tasks are waiting to be processed.
      * @return {@link #SELECT} if the next step should be blocking select {@link #CONTINUE} if
      * the next step should be to not select but rather jump back to the IO loop and try
-     * again. Any value >= 0 is treated as an indicator that work needs to be done.
+     * again, {@link #BUSY_WAIT} if the next step should be to poll for events without blocking.
+     * Any value >= 0 is treated as an indicator that work needs to be done.
      */
     int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception;
 }
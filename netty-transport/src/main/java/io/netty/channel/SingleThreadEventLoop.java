@@ -16,9 +16,11 @@
 
 package io.netty.channel;
 
+import io.netty.util.concurrent.EventExecutorMetricsListener;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
 import io.netty.util.concurrent.SingleThreadEventExecutor;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.UnstableApi;
@@ -59,6 +61,14 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         tailTasks = newTaskQueue(maxPendingTasks);
     }
 
+    protected SingleThreadEventLoop(EventLoopGroup parent, Executor executor,
+                                    boolean addTaskWakesUp, int maxPendingTasks,
+                                    RejectedExecutionHandler rejectedExecutionHandler,
+                                    ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, executor, addTaskWakesUp, maxPendingTasks, rejectedExecutionHandler, scheduledTaskQueueFactory);
+        tailTasks = newTaskQueue(maxPendingTasks);
+    }
+
     @Override
     public EventLoopGroup parent() {
         return (EventLoopGroup) super.parent();
@@ -142,6 +152,24 @@ public abstract class SingleThreadEventLoop extends SingleThreadEventExecutor im
         runAllTasksFrom(tailTasks);
     }
 
+    /**
+     * Reports the time spent on I/O to the {@link EventExecutorMetricsListener}, then runs the tasks for as long as
+     * the {@code ioRatio} allows and reports the time spent on them as well.
+     */
+    protected final void runAllTasks(int ioRatio, long ioTime, EventExecutorMetricsListener metricsListener) {
+        metricsListener.ioProcessed(ioTime);
+        final long tasksStartTime = System.nanoTime();
+        try {
+            if (ioRatio == 100) {
+                runAllTasks();
+            } else {
+                runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+            }
+        } finally {
+            metricsListener.tasksProcessed(System.nanoTime() - tasksStartTime);
+        }
+    }
+
     @Override
     protected boolean wakesUpForTask(Runnable task) {
         return !(task instanceof NonWakeupRunnable);
@@ -23,7 +23,9 @@ import io.netty.channel.EventLoopException;
 import io.netty.channel.SelectStrategy;
 import io.netty.channel.SingleThreadEventLoop;
 import io.netty.util.IntSupplier;
+import io.netty.util.concurrent.EventExecutorMetricsListener;
 import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.ReflectionUtil;
 import io.netty.util.internal.SystemPropertyUtil;
@@ -132,8 +134,10 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     private boolean needsToSelectAgain;
 
     NioEventLoop(NioEventLoopGroup parent, Executor executor, SelectorProvider selectorProvider,
-                 SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler) {
-        super(parent, executor, false, DEFAULT_MAX_PENDING_TASKS, rejectedExecutionHandler);
+                 SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler,
+                 ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, executor, false, DEFAULT_MAX_PENDING_TASKS, rejectedExecutionHandler,
+                scheduledTaskQueueFactory);
         if (selectorProvider == null) {
             throw new NullPointerException("selectorProvider");
         }
@@ -292,11 +296,20 @@ public final class NioEventLoop extends SingleThreadEventLoop {
     protected void run() {
         for (; ; ) {
             try {
+                final EventExecutorMetricsListener metricsListener = metricsListener();
                 switch (selectStrategy.calculateStrategy(selectNowSupplier, hasTasks())) {
                     case SelectStrategy.CONTINUE:
                         continue;
+                    case SelectStrategy.BUSY_WAIT:
+                        // fall-through to SELECT since the busy-wait is not supported with NIO
                     case SelectStrategy.SELECT:
-                        select(wakenUp.getAndSet(false));
+                        if (metricsListener == null) {
+                            select(wakenUp.getAndSet(false));
+                        } else {
+                            final long selectStartTime = System.nanoTime();
+                            select(wakenUp.getAndSet(false));
+                            metricsListener.ioWaited(System.nanoTime() - selectStartTime);
+                        }
 
                         // 'wakenUp.compareAndSet(false, true)' is always evaluated
                         // before calling 'selector.wakeup()' to reduce the wake-up
@@ -336,7 +349,7 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                 cancelledKeys = 0;
                 needsToSelectAgain = false;
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
+                if (ioRatio == 100 && metricsListener == null) {
                     try {
                         processSelectedKeys();
                     } finally {
@@ -350,7 +363,11 @@ public final class NioEventLoop extends SingleThreadEventLoop {
                     } finally {
                         // Ensure we always run tasks.
                         final long ioTime = System.nanoTime() - ioStartTime;
-                        runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                        if (metricsListener == null) {
+                            runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                        } else {
+                            runAllTasks(ioRatio, ioTime, metricsListener);
+                        }
                     }
                 }
             } catch (Throwable t) {
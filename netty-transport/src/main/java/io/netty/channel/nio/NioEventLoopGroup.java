@@ -25,6 +25,7 @@ import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 
 import java.nio.channels.Selector;
 import java.nio.channels.spi.SelectorProvider;
@@ -102,6 +103,23 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
         super(nThreads, executor, chooserFactory, selectorProvider, selectStrategyFactory, rejectedExecutionHandler);
     }
 
+    /**
+     * Create a new instance.
+     *
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how the scheduled tasks
+     *                                  of the event loops are kept, for example in a
+     *                                  {@linkplain ScheduledTaskQueueFactory#timingWheel timing wheel} if there are
+     *                                  many timeouts.
+     */
+    public NioEventLoopGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory,
+                             final SelectorProvider selectorProvider,
+                             final SelectStrategyFactory selectStrategyFactory,
+                             final RejectedExecutionHandler rejectedExecutionHandler,
+                             final ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(nThreads, executor, chooserFactory, selectorProvider, selectStrategyFactory, rejectedExecutionHandler,
+                scheduledTaskQueueFactory);
+    }
+
     /**
      * Sets the percentage of the desired amount of time spent for I/O in the child event loops.  The default value is
      * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
@@ -124,7 +142,10 @@ public class NioEventLoopGroup extends MultithreadEventLoopGroup {
 
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
+        ScheduledTaskQueueFactory scheduledTaskQueueFactory = args.length == 4 ?
+                (ScheduledTaskQueueFactory) args[3] : ScheduledTaskQueueFactory.defaultFactory();
         return new NioEventLoop(this, executor, (SelectorProvider) args[0],
-                ((SelectStrategyFactory) args[1]).newSelectStrategy(), (RejectedExecutionHandler) args[2]);
+                ((SelectStrategyFactory) args[1]).newSelectStrategy(), (RejectedExecutionHandler) args[2],
+                scheduledTaskQueueFactory);
     }
 }
@@ -20,6 +20,15 @@ import io.netty.channel.AbstractEventLoopTest;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.socket.ServerSocketChannel;
 import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.EventExecutorMetrics;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class NioEventLoopTest extends AbstractEventLoopTest {
 
@@ -32,4 +41,42 @@ public class NioEventLoopTest extends AbstractEventLoopTest {
     protected Class<? extends ServerSocketChannel> newChannel() {
         return NioServerSocketChannel.class;
     }
+
+    @Test(timeout = 5000)
+    public void testMetrics() throws Exception {
+        NioEventLoopGroup group = new NioEventLoopGroup(1);
+        try {
+            List<EventExecutorMetrics> metrics = group.enableMetrics();
+            assertEquals(1, metrics.size());
+            assertSame(metrics.get(0), group.enableMetrics().get(0));
+            EventExecutorMetrics metric = metrics.get(0);
+            assertSame(group.next(), metric.executor());
+
+            Runnable task = new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            };
+            for (int i = 0; i < 10; i++) {
+                group.submit(task).sync();
+            }
+            group.schedule(task, 1, TimeUnit.HOURS);
+            // Let the loop wait for I/O before it is woken up by the last task.
+            Thread.sleep(100);
+            group.submit(task).sync();
+
+            assertTrue(metric.tasksExecuted() >= 11);
+            long sum = 0;
+            for (long count : metric.taskTimeHistogram()) {
+                sum += count;
+            }
+            assertTrue(sum >= 11);
+            assertTrue(metric.taskTimeNanos() > 0);
+            assertTrue(metric.ioWaitTimeNanos() > 0);
+            assertEquals(1, metric.pendingScheduledTasks());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
 }
@@ -34,6 +34,7 @@ EXAMPLE_MAP=(
   'telnet-client:io.netty.example.telnet.TelnetClient'
   'telnet-server:io.netty.example.telnet.TelnetServer'
   'proxy-server:io.netty.example.proxy.HexDumpProxy'
+  'splice-proxy-server:io.netty.example.splice.SpliceProxy'
   'socksproxy-server:io.netty.example.socksproxy.SocksServer'
   'memcache-binary-client:io.netty.example.memcache.binary.MemcacheClient'
   'stomp-client:io.netty.example.stomp.StompClient'
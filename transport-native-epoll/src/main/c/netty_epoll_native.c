@@ -21,9 +21,11 @@
 #include <errno.h>
 #include <sys/epoll.h>
 #include <sys/eventfd.h>
+#include <sys/timerfd.h>
 #include <sys/sendfile.h>
 #include <sys/un.h>
 #include <linux/tcp.h> // TCP_NOTSENT_LOWAT is a linux specific define
+#include <linux/errqueue.h> // struct sock_extended_err
 #include <netinet/in.h>
 #include <sys/types.h>
 #include <sys/socket.h>
@@ -58,6 +60,48 @@
 #define UIO_MAXIOV 1024
 #endif /* UIO_MAXIOV */
 
+// Define SOL_UDP, UDP_SEGMENT and UDP_GRO if not found so we can compile against older headers.
+// UDP_SEGMENT was added in linux 4.18 and UDP_GRO in linux 5.0.
+#ifndef SOL_UDP
+#define SOL_UDP 17
+#endif /* SOL_UDP */
+
+#ifndef UDP_SEGMENT
+#define UDP_SEGMENT 103
+#endif /* UDP_SEGMENT */
+
+#ifndef UDP_GRO
+#define UDP_GRO 104
+#endif /* UDP_GRO */
+
+// Define SO_ZEROCOPY, MSG_ZEROCOPY and the zerocopy notification codes if not found so we can compile against older
+// headers. MSG_ZEROCOPY was added in linux 4.14.
+#ifndef SO_ZEROCOPY
+#define SO_ZEROCOPY 60
+#endif /* SO_ZEROCOPY */
+
+#ifndef MSG_ZEROCOPY
+#define MSG_ZEROCOPY 0x4000000
+#endif /* MSG_ZEROCOPY */
+
+// Define SO_BUSY_POLL and SO_PREFER_BUSY_POLL if not found so we can compile against older headers.
+// SO_PREFER_BUSY_POLL was added in linux 5.11.
+#ifndef SO_BUSY_POLL
+#define SO_BUSY_POLL 46
+#endif /* SO_BUSY_POLL */
+
+#ifndef SO_PREFER_BUSY_POLL
+#define SO_PREFER_BUSY_POLL 69
+#endif /* SO_PREFER_BUSY_POLL */
+
+#ifndef SO_EE_ORIGIN_ZEROCOPY
+#define SO_EE_ORIGIN_ZEROCOPY 5
+#endif /* SO_EE_ORIGIN_ZEROCOPY */
+
+#ifndef SO_EE_CODE_ZEROCOPY_COPIED
+#define SO_EE_CODE_ZEROCOPY_COPIED 1
+#endif /* SO_EE_CODE_ZEROCOPY_COPIED */
+
 // TCP_NOTSENT_LOWAT is defined in linux 3.12. We define this here so older kernels can compile.
 #ifndef TCP_NOTSENT_LOWAT
 #define TCP_NOTSENT_LOWAT 25
@@ -83,6 +127,7 @@ extern int epoll_create1(int flags) __attribute__((weak));
 
 #ifdef IO_NETTY_SENDMMSG_NOT_FOUND
 extern int sendmmsg(int sockfd, struct mmsghdr* msgvec, unsigned int vlen, unsigned int flags) __attribute__((weak));
+extern int recvmmsg(int sockfd, struct mmsghdr* msgvec, unsigned int vlen, unsigned int flags, struct timespec* timeout) __attribute__((weak));
 
 #ifndef __USE_GNU
 struct mmsghdr {
@@ -103,6 +148,19 @@ jfieldID packetScopeIdFieldId = NULL;
 jfieldID packetPortFieldId = NULL;
 jfieldID packetMemoryAddressFieldId = NULL;
 jfieldID packetCountFieldId = NULL;
+jfieldID packetSenderAddrFieldId = NULL;
+jfieldID packetSenderAddrLenFieldId = NULL;
+jfieldID packetSenderScopeIdFieldId = NULL;
+jfieldID packetSenderPortFieldId = NULL;
+jfieldID packetReceivedAmountFieldId = NULL;
+jfieldID packetSegmentSizeFieldId = NULL;
+jfieldID packetTruncatedFieldId = NULL;
+
+// Control message buffer which is large enough for a UDP_SEGMENT or UDP_GRO control message and correctly aligned.
+typedef union {
+    char buf[CMSG_SPACE(sizeof(int))];
+    struct cmsghdr align;
+} netty_epoll_udp_control;
 
 clockid_t epollWaitClock = 0; // initialized in initializeEpollWaitClock
 
@@ -199,6 +257,16 @@ static void netty_epoll_native_eventFdRead(JNIEnv* env, jclass clazz, jint fd) {
     }
 }
 
+static jint netty_epoll_native_timerFd(JNIEnv* env, jclass clazz) {
+    jint timerFD = timerfd_create(CLOCK_MONOTONIC, TFD_CLOEXEC | TFD_NONBLOCK);
+
+    if (timerFD < 0) {
+        int err = errno;
+        netty_unix_errors_throwChannelExceptionErrorNo(env, "timerfd_create() failed: ", err);
+    }
+    return timerFD;
+}
+
 static jint netty_epoll_native_epollCreate(JNIEnv* env, jclass clazz) {
     jint efd;
     if (epoll_create1) {
@@ -265,6 +333,44 @@ static jint netty_epoll_native_epollWait0(JNIEnv* env, jclass clazz, jint efd, j
     }
 }
 
+static jint netty_epoll_native_epollTimerWait0(JNIEnv* env, jclass clazz, jint efd, jlong address, jint len, jint timerFd, jint tvSec, jint tvNsec) {
+    struct epoll_event *ev = (struct epoll_event*) (intptr_t) address;
+    struct itimerspec ts;
+    int result, err;
+
+    // A negative timeout disarms the timer so epoll_wait blocks until an event is ready.
+    memset(&ts, 0, sizeof(struct itimerspec));
+    if (tvSec >= 0) {
+        ts.it_value.tv_sec = tvSec;
+        ts.it_value.tv_nsec = tvNsec;
+        if (tvSec == 0 && tvNsec == 0) {
+            // A zero it_value would disarm the timer, so expire it as soon as possible instead.
+            ts.it_value.tv_nsec = 1;
+        }
+    }
+    if (timerfd_settime(timerFd, 0, &ts, NULL) < 0) {
+        return -errno;
+    }
+
+    for (;;) {
+        result = epoll_wait(efd, ev, len, -1);
+        if (result > 0) {
+            if (result == 1 && ev[0].data.fd == timerFd) {
+                // The timer expired and nothing else is ready, which is a timeout for the caller. The timerfd is
+                // registered edge-triggered so there is no need to read it.
+                return 0;
+            }
+            return result;
+        }
+        if (result == 0) {
+            return 0;
+        }
+        if ((err = errno) != EINTR) {
+            return -err;
+        }
+    }
+}
+
 static jint netty_epoll_native_epollCtlAdd0(JNIEnv* env, jclass clazz, jint efd, jint fd, jint flags) {
     int res = epollCtl(env, efd, EPOLL_CTL_ADD, fd, flags);
     if (res < 0) {
@@ -293,9 +399,11 @@ static jint netty_epoll_native_epollCtlDel0(JNIEnv* env, jclass clazz, jint efd,
 static jint netty_epoll_native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
     struct mmsghdr msg[len];
     struct sockaddr_storage addr[len];
+    netty_epoll_udp_control control[len];
     int i;
 
     memset(msg, 0, sizeof(msg));
+    memset(control, 0, sizeof(control));
 
     for (i = 0; i < len; i++) {
 
@@ -313,6 +421,18 @@ static jint netty_epoll_native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, job
 
         msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
         msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);;
+
+        jint segmentSize = (*env)->GetIntField(env, packet, packetSegmentSizeFieldId);
+        if (segmentSize > 0) {
+            // Let the kernel split the payload into datagrams of segmentSize bytes (UDP GSO).
+            msg[i].msg_hdr.msg_control = control[i].buf;
+            msg[i].msg_hdr.msg_controllen = CMSG_SPACE(sizeof(uint16_t));
+            struct cmsghdr* cmsg = CMSG_FIRSTHDR(&msg[i].msg_hdr);
+            cmsg->cmsg_level = SOL_UDP;
+            cmsg->cmsg_type = UDP_SEGMENT;
+            cmsg->cmsg_len = CMSG_LEN(sizeof(uint16_t));
+            *((uint16_t *) CMSG_DATA(cmsg)) = (uint16_t) segmentSize;
+        }
     }
 
     ssize_t res;
@@ -327,6 +447,143 @@ static jint netty_epoll_native_sendmmsg0(JNIEnv* env, jclass clazz, jint fd, job
     }
     return (jint) res;
 }
+static jint netty_epoll_native_recvmmsg0(JNIEnv* env, jclass clazz, jint fd, jobjectArray packets, jint offset, jint len) {
+    struct mmsghdr msg[len];
+    struct sockaddr_storage addr[len];
+    netty_epoll_udp_control control[len];
+    int i;
+
+    memset(msg, 0, sizeof(msg));
+
+    for (i = 0; i < len; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+
+        msg[i].msg_hdr.msg_name = &addr[i];
+        msg[i].msg_hdr.msg_namelen = sizeof(addr[i]);
+        msg[i].msg_hdr.msg_control = control[i].buf;
+        msg[i].msg_hdr.msg_controllen = sizeof(control[i].buf);
+
+        msg[i].msg_hdr.msg_iov = (struct iovec*) (intptr_t) (*env)->GetLongField(env, packet, packetMemoryAddressFieldId);
+        msg[i].msg_hdr.msg_iovlen = (*env)->GetIntField(env, packet, packetCountFieldId);
+
+        (*env)->DeleteLocalRef(env, packet);
+    }
+
+    int res;
+    int err;
+    do {
+       res = recvmmsg(fd, msg, len, 0, NULL);
+       // keep on reading if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+
+    for (i = 0; i < res; i++) {
+        jobject packet = (*env)->GetObjectArrayElement(env, packets, i + offset);
+        jbyteArray senderAddr = (jbyteArray) (*env)->GetObjectField(env, packet, packetSenderAddrFieldId);
+        jint port;
+        jint scopeId = 0;
+
+        if (addr[i].ss_family == AF_INET) {
+            struct sockaddr_in* ipaddr = (struct sockaddr_in*) &addr[i];
+            (*env)->SetByteArrayRegion(env, senderAddr, 0, 4, (jbyte*) &ipaddr->sin_addr.s_addr);
+            (*env)->SetIntField(env, packet, packetSenderAddrLenFieldId, 4);
+            port = ntohs(ipaddr->sin_port);
+        } else {
+            struct sockaddr_in6* ip6addr = (struct sockaddr_in6*) &addr[i];
+            if (IN6_IS_ADDR_V4MAPPED(&ip6addr->sin6_addr)) {
+                // Report IPv4 senders of a dual-stack socket with their IPv4 address like recvfrom(...) does.
+                (*env)->SetByteArrayRegion(env, senderAddr, 0, 4, (jbyte*) &ip6addr->sin6_addr.s6_addr[12]);
+                (*env)->SetIntField(env, packet, packetSenderAddrLenFieldId, 4);
+            } else {
+                (*env)->SetByteArrayRegion(env, senderAddr, 0, 16, (jbyte*) &ip6addr->sin6_addr.s6_addr);
+                (*env)->SetIntField(env, packet, packetSenderAddrLenFieldId, 16);
+                scopeId = ip6addr->sin6_scope_id;
+            }
+            port = ntohs(ip6addr->sin6_port);
+        }
+        (*env)->SetIntField(env, packet, packetSenderScopeIdFieldId, scopeId);
+        (*env)->SetIntField(env, packet, packetSenderPortFieldId, port);
+        (*env)->SetIntField(env, packet, packetReceivedAmountFieldId, msg[i].msg_len);
+        // The datagram did not fit into the buffer, so the kernel discarded the rest of it.
+        (*env)->SetBooleanField(env, packet, packetTruncatedFieldId, (msg[i].msg_hdr.msg_flags & MSG_TRUNC) != 0);
+
+        // If UDP_GRO is enabled the kernel may have coalesced multiple datagrams, tell the caller their size.
+        jint segmentSize = 0;
+        struct cmsghdr* cmsg;
+        for (cmsg = CMSG_FIRSTHDR(&msg[i].msg_hdr); cmsg != NULL; cmsg = CMSG_NXTHDR(&msg[i].msg_hdr, cmsg)) {
+            if (cmsg->cmsg_level == SOL_UDP && cmsg->cmsg_type == UDP_GRO) {
+                segmentSize = *((int *) CMSG_DATA(cmsg));
+                break;
+            }
+        }
+        (*env)->SetIntField(env, packet, packetSegmentSizeFieldId, segmentSize);
+
+        (*env)->DeleteLocalRef(env, senderAddr);
+        (*env)->DeleteLocalRef(env, packet);
+    }
+    return (jint) res;
+}
+
+static jint netty_epoll_native_sendAddressZeroCopy0(JNIEnv* env, jclass clazz, jint fd, jlong address, jint pos, jint limit) {
+    void* buffer = (void *) (intptr_t) address;
+    ssize_t res;
+    int err;
+    do {
+        res = send(fd, buffer + pos, (size_t) (limit - pos), MSG_ZEROCOPY);
+        // keep on writing if it was interrupted
+    } while (res == -1 && ((err = errno) == EINTR));
+
+    if (res < 0) {
+        return -err;
+    }
+    return (jint) res;
+}
+
+static jint netty_epoll_native_recvZeroCopyCompletion0(JNIEnv* env, jclass clazz, jint fd, jintArray completion) {
+    struct msghdr msg = { 0 };
+    char control[CMSG_SPACE(sizeof(struct sock_extended_err) + sizeof(struct sockaddr_in6))];
+    ssize_t res;
+    int err;
+
+    for (;;) {
+        msg.msg_control = control;
+        msg.msg_controllen = sizeof(control);
+        do {
+            res = recvmsg(fd, &msg, MSG_ERRQUEUE);
+            // keep on reading if it was interrupted
+        } while (res == -1 && ((err = errno) == EINTR));
+
+        if (res < 0) {
+            if (err == EAGAIN || err == EWOULDBLOCK) {
+                // Nothing left in the error queue.
+                return 0;
+            }
+            return -err;
+        }
+
+        struct cmsghdr* cmsg;
+        for (cmsg = CMSG_FIRSTHDR(&msg); cmsg != NULL; cmsg = CMSG_NXTHDR(&msg, cmsg)) {
+            if ((cmsg->cmsg_level == IPPROTO_IP && cmsg->cmsg_type == IP_RECVERR) ||
+                    (cmsg->cmsg_level == IPPROTO_IPV6 && cmsg->cmsg_type == IPV6_RECVERR)) {
+                struct sock_extended_err* serr = (struct sock_extended_err *) CMSG_DATA(cmsg);
+                if (serr->ee_errno == 0 && serr->ee_origin == SO_EE_ORIGIN_ZEROCOPY) {
+                    // The sends with the ids ee_info to ee_data (inclusive) are complete.
+                    jint range[3];
+                    range[0] = (jint) serr->ee_info;
+                    range[1] = (jint) serr->ee_data;
+                    range[2] = (serr->ee_code & SO_EE_CODE_ZEROCOPY_COPIED) ? 1 : 0;
+                    (*env)->SetIntArrayRegion(env, completion, 0, 3, range);
+                    return 1;
+                }
+            }
+        }
+        // Not a zerocopy notification, just skip it.
+    }
+}
+
 static jint netty_epoll_native_recvFd0(JNIEnv* env, jclass clazz, jint fd) {
     int socketFd;
     struct msghdr descriptorMessage = { 0 };
@@ -451,6 +708,26 @@ static void netty_epoll_native_setReusePort(JNIEnv* env, jclass clazz, jint fd,
     netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_REUSEPORT, &optval, sizeof(optval));
 }
 
+static void netty_epoll_native_setUdpSegment(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setUdpGro(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_UDP, UDP_GRO, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setSoBusyPoll(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setSoPreferBusyPoll(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_PREFER_BUSY_POLL, &optval, sizeof(optval));
+}
+
+static void netty_epoll_native_setZeroCopy(JNIEnv* env, jclass clazz, jint fd, jint optval) {
+    netty_unix_socket_setOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval));
+}
+
 static void netty_epoll_native_setTcpFastopen(JNIEnv* env, jclass clazz, jint fd, jint optval) {
     netty_unix_socket_setOption(env, fd, IPPROTO_TCP, TCP_FASTOPEN, &optval, sizeof(optval));
 }
@@ -509,6 +786,38 @@ static jint netty_epoll_native_isReusePort(JNIEnv* env, jclass clazz, jint fd) {
     return optval;
 }
 
+static jint netty_epoll_native_getUdpSegment(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_UDP, UDP_SEGMENT, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+static jint netty_epoll_native_getSoBusyPoll(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_BUSY_POLL, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+static jint netty_epoll_native_isSoPreferBusyPoll(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_PREFER_BUSY_POLL, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
+static jint netty_epoll_native_isZeroCopy(JNIEnv* env, jclass clazz, jint fd) {
+    int optval;
+    if (netty_unix_socket_getOption(env, fd, SOL_SOCKET, SO_ZEROCOPY, &optval, sizeof(optval)) == -1) {
+        return -1;
+    }
+    return optval;
+}
+
 static jint netty_epoll_native_getTcpNotSentLowAt(JNIEnv* env, jclass clazz, jint fd) {
     int optval;
     if (netty_unix_socket_getOption(env, fd, IPPROTO_TCP, TCP_NOTSENT_LOWAT, &optval, sizeof(optval)) == -1) {
@@ -642,6 +951,25 @@ static jboolean netty_epoll_native_isSupportingSendmmsg(JNIEnv* env, jclass claz
     return JNI_FALSE;
 }
 
+static jboolean netty_epoll_native_isSupportingRecvmmsg(JNIEnv* env, jclass clazz) {
+    if (recvmmsg) {
+        return JNI_TRUE;
+    }
+    return JNI_FALSE;
+}
+
+static jboolean netty_epoll_native_isSupportingUdpSegment(JNIEnv* env, jclass clazz) {
+    int fd = socket(AF_INET, SOCK_DGRAM, 0);
+    if (fd == -1) {
+        return JNI_FALSE;
+    }
+    int optval;
+    socklen_t optlen = sizeof(optval);
+    int res = getsockopt(fd, SOL_UDP, UDP_SEGMENT, &optval, &optlen);
+    close(fd);
+    return res == 0 ? JNI_TRUE : JNI_FALSE;
+}
+
 static jboolean netty_epoll_native_isSupportingTcpFastopen(JNIEnv* env, jclass clazz) {
     int fastopen = 0;
     getSysctlValue("/proc/sys/net/ipv4/tcp_fastopen", &fastopen);
@@ -764,6 +1092,8 @@ static const JNINativeMethod statically_referenced_fixed_method_table[] = {
   { "iovMax", "()I", (void *) netty_epoll_native_iovMax },
   { "uioMaxIov", "()I", (void *) netty_epoll_native_uioMaxIov },
   { "isSupportingSendmmsg", "()Z", (void *) netty_epoll_native_isSupportingSendmmsg },
+  { "isSupportingRecvmmsg", "()Z", (void *) netty_epoll_native_isSupportingRecvmmsg },
+  { "isSupportingUdpSegment", "()Z", (void *) netty_epoll_native_isSupportingUdpSegment },
   { "isSupportingTcpFastopen", "()Z", (void *) netty_epoll_native_isSupportingTcpFastopen },
   { "kernelVersion", "()Ljava/lang/String;", (void *) netty_epoll_native_kernelVersion }
 };
@@ -772,17 +1102,27 @@ static const JNINativeMethod fixed_method_table[] = {
   { "eventFd", "()I", (void *) netty_epoll_native_eventFd },
   { "eventFdWrite", "(IJ)V", (void *) netty_epoll_native_eventFdWrite },
   { "eventFdRead", "(I)V", (void *) netty_epoll_native_eventFdRead },
+  { "timerFd", "()I", (void *) netty_epoll_native_timerFd },
   { "epollCreate", "()I", (void *) netty_epoll_native_epollCreate },
   { "epollWait0", "(IJII)I", (void *) netty_epoll_native_epollWait0 },
+  { "epollTimerWait0", "(IJIIII)I", (void *) netty_epoll_native_epollTimerWait0 },
   { "epollCtlAdd0", "(III)I", (void *) netty_epoll_native_epollCtlAdd0 },
   { "epollCtlMod0", "(III)I", (void *) netty_epoll_native_epollCtlMod0 },
   { "epollCtlDel0", "(II)I", (void *) netty_epoll_native_epollCtlDel0 },
   // "sendmmsg0" has a dynamic signature
+  // "recvmmsg0" has a dynamic signature
   { "recvFd0", "(I)I", (void *) netty_epoll_native_recvFd0 },
   { "sendFd0", "(II)I", (void *) netty_epoll_native_sendFd0 },
+  { "sendAddressZeroCopy0", "(IJII)I", (void *) netty_epoll_native_sendAddressZeroCopy0 },
+  { "recvZeroCopyCompletion0", "(I[I)I", (void *) netty_epoll_native_recvZeroCopyCompletion0 },
   // "sendFile0" has a dynamic signature
   { "setReuseAddress", "(II)V", (void *) netty_epoll_native_setReuseAddress },
   { "setReusePort", "(II)V", (void *) netty_epoll_native_setReusePort },
+  { "setUdpSegment", "(II)V", (void *) netty_epoll_native_setUdpSegment },
+  { "setUdpGro", "(II)V", (void *) netty_epoll_native_setUdpGro },
+  { "setZeroCopy", "(II)V", (void *) netty_epoll_native_setZeroCopy },
+  { "setSoBusyPoll", "(II)V", (void *) netty_epoll_native_setSoBusyPoll },
+  { "setSoPreferBusyPoll", "(II)V", (void *) netty_epoll_native_setSoPreferBusyPoll },
   { "setTcpFastopen", "(II)V", (void *) netty_epoll_native_setTcpFastopen },
   { "setTcpNotSentLowAt", "(II)V", (void *) netty_epoll_native_setTcpNotSentLowAt },
   { "setTrafficClass", "(II)V", (void *) netty_epoll_native_setTrafficClass },
@@ -794,6 +1134,10 @@ static const JNINativeMethod fixed_method_table[] = {
   { "setIpFreeBind", "(II)V", (void *) netty_epoll_native_setIpFreeBind },
   { "isReuseAddress", "(I)I", (void *) netty_epoll_native_isReuseAddress },
   { "isReusePort", "(I)I", (void *) netty_epoll_native_isReusePort },
+  { "getUdpSegment", "(I)I", (void *) netty_epoll_native_getUdpSegment },
+  { "isZeroCopy", "(I)I", (void *) netty_epoll_native_isZeroCopy },
+  { "getSoBusyPoll", "(I)I", (void *) netty_epoll_native_getSoBusyPoll },
+  { "isSoPreferBusyPoll", "(I)I", (void *) netty_epoll_native_isSoPreferBusyPoll },
   { "getTcpNotSentLowAt", "(I)I", (void *) netty_epoll_native_getTcpNotSentLowAt },
   { "getTrafficClass", "(I)I", (void *) netty_epoll_native_getTrafficClass },
   { "isBroadcast", "(I)I", (void *) netty_epoll_native_isBroadcast },
@@ -811,7 +1155,7 @@ static const JNINativeMethod fixed_method_table[] = {
 static const jint fixed_method_table_size = sizeof(fixed_method_table) / sizeof(fixed_method_table[0]);
 
 static jint dynamicMethodsTableSize() {
-    return fixed_method_table_size + 2;
+    return fixed_method_table_size + 3;
 }
 
 static JNINativeMethod* createDynamicMethodsTable(const char* packagePrefix) {
@@ -824,6 +1168,12 @@ static JNINativeMethod* createDynamicMethodsTable(const char* packagePrefix) {
     dynamicMethod->fnPtr = (void *) netty_epoll_native_sendmmsg0;
     free(dynamicTypeName);
     ++dynamicMethod;
+    dynamicTypeName = netty_unix_util_prepend(packagePrefix, "io/netty/channel/epoll/NativeDatagramPacketArray$NativeDatagramPacket;II)I");
+    dynamicMethod->name = "recvmmsg0";
+    dynamicMethod->signature = netty_unix_util_prepend("(I[L", dynamicTypeName);
+    dynamicMethod->fnPtr = (void *) netty_epoll_native_recvmmsg0;
+    free(dynamicTypeName);
+    ++dynamicMethod;
     dynamicTypeName = netty_unix_util_prepend(packagePrefix, "io/netty/channel/DefaultFileRegion;JJJ)J");
     dynamicMethod->name = "sendfile0";
     dynamicMethod->signature = netty_unix_util_prepend("(IL", dynamicTypeName);
@@ -949,6 +1299,41 @@ static jint netty_epoll_native_JNI_OnLoad(JNIEnv* env, const char* packagePrefix
         netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.count");
         return JNI_ERR;
     }
+    packetSenderAddrFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "senderAddr", "[B");
+    if (packetSenderAddrFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.senderAddr");
+        return JNI_ERR;
+    }
+    packetSenderAddrLenFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "senderAddrLen", "I");
+    if (packetSenderAddrLenFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.senderAddrLen");
+        return JNI_ERR;
+    }
+    packetSenderScopeIdFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "senderScopeId", "I");
+    if (packetSenderScopeIdFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.senderScopeId");
+        return JNI_ERR;
+    }
+    packetSenderPortFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "senderPort", "I");
+    if (packetSenderPortFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.senderPort");
+        return JNI_ERR;
+    }
+    packetReceivedAmountFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "receivedAmount", "I");
+    if (packetReceivedAmountFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.receivedAmount");
+        return JNI_ERR;
+    }
+    packetSegmentSizeFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "segmentSize", "I");
+    if (packetSegmentSizeFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.segmentSize");
+        return JNI_ERR;
+    }
+    packetTruncatedFieldId = (*env)->GetFieldID(env, nativeDatagramPacketCls, "truncated", "Z");
+    if (packetTruncatedFieldId == NULL) {
+        netty_unix_errors_throwRuntimeException(env, "failed to get field ID: NativeDatagramPacket.truncated");
+        return JNI_ERR;
+    }
 
     if (!initializeEpollWaitClock()) {
       return JNI_ERR;
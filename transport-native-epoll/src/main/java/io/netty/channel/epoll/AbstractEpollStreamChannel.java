@@ -36,7 +36,6 @@ import io.netty.channel.FileRegion;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.socket.DuplexChannel;
 import io.netty.channel.unix.FileDescriptor;
-import static io.netty.channel.unix.FileDescriptor.pipe;
 import io.netty.channel.unix.Socket;
 import static io.netty.util.internal.ObjectUtil.checkNotNull;
 import io.netty.util.internal.PlatformDependent;
@@ -51,6 +50,7 @@ import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 import java.nio.channels.ConnectionPendingException;
 import java.nio.channels.WritableByteChannel;
+import java.util.ArrayDeque;
 import java.util.Queue;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledFuture;
@@ -62,6 +62,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             " (expected: " + StringUtil.simpleClassName(ByteBuf.class) + ", " +
                     StringUtil.simpleClassName(DefaultFileRegion.class) + ')';
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(AbstractEpollStreamChannel.class);
+    // How long to wait for the kernel to complete pending MSG_ZEROCOPY writes when closing.
+    private static final long ZEROCOPY_CLOSE_TIMEOUT_NANOS = TimeUnit.SECONDS.toNanos(1);
     private static final ClosedChannelException DO_CLOSE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), AbstractEpollStreamChannel.class, "doClose()");
     private static final ClosedChannelException CLEAR_SPLICE_QUEUE_CLOSED_CHANNEL_EXCEPTION =
@@ -89,6 +91,20 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     private WritableByteChannel byteChannel;
 
+    // Writes done with MSG_ZEROCOPY whose memory may still be used by the kernel, ordered by their id.
+    // Lazy init these if we need to write with MSG_ZEROCOPY.
+    private ArrayDeque<ZeroCopyWrite> zeroCopyWrites;
+    private int[] zeroCopyCompletion;
+    private CopiedBuffersProcessor copiedBuffersProcessor;
+    // The id the kernel assigns to the next successful MSG_ZEROCOPY write.
+    private int nextZeroCopyId;
+    // true if a part of the current message of the ChannelOutboundBuffer was written with MSG_ZEROCOPY already.
+    private boolean zeroCopyCurrent;
+    // The result of zeroCopyThreshold() for the current doWrite(...) call.
+    private int writeZeroCopyThreshold = -1;
+    private volatile long zeroCopyBytes;
+    private volatile long copiedBytes;
+
     /**
      * @deprecated Use {@link #AbstractEpollStreamChannel(Channel, Socket)}.
      */
@@ -260,6 +276,52 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         return promise;
     }
 
+    /**
+     * Relay all data between this {@link AbstractEpollStreamChannel} and another {@link AbstractEpollStreamChannel} in
+     * both directions via {@code splice(...)}, so it never needs to be copied to user space. Each direction uses its
+     * own pipe which is taken from a pool of the {@link EventLoop} and given back once the relay is done.
+     *
+     * Please note:
+     * <ul>
+     * <li>both channels need to be connected and registered to the same {@link EventLoop}, otherwise an
+     * {@link IllegalArgumentException} is thrown. </li>
+     * <li>{@link EpollChannelConfig#getEpollMode()} must be {@link EpollMode#LEVEL_TRIGGERED} for this and the
+     * target {@link AbstractEpollStreamChannel}</li>
+     * <li>data is only read from a channel while {@link EpollChannelConfig#isAutoRead()} is {@code true} or
+     * {@link #read()} was called, and reading stops until the other channel accepted everything that was read
+     * before.</li>
+     * <li>once one of the channels is closed the other one is closed as well after the data that was already read
+     * was written to it. If the end of input is reached on a channel that allows half-closure the output of the
+     * other channel is shutdown instead.</li>
+     * </ul>
+     */
+    public final EpollSpliceRelay relay(final AbstractEpollStreamChannel ch) {
+        checkNotNull(ch, "ch");
+        if (ch == this) {
+            throw new IllegalArgumentException("ch: " + ch + " (expected: another channel)");
+        }
+        if (ch.eventLoop() != eventLoop()) {
+            throw new IllegalArgumentException("EventLoops are not the same.");
+        }
+        if (ch.config().getEpollMode() != EpollMode.LEVEL_TRIGGERED
+                || config().getEpollMode() != EpollMode.LEVEL_TRIGGERED) {
+            throw new IllegalStateException("relay() supported only when using " + EpollMode.LEVEL_TRIGGERED);
+        }
+        final EpollSpliceRelay relay = new EpollSpliceRelay(this, ch);
+        EventLoop eventLoop = eventLoop();
+        if (eventLoop.inEventLoop()) {
+            relay.start();
+        } else {
+            eventLoop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    relay.start();
+                }
+            });
+        }
+        return relay;
+    }
+
     private void failSpliceIfClosed(ChannelPromise promise) {
         if (!isOpen()) {
             // Seems like the Channel was closed in the meantime try to fail the promise to prevent any
@@ -289,7 +351,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
 
         if (buf.hasMemoryAddress() || buf.nioBufferCount() == 1) {
+            if (zeroCopyCurrent || isZeroCopyCandidate(buf)) {
+                return writeBytesZeroCopy(in, buf, writeSpinCount);
+            }
             int writtenBytes = doWriteBytes(buf, writeSpinCount);
+            incrementCopiedBytes(writtenBytes);
             in.removeBytes(writtenBytes);
             return writtenBytes == readableBytes;
         } else {
@@ -337,6 +403,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 }
             } while (offset < end && localWrittenBytes > 0);
         }
+        incrementCopiedBytes(initialExpectedWrittenBytes - expectedWrittenBytes);
         in.removeBytes(initialExpectedWrittenBytes - expectedWrittenBytes);
         return done;
     }
@@ -379,10 +446,242 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             } while (offset < end && localWrittenBytes > 0);
         }
 
+        incrementCopiedBytes(initialExpectedWrittenBytes - expectedWrittenBytes);
         in.removeBytes(initialExpectedWrittenBytes - expectedWrittenBytes);
         return done;
     }
 
+    /**
+     * Write the given {@link ByteBuf} with {@code MSG_ZEROCOPY}. The {@link ByteBuf} is retained for each write
+     * until the kernel reports that it is done with its memory. Once it was written completely its
+     * {@link ChannelPromise} is taken out of the {@link ChannelOutboundBuffer} and notified at the same time as the
+     * last zerocopy write of it. The rest of a {@link ByteBuf} which was written partly with {@code MSG_ZEROCOPY} is
+     * always written here, even if it is smaller than the threshold now, so its promise is not notified too early.
+     */
+    private boolean writeBytesZeroCopy(ChannelOutboundBuffer in, ByteBuf buf, int writeSpinCount) throws IOException {
+        final int readableBytes = buf.readableBytes();
+        final long memoryAddress = buf.memoryAddress();
+        int readerIndex = buf.readerIndex();
+        final int writerIndex = buf.writerIndex();
+        int writtenBytes = 0;
+        for (int i = writeSpinCount - 1; i >= 0; i--) {
+            // Just copy if MSG_ZEROCOPY was disabled in the meantime, as the kernel would not report completions.
+            int localWrittenBytes = writeZeroCopyThreshold < 0 ? -1 : Native.sendAddressZeroCopy(
+                    fd().intValue(), memoryAddress, readerIndex, writerIndex);
+            if (localWrittenBytes > 0) {
+                addZeroCopyWrite(buf.retain(), localWrittenBytes);
+                zeroCopyCurrent = true;
+            } else if (localWrittenBytes < 0) {
+                // The kernel can not track more zerocopy writes right now, just copy.
+                localWrittenBytes = fd().writeAddress(memoryAddress, readerIndex, writerIndex);
+                incrementCopiedBytes(localWrittenBytes);
+            }
+            if (localWrittenBytes == 0) {
+                break;
+            }
+            writtenBytes += localWrittenBytes;
+            if (writtenBytes == readableBytes) {
+                break;
+            }
+            readerIndex += localWrittenBytes;
+        }
+
+        if (writtenBytes != readableBytes) {
+            in.removeBytes(writtenBytes);
+            return false;
+        }
+        if (zeroCopyCurrent) {
+            // The last zerocopy write belongs to this message, as only the current message is written this way.
+            zeroCopyCurrent = false;
+            ZeroCopyWrite last = zeroCopyWrites.peekLast();
+            assert last != null && last.buf == buf && last.promise == null;
+            in.progress(writtenBytes);
+            ChannelPromise promise = in.removeDeferred();
+            if (promise != null) {
+                // Release the reference of the ChannelOutboundBuffer, the pending writes still hold their own.
+                buf.release();
+                last.promise = promise;
+            }
+        } else {
+            // The kernel is done with all parts of the buffer written with MSG_ZEROCOPY already.
+            in.removeBytes(writtenBytes);
+        }
+        return true;
+    }
+
+    private void addZeroCopyWrite(ByteBuf buf, int bytes) {
+        if (zeroCopyWrites == null) {
+            zeroCopyWrites = new ArrayDeque<ZeroCopyWrite>();
+            zeroCopyCompletion = new int[3];
+        }
+        zeroCopyWrites.add(new ZeroCopyWrite(nextZeroCopyId++, buf, bytes));
+    }
+
+    /**
+     * Process the zerocopy completion notifications in the error queue of the socket and release the
+     * {@link ByteBuf}s and notify the {@link ChannelPromise}s of all writes which are done, in order.
+     */
+    private void processZeroCopyCompletions() throws IOException {
+        ArrayDeque<ZeroCopyWrite> writes = zeroCopyWrites;
+        int[] completion = zeroCopyCompletion;
+        while (Native.recvZeroCopyCompletion(fd().intValue(), completion)) {
+            int first = completion[0];
+            int last = completion[1];
+            boolean copied = completion[2] != 0;
+            // The ids are consecutive and may wrap around.
+            for (ZeroCopyWrite write : writes) {
+                if (write.id - last > 0) {
+                    break;
+                }
+                if (write.id - first >= 0) {
+                    write.completed = true;
+                    write.copied = copied;
+                }
+            }
+        }
+
+        for (;;) {
+            ZeroCopyWrite write = writes.peekFirst();
+            if (write == null || !write.completed) {
+                break;
+            }
+            writes.removeFirst();
+            if (write.copied) {
+                copiedBytes += write.bytes;
+            } else {
+                zeroCopyBytes += write.bytes;
+            }
+            write.buf.release();
+            if (write.promise != null) {
+                write.promise.trySuccess();
+            }
+        }
+    }
+
+    // Must be called from the EventLoop.
+    boolean hasPendingZeroCopyWrites() {
+        return zeroCopyWrites != null && !zeroCopyWrites.isEmpty();
+    }
+
+    /**
+     * Returns an {@link Executor} which runs the close of this channel once the kernel completed all pending zerocopy
+     * writes, or after one second. Until then the completions are checked from time to time on the {@link EventLoop},
+     * so neither it nor the {@code closeExecutor} is blocked while waiting. The close is run on the
+     * {@code closeExecutor}, or on the {@link EventLoop} if it is {@code null}.
+     */
+    final Executor zeroCopyCloseExecutor(final Executor closeExecutor) {
+        final long deadline = System.nanoTime() + ZEROCOPY_CLOSE_TIMEOUT_NANOS;
+        return new Executor() {
+            @Override
+            public void execute(final Runnable task) {
+                eventLoop().execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            processZeroCopyCompletions();
+                        } catch (Throwable cause) {
+                            logger.debug("Failed to process the zerocopy completions of {}",
+                                    AbstractEpollStreamChannel.this, cause);
+                            // The socket is reset when closed, so do not wait any longer.
+                            closeNow();
+                            return;
+                        }
+                        // Scheduled tasks are not run anymore once the EventLoop is shut down, so do not wait then.
+                        if (zeroCopyWrites.isEmpty() || eventLoop().isShuttingDown() ||
+                                System.nanoTime() - deadline >= 0) {
+                            closeNow();
+                        } else {
+                            eventLoop().schedule(this, 1, TimeUnit.MILLISECONDS);
+                        }
+                    }
+
+                    private void closeNow() {
+                        if (closeExecutor == null) {
+                            task.run();
+                        } else {
+                            closeExecutor.execute(task);
+                        }
+                    }
+                });
+            }
+        };
+    }
+
+    /**
+     * Reset the socket when closed if the kernel did not complete all zerocopy writes yet, so the kernel drops the
+     * pending data and is done with the memory once {@link Socket#close()} returns. The completions are awaited
+     * before by the {@link #zeroCopyCloseExecutor(Executor)}, unless the channel is closed right away.
+     */
+    private void resetIfZeroCopyPending() {
+        if (!hasPendingZeroCopyWrites()) {
+            return;
+        }
+        try {
+            processZeroCopyCompletions();
+            if (zeroCopyWrites.isEmpty()) {
+                return;
+            }
+        } catch (Throwable cause) {
+            logger.debug("Failed to process the zerocopy completions of {}", this, cause);
+        }
+        try {
+            fd().setSoLinger(0);
+        } catch (IOException ignore) {
+            // The socket is closed anyway.
+        }
+    }
+
+    /**
+     * Release the {@link ByteBuf}s of all zerocopy writes which were not completed before the socket was closed and
+     * fail their {@link ChannelPromise}s.
+     */
+    private void failZeroCopyWrites() {
+        zeroCopyCurrent = false;
+        if (zeroCopyWrites == null) {
+            return;
+        }
+        for (;;) {
+            ZeroCopyWrite write = zeroCopyWrites.poll();
+            if (write == null) {
+                break;
+            }
+            write.buf.release();
+            if (write.promise != null) {
+                write.promise.tryFailure(DO_CLOSE_CLOSED_CHANNEL_EXCEPTION);
+            }
+        }
+    }
+
+    private boolean isZeroCopyCandidate(Object msg) {
+        if (writeZeroCopyThreshold < 0 || !(msg instanceof ByteBuf)) {
+            return false;
+        }
+        ByteBuf buf = (ByteBuf) msg;
+        return buf.hasMemoryAddress() && buf.readableBytes() >= writeZeroCopyThreshold;
+    }
+
+    private void incrementCopiedBytes(long bytes) {
+        if (writeZeroCopyThreshold >= 0) {
+            copiedBytes += bytes;
+        }
+    }
+
+    /**
+     * Returns the minimum number of bytes a {@link ByteBuf} needs to be written with {@code MSG_ZEROCOPY} or
+     * {@code -1} if {@code MSG_ZEROCOPY} is not used.
+     */
+    int zeroCopyThreshold() {
+        return -1;
+    }
+
+    long zeroCopyBytes() {
+        return zeroCopyBytes;
+    }
+
+    long copiedBytes() {
+        return copiedBytes;
+    }
+
     /**
      * Write a {@link DefaultFileRegion}
      *
@@ -464,7 +763,18 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     protected void doWrite(ChannelOutboundBuffer in) throws Exception {
+        try {
+            doWrite0(in);
+        } catch (Exception e) {
+            // The current message is failed by the caller, so the next one starts from scratch.
+            zeroCopyCurrent = false;
+            throw e;
+        }
+    }
+
+    private void doWrite0(ChannelOutboundBuffer in) throws Exception {
         int writeSpinCount = config().getWriteSpinCount();
+        writeZeroCopyThreshold = zeroCopyThreshold();
         for (; ; ) {
             final int msgCount = in.size();
 
@@ -476,7 +786,9 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             }
 
             // Do gathering write if the outbounf buffer entries start with more than one ByteBuf.
-            if (msgCount > 1 && in.current() instanceof ByteBuf) {
+            // Buffers which are written with MSG_ZEROCOPY are written on their own.
+            Object current = in.current();
+            if (msgCount > 1 && current instanceof ByteBuf && !zeroCopyCurrent && !isZeroCopyCandidate(current)) {
                 if (!doWriteMultiple(in, writeSpinCount)) {
                     // Break the loop and so set EPOLLOUT flag.
                     break;
@@ -523,6 +835,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 return false;
             }
             in.remove();
+        } else if (msg instanceof SpliceRelayTask) {
+            if (!((SpliceRelayTask) msg).spliceOut()) {
+                return false;
+            }
+            in.remove();
         } else {
             // Should never reach here.
             throw new Error();
@@ -535,7 +852,17 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         if (PlatformDependent.hasUnsafe()) {
             // this means we can cast to IovArray and write the IovArray directly.
             IovArray array = ((EpollEventLoop) eventLoop()).cleanArray();
-            in.forEachFlushedMessage(array);
+            if (writeZeroCopyThreshold < 0) {
+                in.forEachFlushedMessage(array);
+            } else {
+                CopiedBuffersProcessor processor = copiedBuffersProcessor;
+                if (processor == null) {
+                    copiedBuffersProcessor = processor = new CopiedBuffersProcessor();
+                }
+                processor.array = array;
+                in.forEachFlushedMessage(processor);
+                processor.array = null;
+            }
 
             int cnt = array.count();
             if (cnt >= 1) {
@@ -590,7 +917,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return buf;
         }
 
-        if (msg instanceof FileRegion || msg instanceof SpliceOutTask) {
+        if (msg instanceof FileRegion || msg instanceof SpliceOutTask || msg instanceof SpliceRelayTask) {
             return msg;
         }
 
@@ -647,7 +974,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     public ChannelFuture shutdownOutput(final ChannelPromise promise) {
-        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToClose();
+        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToShutdown();
         if (closeExecutor != null) {
             closeExecutor.execute(new Runnable() {
                 @Override
@@ -678,7 +1005,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     public ChannelFuture shutdownInput(final ChannelPromise promise) {
-        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToClose();
+        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToShutdown();
         if (closeExecutor != null) {
             closeExecutor.execute(new Runnable() {
                 @Override
@@ -709,7 +1036,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
     @Override
     public ChannelFuture shutdown(final ChannelPromise promise) {
-        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToClose();
+        Executor closeExecutor = ((EpollStreamUnsafe) unsafe()).prepareToShutdown();
         if (closeExecutor != null) {
             closeExecutor.execute(new Runnable() {
                 @Override
@@ -748,12 +1075,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 future.cancel(false);
                 connectTimeoutFuture = null;
             }
+            resetIfZeroCopyPending();
             // Calling super.doClose() first so splceTo(...) will fail on next call.
             super.doClose();
         } finally {
             safeClosePipe(pipeIn);
             safeClosePipe(pipeOut);
             clearSpliceQueue();
+            failZeroCopyWrites();
         }
     }
 
@@ -807,7 +1136,7 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
-    private void addToSpliceQueue0(SpliceInTask task) {
+    final void addToSpliceQueue0(SpliceInTask task) {
         if (spliceQueue == null) {
             spliceQueue = PlatformDependent.newMpscQueue();
         }
@@ -821,6 +1150,14 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             return super.prepareToClose();
         }
 
+        /**
+         * Prepares the channel for a shutdown of the input and / or output and returns the {@link Executor} to run it
+         * on, or {@code null} to run it on the {@link EventLoop}.
+         */
+        Executor prepareToShutdown() {
+            return prepareToClose();
+        }
+
         private void handleReadException(ChannelPipeline pipeline, ByteBuf byteBuf, Throwable cause, boolean close,
                                          EpollRecvByteAllocatorHandle allocHandle) {
             if (byteBuf != null) {
@@ -960,6 +1297,16 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
 
         @Override
         void epollOutReady() {
+            if (hasPendingZeroCopyWrites()) {
+                // The kernel signals EPOLLERR when zerocopy completions are waiting in the error queue.
+                try {
+                    processZeroCopyCompletions();
+                } catch (IOException e) {
+                    pipeline().fireExceptionCaught(e);
+                    close(voidPromise());
+                    return;
+                }
+            }
             if (connectPromise != null) {
                 // pending connect which is now complete so handle it.
                 finishConnect();
@@ -1125,8 +1472,8 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                 // on multiple Channels pointing to one target Channel.
                 FileDescriptor pipeOut = ch.pipeOut;
                 if (pipeOut == null) {
-                    // Create a new pipe as non was created before.
-                    FileDescriptor[] pipe = pipe();
+                    // Take a pipe from the pool as non was created before.
+                    FileDescriptor[] pipe = ((EpollEventLoop) eventLoop()).acquirePipe();
                     ch.pipeIn = pipe[0];
                     pipeOut = ch.pipeOut = pipe[1];
                 }
@@ -1225,9 +1572,11 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
             }
 
             try {
-                FileDescriptor[] pipe = pipe();
+                EpollEventLoop loop = (EpollEventLoop) eventLoop();
+                FileDescriptor[] pipe = loop.acquirePipe();
                 FileDescriptor pipeIn = pipe[0];
                 FileDescriptor pipeOut = pipe[1];
+                boolean drained = false;
                 try {
                     int splicedIn = spliceIn(pipeOut, handle);
                     if (splicedIn > 0) {
@@ -1239,15 +1588,20 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
                             int splicedOut = Native.splice(pipeIn.intValue(), -1, fd.intValue(), offset, splicedIn);
                             splicedIn -= splicedOut;
                         } while (splicedIn > 0);
-                        if (len == 0) {
-                            promise.setSuccess();
-                            return true;
-                        }
+                    }
+                    drained = true;
+                    if (len == 0) {
+                        promise.setSuccess();
+                        return true;
                     }
                     return false;
                 } finally {
-                    safeClosePipe(pipeIn);
-                    safeClosePipe(pipeOut);
+                    if (drained) {
+                        // Nothing is left in the pipe so it can be used by the next splice operation.
+                        loop.releasePipe(pipe);
+                    } else {
+                        EpollEventLoop.closePipe(pipe);
+                    }
                 }
             } catch (Throwable cause) {
                 promise.setFailure(cause);
@@ -1256,6 +1610,200 @@ public abstract class AbstractEpollStreamChannel extends AbstractEpollChannel im
         }
     }
 
+    /**
+     * Relays the data read from this channel to another channel for an {@link EpollSpliceRelay}. It sits in the
+     * splice queue of this channel for reading and in the {@link ChannelOutboundBuffer} of the other channel while
+     * the data in its pipe was not completely written yet.
+     */
+    final class SpliceRelayTask extends SpliceInTask {
+        private final AbstractEpollStreamChannel ch;
+        private final EpollSpliceRelay relay;
+        private FileDescriptor[] pipe;
+        // The number of bytes that were spliced into the pipe but not out of it yet.
+        private int pending;
+        private boolean writePending;
+        private boolean readPaused;
+        private boolean sourceClosed;
+        private boolean done;
+        private volatile long relayedBytes;
+
+        SpliceRelayTask(AbstractEpollStreamChannel ch, EpollSpliceRelay relay) {
+            // The promise is not used, the outcome of the relay is reported via the EpollSpliceRelay.
+            super(Integer.MAX_VALUE, newPromise());
+            this.ch = ch;
+            this.relay = relay;
+        }
+
+        long relayedBytes() {
+            return relayedBytes;
+        }
+
+        void start() {
+            assert eventLoop().inEventLoop();
+            addToSpliceQueue0(this);
+        }
+
+        @Override
+        boolean spliceIn(RecvByteBufAllocator.Handle handle) {
+            assert eventLoop().inEventLoop();
+            if (done) {
+                return true;
+            }
+            if (writePending) {
+                // The other channel did not accept all of the data which was read before yet.
+                pauseRead();
+                return false;
+            }
+            try {
+                if (pipe == null) {
+                    pipe = ((EpollEventLoop) eventLoop()).acquirePipe();
+                }
+                int splicedIn = 0;
+                for (;;) {
+                    // Splicing until either the pipe is full or there is nothing left to splice.
+                    int localSplicedIn = Native.splice(fd().intValue(), -1, pipe[1].intValue(), -1, Integer.MAX_VALUE);
+                    if (localSplicedIn == 0) {
+                        break;
+                    }
+                    splicedIn += localSplicedIn;
+                }
+                if (splicedIn > 0) {
+                    pending = splicedIn;
+                    // Reading is done for now, if autoRead is false this ensures we stop until read() is called.
+                    ((AbstractEpollUnsafe) unsafe()).readPending = false;
+                    writePending = true;
+                    // Just call unsafe().write(...) and flush() as we not want to traverse the whole pipeline for this
+                    // case.
+                    ch.unsafe().write(this, ch.unsafe().voidPromise());
+                    ch.unsafe().flush();
+                    if (writePending) {
+                        pauseRead();
+                    }
+                    return false;
+                }
+                if (((EpollRecvByteAllocatorHandle) handle).isReceivedRdHup()) {
+                    // Nothing was spliced after the remote peer shutdown its output, so we reached the end of input.
+                    releasePipe();
+                    if (isAllowHalfClosure(config())) {
+                        ch.shutdownOutput();
+                        relay.inputShutdown();
+                    }
+                    // If half-closure is not allowed this channel closes itself and so ends the relay.
+                    return true;
+                }
+                return false;
+            } catch (Throwable cause) {
+                relay.fail(cause);
+                return true;
+            }
+        }
+
+        boolean spliceOut() throws Exception {
+            assert ch.eventLoop().inEventLoop();
+            if (done) {
+                return true;
+            }
+            try {
+                while (pending > 0) {
+                    int splicedOut = Native.splice(pipe[0].intValue(), -1, ch.fd().intValue(), -1, pending);
+                    if (splicedOut == 0) {
+                        return false;
+                    }
+                    pending -= splicedOut;
+                    relayedBytes += splicedOut;
+                }
+            } catch (IOException e) {
+                relay.fail(e);
+                throw e;
+            }
+            writePending = false;
+            if (sourceClosed) {
+                // Everything that was read before this channel was closed was written so close the other one now.
+                releasePipe();
+                done = true;
+                ch.close();
+            } else if (readPaused) {
+                readPaused = false;
+                read();
+            }
+            return true;
+        }
+
+        /**
+         * Called once this channel was closed.
+         */
+        void sourceClosed() {
+            if (done) {
+                return;
+            }
+            sourceClosed = true;
+            if (!writePending) {
+                releasePipe();
+                done = true;
+                ch.close();
+            }
+        }
+
+        /**
+         * Called once the other channel was closed.
+         */
+        void targetClosed() {
+            done = true;
+            writePending = false;
+            releasePipe();
+        }
+
+        private void pauseRead() {
+            readPaused = true;
+            ((AbstractEpollUnsafe) unsafe()).clearEpollIn0();
+        }
+
+        private void releasePipe() {
+            if (pipe != null) {
+                if (pending == 0) {
+                    ((EpollEventLoop) eventLoop()).releasePipe(pipe);
+                } else {
+                    // The data in the pipe can not be written anymore.
+                    EpollEventLoop.closePipe(pipe);
+                    pending = 0;
+                }
+                pipe = null;
+            }
+        }
+    }
+
+    /**
+     * A part of a {@link ByteBuf} which was written with {@code MSG_ZEROCOPY} and which the kernel may still use.
+     */
+    private static final class ZeroCopyWrite {
+        final int id;
+        final ByteBuf buf;
+        final int bytes;
+        // Set once the whole ByteBuf was written.
+        ChannelPromise promise;
+        boolean completed;
+        boolean copied;
+
+        ZeroCopyWrite(int id, ByteBuf buf, int bytes) {
+            this.id = id;
+            this.buf = buf;
+            this.bytes = bytes;
+        }
+    }
+
+    /**
+     * Fills an {@link IovArray} for a gathering write, stopping at the first {@link ByteBuf} which should be written
+     * with {@code MSG_ZEROCOPY} instead.
+     */
+    private final class CopiedBuffersProcessor implements ChannelOutboundBuffer.MessageProcessor {
+        IovArray array;
+
+        @Override
+        public boolean processMessage(Object msg) throws Exception {
+            return !isZeroCopyCandidate(msg) && array.processMessage(msg);
+        }
+    }
+
     private final class SocketWritableByteChannel implements WritableByteChannel {
 
         @Override
@@ -35,6 +35,8 @@ import io.netty.channel.unix.Socket;
 import static io.netty.channel.unix.Socket.newSocketDgram;
 import io.netty.util.internal.PlatformDependent;
 import io.netty.util.internal.StringUtil;
+import io.netty.util.internal.logging.InternalLogger;
+import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -52,7 +54,10 @@ import java.util.List;
  * maximal performance.
  */
 public final class EpollDatagramChannel extends AbstractEpollChannel implements DatagramChannel {
+    private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollDatagramChannel.class);
     private static final ChannelMetadata METADATA = new ChannelMetadata(true);
+    // The maximum size of the datagrams which UDP_GRO coalesces.
+    private static final int MAX_GRO_DATAGRAM_SIZE = 64 * 1024;
     private static final String EXPECTED_TYPES =
             " (expected: " + StringUtil.simpleClassName(DatagramPacket.class) + ", " +
                     StringUtil.simpleClassName(AddressedEnvelope.class) + '<' +
@@ -296,7 +301,8 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
             try {
                 // Check if sendmmsg(...) is supported which is only the case for GLIBC 2.14+
-                if (Native.IS_SUPPORTING_SENDMMSG && in.size() > 1) {
+                // SegmentedDatagramPackets are always written via sendmmsg(...) as it allows to pass the segment size.
+                if (Native.IS_SUPPORTING_SENDMMSG && (in.size() > 1 || msg instanceof SegmentedDatagramPacket)) {
                     NativeDatagramPacketArray array = NativeDatagramPacketArray.getInstance(in);
                     int cnt = array.count();
 
@@ -395,6 +401,21 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
 
     @Override
     protected Object filterOutboundMessage(Object msg) {
+        if (msg instanceof SegmentedDatagramPacket) {
+            if (!SegmentedDatagramPacket.isSupported()) {
+                throw new UnsupportedOperationException(
+                        "unsupported message type: " + StringUtil.simpleClassName(msg) + EXPECTED_TYPES);
+            }
+            SegmentedDatagramPacket packet = (SegmentedDatagramPacket) msg;
+            ByteBuf content = packet.content();
+            if (content.hasMemoryAddress()) {
+                return msg;
+            }
+            // We can only handle direct buffers so we need to copy if a non direct is passed to write.
+            return new SegmentedDatagramPacket(newDirectBuffer(packet, content), packet.segmentSize(),
+                    packet.recipient());
+        }
+
         if (msg instanceof DatagramPacket) {
             DatagramPacket packet = (DatagramPacket) msg;
             ByteBuf content = packet.content();
@@ -532,6 +553,8 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
             allocHandle.reset(config);
             epollInBefore();
 
+            final int maxDatagramSize = EpollDatagramChannel.this.config.getMaxDatagramPayloadSize();
+            final boolean udpGro = EpollDatagramChannel.this.config.isUdpGro();
             Throwable exception = null;
             try {
                 ByteBuf data = null;
@@ -539,6 +562,27 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                     do {
                         data = allocHandle.allocate(allocator);
                         allocHandle.attemptedBytesRead(data.writableBytes());
+                        int writable = data.writableBytes();
+                        if (udpGro || maxDatagramSize > 0 && writable / maxDatagramSize > 1 &&
+                                data.hasMemoryAddress() && Native.IS_SUPPORTING_RECVMMSG) {
+                            // With UDP_GRO we always need recvmmsg(...) to learn about coalesced datagrams, as
+                            // recvfrom(...) would pass them on as one. They may be much larger than maxDatagramSize,
+                            // so just use the whole buffer for one datagram if it can not be split into chunks which
+                            // can hold them.
+                            final int chunkSize;
+                            if (udpGro) {
+                                chunkSize = Math.min(MAX_GRO_DATAGRAM_SIZE, writable);
+                            } else {
+                                chunkSize = maxDatagramSize;
+                            }
+                            ByteBuf buffer = data;
+                            data = null;
+                            if (!recvmmsg(allocHandle, buffer, chunkSize)) {
+                                break;
+                            }
+                            continue;
+                        }
+
                         final DatagramSocketAddress remoteAddress;
                         if (data.hasMemoryAddress()) {
                             // has a memory address so use optimized call
@@ -586,5 +630,86 @@ public final class EpollDatagramChannel extends AbstractEpollChannel implements
                 epollInFinally(config);
             }
         }
+
+        /**
+         * Receives as many datagrams of up to {@code maxDatagramSize} bytes as fit into {@code data} with one
+         * {@code recvmmsg(...)} call and adds them to {@link #readBuf} as slices of {@code data}, which is released.
+         * Datagrams which were coalesced by {@code UDP_GRO} are split up again. If {@code data} has no memory address
+         * the datagrams are received into a direct buffer first and then copied.
+         * Returns {@code false} if no datagram was ready.
+         */
+        private boolean recvmmsg(EpollRecvByteAllocatorHandle allocHandle, ByteBuf data, int maxDatagramSize)
+                throws IOException {
+            ByteBuf buffer = null;
+            try {
+                buffer = data.hasMemoryAddress() ? data : alloc().directBuffer(data.writableBytes());
+                NativeDatagramPacketArray array = NativeDatagramPacketArray.getInstance();
+                int bufferIndex = buffer.writerIndex();
+                int writerIndex = data.writerIndex();
+                int numDatagrams = data.writableBytes() / maxDatagramSize;
+                for (int i = 0; i < numDatagrams; i++) {
+                    if (!array.addWritable(buffer, bufferIndex + i * maxDatagramSize, maxDatagramSize)) {
+                        break;
+                    }
+                }
+
+                NativeDatagramPacketArray.NativeDatagramPacket[] packets = array.packets();
+                int received = Native.recvmmsg(fd().intValue(), packets, 0, array.count());
+                if (received == 0) {
+                    allocHandle.lastBytesRead(-1);
+                    return false;
+                }
+
+                InetSocketAddress localAddress = (InetSocketAddress) localAddress();
+                int bytesReceived = 0;
+                int messagesRead = 0;
+                for (int i = 0; i < received; i++) {
+                    NativeDatagramPacketArray.NativeDatagramPacket packet = packets[i];
+                    int length = packet.receivedAmount();
+                    bytesReceived += length;
+                    int index = writerIndex + i * maxDatagramSize;
+                    if (buffer != data) {
+                        data.setBytes(index, buffer, bufferIndex + i * maxDatagramSize, length);
+                    }
+                    int segmentSize = packet.segmentSize();
+                    if (segmentSize <= 0 || segmentSize >= length) {
+                        segmentSize = length;
+                    }
+                    if (packet.isTruncated()) {
+                        // Never pass on a partial datagram, but keep the complete ones coalesced by UDP_GRO.
+                        int complete = segmentSize < length ? length - length % segmentSize : 0;
+                        if (logger.isDebugEnabled()) {
+                            logger.debug("Dropped {} bytes of a truncated datagram as it did not fit into {} bytes.",
+                                    length - complete, maxDatagramSize);
+                        }
+                        if (complete == 0) {
+                            continue;
+                        }
+                        length = complete;
+                    }
+                    // Produce one DatagramPacket per segment, the last one may be smaller.
+                    int end = index + length;
+                    do {
+                        ByteBuf content = data.retainedSlice(index, Math.min(segmentSize, end - index));
+                        try {
+                            readBuf.add(packet.newDatagramPacket(content, localAddress));
+                        } catch (Throwable t) {
+                            content.release();
+                            PlatformDependent.throwException(t);
+                        }
+                        index += segmentSize;
+                        messagesRead++;
+                    } while (index < end);
+                }
+                allocHandle.incMessagesRead(messagesRead);
+                allocHandle.lastBytesRead(bytesReceived);
+                return true;
+            } finally {
+                if (buffer != null && buffer != data) {
+                    buffer.release();
+                }
+                data.release();
+            }
+        }
     }
 }
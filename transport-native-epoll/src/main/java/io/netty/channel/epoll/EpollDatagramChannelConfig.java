@@ -24,6 +24,7 @@ import io.netty.channel.MessageSizeEstimator;
 import io.netty.channel.RecvByteBufAllocator;
 import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.DatagramChannelConfig;
+import io.netty.util.internal.ObjectUtil;
 
 import java.io.IOException;
 import java.net.InetAddress;
@@ -34,6 +35,8 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
     private static final RecvByteBufAllocator DEFAULT_RCVBUF_ALLOCATOR = new FixedRecvByteBufAllocator(2048);
     private final EpollDatagramChannel datagramChannel;
     private boolean activeOnOpen;
+    private volatile int maxDatagramSize;
+    private volatile boolean udpGro;
 
     EpollDatagramChannelConfig(EpollDatagramChannel channel) {
         super(channel);
@@ -50,7 +53,9 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
                 ChannelOption.SO_REUSEADDR, ChannelOption.IP_MULTICAST_LOOP_DISABLED,
                 ChannelOption.IP_MULTICAST_ADDR, ChannelOption.IP_MULTICAST_IF, ChannelOption.IP_MULTICAST_TTL,
                 ChannelOption.IP_TOS, ChannelOption.DATAGRAM_CHANNEL_ACTIVE_ON_REGISTRATION,
-                EpollChannelOption.SO_REUSEPORT);
+                EpollChannelOption.SO_REUSEPORT, EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE,
+                EpollChannelOption.UDP_SEGMENT, EpollChannelOption.UDP_GRO,
+                EpollChannelOption.SO_BUSY_POLL, EpollChannelOption.SO_PREFER_BUSY_POLL);
     }
 
     @SuppressWarnings({"unchecked", "deprecation"})
@@ -89,6 +94,21 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
         if (option == EpollChannelOption.SO_REUSEPORT) {
             return (T) Boolean.valueOf(isReusePort());
         }
+        if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
+            return (T) Integer.valueOf(getMaxDatagramPayloadSize());
+        }
+        if (option == EpollChannelOption.UDP_SEGMENT) {
+            return (T) Integer.valueOf(getUdpSegment());
+        }
+        if (option == EpollChannelOption.UDP_GRO) {
+            return (T) Boolean.valueOf(isUdpGro());
+        }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
+        if (option == EpollChannelOption.SO_PREFER_BUSY_POLL) {
+            return (T) Boolean.valueOf(isSoPreferBusyPoll());
+        }
         return super.getOption(option);
     }
 
@@ -119,6 +139,16 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             setActiveOnOpen((Boolean) value);
         } else if (option == EpollChannelOption.SO_REUSEPORT) {
             setReusePort((Boolean) value);
+        } else if (option == EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE) {
+            setMaxDatagramPayloadSize((Integer) value);
+        } else if (option == EpollChannelOption.UDP_SEGMENT) {
+            setUdpSegment((Integer) value);
+        } else if (option == EpollChannelOption.UDP_GRO) {
+            setUdpGro((Boolean) value);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_PREFER_BUSY_POLL) {
+            setSoPreferBusyPoll((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -373,4 +403,136 @@ public final class EpollDatagramChannelConfig extends EpollChannelConfig impleme
             throw new ChannelException(e);
         }
     }
+
+    /**
+     * Set the maximum size of a datagram payload which is received. If set to a value greater than {@code 0}, the
+     * {@link io.netty.buffer.ByteBuf} allocated by the {@link RecvByteBufAllocator} is split into chunks of this size
+     * and filled with up to that many datagrams by one {@code recvmmsg(...)} call. Each of them is passed on as a
+     * {@link io.netty.channel.socket.DatagramPacket} which holds a slice of the buffer, so the
+     * {@link RecvByteBufAllocator} needs to allocate a multiple of this size to read more than one datagram at once.
+     * Datagrams which are larger than this size are dropped.
+     *
+     * {@code 0} (the default) reads one datagram per system call.
+     */
+    public EpollDatagramChannelConfig setMaxDatagramPayloadSize(int maxDatagramSize) {
+        this.maxDatagramSize = ObjectUtil.checkPositiveOrZero(maxDatagramSize, "maxDatagramSize");
+        return this;
+    }
+
+    /**
+     * Get the maximum size of a datagram payload which is received, {@code 0} if datagrams are read one by one.
+     */
+    public int getMaxDatagramPayloadSize() {
+        return maxDatagramSize;
+    }
+
+    /**
+     * Returns the segment size which is used to split the data written by each call into multiple datagrams,
+     * {@code 0} if segmentation offload is not used.
+     */
+    public int getUdpSegment() {
+        try {
+            return Native.getUdpSegment(datagramChannel.fd().intValue());
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the UDP_SEGMENT option on the underlying Channel. If set to a value greater than {@code 0} the kernel (or
+     * the network card) splits each written payload into datagrams of this size, which is a lot cheaper than writing
+     * them one by one. Use {@link SegmentedDatagramPacket} to set the segment size per written message instead.
+     *
+     * This needs linux 4.18 or later, see {@link SegmentedDatagramPacket#isSupported()}.
+     */
+    public EpollDatagramChannelConfig setUdpSegment(int segmentSize) {
+        try {
+            Native.setUdpSegment(datagramChannel.fd().intValue(), segmentSize);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the UDP_GRO option is set.
+     */
+    public boolean isUdpGro() {
+        return udpGro;
+    }
+
+    /**
+     * Set the UDP_GRO option on the underlying Channel. If enabled the kernel may coalesce datagrams of the same size
+     * which are received from the same sender into one, which is split up again into one
+     * {@link io.netty.channel.socket.DatagramPacket} per datagram when read. The {@link RecvByteBufAllocator}
+     * needs to allocate buffers which are large enough to hold the coalesced datagrams (up to 64KB).
+     *
+     * This needs linux 5.0 or later, and {@code recvmmsg(...)} to learn about the coalesced datagrams.
+     */
+    public EpollDatagramChannelConfig setUdpGro(boolean udpGro) {
+        if (udpGro && !Native.IS_SUPPORTING_RECVMMSG) {
+            throw new UnsupportedOperationException("UDP_GRO needs recvmmsg(...)");
+        }
+        try {
+            Native.setUdpGro(datagramChannel.fd().intValue(), udpGro ? 1 : 0);
+            this.udpGro = udpGro;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the number of microseconds the kernel busy polls the device queue for new packets when the receive
+     * queue of the socket is empty, {@code 0} if busy polling is disabled.
+     */
+    public int getSoBusyPoll() {
+        try {
+            return Native.getSoBusyPoll(datagramChannel.fd().intValue());
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the SO_BUSY_POLL option on the underlying Channel. If set to a value greater than {@code 0} the kernel busy
+     * polls the device queue for up to this many microseconds when the receive queue of the socket is empty, which
+     * lowers the latency of reads at the cost of CPU time. Setting a higher value than
+     * {@code net.core.busy_poll} needs {@code CAP_NET_ADMIN}. This works well together with
+     * {@link EpollEventLoop#setSpinTime(long, java.util.concurrent.TimeUnit)}.
+     */
+    public EpollDatagramChannelConfig setSoBusyPoll(int busyPollMicros) {
+        try {
+            Native.setSoBusyPoll(datagramChannel.fd().intValue(), busyPollMicros);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the SO_PREFER_BUSY_POLL option is set.
+     */
+    public boolean isSoPreferBusyPoll() {
+        try {
+            return Native.isSoPreferBusyPoll(datagramChannel.fd().intValue()) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the SO_PREFER_BUSY_POLL option on the underlying Channel. If enabled the kernel defers the interrupts of the
+     * device queue while the application keeps busy polling it, so packets are only picked up by busy polling.
+     *
+     * This needs linux 5.11 or later.
+     */
+    public EpollDatagramChannelConfig setSoPreferBusyPoll(boolean preferBusyPoll) {
+        try {
+            Native.setSoPreferBusyPoll(datagramChannel.fd().intValue(), preferBusyPoll ? 1 : 0);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
 }
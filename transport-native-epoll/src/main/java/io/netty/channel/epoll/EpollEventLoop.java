@@ -25,18 +25,23 @@ import io.netty.channel.unix.FileDescriptor;
 import io.netty.util.IntSupplier;
 import io.netty.util.collection.IntObjectHashMap;
 import io.netty.util.collection.IntObjectMap;
+import io.netty.util.concurrent.EventExecutorMetricsListener;
 import io.netty.util.concurrent.RejectedExecutionHandler;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 import io.netty.util.internal.ObjectUtil;
 import io.netty.util.internal.PlatformDependent;
+import io.netty.util.internal.SystemPropertyUtil;
 import io.netty.util.internal.logging.InternalLogger;
 import io.netty.util.internal.logging.InternalLoggerFactory;
 
 import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 /**
@@ -46,13 +51,24 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     private static final InternalLogger logger = InternalLoggerFactory.getInstance(EpollEventLoop.class);
     private static final AtomicIntegerFieldUpdater<EpollEventLoop> WAKEN_UP_UPDATER =
             AtomicIntegerFieldUpdater.newUpdater(EpollEventLoop.class, "wakenUp");
+    private static final int MAX_POOLED_PIPES =
+            Math.max(0, SystemPropertyUtil.getInt("io.netty.epoll.maxPooledPipes", 16));
+
+    static {
+        if (logger.isDebugEnabled()) {
+            logger.debug("-Dio.netty.epoll.maxPooledPipes: {}", MAX_POOLED_PIPES);
+        }
+    }
 
     private final FileDescriptor epollFd;
     private final FileDescriptor eventFd;
+    private final FileDescriptor timerFd;
     private final IntObjectMap<AbstractEpollChannel> channels = new IntObjectHashMap<AbstractEpollChannel>(4096);
     private final boolean allowGrowing;
     private final EpollEventArray events;
     private final IovArray iovArray = new IovArray();
+    // Empty pipes which can be reused by splice(...) operations of the channels of this EventLoop.
+    private final ArrayDeque<FileDescriptor[]> pipes = new ArrayDeque<FileDescriptor[]>();
     private final SelectStrategy selectStrategy;
     private final IntSupplier selectNowSupplier = new IntSupplier() {
         @Override
@@ -68,10 +84,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
     };
     private volatile int wakenUp;
     private volatile int ioRatio = 50;
+    private volatile long spinTimeNanos;
 
     EpollEventLoop(EventLoopGroup parent, Executor executor, int maxEvents,
-                   SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler) {
-        super(parent, executor, false, DEFAULT_MAX_PENDING_TASKS, rejectedExecutionHandler);
+                   SelectStrategy strategy, RejectedExecutionHandler rejectedExecutionHandler,
+                   ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(parent, executor, false, DEFAULT_MAX_PENDING_TASKS, rejectedExecutionHandler,
+                scheduledTaskQueueFactory);
         selectStrategy = ObjectUtil.checkNotNull(strategy, "strategy");
         if (maxEvents == 0) {
             allowGrowing = true;
@@ -83,6 +102,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         boolean success = false;
         FileDescriptor epollFd = null;
         FileDescriptor eventFd = null;
+        FileDescriptor timerFd = null;
         try {
             this.epollFd = epollFd = Native.newEpollCreate();
             this.eventFd = eventFd = Native.newEventFd();
@@ -91,6 +111,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 throw new IllegalStateException("Unable to add eventFd filedescriptor to epoll", e);
             }
+            this.timerFd = timerFd = Native.newTimerFd();
+            try {
+                // Edge-triggered so an expired timer does not need to be read.
+                Native.epollCtlAdd(epollFd.intValue(), timerFd.intValue(), Native.EPOLLIN | Native.EPOLLET);
+            } catch (IOException e) {
+                throw new IllegalStateException("Unable to add timerFd filedescriptor to epoll", e);
+            }
             success = true;
         } finally {
             if (!success) {
@@ -108,6 +135,13 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                         // ignore
                     }
                 }
+                if (timerFd != null) {
+                    try {
+                        timerFd.close();
+                    } catch (Exception e) {
+                        // ignore
+                    }
+                }
             }
         }
     }
@@ -132,6 +166,41 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         return iovArray;
     }
 
+    /**
+     * Return a pipe that can be used for splice(...) operations in this {@link EventLoop}. It must either be given
+     * back via {@link #releasePipe(FileDescriptor[])} once it is empty again or be closed.
+     */
+    FileDescriptor[] acquirePipe() throws IOException {
+        assert inEventLoop();
+        FileDescriptor[] pipe = pipes.pollLast();
+        return pipe != null ? pipe : FileDescriptor.pipe();
+    }
+
+    /**
+     * Give back a pipe that was obtained via {@link #acquirePipe()}. The pipe must not contain any data.
+     */
+    void releasePipe(FileDescriptor[] pipe) {
+        assert inEventLoop();
+        if (pipes.size() < MAX_POOLED_PIPES && !isShuttingDown()) {
+            pipes.addLast(pipe);
+        } else {
+            closePipe(pipe);
+        }
+    }
+
+    /**
+     * Close both ends of the given pipe.
+     */
+    static void closePipe(FileDescriptor[] pipe) {
+        for (FileDescriptor fd : pipe) {
+            try {
+                fd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close a pipe.", e);
+            }
+        }
+    }
+
     @Override
     protected void wakeup(boolean inEventLoop) {
         if (!inEventLoop && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
@@ -210,55 +279,112 @@ final class EpollEventLoop extends SingleThreadEventLoop {
         this.ioRatio = ioRatio;
     }
 
-    private int epollWait(boolean oldWakenUp) throws IOException {
-        int selectCnt = 0;
-        long currentTimeNanos = System.nanoTime();
-        long selectDeadLineNanos = currentTimeNanos + delayNanos(currentTimeNanos);
-        for (; ; ) {
-            long timeoutMillis = (selectDeadLineNanos - currentTimeNanos + 500000L) / 1000000L;
-            if (timeoutMillis <= 0) {
-                if (selectCnt == 0) {
-                    int ready = Native.epollWait(epollFd.intValue(), events, 0);
-                    if (ready > 0) {
-                        return ready;
-                    }
-                }
-                break;
-            }
+    /**
+     * Returns the time in nanoseconds the event loop polls for events without blocking before it blocks in
+     * {@code epoll_wait(...)}.
+     */
+    public long getSpinTimeNanos() {
+        return spinTimeNanos;
+    }
 
-            // If a task was submitted when wakenUp value was 1, the task didn't get a chance to produce wakeup event.
-            // So we need to check task queue again before calling epoll_wait. If we don't, the task might be pended
-            // until epoll_wait was timed out. It might be pended until idle timeout if IdleStateHandler existed
-            // in pipeline.
-            if (hasTasks() && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
-                return Native.epollWait(epollFd.intValue(), events, 0);
-            }
+    /**
+     * Sets the time the event loop polls for events without blocking before it blocks in {@code epoll_wait(...)}.
+     * This trades CPU time for latency, as events which arrive while spinning are processed without the cost of
+     * going to sleep and being woken up again. The default value is {@code 0}, which means the event loop blocks
+     * right away.
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        if (spinTime < 0) {
+            throw new IllegalArgumentException("spinTime: " + spinTime + " (expected: >= 0)");
+        }
+        spinTimeNanos = ObjectUtil.checkNotNull(unit, "unit").toNanos(spinTime);
+    }
 
-            int selectedKeys = Native.epollWait(epollFd.intValue(), events, (int) timeoutMillis);
-            selectCnt++;
+    private int epollWait() throws IOException {
+        // If a task was submitted when wakenUp value was 1, the task didn't get a chance to produce wakeup event.
+        // So we need to check task queue again before calling epoll_wait. If we don't, the task might be pended
+        // until epoll_wait was timed out. It might be pended until idle timeout if IdleStateHandler existed
+        // in pipeline.
+        if (hasTasks() && WAKEN_UP_UPDATER.compareAndSet(this, 0, 1)) {
+            return Native.epollWait(epollFd.intValue(), events, 0);
+        }
+
+        // The timeout is armed on the timerfd with nanosecond precision as epoll_wait only supports milliseconds.
+        // Without any scheduled task there is nothing to time out for, unless the loop is shutting down and so has
+        // to check the quiet period from time to time.
+        long timeoutNanos = isShuttingDown() ? delayNanos(System.nanoTime()) : nextScheduledTaskNano();
+        if (timeoutNanos == 0) {
+            return Native.epollWait(epollFd.intValue(), events, 0);
+        }
+
+        final long spinTimeNanos = this.spinTimeNanos;
+        if (spinTimeNanos > 0) {
+            // Never spin past the next scheduled task.
+            int ready = epollSpin(timeoutNanos > 0 ? Math.min(spinTimeNanos, timeoutNanos) : spinTimeNanos);
+            if (ready != 0 || hasTasks()) {
+                return ready;
+            }
+            timeoutNanos = isShuttingDown() ? delayNanos(System.nanoTime()) : nextScheduledTaskNano();
+            if (timeoutNanos == 0) {
+                return 0;
+            }
+        }
+        return Native.epollWait(epollFd.intValue(), events, timerFd.intValue(), timeoutNanos);
+    }
 
-            if (selectedKeys != 0 || oldWakenUp || wakenUp == 1 || hasTasks() || hasScheduledTasks()) {
-                // - Selected something,
-                // - waken up by user, or
-                // - the task queue has a pending task.
-                // - a scheduled task is ready for processing
-                return selectedKeys;
+    /**
+     * Polls for events without blocking until there are events or tasks to process, the loop is shutting down or
+     * {@code spinTimeNanos} passed.
+     */
+    private int epollSpin(long spinTimeNanos) throws IOException {
+        // The task queue is checked while spinning, so there is no need for other threads to wake us up.
+        wakenUp = 1;
+        try {
+            final long startTime = System.nanoTime();
+            for (;;) {
+                int ready = Native.epollWait(epollFd.intValue(), events, 0);
+                if (ready != 0 || hasTasks() || isShuttingDown() || System.nanoTime() - startTime >= spinTimeNanos) {
+                    return ready;
+                }
             }
-            currentTimeNanos = System.nanoTime();
+        } finally {
+            // Tasks that were submitted while wakenUp was 1 are checked for by the caller.
+            wakenUp = 0;
         }
-        return 0;
+    }
+
+    private int epollBusyWait() throws IOException {
+        long timeoutNanos = nextScheduledTaskNano();
+        return epollSpin(timeoutNanos < 0 ? Long.MAX_VALUE : timeoutNanos);
     }
 
     @Override
     protected void run() {
         for (; ; ) {
             try {
+                final EventExecutorMetricsListener metricsListener = metricsListener();
                 int strategy = selectStrategy.calculateStrategy(selectNowSupplier, hasTasks());
                 switch (strategy) {
                     case SelectStrategy.CONTINUE:
                         continue;
+                    case SelectStrategy.BUSY_WAIT:
+                        if (metricsListener == null) {
+                            strategy = epollBusyWait();
+                        } else {
+                            final long waitStartTime = System.nanoTime();
+                            strategy = epollBusyWait();
+                            metricsListener.ioWaited(System.nanoTime() - waitStartTime);
+                        }
+                        break;
                     case SelectStrategy.SELECT:
-                        strategy = epollWait(WAKEN_UP_UPDATER.getAndSet(this, 0) == 1);
+                        wakenUp = 0;
+                        if (metricsListener == null) {
+                            strategy = epollWait();
+                        } else {
+                            final long waitStartTime = System.nanoTime();
+                            strategy = epollWait();
+                            metricsListener.ioWaited(System.nanoTime() - waitStartTime);
+                        }
 
                         // 'wakenUp.compareAndSet(false, true)' is always evaluated
                         // before calling 'selector.wakeup()' to reduce the wake-up
@@ -296,7 +422,7 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                 }
 
                 final int ioRatio = this.ioRatio;
-                if (ioRatio == 100) {
+                if (ioRatio == 100 && metricsListener == null) {
                     try {
                         if (strategy > 0) {
                             processReady(events, strategy);
@@ -315,7 +441,11 @@ final class EpollEventLoop extends SingleThreadEventLoop {
                     } finally {
                         // Ensure we always run tasks.
                         final long ioTime = System.nanoTime() - ioStartTime;
-                        runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                        if (metricsListener == null) {
+                            runAllTasks(ioTime * (100 - ioRatio) / ioRatio);
+                        } else {
+                            runAllTasks(ioRatio, ioTime, metricsListener);
+                        }
                     }
                 }
                 if (allowGrowing && strategy == events.length()) {
@@ -362,6 +492,8 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             if (fd == eventFd.intValue()) {
                 // consume wakeup event
                 Native.eventFdRead(eventFd.intValue());
+            } else if (fd == timerFd.intValue()) {
+                // Just ignore as the timerfd is edge-triggered.
             } else {
                 final long ev = events.events(i);
 
@@ -430,6 +562,18 @@ final class EpollEventLoop extends SingleThreadEventLoop {
             } catch (IOException e) {
                 logger.warn("Failed to close the event fd.", e);
             }
+            try {
+                timerFd.close();
+            } catch (IOException e) {
+                logger.warn("Failed to close the timer fd.", e);
+            }
+            for (;;) {
+                FileDescriptor[] pipe = pipes.poll();
+                if (pipe == null) {
+                    break;
+                }
+                closePipe(pipe);
+            }
         } finally {
             // release native memory
             iovArray.release();
@@ -25,9 +25,11 @@ import io.netty.util.concurrent.EventExecutor;
 import io.netty.util.concurrent.EventExecutorChooserFactory;
 import io.netty.util.concurrent.RejectedExecutionHandler;
 import io.netty.util.concurrent.RejectedExecutionHandlers;
+import io.netty.util.concurrent.ScheduledTaskQueueFactory;
 
 import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * {@link EventLoopGroup} which uses epoll under the covers. Because of this
@@ -120,6 +122,23 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         Epoll.ensureAvailability();
     }
 
+    /**
+     * Create a new instance.
+     *
+     * @param scheduledTaskQueueFactory the {@link ScheduledTaskQueueFactory} which selects how the scheduled tasks
+     *                                  of the event loops are kept, for example in a
+     *                                  {@linkplain ScheduledTaskQueueFactory#timingWheel timing wheel} if there are
+     *                                  many timeouts.
+     */
+    public EpollEventLoopGroup(int nThreads, Executor executor, EventExecutorChooserFactory chooserFactory,
+                               SelectStrategyFactory selectStrategyFactory,
+                               RejectedExecutionHandler rejectedExecutionHandler,
+                               ScheduledTaskQueueFactory scheduledTaskQueueFactory) {
+        super(nThreads, executor, chooserFactory, 0, selectStrategyFactory, rejectedExecutionHandler,
+                scheduledTaskQueueFactory);
+        Epoll.ensureAvailability();
+    }
+
     /**
      * Sets the percentage of the desired amount of time spent for I/O in the child event loops.  The default value is
      * {@code 50}, which means the event loop will try to spend the same amount of time for I/O as for non-I/O tasks.
@@ -130,9 +149,24 @@ public final class EpollEventLoopGroup extends MultithreadEventLoopGroup {
         }
     }
 
+    /**
+     * Sets the time the child event loops poll for events without blocking before they block in
+     * {@code epoll_wait(...)}. The default value is {@code 0}, which means the event loops block right away.
+     *
+     * @see EpollEventLoop#setSpinTime(long, TimeUnit)
+     */
+    public void setSpinTime(long spinTime, TimeUnit unit) {
+        for (EventExecutor e : this) {
+            ((EpollEventLoop) e).setSpinTime(spinTime, unit);
+        }
+    }
+
     @Override
     protected EventLoop newChild(Executor executor, Object... args) throws Exception {
+        ScheduledTaskQueueFactory scheduledTaskQueueFactory = args.length == 4 ?
+                (ScheduledTaskQueueFactory) args[3] : ScheduledTaskQueueFactory.defaultFactory();
         return new EpollEventLoop(this, executor, (Integer) args[0],
-                ((SelectStrategyFactory) args[1]).newSelectStrategy(), (RejectedExecutionHandler) args[2]);
+                ((SelectStrategyFactory) args[1]).newSelectStrategy(), (RejectedExecutionHandler) args[2],
+                scheduledTaskQueueFactory);
     }
 }
@@ -133,6 +133,29 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
         }
     }
 
+    /**
+     * Returns the number of bytes which were written with {@code MSG_ZEROCOPY} and which the kernel did not need to
+     * copy. Only updated if {@link EpollSocketChannelConfig#setZeroCopy(boolean)} is enabled.
+     */
+    public long zeroCopyBytesWritten() {
+        return zeroCopyBytes();
+    }
+
+    /**
+     * Returns the number of bytes which were copied into the kernel when written, either because they were below
+     * {@link EpollSocketChannelConfig#getZeroCopyThreshold()} or because the kernel could not send them without
+     * copying. Only updated if {@link EpollSocketChannelConfig#setZeroCopy(boolean)} is enabled.
+     */
+    public long copiedBytesWritten() {
+        return copiedBytes();
+    }
+
+    @Override
+    int zeroCopyThreshold() {
+        EpollSocketChannelConfig config = config();
+        return config.isZeroCopy() ? config.getZeroCopyThreshold() : -1;
+    }
+
     @Override
     public InetSocketAddress remoteAddress() {
         return (InetSocketAddress) super.remoteAddress();
@@ -211,16 +234,32 @@ public final class EpollSocketChannel extends AbstractEpollStreamChannel impleme
     private final class EpollSocketChannelUnsafe extends EpollStreamUnsafe {
         @Override
         protected Executor prepareToClose() {
+            return prepareToClose(true);
+        }
+
+        @Override
+        Executor prepareToShutdown() {
+            // The channel stays registered after a shutdown, so the zerocopy completions are still processed and
+            // there is no need to wait for them.
+            return prepareToClose(false);
+        }
+
+        private Executor prepareToClose(boolean close) {
             try {
                 // Check isOpen() first as otherwise it will throw a RuntimeException
                 // when call getSoLinger() as the fd is not valid anymore.
-                if (isOpen() && config().getSoLinger() > 0) {
-                    // We need to cancel this key of the channel so we may not end up in a eventloop spin
-                    // because we try to read or write until the actual close happens which may be later due
-                    // SO_LINGER handling.
-                    // See https://github.com/netty/netty/issues/4449
-                    ((EpollEventLoop) eventLoop()).remove(EpollSocketChannel.this);
-                    return GlobalEventExecutor.INSTANCE;
+                if (isOpen()) {
+                    boolean soLinger = config().getSoLinger() > 0;
+                    boolean zeroCopyPending = close && hasPendingZeroCopyWrites();
+                    if (soLinger || zeroCopyPending) {
+                        // We need to cancel this key of the channel so we may not end up in a eventloop spin
+                        // because we try to read or write until the actual close happens which may be later due
+                        // SO_LINGER handling or waiting for the kernel to complete MSG_ZEROCOPY writes.
+                        // See https://github.com/netty/netty/issues/4449
+                        ((EpollEventLoop) eventLoop()).remove(EpollSocketChannel.this);
+                        Executor closeExecutor = soLinger ? GlobalEventExecutor.INSTANCE : null;
+                        return zeroCopyPending ? zeroCopyCloseExecutor(closeExecutor) : closeExecutor;
+                    }
                 }
             } catch (Throwable ignore) {
                 // Ignore the error as the underlying channel may be closed in the meantime and so
@@ -26,14 +26,19 @@ import io.netty.channel.WriteBufferWaterMark;
 import io.netty.channel.socket.SocketChannelConfig;
 import io.netty.util.internal.PlatformDependent;
 
+import static io.netty.util.internal.ObjectUtil.checkPositiveOrZero;
+
 import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Map;
 
 public final class EpollSocketChannelConfig extends EpollChannelConfig implements SocketChannelConfig {
     private static final long MAX_UINT32_T = 0xFFFFFFFFL;
+    private static final int DEFAULT_ZEROCOPY_THRESHOLD = 64 * 1024;
     private final EpollSocketChannel channel;
     private volatile boolean allowHalfClosure;
+    private volatile boolean zeroCopy;
+    private volatile int zeroCopyThreshold = DEFAULT_ZEROCOPY_THRESHOLD;
 
     /**
      * Creates a new instance.
@@ -54,7 +59,9 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
                 SO_RCVBUF, SO_SNDBUF, TCP_NODELAY, SO_KEEPALIVE, SO_REUSEADDR, SO_LINGER, IP_TOS,
                 ALLOW_HALF_CLOSURE, EpollChannelOption.TCP_CORK, EpollChannelOption.TCP_NOTSENT_LOWAT,
                 EpollChannelOption.TCP_KEEPCNT, EpollChannelOption.TCP_KEEPIDLE, EpollChannelOption.TCP_KEEPINTVL,
-                EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK);
+                EpollChannelOption.TCP_MD5SIG, EpollChannelOption.TCP_QUICKACK, EpollChannelOption.SO_ZEROCOPY,
+                EpollChannelOption.ZEROCOPY_THRESHOLD, EpollChannelOption.SO_BUSY_POLL,
+                EpollChannelOption.SO_PREFER_BUSY_POLL);
     }
 
     @SuppressWarnings("unchecked")
@@ -105,6 +112,18 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         if (option == EpollChannelOption.TCP_QUICKACK) {
             return (T) Boolean.valueOf(isTcpQuickAck());
         }
+        if (option == EpollChannelOption.SO_ZEROCOPY) {
+            return (T) Boolean.valueOf(isZeroCopy());
+        }
+        if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            return (T) Integer.valueOf(getZeroCopyThreshold());
+        }
+        if (option == EpollChannelOption.SO_BUSY_POLL) {
+            return (T) Integer.valueOf(getSoBusyPoll());
+        }
+        if (option == EpollChannelOption.SO_PREFER_BUSY_POLL) {
+            return (T) Boolean.valueOf(isSoPreferBusyPoll());
+        }
         return super.getOption(option);
     }
 
@@ -146,6 +165,14 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
             setTcpMd5Sig(m);
         } else if (option == EpollChannelOption.TCP_QUICKACK) {
             setTcpQuickAck((Boolean) value);
+        } else if (option == EpollChannelOption.SO_ZEROCOPY) {
+            setZeroCopy((Boolean) value);
+        } else if (option == EpollChannelOption.ZEROCOPY_THRESHOLD) {
+            setZeroCopyThreshold((Integer) value);
+        } else if (option == EpollChannelOption.SO_BUSY_POLL) {
+            setSoBusyPoll((Integer) value);
+        } else if (option == EpollChannelOption.SO_PREFER_BUSY_POLL) {
+            setSoPreferBusyPoll((Boolean) value);
         } else {
             return super.setOption(option, value);
         }
@@ -476,6 +503,105 @@ public final class EpollSocketChannelConfig extends EpollChannelConfig implement
         }
     }
 
+    /**
+     * Returns {@code true} if large writes are done with {@code MSG_ZEROCOPY}.
+     */
+    public boolean isZeroCopy() {
+        return zeroCopy;
+    }
+
+    /**
+     * Set the {@code SO_ZEROCOPY} option on the socket and write buffers of at least
+     * {@link #getZeroCopyThreshold()} bytes with {@code MSG_ZEROCOPY}. The kernel then sends them from their memory
+     * instead of copying them first, so they are only released and their {@link io.netty.channel.ChannelPromise}s
+     * are only notified once the kernel reported via the error queue of the socket that it is done with them, which
+     * is usually when they were acknowledged by the remote peer. Their promises may so be notified after the ones of
+     * later writes.
+     *
+     * This needs linux 4.14 or later. See
+     * <a href="https://www.kernel.org/doc/html/latest/networking/msg_zerocopy.html">MSG_ZEROCOPY</a> for more details.
+     */
+    public EpollSocketChannelConfig setZeroCopy(boolean zeroCopy) {
+        try {
+            Native.setZeroCopy(channel.fd().intValue(), zeroCopy ? 1 : 0);
+            this.zeroCopy = zeroCopy;
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns the minimum number of readable bytes a buffer needs to be written with {@code MSG_ZEROCOPY}.
+     */
+    public int getZeroCopyThreshold() {
+        return zeroCopyThreshold;
+    }
+
+    /**
+     * Set the minimum number of readable bytes a buffer needs to be written with {@code MSG_ZEROCOPY} if
+     * {@link #setZeroCopy(boolean)} is enabled. Smaller buffers are copied as the bookkeeping of a zerocopy write
+     * costs more than copying a few KB. Defaults to 64KB.
+     */
+    public EpollSocketChannelConfig setZeroCopyThreshold(int zeroCopyThreshold) {
+        this.zeroCopyThreshold = checkPositiveOrZero(zeroCopyThreshold, "zeroCopyThreshold");
+        return this;
+    }
+
+    /**
+     * Returns the number of microseconds the kernel busy polls the device queue for new packets when the receive
+     * queue of the socket is empty, {@code 0} if busy polling is disabled.
+     */
+    public int getSoBusyPoll() {
+        try {
+            return Native.getSoBusyPoll(channel.fd().intValue());
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the SO_BUSY_POLL option on the underlying Channel. If set to a value greater than {@code 0} the kernel busy
+     * polls the device queue for up to this many microseconds when the receive queue of the socket is empty, which
+     * lowers the latency of reads at the cost of CPU time. Setting a higher value than
+     * {@code net.core.busy_poll} needs {@code CAP_NET_ADMIN}. This works well together with
+     * {@link EpollEventLoop#setSpinTime(long, java.util.concurrent.TimeUnit)}.
+     */
+    public EpollSocketChannelConfig setSoBusyPoll(int busyPollMicros) {
+        try {
+            Native.setSoBusyPoll(channel.fd().intValue(), busyPollMicros);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Returns {@code true} if the SO_PREFER_BUSY_POLL option is set.
+     */
+    public boolean isSoPreferBusyPoll() {
+        try {
+            return Native.isSoPreferBusyPoll(channel.fd().intValue()) != 0;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
+    /**
+     * Set the SO_PREFER_BUSY_POLL option on the underlying Channel. If enabled the kernel defers the interrupts of the
+     * device queue while the application keeps busy polling it, so packets are only picked up by busy polling.
+     *
+     * This needs linux 5.11 or later.
+     */
+    public EpollSocketChannelConfig setSoPreferBusyPoll(boolean preferBusyPoll) {
+        try {
+            Native.setSoPreferBusyPoll(channel.fd().intValue(), preferBusyPoll ? 1 : 0);
+            return this;
+        } catch (IOException e) {
+            throw new ChannelException(e);
+        }
+    }
+
     @Override
     public boolean isAllowHalfClosure() {
         return allowHalfClosure;
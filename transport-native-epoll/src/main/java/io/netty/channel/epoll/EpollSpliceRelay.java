@@ -0,0 +1,135 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelPromise;
+import io.netty.util.internal.ThrowableUtil;
+import io.netty.util.internal.UnstableApi;
+
+import java.nio.channels.ClosedChannelException;
+
+/**
+ * Relays the data between two {@link AbstractEpollStreamChannel}s in both directions via {@code splice(...)}.
+ *
+ * @see AbstractEpollStreamChannel#relay(AbstractEpollStreamChannel)
+ */
+@UnstableApi
+public final class EpollSpliceRelay {
+    private static final ClosedChannelException START_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new ClosedChannelException(), EpollSpliceRelay.class, "start()");
+
+    private final AbstractEpollStreamChannel first;
+    private final AbstractEpollStreamChannel second;
+    private final AbstractEpollStreamChannel.SpliceRelayTask firstToSecond;
+    private final AbstractEpollStreamChannel.SpliceRelayTask secondToFirst;
+    private final ChannelPromise promise;
+    private int inputShutdown;
+
+    EpollSpliceRelay(AbstractEpollStreamChannel first, AbstractEpollStreamChannel second) {
+        this.first = first;
+        this.second = second;
+        firstToSecond = first.new SpliceRelayTask(second, this);
+        secondToFirst = second.new SpliceRelayTask(first, this);
+        promise = first.newPromise();
+    }
+
+    /**
+     * Returns the channel on which {@link AbstractEpollStreamChannel#relay(AbstractEpollStreamChannel)} was called.
+     */
+    public AbstractEpollStreamChannel first() {
+        return first;
+    }
+
+    /**
+     * Returns the channel which was passed to {@link AbstractEpollStreamChannel#relay(AbstractEpollStreamChannel)}.
+     */
+    public AbstractEpollStreamChannel second() {
+        return second;
+    }
+
+    /**
+     * Returns the number of bytes that were read from {@link #first()} and written to {@link #second()}.
+     */
+    public long firstToSecondBytes() {
+        return firstToSecond.relayedBytes();
+    }
+
+    /**
+     * Returns the number of bytes that were read from {@link #second()} and written to {@link #first()}.
+     */
+    public long secondToFirstBytes() {
+        return secondToFirst.relayedBytes();
+    }
+
+    /**
+     * Returns the {@link ChannelFuture} which is notified once the relay is done, which is once both channels were
+     * closed. It is failed if the relay was stopped because of an error.
+     */
+    public ChannelFuture future() {
+        return promise;
+    }
+
+    void start() {
+        if (!first.isOpen() || !second.isOpen()) {
+            fail(START_CLOSED_CHANNEL_EXCEPTION);
+            return;
+        }
+        firstToSecond.start();
+        secondToFirst.start();
+
+        ChannelFutureListener closeListener = new ChannelFutureListener() {
+            @Override
+            public void operationComplete(ChannelFuture future) {
+                channelClosed(future.channel());
+            }
+        };
+        first.closeFuture().addListener(closeListener);
+        second.closeFuture().addListener(closeListener);
+    }
+
+    private void channelClosed(Channel ch) {
+        if (ch == first) {
+            secondToFirst.targetClosed();
+            firstToSecond.sourceClosed();
+        } else {
+            firstToSecond.targetClosed();
+            secondToFirst.sourceClosed();
+        }
+        if (!first.isOpen() && !second.isOpen()) {
+            promise.trySuccess();
+        }
+    }
+
+    /**
+     * Called once the end of input was reached on a channel which allows half-closure.
+     */
+    void inputShutdown() {
+        if (++inputShutdown == 2) {
+            // Nothing is left to relay.
+            first.close();
+            second.close();
+        }
+    }
+
+    void fail(Throwable cause) {
+        promise.tryFailure(cause);
+        first.close();
+        second.close();
+    }
+}
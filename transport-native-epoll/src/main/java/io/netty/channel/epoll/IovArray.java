@@ -93,7 +93,7 @@ final class IovArray implements MessageProcessor {
         return add(addr, offset, len);
     }
 
-    private boolean add(long addr, int offset, int len) {
+    boolean add(long addr, int offset, int len) {
         if (len == 0) {
             // No need to add an empty buffer.
             return true;
@@ -23,13 +23,17 @@ import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epolli
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollout;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.epollrdhup;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.iovMax;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingRecvmmsg;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingSendmmsg;
+import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingUdpSegment;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.isSupportingTcpFastopen;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.kernelVersion;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.ssizeMax;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.tcpMd5SigMaxKeyLen;
 import static io.netty.channel.epoll.NativeStaticallyReferencedJniMethods.uioMaxIov;
 import static io.netty.channel.unix.Errors.ERRNO_EAGAIN_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_ECONNRESET_NEGATIVE;
+import static io.netty.channel.unix.Errors.ERRNO_ENOBUFS_NEGATIVE;
 import static io.netty.channel.unix.Errors.ERRNO_EPIPE_NEGATIVE;
 import static io.netty.channel.unix.Errors.ERRNO_EWOULDBLOCK_NEGATIVE;
 import io.netty.channel.unix.Errors.NativeIoException;
@@ -63,19 +67,27 @@ public final class Native {
     public static final int IOV_MAX = iovMax();
     public static final int UIO_MAX_IOV = uioMaxIov();
     public static final boolean IS_SUPPORTING_SENDMMSG = isSupportingSendmmsg();
+    public static final boolean IS_SUPPORTING_RECVMMSG = isSupportingRecvmmsg();
+    public static final boolean IS_SUPPORTING_UDP_SEGMENT = isSupportingUdpSegment();
     public static final boolean IS_SUPPORTING_TCP_FASTOPEN = isSupportingTcpFastopen();
     public static final long SSIZE_MAX = ssizeMax();
     public static final int TCP_MD5SIG_MAXKEYLEN = tcpMd5SigMaxKeyLen();
     public static final String KERNEL_VERSION = kernelVersion();
     private static final NativeIoException SENDFILE_CONNECTION_RESET_EXCEPTION;
     private static final NativeIoException SENDMMSG_CONNECTION_RESET_EXCEPTION;
+    private static final NativeIoException RECVMMSG_CONNECTION_RESET_EXCEPTION;
     private static final NativeIoException SPLICE_CONNECTION_RESET_EXCEPTION;
+    private static final NativeIoException SEND_ZEROCOPY_CONNECTION_RESET_EXCEPTION;
     private static final ClosedChannelException SENDFILE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), Native.class, "sendfile(...)");
     private static final ClosedChannelException SENDMMSG_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), Native.class, "sendmmsg(...)");
+    private static final ClosedChannelException RECVMMSG_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
+            new ClosedChannelException(), Native.class, "recvmmsg(...)");
     private static final ClosedChannelException SPLICE_CLOSED_CHANNEL_EXCEPTION = ThrowableUtil.unknownStackTrace(
             new ClosedChannelException(), Native.class, "splice(...)");
+    private static final ClosedChannelException SEND_ZEROCOPY_CLOSED_CHANNEL_EXCEPTION =
+            ThrowableUtil.unknownStackTrace(new ClosedChannelException(), Native.class, "sendAddressZeroCopy(...)");
 
     static {
         try {
@@ -93,8 +105,12 @@ public final class Native {
                 ERRNO_EPIPE_NEGATIVE);
         SENDMMSG_CONNECTION_RESET_EXCEPTION = newConnectionResetException("syscall:sendmmsg(...)",
                 ERRNO_EPIPE_NEGATIVE);
+        RECVMMSG_CONNECTION_RESET_EXCEPTION = newConnectionResetException("syscall:recvmmsg(...)",
+                ERRNO_ECONNRESET_NEGATIVE);
         SPLICE_CONNECTION_RESET_EXCEPTION = newConnectionResetException("syscall:splice(...)",
                 ERRNO_EPIPE_NEGATIVE);
+        SEND_ZEROCOPY_CONNECTION_RESET_EXCEPTION = newConnectionResetException("syscall:send(...)",
+                ERRNO_EPIPE_NEGATIVE);
     }
 
     private Native() {
@@ -111,6 +127,12 @@ public final class Native {
 
     public static native void eventFdRead(int fd);
 
+    public static FileDescriptor newTimerFd() {
+        return new FileDescriptor(timerFd());
+    }
+
+    private static native int timerFd();
+
     public static FileDescriptor newEpollCreate() {
         return new FileDescriptor(epollCreate());
     }
@@ -127,6 +149,36 @@ public final class Native {
 
     private static native int epollWait0(int efd, long address, int len, int timeout);
 
+    /**
+     * Waits for events like {@link #epollWait(int, EpollEventArray, int)} but uses the given timerfd, which must be
+     * registered edge-triggered with the epoll instance, to time out after {@code timeoutNanos}. A negative
+     * {@code timeoutNanos} waits until an event is ready.
+     */
+    public static int epollWait(int efd, EpollEventArray events, int timerFd, long timeoutNanos) throws IOException {
+        final int seconds;
+        final int nanos;
+        if (timeoutNanos < 0) {
+            seconds = -1;
+            nanos = 0;
+        } else {
+            long secs = timeoutNanos / 1000000000L;
+            if (secs > Integer.MAX_VALUE) {
+                seconds = Integer.MAX_VALUE;
+                nanos = 0;
+            } else {
+                seconds = (int) secs;
+                nanos = (int) (timeoutNanos - secs * 1000000000L);
+            }
+        }
+        int ready = epollTimerWait0(efd, events.memoryAddress(), events.length(), timerFd, seconds, nanos);
+        if (ready < 0) {
+            throw newIOException("epoll_wait", ready);
+        }
+        return ready;
+    }
+
+    private static native int epollTimerWait0(int efd, long address, int len, int timerFd, int tvSec, int tvNsec);
+
     public static void epollCtlAdd(int efd, final int fd, final int flags) throws IOException {
         int res = epollCtlAdd0(efd, fd, flags);
         if (res < 0) {
@@ -193,6 +245,61 @@ public final class Native {
     private static native int sendmmsg0(
             int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
 
+    /**
+     * Receives up to {@code len} datagrams into the given {@link NativeDatagramPacketArray.NativeDatagramPacket}s with
+     * one <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> call and returns the
+     * number of datagrams received, which is {@code 0} if none is ready.
+     */
+    public static int recvmmsg(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len) throws IOException {
+        int res = recvmmsg0(fd, msgs, offset, len);
+        if (res >= 0) {
+            return res;
+        }
+        return ioResult("recvmmsg", res, RECVMMSG_CONNECTION_RESET_EXCEPTION, RECVMMSG_CLOSED_CHANNEL_EXCEPTION);
+    }
+
+    private static native int recvmmsg0(
+            int fd, NativeDatagramPacketArray.NativeDatagramPacket[] msgs, int offset, int len);
+
+    /**
+     * Writes the bytes between {@code pos} and {@code limit} of the memory at {@code address} with
+     * {@code send(..., MSG_ZEROCOPY)}. Returns the number of bytes written, {@code 0} if the socket can not accept
+     * more data and {@code -1} if the kernel can not track more zerocopy writes right now, in which case the bytes
+     * should be copied instead.
+     * <p>
+     * The memory must not be changed or freed before {@link #recvZeroCopyCompletion(int, int[])} reported that the
+     * kernel is done with it.
+     */
+    public static int sendAddressZeroCopy(int fd, long address, int pos, int limit) throws IOException {
+        int res = sendAddressZeroCopy0(fd, address, pos, limit);
+        if (res >= 0) {
+            return res;
+        }
+        if (res == ERRNO_ENOBUFS_NEGATIVE) {
+            return -1;
+        }
+        return ioResult("sendAddressZeroCopy", res,
+                SEND_ZEROCOPY_CONNECTION_RESET_EXCEPTION, SEND_ZEROCOPY_CLOSED_CHANNEL_EXCEPTION);
+    }
+
+    private static native int sendAddressZeroCopy0(int fd, long address, int pos, int limit);
+
+    /**
+     * Reads the next zerocopy completion notification from the error queue of the socket. If there is one
+     * {@code true} is returned and {@code completion} is filled with the first and the last id (inclusive) of the
+     * completed writes and {@code 1} if the kernel copied the data anyway, {@code 0} otherwise.
+     */
+    public static boolean recvZeroCopyCompletion(int fd, int[] completion) throws IOException {
+        int res = recvZeroCopyCompletion0(fd, completion);
+        if (res >= 0) {
+            return res == 1;
+        }
+        throw newIOException("recvZeroCopyCompletion", res);
+    }
+
+    private static native int recvZeroCopyCompletion0(int fd, int[] completion);
+
     public static int recvFd(int fd) throws IOException {
         int res = recvFd0(fd);
         if (res > 0) {
@@ -230,6 +337,14 @@ public final class Native {
 
     public static native int isReusePort(int fd) throws IOException;
 
+    public static native int getUdpSegment(int fd) throws IOException;
+
+    public static native int isZeroCopy(int fd) throws IOException;
+
+    public static native int getSoBusyPoll(int fd) throws IOException;
+
+    public static native int isSoPreferBusyPoll(int fd) throws IOException;
+
     public static native int getTcpNotSentLowAt(int fd) throws IOException;
 
     public static native int getTrafficClass(int fd) throws IOException;
@@ -250,6 +365,16 @@ public final class Native {
 
     public static native void setReusePort(int fd, int reuseAddress) throws IOException;
 
+    public static native void setUdpSegment(int fd, int segmentSize) throws IOException;
+
+    public static native void setUdpGro(int fd, int udpGro) throws IOException;
+
+    public static native void setZeroCopy(int fd, int zeroCopy) throws IOException;
+
+    public static native void setSoBusyPoll(int fd, int busyPollMicros) throws IOException;
+
+    public static native void setSoPreferBusyPoll(int fd, int preferBusyPoll) throws IOException;
+
     public static native void setTcpFastopen(int fd, int tcpFastopenBacklog) throws IOException;
 
     public static native void setTcpNotSentLowAt(int fd, int tcpNotSentLowAt) throws IOException;
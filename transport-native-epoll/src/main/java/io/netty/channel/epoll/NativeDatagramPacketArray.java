@@ -25,9 +25,11 @@ import io.netty.util.concurrent.FastThreadLocal;
 import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
 
 /**
- * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+
+ * Support <a href="http://linux.die.net/man/2/sendmmsg">sendmmsg(...)</a> on linux with GLIBC 2.14+ and
+ * <a href="http://man7.org/linux/man-pages/man2/recvmmsg.2.html">recvmmsg(...)</a> on linux with GLIBC 2.12+
  */
 final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessageProcessor {
 
@@ -69,6 +71,30 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         return array;
     }
 
+    /**
+     * Returns an empty {@link NativeDatagramPacketArray} to fill with {@link #addWritable(ByteBuf, int, int)}.
+     */
+    static NativeDatagramPacketArray getInstance() {
+        NativeDatagramPacketArray array = ARRAY.get();
+        array.count = 0;
+        return array;
+    }
+
+    /**
+     * Try to add {@code len} writable bytes of the given {@link ByteBuf}, starting at {@code index}, to receive a
+     * datagram into. Returns {@code true} on success, {@code false} otherwise.
+     */
+    boolean addWritable(ByteBuf buf, int index, int len) {
+        if (count == packets.length) {
+            return false;
+        }
+        if (!packets[count].initWritable(buf, index, len)) {
+            return false;
+        }
+        count++;
+        return true;
+    }
+
     /**
      * Try to add the given {@link DatagramPacket}. Returns {@code true} on success,
      * {@code false} otherwise.
@@ -84,7 +110,9 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         }
         NativeDatagramPacket p = packets[count];
         InetSocketAddress recipient = packet.recipient();
-        if (!p.init(content, recipient)) {
+        int segmentSize = packet instanceof SegmentedDatagramPacket ?
+                ((SegmentedDatagramPacket) packet).segmentSize() : 0;
+        if (!p.init(content, recipient, segmentSize)) {
             return false;
         }
 
@@ -129,6 +157,17 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         private int scopeId;
         private int port;
 
+        // Filled by recvmmsg(...)
+        private final byte[] senderAddr = new byte[16];
+        private int senderAddrLen;
+        private int senderScopeId;
+        private int senderPort;
+        private int receivedAmount;
+        private boolean truncated;
+
+        // The UDP_SEGMENT size to write with, or the UDP_GRO size filled by recvmmsg(...). 0 if not used.
+        private int segmentSize;
+
         private void release() {
             array.release();
         }
@@ -136,7 +175,7 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
         /**
          * Init this instance and return {@code true} if the init was successful.
          */
-        private boolean init(ByteBuf buf, InetSocketAddress recipient) {
+        private boolean init(ByteBuf buf, InetSocketAddress recipient, int segmentSize) {
             array.clear();
             if (!array.add(buf)) {
                 return false;
@@ -154,7 +193,58 @@ final class NativeDatagramPacketArray implements ChannelOutboundBuffer.MessagePr
                 scopeId = 0;
             }
             port = recipient.getPort();
+            this.segmentSize = segmentSize;
+            return true;
+        }
+
+        private boolean initWritable(ByteBuf buf, int index, int len) {
+            array.clear();
+            if (!array.add(buf.memoryAddress(), index, len)) {
+                return false;
+            }
+            memoryAddress = array.memoryAddress(0);
+            count = array.count();
             return true;
         }
+
+        /**
+         * Returns the number of bytes received by the last {@code recvmmsg(...)} call.
+         */
+        int receivedAmount() {
+            return receivedAmount;
+        }
+
+        /**
+         * Returns {@code true} if the datagram received by the last {@code recvmmsg(...)} call did not fit into the
+         * buffer, so only the first {@link #receivedAmount()} bytes of it were received.
+         */
+        boolean isTruncated() {
+            return truncated;
+        }
+
+        /**
+         * Returns the size of the datagrams which were coalesced into the one received by the last
+         * {@code recvmmsg(...)} call if {@code UDP_GRO} is used, {@code 0} otherwise.
+         */
+        int segmentSize() {
+            return segmentSize;
+        }
+
+        /**
+         * Returns a new {@link DatagramPacket} for the datagram received by the last {@code recvmmsg(...)} call.
+         */
+        DatagramPacket newDatagramPacket(ByteBuf content, InetSocketAddress localAddress) throws UnknownHostException {
+            final InetAddress address;
+            if (senderAddrLen == 4) {
+                byte[] ipv4 = new byte[4];
+                System.arraycopy(senderAddr, 0, ipv4, 0, 4);
+                address = InetAddress.getByAddress(ipv4);
+            } else if (senderScopeId == 0) {
+                address = InetAddress.getByAddress(senderAddr);
+            } else {
+                address = Inet6Address.getByAddress(null, senderAddr, senderScopeId);
+            }
+            return new DatagramPacket(content, localAddress, new InetSocketAddress(address, senderPort));
+        }
     }
 }
@@ -52,6 +52,10 @@ final class NativeStaticallyReferencedJniMethods {
 
     static native boolean isSupportingSendmmsg();
 
+    static native boolean isSupportingRecvmmsg();
+
+    static native boolean isSupportingUdpSegment();
+
     static native boolean isSupportingTcpFastopen();
 
     static native String kernelVersion();
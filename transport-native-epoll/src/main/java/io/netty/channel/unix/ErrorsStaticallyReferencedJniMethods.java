@@ -46,6 +46,8 @@ final class ErrorsStaticallyReferencedJniMethods {
 
     static native int errnoEINPROGRESS();
 
+    static native int errnoENOBUFS();
+
     static native int errorECONNREFUSED();
 
     static native int errorEISCONN();
@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import io.netty.util.CharsetUtil;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EpollDatagramScatteringReadTest {
+
+    private static final int MAX_DATAGRAM_SIZE = 64;
+    private static final int DATAGRAMS_PER_READ = 16;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void createGroup() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroyGroup() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 10000)
+    public void testScatteringRead() throws Throwable {
+        testRead(MAX_DATAGRAM_SIZE, true);
+    }
+
+    @Test(timeout = 10000)
+    public void testReadWithoutMaxDatagramPayloadSize() throws Throwable {
+        testRead(0, false);
+    }
+
+    private static void testRead(int maxDatagramSize, boolean batched) throws Throwable {
+        final int count = 100;
+        final CountDownLatch latch = new CountDownLatch(count);
+        final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+        final List<InetSocketAddress> senders = Collections.synchronizedList(new ArrayList<InetSocketAddress>());
+        // The buffers the received datagrams are slices of.
+        final Set<ByteBuf> buffers = Collections.newSetFromMap(new IdentityHashMap<ByteBuf, Boolean>());
+
+        Bootstrap sb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .option(ChannelOption.AUTO_READ, false)
+                // Use buffers which are not recycled to tell them apart.
+                .option(ChannelOption.ALLOCATOR, UnpooledByteBufAllocator.DEFAULT)
+                .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, maxDatagramSize)
+                .option(ChannelOption.RCVBUF_ALLOCATOR,
+                        new FixedRecvByteBufAllocator(MAX_DATAGRAM_SIZE * DATAGRAMS_PER_READ))
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        received.add(packet.content().toString(CharsetUtil.US_ASCII));
+                        senders.add(packet.sender());
+                        ByteBuf buffer = packet.content().unwrap();
+                        buffers.add(buffer == null ? packet.content() : buffer);
+                        latch.countDown();
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+            cc = cb.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+            InetSocketAddress serverAddress = (InetSocketAddress) sc.localAddress();
+
+            // Queue all datagrams in the socket before reading so they can be read in batches.
+            for (int i = 0; i < count; i++) {
+                ByteBuf content = Unpooled.copiedBuffer("datagram-" + i, CharsetUtil.US_ASCII);
+                cc.writeAndFlush(new DatagramPacket(content, serverAddress)).sync();
+            }
+            sc.config().setAutoRead(true);
+            latch.await();
+
+            for (int i = 0; i < count; i++) {
+                assertEquals("datagram-" + i, received.get(i));
+                assertEquals(((InetSocketAddress) cc.localAddress()).getPort(), senders.get(i).getPort());
+                assertTrue(senders.get(i).getAddress().isLoopbackAddress());
+            }
+            if (batched && Native.IS_SUPPORTING_RECVMMSG) {
+                // Each recvmmsg(...) call fills a whole buffer.
+                assertEquals((count + DATAGRAMS_PER_READ - 1) / DATAGRAMS_PER_READ, buffers.size());
+            } else {
+                assertEquals(count, buffers.size());
+            }
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelException;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.FixedRecvByteBufAllocator;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.socket.DatagramPacket;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assume.assumeNoException;
+import static org.junit.Assume.assumeTrue;
+
+public class EpollDatagramSegmentationTest {
+
+    private static final int SEGMENT_SIZE = 100;
+    private static final int SEGMENTS = 10;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void createGroup() {
+        group = new EpollEventLoopGroup(1);
+    }
+
+    @AfterClass
+    public static void destroyGroup() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 10000)
+    public void testSegmentedDatagramPacket() throws Throwable {
+        testSegmentation(false, false, 0, 65536, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpSegmentOption() throws Throwable {
+        testSegmentation(true, false, 0, 65536, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGro() throws Throwable {
+        testSegmentation(false, true, 0, 65536, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGroWithMaxDatagramPayloadSize() throws Throwable {
+        // The coalesced datagram must not be truncated to the maximum payload size of a single datagram.
+        testSegmentation(false, true, SEGMENT_SIZE, 65536, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGroTruncated() throws Throwable {
+        // Only the segments which were received completely are passed on.
+        testSegmentation(false, true, 0, SEGMENT_SIZE * 3 + SEGMENT_SIZE / 2, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    @Test(timeout = 10000)
+    public void testUdpGroHeapBuffer() throws Throwable {
+        // Buffers without a memory address must not make coalesced datagrams be read as one.
+        testSegmentation(false, true, 0, 65536, new AbstractByteBufAllocator() {
+            @Override
+            public ByteBuf ioBuffer(int initialCapacity) {
+                return heapBuffer(initialCapacity);
+            }
+
+            @Override
+            protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+                return Unpooled.buffer(initialCapacity, maxCapacity);
+            }
+
+            @Override
+            protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+                return Unpooled.directBuffer(initialCapacity, maxCapacity);
+            }
+
+            @Override
+            public boolean isDirectBufferPooled() {
+                return false;
+            }
+        });
+    }
+
+    private static void testSegmentation(boolean udpSegmentOption, boolean udpGro, int maxDatagramPayloadSize,
+                                         int receiveBufferSize, ByteBufAllocator allocator) throws Throwable {
+        assumeTrue(SegmentedDatagramPacket.isSupported());
+
+        final int expectedSegments = Math.min(SEGMENTS, receiveBufferSize / SEGMENT_SIZE);
+        final CountDownLatch latch = new CountDownLatch(expectedSegments);
+        final List<ByteBuf> received = Collections.synchronizedList(new ArrayList<ByteBuf>());
+        // The buffers the received datagrams are slices of.
+        final Set<ByteBuf> buffers = Collections.newSetFromMap(new IdentityHashMap<ByteBuf, Boolean>());
+
+        Bootstrap sb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .option(ChannelOption.AUTO_READ, false)
+                // Use buffers which are not recycled to tell them apart.
+                .option(ChannelOption.ALLOCATOR, allocator)
+                .option(ChannelOption.RCVBUF_ALLOCATOR, new FixedRecvByteBufAllocator(receiveBufferSize))
+                .option(EpollChannelOption.MAX_DATAGRAM_PAYLOAD_SIZE, maxDatagramPayloadSize)
+                .handler(new SimpleChannelInboundHandler<DatagramPacket>() {
+                    @Override
+                    protected void channelRead0(ChannelHandlerContext ctx, DatagramPacket packet) {
+                        received.add(packet.content().copy());
+                        ByteBuf buffer = packet.content().unwrap();
+                        buffers.add(buffer == null ? packet.content() : buffer);
+                        latch.countDown();
+                    }
+                });
+        Bootstrap cb = new Bootstrap().group(group).channel(EpollDatagramChannel.class)
+                .handler(new ChannelInboundHandlerAdapter());
+        if (udpSegmentOption) {
+            cb.option(EpollChannelOption.UDP_SEGMENT, SEGMENT_SIZE);
+        }
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = sb.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+            if (udpGro) {
+                try {
+                    sc.config().setOption(EpollChannelOption.UDP_GRO, true);
+                } catch (ChannelException e) {
+                    // UDP_GRO needs linux 5.0+
+                    assumeNoException(e);
+                }
+            }
+            cc = cb.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+            InetSocketAddress serverAddress = (InetSocketAddress) sc.localAddress();
+            assertEquals(udpGro, sc.config().getOption(EpollChannelOption.UDP_GRO));
+            assertEquals(udpSegmentOption ? SEGMENT_SIZE : 0,
+                    (int) cc.config().getOption(EpollChannelOption.UDP_SEGMENT));
+
+            ByteBuf content = Unpooled.directBuffer(SEGMENT_SIZE * SEGMENTS);
+            for (int i = 0; i < SEGMENTS; i++) {
+                for (int j = 0; j < SEGMENT_SIZE; j++) {
+                    content.writeByte(i);
+                }
+            }
+            if (udpSegmentOption) {
+                cc.writeAndFlush(new DatagramPacket(content, serverAddress)).sync();
+            } else {
+                cc.writeAndFlush(new SegmentedDatagramPacket(content, SEGMENT_SIZE, serverAddress)).sync();
+            }
+            sc.config().setAutoRead(true);
+            latch.await();
+            // Wait until the read which counted down the latch is done, so no other datagram was passed on.
+            sc.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+
+            assertEquals(expectedSegments, received.size());
+            for (int i = 0; i < expectedSegments; i++) {
+                ByteBuf buf = received.get(i);
+                assertEquals(SEGMENT_SIZE, buf.readableBytes());
+                for (int j = 0; j < SEGMENT_SIZE; j++) {
+                    assertEquals(i, buf.getByte(j));
+                }
+                buf.release();
+            }
+            // With UDP_GRO the segments are received as one datagram which is split up again.
+            assertEquals(udpGro ? 1 : SEGMENTS, buffers.size());
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+}
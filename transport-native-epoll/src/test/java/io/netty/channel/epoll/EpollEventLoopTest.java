@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SelectStrategy;
+import io.netty.channel.SelectStrategyFactory;
+import io.netty.util.IntSupplier;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class EpollEventLoopTest {
+
+    @Test(timeout = 5000)
+    public void testScheduleSubMillisecondTask() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            // With a millisecond timeout epoll_wait(...) would round the delay up to 1ms.
+            long[] delays = new long[11];
+            for (int i = 0; i < delays.length; i++) {
+                delays[i] = scheduleAndMeasureDelay(group, 600);
+                assertTrue(delays[i] >= TimeUnit.MICROSECONDS.toNanos(600));
+            }
+            // Use the median so a few runs that were delayed by the OS do not fail the test.
+            Arrays.sort(delays);
+            long median = delays[delays.length / 2];
+            assertTrue("median delay: " + median + "ns", median < TimeUnit.MICROSECONDS.toNanos(850));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static long scheduleAndMeasureDelay(EventLoopGroup group, long delayMicros) throws Exception {
+        final long start = System.nanoTime();
+        final long[] delay = new long[1];
+        group.schedule(new Runnable() {
+            @Override
+            public void run() {
+                delay[0] = System.nanoTime() - start;
+            }
+        }, delayMicros, TimeUnit.MICROSECONDS).sync();
+        return delay[0];
+    }
+
+    @Test(timeout = 5000)
+    public void testWakeUpWithoutScheduledTasks() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            EventLoop loop = group.next();
+            // Let the loop block in epoll_wait without a timeout.
+            loop.submit(new Runnable() {
+                @Override
+                public void run() {
+                    // NOOP
+                }
+            }).sync();
+            Thread.sleep(100);
+
+            final CountDownLatch latch = new CountDownLatch(1);
+            loop.execute(new Runnable() {
+                @Override
+                public void run() {
+                    latch.countDown();
+                }
+            });
+            assertTrue(latch.await(1, TimeUnit.SECONDS));
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testSpinTime() throws Exception {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            group.setSpinTime(10, TimeUnit.MILLISECONDS);
+            EpollEventLoop loop = (EpollEventLoop) group.next();
+            assertEquals(TimeUnit.MILLISECONDS.toNanos(10), loop.getSpinTimeNanos());
+            testTasksWhileWaiting(loop);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testNegativeSpinTime() {
+        EpollEventLoopGroup group = new EpollEventLoopGroup(1);
+        try {
+            group.setSpinTime(-1, TimeUnit.MILLISECONDS);
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    @Test(timeout = 5000)
+    public void testBusyWait() throws Exception {
+        EventLoopGroup group = new EpollEventLoopGroup(1, new SelectStrategyFactory() {
+            @Override
+            public SelectStrategy newSelectStrategy() {
+                return new SelectStrategy() {
+                    @Override
+                    public int calculateStrategy(IntSupplier selectSupplier, boolean hasTasks) throws Exception {
+                        return hasTasks ? selectSupplier.get() : SelectStrategy.BUSY_WAIT;
+                    }
+                };
+            }
+        });
+        try {
+            testTasksWhileWaiting(group.next());
+        } finally {
+            group.shutdownGracefully(0, 0, TimeUnit.MILLISECONDS).syncUninterruptibly();
+        }
+    }
+
+    private static void testTasksWhileWaiting(EventLoop loop) throws Exception {
+        Thread.sleep(50);
+        final CountDownLatch latch = new CountDownLatch(2);
+        Runnable task = new Runnable() {
+            @Override
+            public void run() {
+                latch.countDown();
+            }
+        };
+        loop.execute(task);
+        loop.schedule(task, 100, TimeUnit.MILLISECONDS);
+        assertTrue(latch.await(1, TimeUnit.SECONDS));
+    }
+}
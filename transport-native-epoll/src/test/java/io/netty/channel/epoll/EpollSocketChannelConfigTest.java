@@ -125,6 +125,61 @@ public class EpollSocketChannelConfigTest {
         assertTrue(ch.config().isTcpQuickAck());
     }
 
+    @Test
+    public void testZeroCopy() {
+        try {
+            ch.config().setZeroCopy(true);
+        } catch (ChannelException e) {
+            // SO_ZEROCOPY needs linux 4.14+
+            assumeNoException(e);
+        }
+        assertTrue(ch.config().isZeroCopy());
+        assertEquals(Boolean.TRUE, ch.config().getOption(EpollChannelOption.SO_ZEROCOPY));
+        ch.config().setZeroCopy(false);
+        assertFalse(ch.config().isZeroCopy());
+    }
+
+    @Test
+    public void testZeroCopyThreshold() {
+        ch.config().setOption(EpollChannelOption.ZEROCOPY_THRESHOLD, 1024);
+        assertEquals(1024, ch.config().getZeroCopyThreshold());
+        try {
+            ch.config().setZeroCopyThreshold(-1);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+        assertEquals(1024, ch.config().getZeroCopyThreshold());
+    }
+
+    @Test
+    public void testSoBusyPoll() {
+        try {
+            ch.config().setSoBusyPoll(50);
+        } catch (ChannelException e) {
+            // Values above net.core.busy_poll need CAP_NET_ADMIN
+            assumeNoException(e);
+        }
+        assertEquals(50, ch.config().getSoBusyPoll());
+        assertEquals(Integer.valueOf(50), ch.config().getOption(EpollChannelOption.SO_BUSY_POLL));
+        ch.config().setSoBusyPoll(0);
+        assertEquals(0, ch.config().getSoBusyPoll());
+    }
+
+    @Test
+    public void testSoPreferBusyPoll() {
+        try {
+            ch.config().setSoPreferBusyPoll(true);
+        } catch (ChannelException e) {
+            // SO_PREFER_BUSY_POLL needs linux 5.11+
+            assumeNoException(e);
+        }
+        assertTrue(ch.config().isSoPreferBusyPoll());
+        assertEquals(Boolean.TRUE, ch.config().getOption(EpollChannelOption.SO_PREFER_BUSY_POLL));
+        ch.config().setSoPreferBusyPoll(false);
+        assertFalse(ch.config().isSoPreferBusyPoll());
+    }
+
     @Test
     public void testSetOptionWhenClosed() {
         ch.close().syncUninterruptibly();
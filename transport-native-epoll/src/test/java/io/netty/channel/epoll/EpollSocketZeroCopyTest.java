@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017 The Netty Project
+ *
+ * The Netty Project licenses this file to you under the Apache License,
+ * version 2.0 (the "License"); you may not use this file except in compliance
+ * with the License. You may obtain a copy of the License at:
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package io.netty.channel.epoll;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeNoException;
+
+public class EpollSocketZeroCopyTest {
+
+    private static final int THRESHOLD = 64 * 1024;
+
+    private static EventLoopGroup group;
+
+    @BeforeClass
+    public static void createGroup() {
+        group = new EpollEventLoopGroup(2);
+    }
+
+    @AfterClass
+    public static void destroyGroup() {
+        group.shutdownGracefully();
+    }
+
+    @Test(timeout = 10000)
+    public void testZeroCopyWrite() throws Throwable {
+        final byte[] small = newData(1024);
+        final byte[] large = newData(1024 * 1024);
+        final int total = small.length * 2 + large.length;
+        final ByteBuf received = Unpooled.buffer(total);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = newServer(new SimpleChannelInboundHandler<ByteBuf>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                    received.writeBytes(msg);
+                    if (received.readableBytes() == total) {
+                        latch.countDown();
+                    }
+                }
+            }, true);
+            cc = newClient(sc);
+
+            // A small buffer followed by a large one is written with writev(...) and MSG_ZEROCOPY.
+            ByteBuf largeBuf = PooledByteBufAllocator.DEFAULT.directBuffer(large.length).writeBytes(large);
+            cc.write(Unpooled.directBuffer().writeBytes(small));
+            ChannelFuture largeFuture = cc.write(largeBuf);
+            ChannelFuture smallFuture = cc.writeAndFlush(Unpooled.directBuffer().writeBytes(small));
+            largeFuture.sync();
+            smallFuture.sync();
+            // The buffer is only released once the kernel is done with it.
+            assertEquals(0, largeBuf.refCnt());
+
+            latch.await();
+            assertEquals(Unpooled.wrappedBuffer(small, large, small), received);
+
+            EpollSocketChannel ch = (EpollSocketChannel) cc;
+            assertEquals(total, ch.zeroCopyBytesWritten() + ch.copiedBytesWritten());
+            // Loopback copies the data when it is received, so MSG_ZEROCOPY writes may be counted as copied.
+            assertTrue(ch.copiedBytesWritten() >= small.length * 2);
+        } finally {
+            received.release();
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testSameBufferWrittenTwice() throws Throwable {
+        final byte[] large = newData(1024 * 1024);
+        final ByteBuf received = Unpooled.buffer(large.length * 2);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = newServer(new SimpleChannelInboundHandler<ByteBuf>() {
+                @Override
+                protected void channelRead0(ChannelHandlerContext ctx, ByteBuf msg) {
+                    received.writeBytes(msg);
+                    if (received.readableBytes() == large.length * 2) {
+                        latch.countDown();
+                    }
+                }
+            }, true);
+            cc = newClient(sc);
+
+            // Each write must complete its own promise, even though they share the ByteBuf.
+            ByteBuf largeBuf = PooledByteBufAllocator.DEFAULT.directBuffer(large.length).writeBytes(large);
+            ChannelFuture firstFuture = cc.write(largeBuf.retain());
+            ChannelFuture secondFuture = cc.writeAndFlush(largeBuf);
+            firstFuture.sync();
+            secondFuture.sync();
+            assertEquals(0, largeBuf.refCnt());
+
+            latch.await();
+            assertEquals(Unpooled.wrappedBuffer(large, large), received);
+        } finally {
+            received.release();
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testShutdownOutputWithPendingZeroCopyWrites() throws Throwable {
+        final byte[] large = newData(1024 * 1024);
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            sc = newServer(new ChannelInboundHandlerAdapter() {
+                private int received;
+
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    received += ((ByteBuf) msg).readableBytes();
+                    ((ByteBuf) msg).release();
+                    if (received == large.length) {
+                        ctx.writeAndFlush(Unpooled.wrappedBuffer(new byte[] { 1 }));
+                    }
+                }
+            }, true);
+            cc = newClient(sc, new ChannelInboundHandlerAdapter() {
+                @Override
+                public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                    ((ByteBuf) msg).release();
+                    latch.countDown();
+                }
+            });
+
+            final Channel channel = cc;
+            final ByteBuf largeBuf = PooledByteBufAllocator.DEFAULT.directBuffer(large.length).writeBytes(large);
+            // Shutdown from the EventLoop so the zerocopy write is still pending.
+            cc.eventLoop().submit(new Runnable() {
+                @Override
+                public void run() {
+                    channel.writeAndFlush(largeBuf);
+                    ((EpollSocketChannel) channel).shutdownOutput();
+                }
+            }).sync();
+
+            // The channel must still send the rest of the data and read the response.
+            latch.await();
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseWithPendingZeroCopyWrites() throws Throwable {
+        Channel sc = null;
+        Channel cc = null;
+        try {
+            // The server does not read, so not all the data can be sent before the client is closed.
+            sc = newServer(new ChannelInboundHandlerAdapter(), false);
+            cc = newClient(sc);
+
+            ByteBuf largeBuf = PooledByteBufAllocator.DEFAULT.directBuffer(16 * 1024 * 1024);
+            largeBuf.writeBytes(newData(largeBuf.capacity()));
+            ChannelFuture future = cc.writeAndFlush(largeBuf);
+            cc.close().sync();
+
+            future.await();
+            // Either the data was sent before the socket was reset, or the write failed.
+            assertEquals(0, largeBuf.refCnt());
+        } finally {
+            if (cc != null) {
+                cc.close().sync();
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+
+    @Test(timeout = 10000)
+    public void testCloseManyWithPendingZeroCopyWrites() throws Throwable {
+        Channel sc = null;
+        Channel[] ccs = new Channel[4];
+        try {
+            sc = newServer(new ChannelInboundHandlerAdapter(), false);
+            byte[] data = newData(4 * 1024 * 1024);
+            ChannelFuture[] futures = new ChannelFuture[ccs.length];
+            for (int i = 0; i < ccs.length; i++) {
+                ccs[i] = newClient(sc);
+                futures[i] = ccs[i].writeAndFlush(
+                        PooledByteBufAllocator.DEFAULT.directBuffer(data.length).writeBytes(data));
+            }
+            long start = System.nanoTime();
+            for (Channel cc : ccs) {
+                cc.close();
+            }
+            for (int i = 0; i < ccs.length; i++) {
+                ccs[i].closeFuture().sync();
+                futures[i].await();
+            }
+            // The channels wait for their completions at the same time, and each waits for at most one second.
+            assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(ccs.length - 1));
+        } finally {
+            for (Channel cc : ccs) {
+                if (cc != null) {
+                    cc.close().sync();
+                }
+            }
+            if (sc != null) {
+                sc.close().sync();
+            }
+        }
+    }
+
+    private static byte[] newData(int size) {
+        byte[] data = new byte[size];
+        new Random().nextBytes(data);
+        return data;
+    }
+
+    private static Channel newServer(final ChannelInboundHandlerAdapter handler, boolean autoRead) throws Exception {
+        return new ServerBootstrap().group(group).channel(EpollServerSocketChannel.class)
+                .childOption(ChannelOption.AUTO_READ, autoRead)
+                .childHandler(handler)
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0)).sync().channel();
+    }
+
+    private static Channel newClient(Channel sc) throws Exception {
+        return newClient(sc, new ChannelInboundHandlerAdapter());
+    }
+
+    private static Channel newClient(Channel sc, ChannelInboundHandlerAdapter handler) throws Exception {
+        Channel cc = new Bootstrap().group(group).channel(EpollSocketChannel.class)
+                .handler(handler)
+                .connect(sc.localAddress()).sync().channel();
+        try {
+            ((EpollSocketChannel) cc).config().setZeroCopy(true).setZeroCopyThreshold(THRESHOLD);
+        } catch (RuntimeException e) {
+            cc.close();
+            // SO_ZEROCOPY needs linux 4.14+
+            assumeNoException(e);
+        }
+        return cc;
+    }
+}
@@ -25,11 +25,14 @@ import io.netty.channel.ChannelFuture;
 import io.netty.channel.ChannelFutureListener;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.SimpleChannelInboundHandler;
 import io.netty.channel.unix.FileDescriptor;
 import org.junit.Assert;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import org.junit.Test;
 
 import java.io.File;
@@ -189,6 +192,85 @@ public class EpollSpliceTest {
         }
     }
 
+    @Test
+    public void spliceRelay() throws Throwable {
+        final EchoHandler sh = new EchoHandler();
+        final EchoHandler ch = new EchoHandler();
+        final AtomicReference<EpollSpliceRelay> relay = new AtomicReference<EpollSpliceRelay>();
+
+        EventLoopGroup group = new EpollEventLoopGroup(1);
+        ServerBootstrap bs = new ServerBootstrap();
+        bs.channel(EpollServerSocketChannel.class);
+        bs.group(group).childHandler(sh);
+        final Channel sc = bs.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        ServerBootstrap bs2 = new ServerBootstrap();
+        bs2.channel(EpollServerSocketChannel.class);
+        bs2.childOption(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+        bs2.childOption(ChannelOption.AUTO_READ, false);
+        bs2.group(group).childHandler(new ChannelInboundHandlerAdapter() {
+            @Override
+            public void channelActive(final ChannelHandlerContext ctx) throws Exception {
+                Bootstrap bs = new Bootstrap();
+                bs.option(EpollChannelOption.EPOLL_MODE, EpollMode.LEVEL_TRIGGERED);
+                bs.option(ChannelOption.AUTO_READ, false);
+                bs.channel(EpollSocketChannel.class);
+                bs.group(ctx.channel().eventLoop()).handler(new ChannelInboundHandlerAdapter());
+                bs.connect(sc.localAddress()).addListener(new ChannelFutureListener() {
+                    @Override
+                    public void operationComplete(ChannelFuture future) throws Exception {
+                        if (!future.isSuccess()) {
+                            ctx.close();
+                            return;
+                        }
+                        EpollSocketChannel ch = (EpollSocketChannel) ctx.channel();
+                        EpollSocketChannel ch2 = (EpollSocketChannel) future.channel();
+                        relay.set(ch.relay(ch2));
+                        ch.config().setAutoRead(true);
+                        ch2.config().setAutoRead(true);
+                    }
+                });
+            }
+        });
+        Channel pc = bs2.bind(new InetSocketAddress(0)).syncUninterruptibly().channel();
+
+        Bootstrap cb = new Bootstrap();
+        cb.group(group);
+        cb.channel(EpollSocketChannel.class);
+        cb.handler(ch);
+        Channel cc = cb.connect(pc.localAddress()).syncUninterruptibly().channel();
+
+        for (int i = 0; i < data.length; ) {
+            int length = Math.min(random.nextInt(1024 * 64), data.length - i);
+            ByteBuf buf = Unpooled.wrappedBuffer(data, i, length);
+            cc.writeAndFlush(buf);
+            i += length;
+        }
+
+        while (ch.counter < data.length && sh.exception.get() == null && ch.exception.get() == null) {
+            Thread.sleep(50);
+        }
+        if (sh.exception.get() != null) {
+            throw sh.exception.get();
+        }
+        if (ch.exception.get() != null) {
+            throw ch.exception.get();
+        }
+        assertEquals(data.length, relay.get().firstToSecondBytes());
+        assertEquals(data.length, relay.get().secondToFirstBytes());
+
+        // Closing the client must close both channels of the relay.
+        cc.close().sync();
+        assertTrue(relay.get().future().await(5000));
+        assertTrue(relay.get().future().isSuccess());
+        assertFalse(relay.get().first().isOpen());
+        assertFalse(relay.get().second().isOpen());
+
+        sc.close().sync();
+        pc.close().sync();
+        group.shutdownGracefully();
+    }
+
     @Test
     public void spliceToFile() throws Throwable {
         EventLoopGroup group = new EpollEventLoopGroup(1);